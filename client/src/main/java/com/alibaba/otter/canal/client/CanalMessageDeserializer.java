@@ -4,6 +4,7 @@ import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalPacket;
 import com.alibaba.otter.canal.protocol.CanalPacket.Ack;
 import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CompressionUtil;
 import com.alibaba.otter.canal.protocol.Message;
 import com.alibaba.otter.canal.protocol.exception.CanalClientException;
 import com.google.protobuf.ByteString;
@@ -22,12 +23,16 @@ public class CanalMessageDeserializer {
                 CanalPacket.Packet p = CanalPacket.Packet.parseFrom(data);
                 switch (p.getType()) {
                     case MESSAGES: {
+                        ByteString body = p.getBody();
                         if (!p.getCompression().equals(Compression.NONE)
                                 && !p.getCompression().equals(Compression.COMPRESSIONCOMPATIBLEPROTO2)) {
-                            throw new CanalClientException("compression is not supported in this connector");
+                            if (!CompressionUtil.isSupported(p.getCompression())) {
+                                throw new CanalClientException("compression is not supported in this connector");
+                            }
+                            body = CompressionUtil.decompress(p.getCompression(), body);
                         }
 
-                        CanalPacket.Messages messages = CanalPacket.Messages.parseFrom(p.getBody());
+                        CanalPacket.Messages messages = CanalPacket.Messages.parseFrom(body);
                         Message result = new Message(messages.getBatchId());
                         if (lazyParseEntry) {
                             // byteString
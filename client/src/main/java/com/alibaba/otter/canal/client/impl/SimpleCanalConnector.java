@@ -11,9 +11,15 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,13 +37,16 @@ import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback;
 import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Credit;
 import com.alibaba.otter.canal.protocol.CanalPacket.Get;
 import com.alibaba.otter.canal.protocol.CanalPacket.Handshake;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
 import com.alibaba.otter.canal.protocol.CanalPacket.Sub;
 import com.alibaba.otter.canal.protocol.CanalPacket.Unsub;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.CompressionUtil;
 import com.alibaba.otter.canal.protocol.Message;
 import com.alibaba.otter.canal.protocol.SecurityUtil;
 import com.alibaba.otter.canal.protocol.exception.CanalClientException;
@@ -73,6 +82,16 @@ public class SimpleCanalConnector implements CanalConnector {
     private boolean rollbackOnConnect = true;                                               // 是否在connect链接成功后，自动执行rollback操作
     private boolean rollbackOnDisConnect = false;                                              // 是否在connect链接成功后，自动执行rollback操作
     private boolean lazyParseEntry = false;                                              // 是否自动化解析Entry对象,如果考虑最大化性能可以延后解析
+    private int streamBatches = 0;                                                  // 流式订阅的窗口batch数, <=0代表使用GET
+    private long streamBytes = 64 * 1024 * 1024;                                   // 流式订阅的窗口字节数
+    private boolean streaming = false;                                              // 是否已经开启流式订阅
+    private int lastStreamBytes = 0;                                                // 上一个推送包的大小, 下一次获取时归还窗口
+    private int prefetchDepth = 0;                                                  // 同时在途的GET数量, <=0代表不做预取
+    private long prefetchBytes = 64 * 1024 * 1024;                                 // 预取数据的最大字节数
+    private volatile Prefetcher prefetcher;
+    private Compression compression = Compression.NONE;                             // 期望server对MESSAGES使用的压缩方式, 支持ZLIB/GZIP
+    private final LinkedList<Long> unackedBatchIds = new LinkedList<Long>();        // 预取模式下已返回但未ack的batchId, 用于保证按顺序ack
+    private final Set<Long> ackedBatchIds = new HashSet<Long>();                    // 预取模式下提前ack的batchId
     // 读写数据分别使用不同的锁进行控制，减小锁粒度,读也需要排他锁，并发度容易造成数据包混乱，反序列化失败
     private Object readDataLock = new Object();
     private Object writeDataLock = new Object();
@@ -141,6 +160,8 @@ public class SimpleCanalConnector implements CanalConnector {
 
     private InetSocketAddress doConnect() throws CanalClientException {
         try {
+            streaming = false;
+            lastStreamBytes = 0;
             channel = SocketChannel.open();
             channel.socket().setSoTimeout(soTimeout);
             SocketAddress address = getAddress();
@@ -175,11 +196,14 @@ public class SimpleCanalConnector implements CanalConnector {
                     .setNetReadTimeout(idleTimeout)
                     .setNetWriteTimeout(idleTimeout)
                     .build();
-            writeWithHeader(Packet.newBuilder()
+            Packet.Builder authBuilder = Packet.newBuilder()
                     .setType(PacketType.CLIENTAUTHENTICATION)
-                    .setBody(ca.toByteString())
-                    .build()
-                    .toByteArray());
+                    .setBody(ca.toByteString());
+            if (CompressionUtil.isSupported(compression)) {
+                // 老版本的server会忽略该字段，按照不压缩输出
+                authBuilder.setCompression(compression);
+            }
+            writeWithHeader(authBuilder.build().toByteArray());
             //
             Packet ack = Packet.parseFrom(readNextPacket());
             if (ack.getType() != PacketType.ACK) {
@@ -200,6 +224,15 @@ public class SimpleCanalConnector implements CanalConnector {
     }
 
     private void doDisconnect() throws CanalClientException {
+        streaming = false;
+        lastStreamBytes = 0;
+        Prefetcher current = prefetcher;
+        if (current != null) {
+            // 链接即将关闭, 不需要再读取在途的GET
+            prefetcher = null;
+            current.abort();
+        }
+        clearUnackedBatchIds();
         if (readableChannel != null) {
             quietlyClose(readableChannel);
             readableChannel = null;
@@ -232,6 +265,8 @@ public class SimpleCanalConnector implements CanalConnector {
             return;
         }
         try {
+            stopStreaming();
+            stopPrefetch();
             writeWithHeader(Packet.newBuilder()
                     .setType(PacketType.SUBSCRIPTION)
                     .setBody(Sub.newBuilder()
@@ -261,6 +296,8 @@ public class SimpleCanalConnector implements CanalConnector {
             return;
         }
         try {
+            stopStreaming();
+            stopPrefetch();
             writeWithHeader(Packet.newBuilder()
                     .setType(PacketType.UNSUBSCRIPTION)
                     .setBody(Unsub.newBuilder()
@@ -307,22 +344,160 @@ public class SimpleCanalConnector implements CanalConnector {
                 unit = TimeUnit.MILLISECONDS;
             }
 
+            if (streamBatches > 0) {
+                return streamWithoutAck(size, time, unit);
+            }
+
+            if (prefetchDepth > 0) {
+                return prefetchWithoutAck(size, time, unit);
+            }
+
+            writeWithHeader(getPacket(size, time, unit));
+            return receiveMessages();
+        } catch (IOException e) {
+            throw new CanalClientException(e);
+        }
+    }
+
+    private byte[] getPacket(int size, long time, TimeUnit unit) {
+        return Packet.newBuilder()
+                .setType(PacketType.GET)
+                .setBody(Get.newBuilder()
+                        .setAutoAck(false)
+                        .setDestination(clientIdentity.getDestination())
+                        .setClientId(String.valueOf(clientIdentity.getClientId()))
+                        .setFetchSize(size)
+                        .setTimeout(time)
+                        .setUnit(unit.ordinal())
+                        .build()
+                        .toByteString())
+                .build()
+                .toByteArray();
+    }
+
+    /**
+     * 预取模式下获取数据，第一次调用时启动后台预取，batchSize/timeout以启动时为准
+     */
+    private Message prefetchWithoutAck(int size, long time, TimeUnit unit) {
+        Prefetcher current = prefetcher;
+        if (current == null) {
+            current = new Prefetcher(size, time, unit);
+            current.start();
+            prefetcher = current;
+        }
+
+        Message message = current.take(time, unit);
+        if (message.getId() != -1) {
+            synchronized (unackedBatchIds) {
+                unackedBatchIds.add(message.getId());
+            }
+        }
+        return message;
+    }
+
+    /**
+     * 停止预取并丢弃在途/未消费的数据，如果有未消费的batch，回滚所有批次避免丢数据
+     */
+    private void stopPrefetch() throws IOException {
+        Prefetcher current = prefetcher;
+        if (current == null) {
+            return;
+        }
+
+        prefetcher = null;
+        if (current.stop()) {
+            writeRollback(0);
+            clearUnackedBatchIds();
+        }
+    }
+
+    private void clearUnackedBatchIds() {
+        synchronized (unackedBatchIds) {
+            unackedBatchIds.clear();
+            ackedBatchIds.clear();
+        }
+    }
+
+    /**
+     * 流式订阅下获取数据，第一次调用时开启订阅，之后每次调用归还上一个推送包占用的窗口。
+     * batchSize/timeout以开启订阅时为准
+     */
+    private Message streamWithoutAck(int size, long time, TimeUnit unit) throws IOException {
+        if (!streaming) {
+            long timeout = time > 0 ? Math.max(1, unit.toMillis(time)) : time;
             writeWithHeader(Packet.newBuilder()
-                    .setType(PacketType.GET)
-                    .setBody(Get.newBuilder()
-                            .setAutoAck(false)
+                    .setType(PacketType.STREAM)
+                    .setBody(Stream.newBuilder()
                             .setDestination(clientIdentity.getDestination())
                             .setClientId(String.valueOf(clientIdentity.getClientId()))
                             .setFetchSize(size)
-                            .setTimeout(time)
-                            .setUnit(unit.ordinal())
+                            .setTimeout(timeout)
+                            .setBatches(streamBatches)
+                            .setBytes(streamBytes)
                             .build()
                             .toByteString())
                     .build()
                     .toByteArray());
-            return receiveMessages();
-        } catch (IOException e) {
-            throw new CanalClientException(e);
+            streaming = true;
+        } else if (lastStreamBytes > 0) {
+            writeWithHeader(Packet.newBuilder()
+                    .setType(PacketType.CREDIT)
+                    .setBody(Credit.newBuilder()
+                            .setDestination(clientIdentity.getDestination())
+                            .setClientId(String.valueOf(clientIdentity.getClientId()))
+                            .setBatches(1)
+                            .setBytes(lastStreamBytes)
+                            .build()
+                            .toByteString())
+                    .build()
+                    .toByteArray());
+        }
+
+        byte[] data = readNextPacket();
+        try {
+            Message message = CanalMessageDeserializer.deserializer(data, lazyParseEntry);
+            lastStreamBytes = data.length;
+            return message;
+        } catch (CanalClientException e) {
+            if (Packet.parseFrom(data).getType() == PacketType.ACK) {
+                // server推送异常结束时写出的错误包即为结束标记，之后的rollback按照非流式处理
+                streaming = false;
+                lastStreamBytes = 0;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 结束流式订阅，server会回滚所有未ack的批次(包括已经推送但还未消费的)，丢弃结束标记之前的在途数据
+     */
+    private void stopStreaming() throws IOException {
+        if (!streaming) {
+            return;
+        }
+
+        writeWithHeader(Packet.newBuilder()
+                .setType(PacketType.CLIENTROLLBACK)
+                .setBody(ClientRollback.newBuilder()
+                        .setDestination(clientIdentity.getDestination())
+                        .setClientId(String.valueOf(clientIdentity.getClientId()))
+                        .setBatchId(0)
+                        .build()
+                        .toByteString())
+                .build()
+                .toByteArray());
+        while (true) {
+            Packet p = Packet.parseFrom(readNextPacket());
+            if (p.getType() == PacketType.ACK) {
+                streaming = false;
+                lastStreamBytes = 0;
+                Ack ack = Ack.parseFrom(p.getBody());
+                if (ack.getErrorCode() > 0) {
+                    throw new CanalClientException("something goes wrong when stopping stream: "
+                            + ack.getErrorMessage());
+                }
+                return;
+            }
         }
     }
 
@@ -336,6 +511,23 @@ public class SimpleCanalConnector implements CanalConnector {
         if (!running) {
             return;
         }
+
+        if (prefetchDepth > 0) {
+            synchronized (unackedBatchIds) {
+                if (unackedBatchIds.contains(batchId)) {
+                    // 预取模式下可能会有多个未ack的batch，server要求必须按照batchId分出去的顺序提交
+                    ackedBatchIds.add(batchId);
+                    while (!unackedBatchIds.isEmpty() && ackedBatchIds.remove(unackedBatchIds.getFirst())) {
+                        writeAck(unackedBatchIds.removeFirst());
+                    }
+                    return;
+                }
+            }
+        }
+        writeAck(batchId);
+    }
+
+    private void writeAck(long batchId) throws CanalClientException {
         ClientAck ca = ClientAck.newBuilder()
                 .setDestination(clientIdentity.getDestination())
                 .setClientId(String.valueOf(clientIdentity.getClientId()))
@@ -354,20 +546,38 @@ public class SimpleCanalConnector implements CanalConnector {
 
     public void rollback(long batchId) throws CanalClientException {
         waitClientRunning();
+        try {
+            if (streaming) {
+                // 已推送的后续批次也需要一起回滚，流式订阅下只支持回滚所有批次
+                stopStreaming();
+                return;
+            }
+
+            Prefetcher current = prefetcher;
+            if (current != null) {
+                // 同样的，已预取的后续批次也需要一起回滚
+                prefetcher = null;
+                current.stop();
+                batchId = 0;
+            }
+            clearUnackedBatchIds();
+            writeRollback(batchId);
+        } catch (IOException e) {
+            throw new CanalClientException(e);
+        }
+    }
+
+    private void writeRollback(long batchId) throws IOException {
         ClientRollback ca = ClientRollback.newBuilder()
                 .setDestination(clientIdentity.getDestination())
                 .setClientId(String.valueOf(clientIdentity.getClientId()))
                 .setBatchId(batchId)
                 .build();
-        try {
-            writeWithHeader(Packet.newBuilder()
-                    .setType(PacketType.CLIENTROLLBACK)
-                    .setBody(ca.toByteString())
-                    .build()
-                    .toByteArray());
-        } catch (IOException e) {
-            throw new CanalClientException(e);
-        }
+        writeWithHeader(Packet.newBuilder()
+                .setType(PacketType.CLIENTROLLBACK)
+                .setBody(ca.toByteString())
+                .build()
+                .toByteArray());
     }
 
     public void rollback() throws CanalClientException {
@@ -534,6 +744,46 @@ public class SimpleCanalConnector implements CanalConnector {
         this.lazyParseEntry = lazyParseEntry;
     }
 
+    public int getStreamBatches() {
+        return streamBatches;
+    }
+
+    public void setStreamBatches(int streamBatches) {
+        this.streamBatches = streamBatches;
+    }
+
+    public long getStreamBytes() {
+        return streamBytes;
+    }
+
+    public void setStreamBytes(long streamBytes) {
+        this.streamBytes = streamBytes;
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    public long getPrefetchBytes() {
+        return prefetchBytes;
+    }
+
+    public void setPrefetchBytes(long prefetchBytes) {
+        this.prefetchBytes = prefetchBytes;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
     public void stopRunning() {
         if (running) {
             running = false; // 设置为非running状态
@@ -543,4 +793,172 @@ public class SimpleCanalConnector implements CanalConnector {
         }
     }
 
+
+    /**
+     * 后台预取，保持prefetchDepth个GET在途，同时在后台线程完成反序列化，用户处理当前batch时下一个batch已经就绪
+     *
+     * <pre>
+     * 1. 在途GET数量 + 未消费的batch数量不超过prefetchDepth，未消费的数据不超过prefetchBytes
+     * 2. server按照GET的顺序返回，batchId天然有序，空包直接丢弃
+     * 3. 后台GET最多等待100ms，没有数据时重新发起，stop时只需要等待在途GET的超时，timeout为-1时同样避免空转
+     * 4. stop时无法读完在途的GET则断开链接，避免后续请求读到错位的响应
+     * </pre>
+     */
+    private class Prefetcher implements Runnable {
+
+        private static final long      maxWaitMillis = 100;
+
+        private final byte[]           packet;
+        private final ReentrantLock    lock          = new ReentrantLock();
+        private final Condition        notEmpty      = lock.newCondition();
+        private final Condition        notFull       = lock.newCondition();
+        private final ArrayDeque<Message> messages   = new ArrayDeque<Message>();
+        private final ArrayDeque<Integer> sizes      = new ArrayDeque<Integer>();
+        private long                   bytes         = 0;
+        private int                    inFlight      = 0;
+        private boolean                discarded     = false;                    // 是否丢弃过未消费的batch
+        private volatile boolean       running       = true;
+        private volatile Throwable     error;
+        private Thread                 thread;
+
+        Prefetcher(int size, long time, TimeUnit unit){
+            if (time > 0 && unit.toMillis(time) < maxWaitMillis) {
+                this.packet = getPacket(size, time, unit);
+            } else {
+                // take按照用户的timeout等待, 后台GET超时之后重新发起
+                this.packet = getPacket(size, maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void start() {
+            thread = new Thread(this, "CanalPrefetcher-" + clientIdentity.getDestination());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public void run() {
+            try {
+                while (running) {
+                    lock.lock();
+                    try {
+                        while (running && inFlight + messages.size() < prefetchDepth && bytes < prefetchBytes) {
+                            writeWithHeader(packet);
+                            inFlight++;
+                        }
+
+                        if (inFlight == 0) {
+                            notFull.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+                            continue;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    // 读取和反序列化都在锁外进行
+                    byte[] data = readNextPacket();
+                    Message message = running ? CanalMessageDeserializer.deserializer(data, lazyParseEntry) : null;
+                    lock.lock();
+                    try {
+                        inFlight--;
+                        if (message == null) {
+                            discarded = true;
+                        } else if (message.getId() != -1) {
+                            messages.add(message);
+                            sizes.add(data.length);
+                            bytes += data.length;
+                            notEmpty.signal();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                // 读完在途的GET, 保证后续的请求和响应一一对应
+                while (inFlight > 0) {
+                    readNextPacket();
+                    inFlight--;
+                    discarded = true;
+                }
+            } catch (Throwable e) {
+                error = e;
+                running = false;
+            } finally {
+                lock.lock();
+                try {
+                    notEmpty.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        Message take(long time, TimeUnit unit) {
+            lock.lock();
+            try {
+                long nanos = time > 0 ? unit.toNanos(time) : 0;
+                while (messages.isEmpty() && running && time >= 0) {
+                    if (time == 0) {
+                        notEmpty.await();
+                    } else if (nanos <= 0) {
+                        break;
+                    } else {
+                        nanos = notEmpty.awaitNanos(nanos);
+                    }
+                }
+
+                Message message = messages.poll();
+                if (message == null) {
+                    if (error != null) {
+                        throw new CanalClientException("prefetch failed", error);
+                    }
+                    return new Message(-1);
+                }
+
+                bytes -= sizes.poll();
+                notFull.signal();
+                return message;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanalClientException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 停止预取并读完在途的GET，返回是否丢弃过未消费的batch
+         */
+        boolean stop() {
+            running = false;
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                thread.join(soTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (thread.isAlive() || error != null) {
+                // 链接中还有未读取的响应, 断开链接由调用方重连
+                abort();
+                try {
+                    doDisconnect();
+                } catch (CanalClientException e) {
+                    logger.warn("disconnect after failed prefetch drain failed", e);
+                }
+                throw new CanalClientException("failed to drain prefetched GET", error);
+            }
+            return discarded || !messages.isEmpty();
+        }
+
+        void abort() {
+            running = false;
+            thread.interrupt();
+        }
+    }
 }
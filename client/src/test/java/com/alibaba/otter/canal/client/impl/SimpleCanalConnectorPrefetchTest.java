@@ -0,0 +1,279 @@
+package com.alibaba.otter.canal.client.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.CanalPacket.Ack;
+import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
+import com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback;
+import com.alibaba.otter.canal.protocol.CanalPacket.Get;
+import com.alibaba.otter.canal.protocol.CanalPacket.Handshake;
+import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
+import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.Message;
+import com.google.protobuf.ByteString;
+
+/**
+ * 基于模拟的server测试预取模式下的ack顺序、在途GET的读取以及回滚
+ */
+public class SimpleCanalConnectorPrefetchTest {
+
+    private FakeServer           server;
+    private SimpleCanalConnector connector;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeServer();
+        server.start();
+        connector = new SimpleCanalConnector(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()),
+            "",
+            "",
+            "example",
+            5000);
+        connector.setRollbackOnConnect(false);
+        connector.connect();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connector.disconnect();
+        server.stop();
+    }
+
+    @Test
+    public void testAckInOrder() throws Exception {
+        connector.setPrefetchDepth(3);
+        Message first = connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS);
+        Message second = connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1L, first.getId());
+        Assert.assertEquals(2L, second.getId());
+
+        // 后面的batch先ack, 需要等前面的batch ack之后一起按顺序提交
+        connector.ack(second.getId());
+        Thread.sleep(100L);
+        Assert.assertTrue(server.acks.isEmpty());
+
+        connector.ack(first.getId());
+        waitForSize(server.acks, 2);
+        Assert.assertEquals(Arrays.asList(1L, 2L), server.acks);
+    }
+
+    @Test
+    public void testStopReadsInFlight() throws Exception {
+        server.delayMillis = 50;
+        connector.setPrefetchDepth(3);
+        Message first = connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1L, first.getId());
+
+        // rollback会停止预取, 返回前读完在途的GET
+        connector.rollback();
+        connector.setPrefetchDepth(0);
+        Message message = connector.getWithoutAck(10);
+        Assert.assertEquals(server.gets.get(), message.getId());
+        Assert.assertEquals(Arrays.asList(0L), server.rollbacks);
+    }
+
+    @Test
+    public void testStopWithBlockingGet() throws Exception {
+        server.limit = 1;
+        connector.setPrefetchDepth(2);
+        // timeout为0时server会一直阻塞, 后台GET需要限制等待时间
+        Message first = connector.getWithoutAck(10, 0L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1L, first.getId());
+        Thread.sleep(200L);
+
+        long start = System.currentTimeMillis();
+        connector.rollback();
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000L);
+        Assert.assertEquals(Arrays.asList(0L), server.rollbacks);
+        Assert.assertTrue(server.timeouts.size() > 1);
+        for (Long timeout : server.timeouts) {
+            Assert.assertEquals(Long.valueOf(100L), timeout);
+        }
+
+        server.limit = Long.MAX_VALUE;
+        connector.setPrefetchDepth(0);
+        Message message = connector.getWithoutAck(10);
+        Assert.assertEquals(server.gets.get(), message.getId());
+    }
+
+    @Test
+    public void testRollbackOnSubscribe() throws Exception {
+        // 没有预取的数据, 不需要回滚
+        connector.subscribe();
+        Assert.assertTrue(server.rollbacks.isEmpty());
+
+        connector.setPrefetchDepth(3);
+        Message first = connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1L, first.getId());
+        Thread.sleep(200L);
+
+        // 已预取但未消费的batch在重新订阅前回滚
+        connector.subscribe();
+        Assert.assertEquals(Arrays.asList(0L), server.rollbacks);
+        Assert.assertEquals(2, server.subscriptions.get());
+    }
+
+    @Test
+    public void testPrefetchBytes() throws Exception {
+        connector.setPrefetchDepth(4);
+        connector.setPrefetchBytes(1);
+        Assert.assertEquals(1L, connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS).getId());
+
+        // 未消费的数据超过prefetchBytes, 即使在途数量未达到prefetchDepth也不再GET
+        Thread.sleep(200L);
+        Assert.assertEquals(4L, server.gets.get());
+
+        for (long id = 2; id <= 4; id++) {
+            Assert.assertEquals(id, connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS).getId());
+        }
+        waitForGets(8);
+        Assert.assertEquals(5L, connector.getWithoutAck(10, 1000L, TimeUnit.MILLISECONDS).getId());
+    }
+
+    private void waitForGets(long count) throws InterruptedException {
+        for (int i = 0; i < 100 && server.gets.get() < count; i++) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(count, server.gets.get());
+    }
+
+    private static void waitForSize(List<?> list, int size) throws InterruptedException {
+        for (int i = 0; i < 100 && list.size() < size; i++) {
+            Thread.sleep(10L);
+        }
+    }
+
+    /**
+     * 只处理一个链接的模拟server, GET按照请求顺序返回递增的batchId
+     */
+    private static class FakeServer implements Runnable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicLong   gets          = new AtomicLong(0);
+        private final AtomicLong   subscriptions = new AtomicLong(0);
+        private final List<Long>   acks          = new CopyOnWriteArrayList<Long>();
+        private final List<Long>   rollbacks     = new CopyOnWriteArrayList<Long>();
+        private final List<Long>   timeouts      = new CopyOnWriteArrayList<Long>();
+        private volatile long      delayMillis   = 0;
+        private volatile long      limit         = Long.MAX_VALUE;                 // 超过limit的GET模拟没有数据
+
+        private volatile Socket    socket;
+        private Thread             thread;
+
+        FakeServer() throws IOException{
+            serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void start() {
+            thread = new Thread(this, "FakeCanalServer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws Exception {
+            serverSocket.close();
+            if (socket != null) {
+                socket.close();
+            }
+            thread.join(1000L);
+        }
+
+        public void run() {
+            try {
+                socket = serverSocket.accept();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                write(out, PacketType.HANDSHAKE, Handshake.newBuilder()
+                    .setSeeds(ByteString.copyFromUtf8("seed"))
+                    .build()
+                    .toByteString());
+                read(in);
+                write(out, PacketType.ACK, Ack.newBuilder().build().toByteString());
+
+                while (true) {
+                    Packet packet = read(in);
+                    switch (packet.getType()) {
+                        case SUBSCRIPTION:
+                            subscriptions.incrementAndGet();
+                            write(out, PacketType.ACK, Ack.newBuilder().build().toByteString());
+                            break;
+                        case GET:
+                            long batchId = gets.incrementAndGet();
+                            if (batchId > limit) {
+                                // 按照GET的timeout等待之后返回空数据, timeout为0时一直阻塞
+                                long timeout = Get.parseFrom(packet.getBody()).getTimeout();
+                                timeouts.add(timeout);
+                                gets.decrementAndGet();
+                                Thread.sleep(timeout == 0 ? 60 * 1000L : Math.max(timeout, 0));
+                                write(out, PacketType.MESSAGES, Messages.newBuilder()
+                                    .setBatchId(-1)
+                                    .build()
+                                    .toByteString());
+                                break;
+                            }
+                            if (delayMillis > 0) {
+                                Thread.sleep(delayMillis);
+                            }
+                            write(out, PacketType.MESSAGES, Messages.newBuilder()
+                                .setBatchId(batchId)
+                                .addMessages(Entry.newBuilder()
+                                    .setHeader(Header.newBuilder()
+                                        .setLogfileName("mysql-bin.000001")
+                                        .setLogfileOffset(batchId))
+                                    .build()
+                                    .toByteString())
+                                .build()
+                                .toByteString());
+                            break;
+                        case CLIENTACK:
+                            acks.add(ClientAck.parseFrom(packet.getBody()).getBatchId());
+                            break;
+                        case CLIENTROLLBACK:
+                            rollbacks.add(ClientRollback.parseFrom(packet.getBody()).getBatchId());
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } catch (Exception e) {
+                // 链接关闭, 退出
+            }
+        }
+
+        private static Packet read(DataInputStream in) throws IOException {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return Packet.parseFrom(body);
+        }
+
+        private static void write(DataOutputStream out, PacketType type, ByteString body) throws IOException {
+            byte[] data = Packet.newBuilder().setType(type).setVersion(1).setBody(body).build().toByteArray();
+            out.writeInt(data.length);
+            out.write(data);
+            out.flush();
+        }
+    }
+}
@@ -4,6 +4,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
@@ -26,6 +30,9 @@ import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
  * // file ending reached.
  * </pre>
  *
+ * 开启mmap后通过{@link MappedByteBuffer}按窗口映射文件(单个映射不超过2GB), 数据直接从page cache拷贝到buffer中,
+ * 避免FileInputStream每次read的系统调用, 适合大批量回放本地binlog文件的场景
+ *
  * @author <a href="mailto:changyuan.lh@taobao.com">Changyuan.lh</a>
  * @version 1.0
  */
@@ -33,7 +40,25 @@ public final class FileLogFetcher extends LogFetcher {
 
     public static final byte[] BINLOG_MAGIC = {-2, 0x62, 0x69, 0x6e};
 
-    private FileInputStream fin;
+    /**
+     * Default mapping window size of mmap mode.
+     */
+    public static final int    DEFAULT_MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int   PAGE_SIZE               = 4096;
+
+    private FileInputStream    fin;
+
+    // mmap模式
+    private boolean            mmap                    = false;
+    private int                mapWindowSize           = DEFAULT_MAP_WINDOW_SIZE;
+    private boolean            readAhead               = true;
+    private RandomAccessFile   raf;
+    private FileChannel        channel;
+    private MappedByteBuffer   window;
+    private long               windowStart;
+    private long               fileSize;
+    private long               filePosition;           // 下一次读取的文件位置
 
     public FileLogFetcher() {
         super(DEFAULT_INITIAL_CAPACITY, DEFAULT_GROWTH_FACTOR);
@@ -72,10 +97,17 @@ public final class FileLogFetcher extends LogFetcher {
      * Open binlog file in local disk to fetch.
      */
     public void open(File file, final long filePosition) throws FileNotFoundException, IOException {
-        fin = new FileInputStream(file);
+        if (mmap) {
+            raf = new RandomAccessFile(file, "r");
+            channel = raf.getChannel();
+            fileSize = channel.size();
+            this.filePosition = 0;
+        } else {
+            fin = new FileInputStream(file);
+        }
 
         ensureCapacity(BIN_LOG_HEADER_SIZE);
-        if (BIN_LOG_HEADER_SIZE != fin.read(buffer, 0, BIN_LOG_HEADER_SIZE)) {
+        if (BIN_LOG_HEADER_SIZE != read(0, BIN_LOG_HEADER_SIZE)) {
             throw new IOException("No binlog file header");
         }
 
@@ -96,9 +128,9 @@ public final class FileLogFetcher extends LogFetcher {
                     + LogEvent.CHECKSUM_CRC32_SIGNATURE_LEN;
 
             ensureCapacity(maxFormatDescriptionEventLen);
-            limit = fin.read(buffer, 0, maxFormatDescriptionEventLen);
+            limit = read(0, maxFormatDescriptionEventLen);
             limit = (int) getUint32(LogEvent.EVENT_LEN_OFFSET);
-            fin.getChannel().position(filePosition);
+            seek(filePosition);
         }
     }
 
@@ -109,7 +141,7 @@ public final class FileLogFetcher extends LogFetcher {
      */
     public boolean fetch() throws IOException {
         if (limit == 0) {
-            final int len = fin.read(buffer, 0, buffer.length);
+            final int len = read(0, buffer.length);
             if (len >= 0) {
                 limit += len;
                 position = 0;
@@ -122,7 +154,7 @@ public final class FileLogFetcher extends LogFetcher {
             if (limit > buffer.length / 2) {
                 ensureCapacity(buffer.length + limit);
             }
-            final int len = fin.read(buffer, limit, buffer.length - limit);
+            final int len = read(limit, buffer.length - limit);
             if (len >= 0) {
                 limit += len;
 
@@ -146,7 +178,7 @@ public final class FileLogFetcher extends LogFetcher {
             System.arraycopy(buffer, origin, buffer, 0, limit);
             position -= origin;
             origin = 0;
-            final int len = fin.read(buffer, limit, buffer.length - limit);
+            final int len = read(limit, buffer.length - limit);
             if (len >= 0) {
                 limit += len;
 
@@ -173,5 +205,127 @@ public final class FileLogFetcher extends LogFetcher {
         }
 
         fin = null;
+
+        unmap(window);
+        window = null;
+        if (raf != null) {
+            raf.close(); // 同时关闭channel
+        }
+
+        raf = null;
+        channel = null;
+    }
+
+    /**
+     * 从文件读取数据到buffer[off, off + len), 到达文件末尾返回-1
+     */
+    private int read(final int off, final int len) throws IOException {
+        if (!mmap) {
+            return fin.read(buffer, off, len);
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (filePosition >= fileSize) {
+            // 文件可能仍在追加写入, 重新获取一次大小
+            fileSize = channel.size();
+            if (filePosition >= fileSize) {
+                return -1;
+            }
+        }
+
+        final int n = (int) Math.min(len, fileSize - filePosition);
+        int copied = 0;
+        while (copied < n) {
+            if (window == null || filePosition < windowStart || filePosition >= windowStart + window.capacity()) {
+                map(filePosition);
+            }
+
+            final int offset = (int) (filePosition - windowStart);
+            final int chunk = Math.min(n - copied, window.capacity() - offset);
+            window.position(offset);
+            window.get(buffer, off + copied, chunk);
+            copied += chunk;
+            filePosition += chunk;
+        }
+        return n;
+    }
+
+    private void seek(final long position) throws IOException {
+        if (mmap) {
+            filePosition = position;
+        } else {
+            fin.getChannel().position(position);
+        }
+    }
+
+    /**
+     * 映射包含position的窗口, 窗口起始位置按页对齐
+     */
+    private void map(final long position) throws IOException {
+        unmap(window);
+        window = null;
+
+        windowStart = position - position % PAGE_SIZE;
+        final long size = Math.min(mapWindowSize, fileSize - windowStart);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+        if (readAhead) {
+            // 顺序回放场景下预读整个窗口, 减少后续的缺页中断
+            window.load();
+        }
+    }
+
+    /**
+     * 尽量提前释放映射, 失败时交给gc处理
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Throwable e) {
+            // ignore
+        }
+    }
+
+    public boolean isMmap() {
+        return mmap;
+    }
+
+    /**
+     * 是否使用mmap读取文件, 需要在open之前设置
+     */
+    public void setMmap(boolean mmap) {
+        this.mmap = mmap;
+    }
+
+    public int getMapWindowSize() {
+        return mapWindowSize;
+    }
+
+    public void setMapWindowSize(int mapWindowSize) {
+        if (mapWindowSize < PAGE_SIZE) {
+            throw new IllegalArgumentException("mapWindowSize must be at least " + PAGE_SIZE + ": " + mapWindowSize);
+        }
+        this.mapWindowSize = mapWindowSize;
+    }
+
+    public boolean isReadAhead() {
+        return readAhead;
+    }
+
+    public void setReadAhead(boolean readAhead) {
+        this.readAhead = readAhead;
     }
 }
@@ -1274,6 +1274,51 @@ public class LogBuffer {
         return decimal;
     }
 
+    /**
+     * Return next decimal from buffer as plain string, 结果与
+     * {@link #getDecimal(int, int)}.toPlainString()一致, 但不需要构造BigDecimal
+     *
+     * @param buf 可复用的字符缓冲, 长度不足时会重新分配
+     */
+    public final String getDecimalString(final int precision, final int scale, char[] buf) {
+        final int intg = precision - scale;
+        final int frac = scale;
+        final int intg0 = intg / DIG_PER_INT32;
+        final int frac0 = frac / DIG_PER_INT32;
+        final int intg0x = intg - intg0 * DIG_PER_INT32;
+        final int frac0x = frac - frac0 * DIG_PER_INT32;
+
+        final int binSize = intg0 * SIZE_OF_INT32 + dig2bytes[intg0x] + frac0 * SIZE_OF_INT32 + dig2bytes[frac0x];
+        if (position + binSize > origin + limit) {
+            throw new IllegalArgumentException("limit excceed: " + (position + binSize - origin));
+        }
+
+        final int len = decimalLength(position, intg, frac);
+        if (buf == null || buf.length < len) {
+            buf = new char[len];
+        }
+        int pos = getDecimalChars(position, intg, frac, // NL
+                intg0,
+                frac0,
+                intg0x,
+                frac0x,
+                buf);
+        position += binSize;
+
+        int start = 0;
+        if (buf[0] == '-') {
+            // BigDecimal会丢弃负零的符号
+            boolean zero = true;
+            for (int i = 1; i < pos && zero; i++) {
+                zero = (buf[i] == '0' || buf[i] == '.');
+            }
+            if (zero) {
+                start = 1;
+            }
+        }
+        return new String(buf, start, pos - start);
+    }
+
     /**
      * Return big decimal from buffer.
      *
@@ -1301,13 +1346,26 @@ public class LogBuffer {
      */
     private final BigDecimal getDecimal0(final int begin, final int intg, final int frac, final int intg0,
                                          final int frac0, final int intg0x, final int frac0x) {
+        char[] buf = new char[decimalLength(begin, intg, frac)];
+        int pos = getDecimalChars(begin, intg, frac, intg0, frac0, intg0x, frac0x, buf);
+        String decimal = String.valueOf(buf, 0, pos);
+        return new BigDecimal(decimal);
+    }
+
+    /* max string length */
+    private final int decimalLength(final int begin, final int intg, final int frac) {
         final int mask = ((buffer[begin] & 0x80) == 0x80) ? 0 : -1;
-        int from = begin;
+        return ((mask != 0) ? 1 : 0) + ((intg != 0) ? intg : 1) // NL
+               + ((frac != 0) ? 1 : 0) + frac;
+    }
 
-        /* max string length */
-        final int len = ((mask != 0) ? 1 : 0) + ((intg != 0) ? intg : 1) // NL
-                + ((frac != 0) ? 1 : 0) + frac;
-        char[] buf = new char[len];
+    /**
+     * 将decimal解析为字符写入buf中, 返回写入的长度
+     */
+    private final int getDecimalChars(final int begin, final int intg, final int frac, final int intg0,
+                                      final int frac0, final int intg0x, final int frac0x, final char[] buf) {
+        final int mask = ((buffer[begin] & 0x80) == 0x80) ? 0 : -1;
+        int from = begin;
         int pos = 0;
 
         if (mask != 0) /* decimal sign */
@@ -1447,8 +1505,7 @@ public class LogBuffer {
         }
 
         d_copy[begin] ^= 0x80; /* restore sign */
-        String decimal = String.valueOf(buf, 0, pos);
-        return new BigDecimal(decimal);
+        return pos;
     }
 
     /**
@@ -0,0 +1,150 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于slab的LogBuffer分配器
+ *
+ * <pre>
+ * 1. 多个binlog packet顺序拷贝到同一块slab中, 每个packet以{@link PooledLogBuffer}视图的方式引用slab
+ * 2. slab通过引用计数管理, 当前正在写入的slab由pool自身持有一个引用, 写满后释放
+ * 3. slab上所有视图都release之后, slab归还到空闲队列中复用, 避免每个packet都new byte[]
+ * 4. 超过slab大小的packet直接走非池化的{@link LogBuffer#duplicate()}
+ * </pre>
+ *
+ * 注意: {@link #copyOf(LogBuffer)}只允许单线程调用(网络接收线程), release可以在任意线程
+ *
+ * @since 1.1.5
+ */
+public class LogBufferPool {
+
+    public static final int   DEFAULT_SLAB_SIZE  = 256 * 1024;
+    public static final int   DEFAULT_MAX_SLABS  = 16;
+
+    private final int         slabSize;
+    private final int         maxFreeSlabs;
+    private final Queue<Slab> freeSlabs          = new ConcurrentLinkedQueue<Slab>();
+    private final AtomicInteger freeSlabCount    = new AtomicInteger(0);
+    private Slab              current;
+    // 统计信息
+    private final AtomicLong  allocatedSlabs     = new AtomicLong(0);
+    private final AtomicLong  unpooledAllocation = new AtomicLong(0);
+
+    public LogBufferPool(){
+        this(DEFAULT_SLAB_SIZE, DEFAULT_MAX_SLABS);
+    }
+
+    public LogBufferPool(int slabSize, int maxFreeSlabs){
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize must be positive: " + slabSize);
+        }
+
+        this.slabSize = slabSize;
+        this.maxFreeSlabs = maxFreeSlabs;
+    }
+
+    /**
+     * 将source中[origin, origin + limit)的数据拷贝到slab中, 返回引用计数为1的视图
+     */
+    public LogBuffer copyOf(LogBuffer source) {
+        final int len = source.limit;
+        if (len > slabSize) {
+            unpooledAllocation.incrementAndGet();
+            return source.duplicate();
+        }
+
+        if (current == null || current.writerIndex + len > slabSize) {
+            if (current != null) {
+                // 释放pool自身持有的引用, 剩余引用由视图持有
+                current.release();
+            }
+            current = acquireSlab();
+        }
+
+        final int offset = current.writerIndex;
+        System.arraycopy(source.buffer, source.origin, current.data, offset, len);
+        current.writerIndex += len;
+        current.retain();
+        return new PooledLogBuffer(current, offset, len);
+    }
+
+    /**
+     * 释放当前正在写入的slab, 一般在dump结束时调用
+     */
+    public void clear() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    private Slab acquireSlab() {
+        Slab slab = freeSlabs.poll();
+        if (slab != null) {
+            freeSlabCount.decrementAndGet();
+        } else {
+            slab = new Slab(this, new byte[slabSize]);
+            allocatedSlabs.incrementAndGet();
+        }
+
+        slab.writerIndex = 0;
+        slab.refCnt.set(1);
+        return slab;
+    }
+
+    private void recycle(Slab slab) {
+        if (freeSlabCount.incrementAndGet() <= maxFreeSlabs) {
+            freeSlabs.offer(slab);
+        } else {
+            // 超过空闲上限, 直接交给gc
+            freeSlabCount.decrementAndGet();
+        }
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    public int getFreeSlabCount() {
+        return freeSlabCount.get();
+    }
+
+    public long getAllocatedSlabs() {
+        return allocatedSlabs.get();
+    }
+
+    public long getUnpooledAllocation() {
+        return unpooledAllocation.get();
+    }
+
+    static final class Slab {
+
+        final LogBufferPool pool;
+        final byte[]        data;
+        final AtomicInteger refCnt = new AtomicInteger(0);
+        int                 writerIndex;
+
+        Slab(LogBufferPool pool, byte[] data){
+            this.pool = pool;
+            this.data = data;
+        }
+
+        void retain() {
+            refCnt.incrementAndGet();
+        }
+
+        boolean release() {
+            int cnt = refCnt.decrementAndGet();
+            if (cnt == 0) {
+                pool.recycle(this);
+                return true;
+            } else if (cnt < 0) {
+                throw new IllegalStateException("slab refCnt: " + cnt);
+            }
+            return false;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.taobao.tddl.dbsync.binlog;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.otter.canal.parse.driver.mysql.packets.GTIDSet;
 import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
@@ -16,7 +15,14 @@ import com.taobao.tddl.dbsync.binlog.event.TableMapLogEvent;
  */
 public final class LogContext {
 
-    private final Map<Long, TableMapLogEvent> mapOfTable = new HashMap<Long, TableMapLogEvent>();
+    // 分库分表场景下table id可能有几万个, 按LRU限制缓存的table map数量
+    public static final int                    DEFAULT_MAX_TABLES = 16384;
+
+    private LongLruMap<TableMapLogEvent>       mapOfTable         = new LongLruMap<TableMapLogEvent>(DEFAULT_MAX_TABLES);
+
+    private AtomicLong                         tableCount;
+
+    private AtomicLong                         tableEvictCount;
 
     private FormatDescriptionLogEvent formatDescription;
 
@@ -51,20 +57,52 @@ public final class LogContext {
     }
 
     public final void putTable(TableMapLogEvent mapEvent) {
-        mapOfTable.put(Long.valueOf(mapEvent.getTableId()), mapEvent);
+        long evicted = mapOfTable.getEvictCount();
+        mapOfTable.put(mapEvent.getTableId(), mapEvent);
+        if (tableEvictCount != null && mapOfTable.getEvictCount() != evicted) {
+            tableEvictCount.addAndGet(mapOfTable.getEvictCount() - evicted);
+        }
+        updateTableCount();
     }
 
     public final TableMapLogEvent getTable(final long tableId) {
-        return mapOfTable.get(Long.valueOf(tableId));
+        return mapOfTable.get(tableId);
     }
 
     public final void clearAllTables() {
         mapOfTable.clear();
+        updateTableCount();
     }
 
     public void reset() {
         formatDescription = FormatDescriptionLogEvent.FORMAT_DESCRIPTION_EVENT_5_x;
         mapOfTable.clear();
+        updateTableCount();
+    }
+
+    /**
+     * 设置table map的最大缓存数量, 会清空已缓存的table map
+     */
+    public final void setMaxTables(int maxTables) {
+        if (maxTables != mapOfTable.getMaxSize()) {
+            mapOfTable = new LongLruMap<TableMapLogEvent>(maxTables);
+            updateTableCount();
+        }
+    }
+
+    /**
+     * 设置table map数量及淘汰次数的统计
+     */
+    public final void setTableMetrics(AtomicLong tableCount, AtomicLong tableEvictCount) {
+        this.tableCount = tableCount;
+        this.tableEvictCount = tableEvictCount;
+        updateTableCount();
+    }
+
+    private void updateTableCount() {
+        if (tableCount != null) {
+            tableCount.set(mapOfTable.size());
+        }
     }
 
     public GTIDSet getGtidSet() {
@@ -10,6 +10,7 @@ import com.alibaba.otter.canal.parse.driver.mysql.packets.GTIDSet;
 import com.taobao.tddl.dbsync.binlog.event.AppendBlockLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.BeginLoadQueryLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.CreateFileLogEvent;
+import com.taobao.tddl.dbsync.binlog.event.DeferredRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.DeleteFileLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.DeleteRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.ExecuteLoadLogEvent;
@@ -32,6 +33,7 @@ import com.taobao.tddl.dbsync.binlog.event.StartLogEventV3;
 import com.taobao.tddl.dbsync.binlog.event.StopLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.TableMapLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.TransactionContextLogEvent;
+import com.taobao.tddl.dbsync.binlog.event.TransactionPayloadLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.UnknownLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.UpdateRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.UserVarLogEvent;
@@ -44,6 +46,7 @@ import com.taobao.tddl.dbsync.binlog.event.mariadb.BinlogCheckPointLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.mariadb.MariaGtidListLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.mariadb.MariaGtidLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.mariadb.StartEncryptionLogEvent;
+import com.taobao.tddl.dbsync.binlog.exception.TableIdNotFoundException;
 
 /**
  * Implements a binary-log decoder.
@@ -140,6 +143,61 @@ public final class LogDecoder {
         return null;
     }
 
+    /**
+     * 预解析ROWS事件, 只解析header和table_id并维护context中的位点、gtid以及table
+     * map, 事件体的完整解析通过{@link DeferredRowsLogEvent#decode()}完成.
+     * 与{@link #decode(LogBuffer, LogContext)}不同, buffer不会被consume,
+     * 要求buffer中只包含当前这一个事件.
+     *
+     * @return <code>null</code> if event is not a rows event or buffer is not
+     * including a full event, buffer is rewinded.
+     */
+    public DeferredRowsLogEvent decodeDeferredRows(LogBuffer buffer, LogContext context) throws IOException {
+        final int limit = buffer.limit();
+
+        if (limit >= FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN) {
+            FormatDescriptionLogEvent descriptionEvent = context.getFormatDescription();
+            LogHeader header = new LogHeader(buffer, descriptionEvent);
+
+            final int type = header.getType();
+            if (DeferredRowsLogEvent.isRowsEvent(type) && handleSet.get(type) && limit >= header.getEventLen()) {
+                final int postHeaderLen = descriptionEvent.getPostHeaderLen()[type - 1];
+                buffer.position(descriptionEvent.getCommonHeaderLen() + RowsLogEvent.RW_MAPID_OFFSET);
+                final long tableId = (postHeaderLen == 6) ? buffer.getUint32() : buffer.getUlong48();
+                final int flags = buffer.getUint16();
+                buffer.rewind();
+
+                TableMapLogEvent table = context.getTable(tableId);
+                if (table == null) {
+                    throw new TableIdNotFoundException("not found tableId:" + tableId);
+                }
+
+                // end of statement check
+                if ((flags & RowsLogEvent.STMT_END_F) != 0) {
+                    context.clearAllTables();
+                }
+
+                /* updating position in context */
+                LogPosition logPosition = context.getLogPosition();
+                logPosition.position = header.getLogPos();
+                header.putGtid(context.getGtidSet(), context.getGtidLogEvent());
+                header.setLogFileName(logPosition.getFileName());
+
+                DeferredRowsLogEvent event = new DeferredRowsLogEvent(header,
+                    buffer,
+                    descriptionEvent,
+                    table,
+                    tableId);
+                event.setSemival(buffer.semival);
+                return event;
+            }
+        }
+
+        /* Rewind buffer's position to 0. */
+        buffer.rewind();
+        return null;
+    }
+
     /**
      * Deserialize an event from buffer.
      *
@@ -418,6 +476,14 @@ public final class LogDecoder {
                 logPosition.position = header.getLogPos();
                 return event;
             }
+            case LogEvent.TRANSACTION_PAYLOAD_EVENT: {
+                // 只解析payload头, 解压及内部事件的decode由调用方按需完成
+                TransactionPayloadLogEvent event = new TransactionPayloadLogEvent(header, buffer, descriptionEvent);
+                /* updating position in context */
+                logPosition.position = header.getLogPos();
+                header.putGtid(context.getGtidSet(), gtidLogEvent);
+                return event;
+            }
             case LogEvent.ANNOTATE_ROWS_EVENT: {
                 AnnotateRowsEvent event = new AnnotateRowsEvent(header, buffer, descriptionEvent);
                 /* updating position in context */
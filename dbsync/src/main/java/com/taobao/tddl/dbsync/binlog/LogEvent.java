@@ -177,6 +177,11 @@ public abstract class LogEvent {
      */
     public static final int PARTIAL_UPDATE_ROWS_EVENT = 39;
 
+    /**
+     * mysql 8.0.20 binlog_transaction_compression, 整个事务压缩为一个事件
+     */
+    public static final int TRANSACTION_PAYLOAD_EVENT = 40;
+
     // mariaDb 5.5.34
     /* New MySQL/Sun events are to be added right above this comment */
     public static final int MYSQL_EVENTS_END = 49;
@@ -375,6 +380,8 @@ public abstract class LogEvent {
                 return "Previous_gtids";
             case PARTIAL_UPDATE_ROWS_EVENT:
                 return "Update_rows_partial";
+            case TRANSACTION_PAYLOAD_EVENT:
+                return "Transaction_payload";
             default:
                 return "Unknown"; /* impossible */
         }
@@ -0,0 +1,253 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.util.Arrays;
+
+/**
+ * long类型key的LRU map, 基于开放寻址(线性探测)实现, 避免Long装箱及Entry对象的分配.
+ *
+ * <pre>
+ * 1. slots为哈希槽, 存放节点下标; 节点数据(key/value/前后指针)保存在并行数组中
+ * 2. 节点按访问顺序组成双向链表, 超过maxSize时淘汰最久未访问的节点
+ * 3. 删除时对哈希槽做backward shift, 不需要墓碑标记
+ * </pre>
+ *
+ * NOTE: 非线程安全
+ *
+ * @since 1.1.5
+ */
+public final class LongLruMap<V> {
+
+    private static final int EMPTY            = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int        maxSize;
+    private int[]            slots;
+    private int              mask;
+    private long[]           keys;
+    private Object[]         values;
+    private int[]            before;
+    private int[]            after;
+    private int              head             = EMPTY; // 最久未访问
+    private int              tail             = EMPTY; // 最近访问
+    private int              free             = EMPTY; // 空闲节点链表, 通过after串联
+    private int              used;                     // 已分配过的节点数
+    private int              size;
+    private long             evictCount;
+
+    public LongLruMap(int maxSize){
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        allocate(Math.min(INITIAL_CAPACITY, maxSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        final int node = findNode(key);
+        if (node == EMPTY) {
+            return null;
+        }
+
+        moveToTail(node);
+        return (V) values[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final long key, V value) {
+        int node = findNode(key);
+        if (node != EMPTY) {
+            V old = (V) values[node];
+            values[node] = value;
+            moveToTail(node);
+            return old;
+        }
+
+        if (size >= maxSize) {
+            // 淘汰最久未访问的节点
+            remove(keys[head]);
+            evictCount++;
+        }
+
+        node = newNode();
+        keys[node] = key;
+        values[node] = value;
+        int slot = hash(key) & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = node;
+        linkLast(node);
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        int slot = hash(key) & mask;
+        int node;
+        while ((node = slots[slot]) != EMPTY) {
+            if (keys[node] == key) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (node == EMPTY) {
+            return null;
+        }
+
+        deleteSlot(slot);
+        unlink(node);
+        V old = (V) values[node];
+        values[node] = null;
+        after[node] = free;
+        free = node;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        Arrays.fill(values, null);
+        head = tail = free = EMPTY;
+        used = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 累计淘汰的节点数
+     */
+    public long getEvictCount() {
+        return evictCount;
+    }
+
+    private int findNode(final long key) {
+        int slot = hash(key) & mask;
+        int node;
+        while ((node = slots[slot]) != EMPTY) {
+            if (keys[node] == key) {
+                return node;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            final int node = slots[next];
+            if (node == EMPTY) {
+                break;
+            }
+
+            // 理想位置在(hole, next]之间的节点不需要移动
+            final int ideal = hash(keys[node]) & mask;
+            if (hole <= next ? (hole < ideal && ideal <= next) : (hole < ideal || ideal <= next)) {
+                continue;
+            }
+
+            slots[hole] = node;
+            hole = next;
+        }
+        slots[hole] = EMPTY;
+    }
+
+    private int newNode() {
+        if (free != EMPTY) {
+            int node = free;
+            free = after[node];
+            return node;
+        }
+
+        if (used == keys.length) {
+            grow();
+        }
+        return used++;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min((long) keys.length << 1, maxSize);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        before = Arrays.copyOf(before, capacity);
+        after = Arrays.copyOf(after, capacity);
+        // 节点下标不变, 只需要重建哈希槽
+        slots = new int[slotCapacity(capacity)];
+        mask = slots.length - 1;
+        Arrays.fill(slots, EMPTY);
+        for (int node = head; node != EMPTY; node = after[node]) {
+            int slot = hash(keys[node]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = node;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        before = new int[capacity];
+        after = new int[capacity];
+        slots = new int[slotCapacity(capacity)];
+        mask = slots.length - 1;
+        Arrays.fill(slots, EMPTY);
+    }
+
+    private void moveToTail(int node) {
+        if (node != tail) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    private void linkLast(int node) {
+        before[node] = tail;
+        after[node] = EMPTY;
+        if (tail == EMPTY) {
+            head = node;
+        } else {
+            after[tail] = node;
+        }
+        tail = node;
+    }
+
+    private void unlink(int node) {
+        int prev = before[node];
+        int next = after[node];
+        if (prev == EMPTY) {
+            head = next;
+        } else {
+            after[prev] = next;
+        }
+        if (next == EMPTY) {
+            tail = prev;
+        } else {
+            before[next] = prev;
+        }
+    }
+
+    /**
+     * 哈希槽数量为节点容量的2倍以上, 保证负载因子不超过0.5
+     */
+    private static int slotCapacity(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
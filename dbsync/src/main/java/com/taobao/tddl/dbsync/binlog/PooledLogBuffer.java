@@ -0,0 +1,45 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 引用{@link LogBufferPool}中slab的LogBuffer视图, 使用完成后必须调用{@link #release()}归还slab
+ *
+ * @since 1.1.5
+ */
+public final class PooledLogBuffer extends LogBuffer {
+
+    private final LogBufferPool.Slab slab;
+    private final AtomicInteger      refCnt = new AtomicInteger(1);
+
+    PooledLogBuffer(LogBufferPool.Slab slab, final int origin, final int limit){
+        super(slab.data, origin, limit);
+        this.slab = slab;
+    }
+
+    public PooledLogBuffer retain() {
+        int cnt = refCnt.incrementAndGet();
+        if (cnt <= 1) {
+            throw new IllegalStateException("buffer already released, refCnt: " + cnt);
+        }
+        return this;
+    }
+
+    /**
+     * @return true代表引用计数归零, 对应的slab引用已经释放
+     */
+    public boolean release() {
+        int cnt = refCnt.decrementAndGet();
+        if (cnt == 0) {
+            slab.release();
+            return true;
+        } else if (cnt < 0) {
+            throw new IllegalStateException("buffer already released, refCnt: " + cnt);
+        }
+        return false;
+    }
+
+    public int refCnt() {
+        return refCnt.get();
+    }
+}
@@ -0,0 +1,99 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+
+/**
+ * 延迟解析的ROWS事件
+ *
+ * <pre>
+ * 1. 解析线程只完成header和table_id的解析, 绑定当时的TableMapLogEvent并维护LogContext (位点、gtid、STMT_END_F)
+ * 2. 事件体的完整解析通过{@link #decode()}完成, 可以在其他线程中执行
+ * </pre>
+ *
+ * 注意: buffer中只能包含当前这一个事件, 并且在{@link #decode()}完成之前不能被复用
+ *
+ * @since 1.1.5
+ */
+public final class DeferredRowsLogEvent extends LogEvent {
+
+    private final LogBuffer                 buffer;
+    private final FormatDescriptionLogEvent descriptionEvent;
+    private final TableMapLogEvent          table;
+    private final long                      tableId;
+
+    public DeferredRowsLogEvent(LogHeader header, LogBuffer buffer, FormatDescriptionLogEvent descriptionEvent,
+                                TableMapLogEvent table, long tableId){
+        super(header);
+        this.buffer = buffer;
+        this.descriptionEvent = descriptionEvent;
+        this.table = table;
+        this.tableId = tableId;
+    }
+
+    /**
+     * 完整解析ROWS事件
+     */
+    public RowsLogEvent decode() {
+        final int limit = buffer.limit();
+        final int checksumAlg = descriptionEvent.getHeader().getChecksumAlg();
+        if (checksumAlg != LogEvent.BINLOG_CHECKSUM_ALG_OFF && checksumAlg != LogEvent.BINLOG_CHECKSUM_ALG_UNDEF) {
+            // remove checksum bytes
+            buffer.limit(header.getEventLen() - LogEvent.BINLOG_CHECKSUM_LEN);
+        } else {
+            buffer.limit(header.getEventLen());
+        }
+
+        try {
+            RowsLogEvent event;
+            switch (header.getType()) {
+                case LogEvent.WRITE_ROWS_EVENT_V1:
+                case LogEvent.WRITE_ROWS_EVENT:
+                    event = new WriteRowsLogEvent(header, buffer, descriptionEvent);
+                    break;
+                case LogEvent.UPDATE_ROWS_EVENT_V1:
+                case LogEvent.UPDATE_ROWS_EVENT:
+                    event = new UpdateRowsLogEvent(header, buffer, descriptionEvent);
+                    break;
+                case LogEvent.PARTIAL_UPDATE_ROWS_EVENT:
+                    event = new UpdateRowsLogEvent(header, buffer, descriptionEvent, true);
+                    break;
+                case LogEvent.DELETE_ROWS_EVENT_V1:
+                case LogEvent.DELETE_ROWS_EVENT:
+                    event = new DeleteRowsLogEvent(header, buffer, descriptionEvent);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupport rows event type : " + header.getType());
+            }
+
+            event.fillTable(table);
+            event.setSemival(semival);
+            return event;
+        } finally {
+            buffer.limit(limit); /* Restore limit */
+        }
+    }
+
+    public final long getTableId() {
+        return tableId;
+    }
+
+    public final TableMapLogEvent getTable() {
+        return table;
+    }
+
+    public static boolean isRowsEvent(int type) {
+        switch (type) {
+            case LogEvent.WRITE_ROWS_EVENT_V1:
+            case LogEvent.WRITE_ROWS_EVENT:
+            case LogEvent.UPDATE_ROWS_EVENT_V1:
+            case LogEvent.UPDATE_ROWS_EVENT:
+            case LogEvent.PARTIAL_UPDATE_ROWS_EVENT:
+            case LogEvent.DELETE_ROWS_EVENT_V1:
+            case LogEvent.DELETE_ROWS_EVENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
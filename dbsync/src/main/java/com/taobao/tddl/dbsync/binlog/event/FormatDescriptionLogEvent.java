@@ -62,6 +62,7 @@ public final class FormatDescriptionLogEvent extends StartLogEventV3 {
     public static final int TRANSACTION_CONTEXT_HEADER_LEN = 18;
     public static final int VIEW_CHANGE_HEADER_LEN = 52;
     public static final int XA_PREPARE_HEADER_LEN = 0;
+    public static final int TRANSACTION_PAYLOAD_HEADER_LEN = 0;
 
     public static final int ANNOTATE_ROWS_HEADER_LEN = 0;
     public static final int BINLOG_CHECKPOINT_HEADER_LEN = 4;
@@ -219,6 +220,7 @@ public final class FormatDescriptionLogEvent extends StartLogEventV3 {
                 postHeaderLen[VIEW_CHANGE_EVENT - 1] = VIEW_CHANGE_HEADER_LEN;
                 postHeaderLen[XA_PREPARE_LOG_EVENT - 1] = XA_PREPARE_HEADER_LEN;
                 postHeaderLen[PARTIAL_UPDATE_ROWS_EVENT - 1] = ROWS_HEADER_LEN_V2;
+                postHeaderLen[TRANSACTION_PAYLOAD_EVENT - 1] = TRANSACTION_PAYLOAD_HEADER_LEN;
 
                 // mariadb 10
                 postHeaderLen[ANNOTATE_ROWS_EVENT - 1] = ANNOTATE_ROWS_HEADER_LEN;
@@ -296,6 +296,18 @@ public final class LogHeader {
         this.logFileName = logFileName;
     }
 
+    /**
+     * 压缩事务中的事件没有有效的binlog位点, 继承外层TRANSACTION_PAYLOAD_EVENT的位点及gtid信息.
+     * 事务中间的事件位点指向payload的起始位置, 最后一个事件指向payload的结束位置,
+     * 保证按事务结束位点重启时不会重复解析整个事务
+     */
+    public void inheritPayload(LogHeader payloadHeader, boolean last) {
+        long start = last ? payloadHeader.logPos : payloadHeader.logPos - payloadHeader.eventLen;
+        this.logPos = start + eventLen;
+        this.logFileName = payloadHeader.logFileName;
+        this.gtidMap.putAll(payloadHeader.gtidMap);
+    }
+
     private void processCheckSum(LogBuffer buffer) {
         if (checksumAlg != LogEvent.BINLOG_CHECKSUM_ALG_OFF && checksumAlg != LogEvent.BINLOG_CHECKSUM_ALG_UNDEF) {
             crc = buffer.getUint32(eventLen - LogEvent.BINLOG_CHECKSUM_LEN);
@@ -1,9 +1,9 @@
 package com.taobao.tddl.dbsync.binlog.event;
 
 import java.io.Serializable;
-import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.BitSet;
+import java.util.TimeZone;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -29,6 +29,11 @@ public final class RowsLogBuffer {
     public static final long TIMEF_INT_OFS = 0x800000L;
     public static final long TIMEF_OFS = 0x800000000000L;
     private static char[] digits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+    private static final String ZERO_DATETIME = "0000-00-00 00:00:00";
+    private static final String ZERO_TIME = "00:00:00";
+    private static final int SECONDS_PER_DAY = 86400;
+    // decimal最大65位, 加上符号/小数点/前导0
+    private static final int MAX_FORMAT_LENGTH = 72;
 
     private final LogBuffer buffer;
     private final int columnLen;
@@ -47,6 +52,12 @@ public final class RowsLogBuffer {
     private int length;
     private Serializable value;
 
+    // 时间/decimal格式化复用的字符缓冲, 避免中间对象
+    private final char[] chars = new char[MAX_FORMAT_LENGTH];
+    private TimeZone timeZone;
+    // decimal直接输出为plain string, 不构造BigDecimal
+    private boolean decimalAsString = false;
+
     public RowsLogBuffer(LogBuffer buffer, final int columnLen, String charsetName, int jsonColumnCount, boolean partial) {
         this.buffer = buffer;
         this.columnLen = columnLen;
@@ -68,15 +79,18 @@ public final class RowsLogBuffer {
      * Rows_log_event::print_verbose_one_row
      */
     public final boolean nextOneRow(BitSet columns, boolean after) {
+        return nextOneRow(columnCount(columns, columnLen), after);
+    }
+
+    /**
+     * Extracting next row from packed buffer, columnCount为row image中的列数,
+     * 同一个事件内可以只计算一次
+     */
+    public final boolean nextOneRow(final int columnCount, boolean after) {
         final boolean hasOneRow = buffer.hasRemaining();
 
         if (hasOneRow) {
-            int column = 0;
-
-            for (int i = 0; i < columnLen; i++)
-                if (columns.get(i)) {
-                    column++;
-                }
+            int column = columnCount;
 
             if (after && partial) {
                 partialBits.clear();
@@ -126,10 +140,41 @@ public final class RowsLogBuffer {
         }
     }
 
+    /**
+     * Extracting next field value from packed buffer, nullJavaType为预先通过
+     * {@link #mysqlToJavaType(int, int, boolean)}计算好的类型, 避免null值时重复计算
+     */
+    public final Serializable nextValue(final String columName, final int columnIndex, final int type, final int meta,
+                                        boolean isBinary, final int nullJavaType) {
+        fNull = nullBits.get(nullBitIndex++);
+
+        if (fNull) {
+            value = null;
+            javaType = nullJavaType;
+            length = 0;
+            return null;
+        } else {
+            // Extracting field value from packed buffer.
+            return fetchValue(columName, columnIndex, type, meta, isBinary);
+        }
+    }
+
+    /**
+     * 计算row image中包含的列数
+     */
+    private static int columnCount(BitSet columns, final int columnLen) {
+        int column = 0;
+        for (int i = 0; i < columnLen; i++)
+            if (columns.get(i)) {
+                column++;
+            }
+        return column;
+    }
+
     /**
      * Maps the given MySQL type to the correct JDBC type.
      */
-    static int mysqlToJavaType(int type, final int meta, boolean isBinary) {
+    public static int mysqlToJavaType(int type, final int meta, boolean isBinary) {
         int javaType;
 
         if (type == LogEvent.MYSQL_TYPE_STRING) {
@@ -365,7 +410,11 @@ public final class RowsLogBuffer {
             case LogEvent.MYSQL_TYPE_NEWDECIMAL: {
                 final int precision = meta >> 8;
                 final int decimals = meta & 0xff;
-                value = buffer.getDecimal(precision, decimals);
+                if (decimalAsString) {
+                    value = buffer.getDecimalString(precision, decimals, chars);
+                } else {
+                    value = buffer.getDecimal(precision, decimals);
+                }
                 javaType = Types.DECIMAL;
                 length = precision;
                 break;
@@ -437,10 +486,9 @@ public final class RowsLogBuffer {
                 // 00:00:00', the “zero” TIMESTAMP value.
                 final long i32 = buffer.getUint32();
                 if (i32 == 0) {
-                    value = "0000-00-00 00:00:00";
+                    value = ZERO_DATETIME;
                 } else {
-                    String v = new Timestamp(i32 * 1000).toString();
-                    value = v.substring(0, v.length() - 2);
+                    value = new String(chars, 0, putTimestamp(chars, 0, i32));
                 }
                 javaType = Types.TIMESTAMP;
                 length = 4;
@@ -470,21 +518,21 @@ public final class RowsLogBuffer {
                         break;
                 }
 
-                String second = null;
-                if (tv_sec == 0) {
-                    second = "0000-00-00 00:00:00";
+                if (tv_sec == 0 && meta == 0) {
+                    value = ZERO_DATETIME;
                 } else {
-                    Timestamp time = new Timestamp(tv_sec * 1000);
-                    second = time.toString();
-                    second = second.substring(0, second.length() - 2);// 去掉毫秒精度.0
-                }
+                    int pos;
+                    if (tv_sec == 0) {
+                        pos = putString(chars, 0, ZERO_DATETIME);
+                    } else {
+                        pos = putTimestamp(chars, 0, tv_sec);
+                    }
 
-                if (meta >= 1) {
-                    String microSecond = usecondsToStr(tv_usec, meta);
-                    microSecond = microSecond.substring(0, meta);
-                    value = second + '.' + microSecond;
-                } else {
-                    value = second;
+                    if (meta >= 1) {
+                        chars[pos++] = '.';
+                        pos = putUseconds(chars, pos, tv_usec, meta);
+                    }
+                    value = new String(chars, 0, pos);
                 }
 
                 javaType = Types.TIMESTAMP;
@@ -496,7 +544,7 @@ public final class RowsLogBuffer {
                 // range is '0000-01-01 00:00:00' to '9999-12-31 23:59:59'
                 final long i64 = buffer.getLong64(); /* YYYYMMDDhhmmss */
                 if (i64 == 0) {
-                    value = "0000-00-00 00:00:00";
+                    value = ZERO_DATETIME;
                 } else {
                     final int d = (int) (i64 / 1000000);
                     final int t = (int) (i64 % 1000000);
@@ -514,19 +562,10 @@ public final class RowsLogBuffer {
                     // (t % 10000) / 100,
                     // t % 100);
 
-                    StringBuilder builder = new StringBuilder();
-                    appendNumber4(builder, d / 10000);
-                    builder.append('-');
-                    appendNumber2(builder, (d % 10000) / 100);
-                    builder.append('-');
-                    appendNumber2(builder, d % 100);
-                    builder.append(' ');
-                    appendNumber2(builder, t / 10000);
-                    builder.append(':');
-                    appendNumber2(builder, (t % 10000) / 100);
-                    builder.append(':');
-                    appendNumber2(builder, t % 100);
-                    value = builder.toString();
+                    int pos = putDate(chars, 0, d / 10000, (d % 10000) / 100, d % 100);
+                    chars[pos++] = ' ';
+                    pos = putTime(chars, pos, t / 10000, (t % 10000) / 100, t % 100);
+                    value = new String(chars, 0, pos);
                 }
                 javaType = Types.TIMESTAMP;
                 length = 8;
@@ -565,9 +604,9 @@ public final class RowsLogBuffer {
                         break;
                 }
 
-                String second = null;
+                int pos;
                 if (intpart == 0) {
-                    second = "0000-00-00 00:00:00";
+                    pos = putString(chars, 0, ZERO_DATETIME);
                 } else {
                     // 构造TimeStamp只处理到秒
                     long ymd = intpart >> 17;
@@ -588,28 +627,16 @@ public final class RowsLogBuffer {
                     // (int) ((hms >> 6) % (1 << 6)),
                     // (int) (hms % (1 << 6)));
 
-                    StringBuilder builder = new StringBuilder(26);
-                    appendNumber4(builder, (int) (ym / 13));
-                    builder.append('-');
-                    appendNumber2(builder, (int) (ym % 13));
-                    builder.append('-');
-                    appendNumber2(builder, (int) (ymd % (1 << 5)));
-                    builder.append(' ');
-                    appendNumber2(builder, (int) (hms >> 12));
-                    builder.append(':');
-                    appendNumber2(builder, (int) ((hms >> 6) % (1 << 6)));
-                    builder.append(':');
-                    appendNumber2(builder, (int) (hms % (1 << 6)));
-                    second = builder.toString();
+                    pos = putDate(chars, 0, (int) (ym / 13), (int) (ym % 13), (int) (ymd % (1 << 5)));
+                    chars[pos++] = ' ';
+                    pos = putTime(chars, pos, (int) (hms >> 12), (int) ((hms >> 6) % (1 << 6)), (int) (hms % (1 << 6)));
                 }
 
                 if (meta >= 1) {
-                    String microSecond = usecondsToStr(frac, meta);
-                    microSecond = microSecond.substring(0, meta);
-                    value = second + '.' + microSecond;
-                } else {
-                    value = second;
+                    chars[pos++] = '.';
+                    pos = putUseconds(chars, pos, frac, meta);
                 }
+                value = new String(chars, 0, pos);
 
                 javaType = Types.TIMESTAMP;
                 length = 5 + (meta + 1) / 2;
@@ -622,7 +649,7 @@ public final class RowsLogBuffer {
                 final int i32 = buffer.getInt24();
                 final int u32 = Math.abs(i32);
                 if (i32 == 0) {
-                    value = "00:00:00";
+                    value = ZERO_TIME;
                 } else {
                     // if (cal == null) cal = Calendar.getInstance();
                     // cal.clear();
@@ -635,22 +662,22 @@ public final class RowsLogBuffer {
                     // (u32 % 10000) / 100,
                     // u32 % 100);
 
-                    StringBuilder builder = new StringBuilder(17);
+                    int pos = 0;
                     if (i32 < 0) {
-                        builder.append('-');
+                        chars[pos++] = '-';
                     }
 
                     int d = u32 / 10000;
                     if (d > 100) {
-                        builder.append(String.valueOf(d));
+                        pos = putInt(chars, pos, d);
                     } else {
-                        appendNumber2(builder, d);
+                        pos = putNumber2(chars, pos, d);
                     }
-                    builder.append(':');
-                    appendNumber2(builder, (u32 % 10000) / 100);
-                    builder.append(':');
-                    appendNumber2(builder, u32 % 100);
-                    value = builder.toString();
+                    chars[pos++] = ':';
+                    pos = putNumber2(chars, pos, (u32 % 10000) / 100);
+                    chars[pos++] = ':';
+                    pos = putNumber2(chars, pos, u32 % 100);
+                    value = new String(chars, 0, pos);
                 }
                 javaType = Types.TIME;
                 length = 3;
@@ -731,9 +758,9 @@ public final class RowsLogBuffer {
                         break;
                 }
 
-                String second = null;
+                int pos;
                 if (intpart == 0) {
-                    second = "00:00:00";
+                    pos = putString(chars, 0, ZERO_TIME);
                 } else {
                     // 目前只记录秒，不处理us frac
                     // if (cal == null) cal = Calendar.getInstance();
@@ -750,31 +777,28 @@ public final class RowsLogBuffer {
                     // (int) ((intpart >> 6) % (1 << 6)),
                     // (int) (intpart % (1 << 6)));
 
-                    StringBuilder builder = new StringBuilder(12);
+                    pos = 0;
                     if (ltime < 0) {
-                        builder.append('-');
+                        chars[pos++] = '-';
                     }
 
                     int d = (int) ((intpart >> 12) % (1 << 10));
                     if (d >= 100) {
-                        builder.append(String.valueOf(d));
+                        pos = putInt(chars, pos, d);
                     } else {
-                        appendNumber2(builder, d);
+                        pos = putNumber2(chars, pos, d);
                     }
-                    builder.append(':');
-                    appendNumber2(builder, (int) ((intpart >> 6) % (1 << 6)));
-                    builder.append(':');
-                    appendNumber2(builder, (int) (intpart % (1 << 6)));
-                    second = builder.toString();
+                    chars[pos++] = ':';
+                    pos = putNumber2(chars, pos, (int) ((intpart >> 6) % (1 << 6)));
+                    chars[pos++] = ':';
+                    pos = putNumber2(chars, pos, (int) (intpart % (1 << 6)));
                 }
 
                 if (meta >= 1) {
-                    String microSecond = usecondsToStr(Math.abs(frac), meta);
-                    microSecond = microSecond.substring(0, meta);
-                    value = second + '.' + microSecond;
-                } else {
-                    value = second;
+                    chars[pos++] = '.';
+                    pos = putUseconds(chars, pos, Math.abs(frac), meta);
                 }
+                value = new String(chars, 0, pos);
 
                 javaType = Types.TIME;
                 length = 3 + (meta + 1) / 2;
@@ -808,13 +832,7 @@ public final class RowsLogBuffer {
                     // value = String.format("%04d-%02d-%02d", i32 / (16 * 32),
                     // i32 / 32 % 16, i32 % 32);
 
-                    StringBuilder builder = new StringBuilder(12);
-                    appendNumber4(builder, i32 / (16 * 32));
-                    builder.append('-');
-                    appendNumber2(builder, i32 / 32 % 16);
-                    builder.append('-');
-                    appendNumber2(builder, i32 % 32);
-                    value = builder.toString();
+                    value = new String(chars, 0, putDate(chars, 0, i32 / (16 * 32), i32 / 32 % 16, i32 % 32));
                 }
                 javaType = Types.DATE;
                 length = 3;
@@ -1162,6 +1180,148 @@ public final class RowsLogBuffer {
         return length;
     }
 
+    public final boolean isDecimalAsString() {
+        return decimalAsString;
+    }
+
+    /**
+     * decimal类型的value直接使用plain string (与BigDecimal.toPlainString()一致), 避免构造BigDecimal
+     */
+    public final void setDecimalAsString(boolean decimalAsString) {
+        this.decimalAsString = decimalAsString;
+    }
+
+    /**
+     * 按本地时区输出yyyy-MM-dd HH:mm:ss, 与new Timestamp(seconds * 1000).toString()去掉毫秒部分一致
+     */
+    private int putTimestamp(char[] buf, int pos, long seconds) {
+        if (timeZone == null) {
+            timeZone = TimeZone.getDefault();
+        }
+
+        long local = seconds + timeZone.getOffset(seconds * 1000) / 1000;
+        long days = floorDiv(local, SECONDS_PER_DAY);
+        int secondOfDay = (int) (local - days * SECONDS_PER_DAY);
+
+        // civil from days, 公历日期换算
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+
+        pos = putDate(buf, pos, year, month, day);
+        buf[pos++] = ' ';
+        return putTime(buf, pos, secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long r = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            r--;
+        }
+        return r;
+    }
+
+    private static int putDate(char[] buf, int pos, int year, int month, int day) {
+        pos = putNumber4(buf, pos, year);
+        buf[pos++] = '-';
+        pos = putNumber2(buf, pos, month);
+        buf[pos++] = '-';
+        return putNumber2(buf, pos, day);
+    }
+
+    private static int putTime(char[] buf, int pos, int hour, int minute, int second) {
+        pos = putNumber2(buf, pos, hour);
+        buf[pos++] = ':';
+        pos = putNumber2(buf, pos, minute);
+        buf[pos++] = ':';
+        return putNumber2(buf, pos, second);
+    }
+
+    /**
+     * 输出微秒的前meta位, 与usecondsToStr(frac, meta)一致
+     */
+    private static int putUseconds(char[] buf, int pos, int frac, int meta) {
+        if (frac == 0 && meta <= 6) {
+            // 最常见的无小数部分
+            for (int i = 0; i < meta; i++) {
+                buf[pos++] = '0';
+            }
+            return pos;
+        } else if (frac < 0 || frac > 999999 || meta > 6) {
+            return putString(buf, pos, usecondsToStr(frac, meta));
+        }
+
+        int divisor = 100000;
+        for (int i = 0; i < meta; i++) {
+            buf[pos++] = digits[(frac / divisor) % 10];
+            divisor /= 10;
+        }
+        return pos;
+    }
+
+    private static int putInt(char[] buf, int pos, int d) {
+        int start = pos;
+        do {
+            buf[pos++] = digits[d % 10];
+            d /= 10;
+        } while (d > 0);
+        // 反转
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char c = buf[i];
+            buf[i] = buf[j];
+            buf[j] = c;
+        }
+        return pos;
+    }
+
+    private static int putString(char[] buf, int pos, String s) {
+        int len = s.length();
+        s.getChars(0, len, buf, pos);
+        return pos + len;
+    }
+
+    private static int putNumber4(char[] buf, int pos, int d) {
+        if (d >= 1000) {
+            buf[pos++] = digits[d / 1000];
+            buf[pos++] = digits[(d / 100) % 10];
+            buf[pos++] = digits[(d / 10) % 10];
+            buf[pos++] = digits[d % 10];
+            return pos;
+        } else {
+            buf[pos++] = '0';
+            return putNumber3(buf, pos, d);
+        }
+    }
+
+    private static int putNumber3(char[] buf, int pos, int d) {
+        if (d >= 100) {
+            buf[pos++] = digits[d / 100];
+            buf[pos++] = digits[(d / 10) % 10];
+            buf[pos++] = digits[d % 10];
+            return pos;
+        } else {
+            buf[pos++] = '0';
+            return putNumber2(buf, pos, d);
+        }
+    }
+
+    private static int putNumber2(char[] buf, int pos, int d) {
+        if (d >= 10) {
+            buf[pos++] = digits[(d / 10) % 10];
+            buf[pos++] = digits[d % 10];
+        } else {
+            buf[pos++] = '0';
+            buf[pos++] = digits[d];
+        }
+        return pos;
+    }
+
     public static String usecondsToStr(int frac, int meta) {
         String sec = String.valueOf(frac);
         if (meta > 6) {
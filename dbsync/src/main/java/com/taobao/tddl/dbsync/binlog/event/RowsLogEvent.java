@@ -201,6 +201,18 @@ public abstract class RowsLogEvent extends LogEvent {
             context.clearAllTables();
         }
 
+        fillTable(table);
+    }
+
+    /**
+     * 直接绑定已经解析好的table map, 不依赖LogContext, 可以在非解析线程中调用
+     */
+    public final void fillTable(TableMapLogEvent table) {
+        if (table == null) {
+            throw new TableIdNotFoundException("not found tableId:" + tableId);
+        }
+
+        this.table = table;
         int jsonColumnCount = 0;
         int columnCnt = table.getColumnCnt();
         ColumnInfo[] columnInfo = table.getColumnInfo();
@@ -233,6 +245,25 @@ public abstract class RowsLogEvent extends LogEvent {
         return new RowsLogBuffer(rowsBuf, columnLen, charsetName, jsonColumnCount, partial);
     }
 
+    /**
+     * 返回packed格式的原始行数据拷贝, 可用于延迟解析
+     */
+    public final byte[] getRowsData() {
+        return rowsBuf.getData();
+    }
+
+    public final int getColumnLen() {
+        return columnLen;
+    }
+
+    public final int getJsonColumnCount() {
+        return jsonColumnCount;
+    }
+
+    public final boolean isPartial() {
+        return partial;
+    }
+
     public final int getFlags(final int flags) {
         return this.flags & flags;
     }
@@ -0,0 +1,140 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.luben.zstd.Zstd;
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+
+/**
+ * mysql 8.0.20开始支持binlog_transaction_compression, 一个事务内的所有事件压缩后写入一个TRANSACTION_PAYLOAD_EVENT
+ *
+ * <pre>
+ * 事件体由若干个(type, length, value)字段组成, 以HEADER_END_MARK结束, 之后是payload:
+ *   OTW_PAYLOAD_SIZE_FIELD              payload大小
+ *   OTW_PAYLOAD_COMPRESSION_TYPE_FIELD  压缩算法, 0为zstd, 255为未压缩
+ *   OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD 解压后大小
+ * type/length/value均为packed integer. payload解压后为完整的binlog事件序列, 内部事件不带checksum
+ * </pre>
+ *
+ * 构造时只解析字段头并拷贝payload, 解压和内部事件的decode通过{@link #decodeEvents()}完成, 可以放到并发线程中执行
+ *
+ * @see mysql-8.0.20/libbinlogevents/src/control_events.cpp - Transaction_payload_event
+ * @since mysql 8.0.20
+ */
+public class TransactionPayloadLogEvent extends LogEvent {
+
+    public static final int OTW_PAYLOAD_HEADER_END_MARK         = 0;
+    public static final int OTW_PAYLOAD_SIZE_FIELD              = 1;
+    public static final int OTW_PAYLOAD_COMPRESSION_TYPE_FIELD  = 2;
+    public static final int OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD = 3;
+
+    public static final int COMPRESSION_ZSTD                    = 0;
+    public static final int COMPRESSION_NONE                    = 255;
+
+    private long            payloadSize;
+    private int             compressionType                     = COMPRESSION_NONE;
+    private long            uncompressedSize;
+    private byte[]          payload;
+
+    public TransactionPayloadLogEvent(LogHeader header, LogBuffer buffer, FormatDescriptionLogEvent descriptionEvent){
+        super(header);
+
+        final int commonHeaderLen = descriptionEvent.getCommonHeaderLen();
+        final int postHeaderLen = descriptionEvent.getPostHeaderLen()[header.getType() - 1];
+        buffer.position(commonHeaderLen + postHeaderLen);
+
+        while (buffer.hasRemaining()) {
+            int type = (int) buffer.getPackedLong();
+            if (type == OTW_PAYLOAD_HEADER_END_MARK) {
+                break;
+            }
+
+            int length = (int) buffer.getPackedLong();
+            switch (type) {
+                case OTW_PAYLOAD_SIZE_FIELD:
+                    payloadSize = buffer.getPackedLong();
+                    break;
+                case OTW_PAYLOAD_COMPRESSION_TYPE_FIELD:
+                    compressionType = (int) buffer.getPackedLong();
+                    break;
+                case OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD:
+                    uncompressedSize = buffer.getPackedLong();
+                    break;
+                default:
+                    // 忽略未知字段
+                    buffer.forward(length);
+                    break;
+            }
+        }
+
+        // 需要拷贝一份, 原始buffer可能被复用
+        payload = buffer.getData((int) payloadSize);
+        if (compressionType == COMPRESSION_NONE && uncompressedSize == 0) {
+            uncompressedSize = payloadSize;
+        }
+    }
+
+    /**
+     * 解压payload
+     */
+    public byte[] decompress() throws IOException {
+        switch (compressionType) {
+            case COMPRESSION_ZSTD:
+                byte[] data = Zstd.decompress(payload, (int) uncompressedSize);
+                if (data.length != uncompressedSize) {
+                    throw new IOException("zstd decompress size is not match, " + data.length + " vs "
+                                          + uncompressedSize);
+                }
+                return data;
+            case COMPRESSION_NONE:
+                return payload;
+            default:
+                throw new IOException("unsupport transaction payload compression type : " + compressionType);
+        }
+    }
+
+    /**
+     * 解压并decode payload中的所有事件, 事件的binlog位点及gtid继承自当前事件
+     */
+    public List<LogEvent> decodeEvents() throws IOException {
+        byte[] data = decompress();
+        LogBuffer buffer = new LogBuffer(data, 0, data.length);
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+        // 内部事件不带checksum, table map只在当前事务内有效
+        LogContext context = new LogContext(new FormatDescriptionLogEvent(4, LogEvent.BINLOG_CHECKSUM_ALG_OFF));
+        context.setLogPosition(new LogPosition(header.getLogFileName(), header.getLogPos()));
+
+        List<LogEvent> events = new ArrayList<LogEvent>();
+        LogEvent event;
+        while ((event = decoder.decode(buffer, context)) != null) {
+            events.add(event);
+        }
+
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).getHeader().inheritPayload(header, i == events.size() - 1);
+        }
+        return events;
+    }
+
+    public long getPayloadSize() {
+        return payloadSize;
+    }
+
+    public int getCompressionType() {
+        return compressionType;
+    }
+
+    public long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
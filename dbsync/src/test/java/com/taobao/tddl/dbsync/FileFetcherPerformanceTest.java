@@ -0,0 +1,52 @@
+package com.taobao.tddl.dbsync;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.taobao.tddl.dbsync.binlog.FileLogFetcher;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+
+/**
+ * 对比FileInputStream和mmap两种方式回放本地binlog文件的性能
+ */
+public class FileFetcherPerformanceTest {
+
+    public static void main(String args[]) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "/tmp/binlog/mysql-bin.000001");
+        int loop = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (int i = 0; i < loop; i++) {
+            run(file, false);
+            run(file, true);
+        }
+    }
+
+    private static void run(File file, boolean mmap) throws IOException {
+        FileLogFetcher fetcher = new FileLogFetcher(16 * 1024);
+        fetcher.setMmap(mmap);
+        try {
+            LogDecoder decoder = new LogDecoder();
+            // 只decode事件头, 只比较读取文件的开销
+            decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
+            LogContext context = new LogContext();
+            context.setLogPosition(new LogPosition(file.getName()));
+            fetcher.open(file);
+
+            long sum = 0;
+            long start = System.currentTimeMillis();
+            while (fetcher.fetch()) {
+                while (decoder.decode(fetcher, context) != null) {
+                    sum++;
+                }
+            }
+
+            long cost = Math.max(System.currentTimeMillis() - start, 1);
+            System.out.println((mmap ? "mmap  " : "stream") + " total : " + sum + " , cost : " + cost + " , tps : "
+                               + (sum * 1000 / cost) + " , MB/s : " + (file.length() * 1000 / cost / 1024 / 1024));
+        } finally {
+            fetcher.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.taobao.tddl.dbsync;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.util.BitSet;
+
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.event.RowsLogBuffer;
+
+/**
+ * datetime2/timestamp2/decimal格式化的性能对比, 旧实现为StringBuilder + 字符串拼接 + BigDecimal.toPlainString()
+ */
+public class RowsLogBufferFormatPerformanceTest {
+
+    private static final int ROWS          = 10000;
+    private static final int LOOP          = 200;
+    private static final int DATETIME_META = 6;
+    private static final int DECIMAL_META  = (18 << 8) | 4;
+
+    public static void main(String args[]) {
+        byte[] data = buildRows();
+        BitSet columns = new BitSet(3);
+        columns.set(0, 3);
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long sum = 0;
+            for (int i = 0; i < LOOP; i++) {
+                sum += legacy(data);
+            }
+            long legacy = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < LOOP; i++) {
+                RowsLogBuffer buffer = new RowsLogBuffer(new LogBuffer(data, 0, data.length), 3, "UTF-8", 0, false);
+                buffer.setDecimalAsString(true);
+                while (buffer.nextOneRow(columns, false)) {
+                    sum += ((String) buffer.nextValue("c1", 0, LogEvent.MYSQL_TYPE_DATETIME2, DATETIME_META)).length();
+                    sum += ((String) buffer.nextValue("c2", 1, LogEvent.MYSQL_TYPE_TIMESTAMP2, 0)).length();
+                    sum += ((String) buffer.nextValue("c3", 2, LogEvent.MYSQL_TYPE_NEWDECIMAL, DECIMAL_META)).length();
+                }
+            }
+            long current = System.nanoTime() - start;
+
+            long values = (long) ROWS * LOOP * 3;
+            System.out.println(" round : " + round + " , legacy tps : " + (values * 1000000000L / legacy)
+                               + " , current tps : " + (values * 1000000000L / current) + " , checksum : " + sum);
+        }
+    }
+
+    private static long legacy(byte[] data) {
+        LogBuffer buffer = new LogBuffer(data, 0, data.length);
+        long sum = 0;
+        while (buffer.hasRemaining()) {
+            buffer.forward(1); // null bits
+            long intpart = buffer.getBeUlong40() - RowsLogBuffer.DATETIMEF_INT_OFS;
+            int frac = buffer.getBeInt24();
+            long ymd = intpart >> 17;
+            long ym = ymd >> 5;
+            long hms = intpart % (1 << 17);
+            StringBuilder builder = new StringBuilder(26);
+            RowsLogBuffer.appendNumber4(builder, (int) (ym / 13));
+            builder.append('-');
+            RowsLogBuffer.appendNumber2(builder, (int) (ym % 13));
+            builder.append('-');
+            RowsLogBuffer.appendNumber2(builder, (int) (ymd % (1 << 5)));
+            builder.append(' ');
+            RowsLogBuffer.appendNumber2(builder, (int) (hms >> 12));
+            builder.append(':');
+            RowsLogBuffer.appendNumber2(builder, (int) ((hms >> 6) % (1 << 6)));
+            builder.append(':');
+            RowsLogBuffer.appendNumber2(builder, (int) (hms % (1 << 6)));
+            String second = builder.toString();
+            String microSecond = RowsLogBuffer.usecondsToStr(frac, DATETIME_META);
+            microSecond = microSecond.substring(0, DATETIME_META);
+            sum += (second + '.' + microSecond).length();
+
+            long tv_sec = buffer.getBeUint32();
+            String time = new Timestamp(tv_sec * 1000).toString();
+            sum += time.substring(0, time.length() - 2).length();
+
+            sum += buffer.getDecimal(18, 4).toPlainString().length();
+        }
+        return sum;
+    }
+
+    private static byte[] buildRows() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < ROWS; i++) {
+            out.write(0); // null bits
+            long ymd = (((long) (2000 + i % 30) * 13 + (1 + i % 12)) << 5) | (1 + i % 28);
+            long hms = ((i % 24) << 12) | ((i % 60) << 6) | (i % 60);
+            writeBe(out, ((ymd << 17) | hms) + RowsLogBuffer.DATETIMEF_INT_OFS, 5);
+            writeBe(out, (i % 3 == 0) ? 0 : i * 7 % 1000000, 3);
+
+            writeBe(out, 1500000000L + i * 97L, 4);
+
+            // decimal(18,4): 14位整数(5 + 9), 4位小数
+            byte[] decimal = new byte[3 + 4 + 2];
+            int high = i % 100000;
+            int low = i * 31 % 1000000000;
+            int fraction = i % 10000;
+            decimal[0] = (byte) (high >> 16);
+            decimal[1] = (byte) (high >> 8);
+            decimal[2] = (byte) high;
+            decimal[3] = (byte) (low >> 24);
+            decimal[4] = (byte) (low >> 16);
+            decimal[5] = (byte) (low >> 8);
+            decimal[6] = (byte) low;
+            decimal[7] = (byte) (fraction >> 8);
+            decimal[8] = (byte) fraction;
+            decimal[0] ^= 0x80;
+            out.write(decimal, 0, decimal.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeBe(ByteArrayOutputStream out, long value, int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            out.write((int) (value >> (i * 8)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
+import com.taobao.tddl.dbsync.binlog.event.XidLogEvent;
+
+public class FileLogFetcherMmapTest {
+
+    private static final int XID_EVENT_LEN = FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + 8;
+
+    @Test
+    public void testMmapSameAsStream() throws Exception {
+        final int count = 10000;
+        File file = File.createTempFile("mysql-bin", ".000001");
+        file.deleteOnExit();
+        writeBinlog(file, count);
+
+        List<Long> expect = fetchXids(file, false);
+        // 窗口不是事件长度的整数倍, 覆盖事件跨窗口的情况
+        List<Long> actual = fetchXids(file, true);
+        Assert.assertEquals(count, expect.size());
+        Assert.assertEquals(expect, actual);
+        file.delete();
+    }
+
+    private static List<Long> fetchXids(File file, boolean mmap) throws Exception {
+        FileLogFetcher fetcher = new FileLogFetcher(1024);
+        fetcher.setMmap(mmap);
+        fetcher.setMapWindowSize(4096);
+        List<Long> xids = new ArrayList<Long>();
+        try {
+            LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+            LogContext context = new LogContext(new FormatDescriptionLogEvent(4, LogEvent.BINLOG_CHECKSUM_ALG_OFF));
+            context.setLogPosition(new LogPosition(file.getName()));
+            fetcher.open(file);
+            while (fetcher.fetch()) {
+                LogEvent event;
+                while ((event = decoder.decode(fetcher, context)) != null) {
+                    xids.add(((XidLogEvent) event).getXid());
+                }
+            }
+        } finally {
+            fetcher.close();
+        }
+        return xids;
+    }
+
+    private static void writeBinlog(File file, int count) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(FileLogFetcher.BINLOG_MAGIC);
+        long logPos = FileLogFetcher.BIN_LOG_HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            logPos += XID_EVENT_LEN;
+            writeLe(out, 1600000000L, 4); // when
+            out.write(LogEvent.XID_EVENT);
+            writeLe(out, 1L, 4); // server id
+            writeLe(out, XID_EVENT_LEN, 4);
+            writeLe(out, logPos, 4);
+            writeLe(out, 0, 2); // flags
+            writeLe(out, i, 8);
+        }
+
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            out.writeTo(fos);
+        } finally {
+            fos.close();
+        }
+    }
+
+    private static void writeLe(ByteArrayOutputStream out, long value, int len) {
+        for (int i = 0; i < len; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogBufferPoolTest {
+
+    @Test
+    public void testCopyOf() {
+        LogBufferPool pool = new LogBufferPool(16, 2);
+        LogBuffer source = new LogBuffer(new byte[] { 1, 2, 3, 4, 5, 6 }, 1, 4);
+
+        LogBuffer buffer = pool.copyOf(source);
+        Assert.assertTrue(buffer instanceof PooledLogBuffer);
+        Assert.assertEquals(4, buffer.limit());
+        Assert.assertEquals(2, buffer.getUint8(0));
+        Assert.assertEquals(5, buffer.getUint8(3));
+        Assert.assertEquals(1, pool.getAllocatedSlabs());
+    }
+
+    @Test
+    public void testRecycle() {
+        LogBufferPool pool = new LogBufferPool(8, 2);
+        LogBuffer source = new LogBuffer(new byte[] { 1, 2, 3, 4, 5, 6 }, 0, 6);
+
+        PooledLogBuffer first = (PooledLogBuffer) pool.copyOf(source);
+        // slab剩余空间不足, 切换到新的slab
+        PooledLogBuffer second = (PooledLogBuffer) pool.copyOf(source);
+        Assert.assertEquals(2, pool.getAllocatedSlabs());
+        Assert.assertEquals(0, pool.getFreeSlabCount());
+
+        Assert.assertTrue(first.release());
+        Assert.assertEquals(1, pool.getFreeSlabCount());
+
+        // 复用已归还的slab
+        PooledLogBuffer third = (PooledLogBuffer) pool.copyOf(source);
+        Assert.assertEquals(2, pool.getAllocatedSlabs());
+        Assert.assertEquals(0, pool.getFreeSlabCount());
+        Assert.assertEquals(6, third.getUint8(5));
+
+        second.release();
+        third.release();
+        pool.clear();
+        Assert.assertEquals(2, pool.getFreeSlabCount());
+    }
+
+    @Test
+    public void testRetain() {
+        LogBufferPool pool = new LogBufferPool(8, 2);
+        LogBuffer source = new LogBuffer(new byte[] { 1, 2 }, 0, 2);
+
+        PooledLogBuffer buffer = (PooledLogBuffer) pool.copyOf(source);
+        buffer.retain();
+        Assert.assertFalse(buffer.release());
+        Assert.assertTrue(buffer.release());
+        Assert.assertEquals(0, buffer.refCnt());
+    }
+
+    @Test
+    public void testOversizePacket() {
+        LogBufferPool pool = new LogBufferPool(4, 2);
+        LogBuffer source = new LogBuffer(new byte[] { 1, 2, 3, 4, 5, 6 }, 0, 6);
+
+        LogBuffer buffer = pool.copyOf(source);
+        Assert.assertFalse(buffer instanceof PooledLogBuffer);
+        Assert.assertEquals(1, pool.getUnpooledAllocation());
+        Assert.assertEquals(0, pool.getAllocatedSlabs());
+    }
+}
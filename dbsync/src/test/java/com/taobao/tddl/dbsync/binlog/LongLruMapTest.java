@@ -0,0 +1,71 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongLruMapTest {
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        LongLruMap<String> map = new LongLruMap<String>(3);
+        map.put(1L, "a");
+        map.put(2L, "b");
+        map.put(3L, "c");
+        Assert.assertEquals("a", map.get(1L));
+
+        map.put(4L, "d");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(1, map.getEvictCount());
+        Assert.assertNull(map.get(2L));
+        Assert.assertEquals("a", map.get(1L));
+        Assert.assertEquals("c", map.get(3L));
+        Assert.assertEquals("d", map.get(4L));
+
+        Assert.assertEquals("d", map.put(4L, "e"));
+        Assert.assertEquals("e", map.remove(4L));
+        Assert.assertNull(map.remove(4L));
+        Assert.assertEquals(2, map.size());
+
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertNull(map.get(1L));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final int maxSize = 100;
+        LongLruMap<Long> map = new LongLruMap<Long>(maxSize);
+        Map<Long, Long> expect = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        Random random = new Random(0);
+        for (int i = 0; i < 200000; i++) {
+            // 负数及高位不同的key也需要覆盖
+            long key = (random.nextInt(300) - 150) * 0x100000001L;
+            int op = random.nextInt(10);
+            if (op < 5) {
+                Assert.assertEquals(expect.put(key, (long) i), map.put(key, (long) i));
+            } else if (op < 9) {
+                Assert.assertEquals(expect.get(key), map.get(key));
+            } else {
+                Assert.assertEquals(expect.remove(key), map.remove(key));
+            }
+            Assert.assertEquals(expect.size(), map.size());
+        }
+
+        for (Map.Entry<Long, Long> entry : expect.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.remove(entry.getKey()));
+        }
+        Assert.assertEquals(0, map.size());
+    }
+}
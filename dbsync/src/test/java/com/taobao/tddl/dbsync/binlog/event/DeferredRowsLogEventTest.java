@@ -0,0 +1,143 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.parse.driver.mysql.packets.MysqlGTIDSet;
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+import com.taobao.tddl.dbsync.binlog.exception.TableIdNotFoundException;
+
+public class DeferredRowsLogEventTest {
+
+    private static final String GTID    = "3e11fa47-71ca-11e1-9e33-c80aa9429562:1-5";
+    private static final long   TABLEID = 100L;
+
+    @Test
+    public void testDeferredDecode() throws Exception {
+        LogContext context = newContext();
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+        putTableMap(decoder, context, 200L);
+
+        // 非STMT_END_F, 保留table map
+        byte[] data = buildWriteRows(TABLEID, 0, 300L, 42);
+        LogBuffer buffer = new LogBuffer(data, 0, data.length);
+        DeferredRowsLogEvent deferred = decoder.decodeDeferredRows(buffer, context);
+        Assert.assertNotNull(deferred);
+        Assert.assertEquals(TABLEID, deferred.getTableId());
+        Assert.assertEquals("t1", deferred.getTable().getTableName());
+        Assert.assertSame(context.getTable(TABLEID), deferred.getTable());
+        Assert.assertEquals(300L, context.getLogPosition().getPosition());
+        Assert.assertEquals("mysql-bin.000001", deferred.getHeader().getLogFileName());
+        Assert.assertEquals(MysqlGTIDSet.parse(GTID).toString(), deferred.getHeader().getGtidSetStr());
+
+        // STMT_END_F清理context中的table map, 但已绑定的table不受影响
+        byte[] last = buildWriteRows(TABLEID, RowsLogEvent.STMT_END_F, 400L, 43);
+        LogBuffer lastBuffer = new LogBuffer(last, 0, last.length);
+        DeferredRowsLogEvent lastDeferred = decoder.decodeDeferredRows(lastBuffer, context);
+        Assert.assertNull(context.getTable(TABLEID));
+        Assert.assertEquals("t1", lastDeferred.getTable().getTableName());
+        Assert.assertEquals(400L, context.getLogPosition().getPosition());
+
+        // 在其他线程中完成的完整解析, 结果与绑定的table一致
+        RowsLogEvent event = deferred.decode();
+        Assert.assertTrue(event instanceof WriteRowsLogEvent);
+        Assert.assertEquals(TABLEID, event.getTableId());
+        Assert.assertSame(deferred.getTable(), event.getTable());
+        Assert.assertEquals(1, event.getColumnLen());
+        Assert.assertEquals(300L, event.getHeader().getLogPos());
+        Assert.assertEquals(data.length, buffer.limit());
+
+        RowsLogBuffer rows = event.getRowsBuf("UTF-8");
+        Assert.assertTrue(rows.nextOneRow(event.getColumns()));
+        Assert.assertEquals(42, ((Number) rows.nextValue("id", 0, LogEvent.MYSQL_TYPE_LONG, 0)).intValue());
+
+        RowsLogEvent lastEvent = lastDeferred.decode();
+        Assert.assertEquals(RowsLogEvent.STMT_END_F, lastEvent.getFlags(RowsLogEvent.STMT_END_F));
+    }
+
+    @Test
+    public void testNotRowsEvent() throws Exception {
+        LogContext context = newContext();
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeHeader(out, LogEvent.XID_EVENT, FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + 8, 500L);
+        RowsLogBufferTest.writeLe(out, 1L, 8);
+        byte[] data = out.toByteArray();
+        LogBuffer buffer = new LogBuffer(data, 0, data.length);
+        Assert.assertNull(decoder.decodeDeferredRows(buffer, context));
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(4L, context.getLogPosition().getPosition());
+    }
+
+    @Test(expected = TableIdNotFoundException.class)
+    public void testTableNotFound() throws Exception {
+        LogContext context = newContext();
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+        byte[] data = buildWriteRows(TABLEID + 1, 0, 300L, 42);
+        decoder.decodeDeferredRows(new LogBuffer(data, 0, data.length), context);
+    }
+
+    private static LogContext newContext() {
+        LogContext context = new LogContext(new FormatDescriptionLogEvent(4, LogEvent.BINLOG_CHECKSUM_ALG_OFF));
+        context.setLogPosition(new LogPosition("mysql-bin.000001", 4L));
+        context.setGtidSet(MysqlGTIDSet.parse(GTID));
+        return context;
+    }
+
+    private static void putTableMap(LogDecoder decoder, LogContext context, long logPos) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        RowsLogBufferTest.writeLe(body, TABLEID, 6);
+        RowsLogBufferTest.writeLe(body, 0, 2); // flags
+        writeString(body, "test");
+        writeString(body, "t1");
+        body.write(1); // column count
+        body.write(LogEvent.MYSQL_TYPE_LONG);
+        body.write(0); // metadata length
+        body.write(0); // null bits
+
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        writeHeader(event, LogEvent.TABLE_MAP_EVENT, FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + body.size(), logPos);
+        event.write(body.toByteArray());
+        byte[] data = event.toByteArray();
+        LogEvent mapEvent = decoder.decode(new LogBuffer(data, 0, data.length), context);
+        Assert.assertTrue(mapEvent instanceof TableMapLogEvent);
+    }
+
+    private static byte[] buildWriteRows(long tableId, int flags, long logPos, int value) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        RowsLogBufferTest.writeLe(body, tableId, 6);
+        RowsLogBufferTest.writeLe(body, flags, 2);
+        RowsLogBufferTest.writeLe(body, 2, 2); // extra data length, 不包含额外数据
+        body.write(1); // column count
+        body.write(0x01); // columns present
+        body.write(0); // null bits
+        RowsLogBufferTest.writeLe(body, value, 4);
+
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        writeHeader(event, LogEvent.WRITE_ROWS_EVENT, FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + body.size(), logPos);
+        event.write(body.toByteArray());
+        return event.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        out.write(value.length());
+        out.write(value.getBytes(), 0, value.length());
+        out.write(0);
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, int type, int eventLen, long logPos) {
+        RowsLogBufferTest.writeLe(out, 1600000000L, 4); // when
+        out.write(type);
+        RowsLogBufferTest.writeLe(out, 1L, 4); // server id
+        RowsLogBufferTest.writeLe(out, eventLen, 4);
+        RowsLogBufferTest.writeLe(out, logPos, 4);
+        RowsLogBufferTest.writeLe(out, 0, 2); // flags
+    }
+}
@@ -0,0 +1,200 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+
+public class RowsLogBufferTest {
+
+    private static final int[] DIG2BYTES = { 0, 1, 1, 2, 2, 3, 3, 4, 4, 4 };
+
+    @Test
+    public void testDatetime2() {
+        Assert.assertEquals("2020-02-29 23:59:07", datetime2(2020, 2, 29, 23, 59, 7, 0, 0));
+        Assert.assertEquals("2020-02-29 23:59:07.000000", datetime2(2020, 2, 29, 23, 59, 7, 0, 6));
+        Assert.assertEquals("1999-12-01 01:02:03.004005", datetime2(1999, 12, 1, 1, 2, 3, 4005, 6));
+        Assert.assertEquals("0999-01-09 00:00:00.123", datetime2(999, 1, 9, 0, 0, 0, 123400, 3));
+    }
+
+    @Test
+    public void testTimestamp() {
+        long[] seconds = { 1L, 951868800L, 1583020799L, 2147483647L, 4294967295L };
+        for (long second : seconds) {
+            String expect = new Timestamp(second * 1000).toString();
+            expect = expect.substring(0, expect.length() - 2);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(0); // null bits
+            writeLe(out, second, 4);
+            Assert.assertEquals(expect, fetch(out, LogEvent.MYSQL_TYPE_TIMESTAMP, 0));
+
+            out = new ByteArrayOutputStream();
+            out.write(0);
+            writeBe(out, second, 4);
+            writeBe(out, 120, 2);
+            Assert.assertEquals(expect + ".0120", fetch(out, LogEvent.MYSQL_TYPE_TIMESTAMP2, 4));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        writeBe(out, 0, 4);
+        Assert.assertEquals("0000-00-00 00:00:00", fetch(out, LogEvent.MYSQL_TYPE_TIMESTAMP2, 0));
+    }
+
+    @Test
+    public void testTimeAndDate() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        writeBe(out, RowsLogBuffer.TIMEF_INT_OFS + ((12L << 12) | (34 << 6) | 56), 3);
+        Assert.assertEquals("12:34:56", fetch(out, LogEvent.MYSQL_TYPE_TIME2, 0));
+
+        out = new ByteArrayOutputStream();
+        out.write(0);
+        writeBe(out, RowsLogBuffer.TIMEF_INT_OFS - ((838L << 12) | (59 << 6) | 59), 3);
+        Assert.assertEquals("-838:59:59", fetch(out, LogEvent.MYSQL_TYPE_TIME2, 0));
+
+        out = new ByteArrayOutputStream();
+        out.write(0);
+        writeLe(out, -(101L * 10000 + 2 * 100 + 3) & 0xffffff, 3);
+        Assert.assertEquals("-101:02:03", fetch(out, LogEvent.MYSQL_TYPE_TIME, 0));
+
+        out = new ByteArrayOutputStream();
+        out.write(0);
+        writeLe(out, 2021 * 16 * 32 + 7 * 32 + 4, 3);
+        Assert.assertEquals("2021-07-04", fetch(out, LogEvent.MYSQL_TYPE_DATE, 0));
+    }
+
+    @Test
+    public void testDecimalAsString() {
+        String[][] cases = { { "10", "2", "12345678.90" }, { "10", "2", "-0.05" }, { "65", "30", "-1.5" },
+                { "20", "0", "98765432109876543210" }, { "18", "9", "0.000000001" }, { "10", "2", "-0.00" },
+                { "5", "5", "0.12345" } };
+
+        for (String[] c : cases) {
+            int precision = Integer.parseInt(c[0]);
+            int scale = Integer.parseInt(c[1]);
+            byte[] data = encodeDecimal(c[2], precision, scale);
+
+            LogBuffer buffer = new LogBuffer(data, 0, data.length);
+            String expect = buffer.getDecimal(precision, scale).toPlainString();
+
+            buffer = new LogBuffer(data, 0, data.length);
+            Assert.assertEquals(expect, buffer.getDecimalString(precision, scale, new char[4]));
+            Assert.assertEquals(data.length, buffer.position());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(0);
+            out.write(data, 0, data.length);
+            byte[] row = out.toByteArray();
+            RowsLogBuffer rows = new RowsLogBuffer(new LogBuffer(row, 0, row.length), 1, "UTF-8", 0, false);
+            rows.setDecimalAsString(true);
+            BitSet columns = new BitSet(1);
+            columns.set(0);
+            Assert.assertTrue(rows.nextOneRow(columns, false));
+            Assert.assertEquals(expect, rows.nextValue("c", 0, LogEvent.MYSQL_TYPE_NEWDECIMAL, (precision << 8)
+                                                                                                   | scale));
+        }
+    }
+
+    static String datetime2(int year, int month, int day, int hour, int minute, int second, int frac, int meta) {
+        long ymd = (((long) year * 13 + month) << 5) | day;
+        long hms = (hour << 12) | (minute << 6) | second;
+        long intpart = (ymd << 17) | hms;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        writeBe(out, intpart + RowsLogBuffer.DATETIMEF_INT_OFS, 5);
+        switch (meta) {
+            case 1:
+            case 2:
+                writeBe(out, frac / 10000, 1);
+                break;
+            case 3:
+            case 4:
+                writeBe(out, frac / 100, 2);
+                break;
+            case 5:
+            case 6:
+                writeBe(out, frac, 3);
+                break;
+        }
+        return fetch(out, LogEvent.MYSQL_TYPE_DATETIME2, meta);
+    }
+
+    static String fetch(ByteArrayOutputStream out, int type, int meta) {
+        byte[] data = out.toByteArray();
+        RowsLogBuffer rows = new RowsLogBuffer(new LogBuffer(data, 0, data.length), 1, "UTF-8", 0, false);
+        BitSet columns = new BitSet(1);
+        columns.set(0);
+        Assert.assertTrue(rows.nextOneRow(columns, false));
+        return (String) rows.nextValue("c", 0, type, meta);
+    }
+
+    static void writeBe(ByteArrayOutputStream out, long value, int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            out.write((int) (value >> (i * 8)) & 0xff);
+        }
+    }
+
+    static void writeLe(ByteArrayOutputStream out, long value, int len) {
+        for (int i = 0; i < len; i++) {
+            out.write((int) (value >> (i * 8)) & 0xff);
+        }
+    }
+
+    /**
+     * @see mysql-5.1.60/strings/decimal.c - decimal2bin()
+     */
+    static byte[] encodeDecimal(String value, int precision, int scale) {
+        boolean negative = value.startsWith("-");
+        if (negative) {
+            value = value.substring(1);
+        }
+        int dot = value.indexOf('.');
+        String intPart = dot < 0 ? value : value.substring(0, dot);
+        String fracPart = dot < 0 ? "" : value.substring(dot + 1);
+
+        int intg = precision - scale;
+        StringBuilder intDigits = new StringBuilder();
+        for (int i = intPart.length(); i < intg; i++) {
+            intDigits.append('0');
+        }
+        intDigits.append(intPart);
+        StringBuilder fracDigits = new StringBuilder(fracPart);
+        while (fracDigits.length() < scale) {
+            fracDigits.append('0');
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int intg0x = intg % 9;
+        if (intg0x > 0) {
+            writeBe(out, Long.parseLong(intDigits.substring(0, intg0x)), DIG2BYTES[intg0x]);
+        }
+        for (int i = intg0x; i < intg; i += 9) {
+            writeBe(out, Long.parseLong(intDigits.substring(i, i + 9)), 4);
+        }
+        int frac0 = scale / 9;
+        for (int i = 0; i < frac0 * 9; i += 9) {
+            writeBe(out, Long.parseLong(fracDigits.substring(i, i + 9)), 4);
+        }
+        int frac0x = scale % 9;
+        if (frac0x > 0) {
+            writeBe(out, Long.parseLong(fracDigits.substring(frac0 * 9, scale)), DIG2BYTES[frac0x]);
+        }
+
+        byte[] data = out.toByteArray();
+        if (negative) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ~data[i];
+            }
+        }
+        data[0] ^= 0x80;
+        return data;
+    }
+}
@@ -0,0 +1,83 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+
+public class TransactionPayloadLogEventTest {
+
+    private static final int XID_EVENT_LEN = FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + 8;
+
+    @Test
+    public void testDecodeUncompressedPayload() throws Exception {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        writeXid(payload, 100L);
+        writeXid(payload, 101L);
+        byte[] inner = payload.toByteArray();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(TransactionPayloadLogEvent.OTW_PAYLOAD_COMPRESSION_TYPE_FIELD);
+        body.write(1);
+        body.write(0xfc); // packed long: 0xfc + 2 bytes
+        RowsLogBufferTest.writeLe(body, TransactionPayloadLogEvent.COMPRESSION_NONE, 2);
+        body.write(TransactionPayloadLogEvent.OTW_PAYLOAD_SIZE_FIELD);
+        body.write(1);
+        body.write(inner.length);
+        body.write(TransactionPayloadLogEvent.OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD);
+        body.write(1);
+        body.write(inner.length);
+        body.write(TransactionPayloadLogEvent.OTW_PAYLOAD_HEADER_END_MARK);
+        body.write(inner, 0, inner.length);
+
+        final long startPos = 1000L;
+        int eventLen = FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + body.size();
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        writeHeader(event, LogEvent.TRANSACTION_PAYLOAD_EVENT, eventLen, startPos + eventLen);
+        event.write(body.toByteArray());
+        byte[] data = event.toByteArray();
+
+        LogContext context = new LogContext(new FormatDescriptionLogEvent(4, LogEvent.BINLOG_CHECKSUM_ALG_OFF));
+        context.setLogPosition(new LogPosition("mysql-bin.000001", startPos));
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+        LogEvent logEvent = decoder.decode(new LogBuffer(data, 0, data.length), context);
+
+        Assert.assertTrue(logEvent instanceof TransactionPayloadLogEvent);
+        TransactionPayloadLogEvent payloadEvent = (TransactionPayloadLogEvent) logEvent;
+        Assert.assertEquals(TransactionPayloadLogEvent.COMPRESSION_NONE, payloadEvent.getCompressionType());
+        Assert.assertEquals(inner.length, payloadEvent.getPayloadSize());
+        Assert.assertEquals(startPos + eventLen, context.getLogPosition().getPosition());
+
+        List<LogEvent> events = payloadEvent.decodeEvents();
+        Assert.assertEquals(2, events.size());
+        XidLogEvent first = (XidLogEvent) events.get(0);
+        XidLogEvent last = (XidLogEvent) events.get(1);
+        Assert.assertEquals(100L, first.getXid());
+        Assert.assertEquals(101L, last.getXid());
+        Assert.assertEquals("mysql-bin.000001", first.getHeader().getLogFileName());
+        // 事务中间的事件指向payload起始位置, 最后一个事件指向payload结束位置
+        Assert.assertEquals(startPos, first.getHeader().getLogPos() - first.getHeader().getEventLen());
+        Assert.assertEquals(startPos + eventLen, last.getHeader().getLogPos() - last.getHeader().getEventLen());
+    }
+
+    private static void writeXid(ByteArrayOutputStream out, long xid) {
+        writeHeader(out, LogEvent.XID_EVENT, XID_EVENT_LEN, 0);
+        RowsLogBufferTest.writeLe(out, xid, 8);
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, int type, int eventLen, long logPos) {
+        RowsLogBufferTest.writeLe(out, 1600000000L, 4); // when
+        out.write(type);
+        RowsLogBufferTest.writeLe(out, 1L, 4); // server id
+        RowsLogBufferTest.writeLe(out, eventLen, 4);
+        RowsLogBufferTest.writeLe(out, logPos, 4);
+        RowsLogBufferTest.writeLe(out, 0, 2); // flags
+    }
+}
@@ -0,0 +1,207 @@
+package com.alibaba.otter.canal.parse.driver.mysql.socket;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * 使用NIO进行dump
+ *
+ * <pre>
+ * 1. socket数据批量读取到堆外的readBuffer中, 一次系统调用尽可能读取多个binlog packet
+ * 2. 上层按packet的header/body读取时优先从readBuffer中批量拷贝, 避免每个packet两次系统调用
+ * 3. 超时处理基于selector, 语义与{@link BioSocketChannel}保持一致
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class NioSocketChannel implements SocketChannel {
+
+    static final int                    DEFAULT_READ_BUFFER_SIZE = 256 * 1024;
+
+    private java.nio.channels.SocketChannel channel;
+    private Selector                    readSelector;
+    private Selector                    writeSelector;
+    private ByteBuffer                  readBuffer;
+    private final Object                writeLock                = new Object();
+
+    NioSocketChannel(java.nio.channels.SocketChannel channel, int readBufferSize) throws IOException {
+        this.channel = channel;
+        this.channel.configureBlocking(false);
+        this.readSelector = Selector.open();
+        this.writeSelector = Selector.open();
+        this.channel.register(readSelector, SelectionKey.OP_READ);
+        this.channel.register(writeSelector, SelectionKey.OP_WRITE);
+        this.readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+        // 初始为空, 保持读模式
+        this.readBuffer.flip();
+    }
+
+    public void write(byte[]... buf) throws IOException {
+        java.nio.channels.SocketChannel channel = this.channel;
+        if (channel == null) {
+            throw new SocketException("Socket already closed.");
+        }
+
+        synchronized (writeLock) {
+            for (byte[] bs : buf) {
+                ByteBuffer src = ByteBuffer.wrap(bs);
+                while (src.hasRemaining()) {
+                    if (channel.write(src) == 0) {
+                        writeSelector.select(BioSocketChannel.SO_TIMEOUT);
+                        writeSelector.selectedKeys().clear();
+                        if (Thread.interrupted()) {
+                            throw new ClosedByInterruptException();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public byte[] read(int readSize) throws IOException {
+        byte[] data = new byte[readSize];
+        read(data, 0, readSize, 0);
+        return data;
+    }
+
+    public byte[] read(int readSize, int timeout) throws IOException {
+        byte[] data = new byte[readSize];
+        read(data, 0, readSize, timeout);
+        return data;
+    }
+
+    /**
+     * @param timeout 小于等于0代表不超时
+     */
+    @Override
+    public void read(byte[] data, int off, int len, int timeout) throws IOException {
+        ByteBuffer readBuffer = this.readBuffer;
+        if (readBuffer == null) {
+            throw new SocketException("Socket already closed.");
+        }
+
+        int n = 0;
+        int accTimeout = 0;
+        while (n < len) {
+            if (readBuffer.hasRemaining()) {
+                int size = Math.min(readBuffer.remaining(), len - n);
+                readBuffer.get(data, off + n, size);
+                n += size;
+                continue;
+            }
+
+            if (timeout > 0 && accTimeout >= timeout) {
+                throw new SocketTimeoutException("Timeout occurred, failed to read total " + len + " bytes in "
+                                                 + timeout + " milliseconds, actual read only " + n + " bytes");
+            }
+
+            if (len - n >= readBuffer.capacity()) {
+                // 大包直接读取到目标数组, 避免二次拷贝
+                int read = channel.read(ByteBuffer.wrap(data, off + n, len - n));
+                if (read > 0) {
+                    n += read;
+                    continue;
+                } else if (read < 0) {
+                    throw new IOException("EOF encountered.");
+                }
+            } else if (fill() > 0) {
+                continue;
+            }
+
+            if (readSelector.select(BioSocketChannel.SO_TIMEOUT) == 0) {
+                accTimeout += BioSocketChannel.SO_TIMEOUT;
+            }
+            readSelector.selectedKeys().clear();
+            if (Thread.interrupted()) {
+                throw new ClosedByInterruptException();
+            }
+        }
+    }
+
+    /**
+     * 一次系统调用尽可能多的读取socket数据到readBuffer
+     */
+    private int fill() throws IOException {
+        readBuffer.clear();
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } finally {
+            readBuffer.flip();
+        }
+
+        if (read < 0) {
+            throw new IOException("EOF encountered.");
+        }
+        return read;
+    }
+
+    public boolean isConnected() {
+        java.nio.channels.SocketChannel channel = this.channel;
+        if (channel != null) {
+            return channel.isConnected();
+        }
+        return false;
+    }
+
+    public SocketAddress getRemoteSocketAddress() {
+        java.nio.channels.SocketChannel channel = this.channel;
+        if (channel != null) {
+            return channel.socket().getRemoteSocketAddress();
+        }
+
+        return null;
+    }
+
+    public SocketAddress getLocalSocketAddress() {
+        java.nio.channels.SocketChannel channel = this.channel;
+        if (channel != null) {
+            return channel.socket().getLocalSocketAddress();
+        }
+
+        return null;
+    }
+
+    public void close() {
+        java.nio.channels.SocketChannel channel = this.channel;
+        if (channel != null) {
+            try {
+                channel.socket().shutdownInput();
+            } catch (IOException e) {
+                // Ignore, could not do anymore
+            }
+            try {
+                channel.socket().shutdownOutput();
+            } catch (IOException e) {
+                // Ignore, could not do anymore
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore, could not do anymore
+            }
+        }
+        closeSelector(readSelector);
+        closeSelector(writeSelector);
+        this.readSelector = null;
+        this.writeSelector = null;
+        this.readBuffer = null;
+        this.channel = null;
+    }
+
+    private void closeSelector(Selector selector) {
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignore, could not do anymore
+            }
+        }
+    }
+}
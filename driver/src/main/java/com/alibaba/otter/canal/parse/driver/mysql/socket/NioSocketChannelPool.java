@@ -0,0 +1,26 @@
+package com.alibaba.otter.canal.parse.driver.mysql.socket;
+
+import java.net.SocketAddress;
+
+/**
+ * 基于NIO的channel创建, 连接阶段使用阻塞模式, 连接完成后切换为非阻塞读写
+ *
+ * @since 1.1.5
+ */
+public abstract class NioSocketChannelPool {
+
+    public static NioSocketChannel open(SocketAddress address) throws Exception {
+        java.nio.channels.SocketChannel channel = java.nio.channels.SocketChannel.open();
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+            channel.socket().setReuseAddress(true);
+            channel.socket().connect(address, BioSocketChannel.DEFAULT_CONNECT_TIMEOUT);
+            return new NioSocketChannel(channel, NioSocketChannel.DEFAULT_READ_BUFFER_SIZE);
+        } catch (Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+}
@@ -14,6 +14,8 @@ public abstract class SocketChannelPool {
         String type = chooseSocketChannel();
         if ("netty".equalsIgnoreCase(type)) {
             return NettySocketChannelPool.open(address);
+        } else if ("nio".equalsIgnoreCase(type)) {
+            return NioSocketChannelPool.open(address);
         } else {
             return BioSocketChannelPool.open(address);
         }
@@ -27,7 +29,7 @@ public abstract class SocketChannelPool {
         }
 
         if (StringUtils.isEmpty(socketChannel)) {
-            socketChannel = "bio"; // bio or netty
+            socketChannel = "bio"; // bio, nio or netty
         }
 
         return socketChannel;
@@ -0,0 +1,75 @@
+package com.alibaba.otter.canal.parse.driver.mysql.socket;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NioSocketChannelTest {
+
+    @Test
+    public void testRead() throws Exception {
+        ServerSocket server = new ServerSocket(0);
+        NioSocketChannel channel = null;
+        try {
+            channel = NioSocketChannelPool.open(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+            Socket socket = server.accept();
+            OutputStream output = socket.getOutputStream();
+            byte[] data = new byte[1024];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+            output.write(data);
+            output.flush();
+
+            // 模拟packet的header/body分段读取
+            byte[] header = new byte[4];
+            channel.read(header, 0, 4, 1000);
+            Assert.assertEquals(3, header[3]);
+            byte[] body = new byte[1020];
+            channel.read(body, 0, 1020, 1000);
+            Assert.assertEquals(4, body[0]);
+            Assert.assertEquals((byte) 1023, body[1019]);
+
+            channel.write(new byte[] { 1, 2 }, new byte[] { 3 });
+            byte[] echo = new byte[3];
+            int n = 0;
+            while (n < 3) {
+                n += socket.getInputStream().read(echo, n, 3 - n);
+            }
+            Assert.assertEquals(3, echo[2]);
+            socket.close();
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+            server.close();
+        }
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        ServerSocket server = new ServerSocket(0);
+        NioSocketChannel channel = null;
+        try {
+            channel = NioSocketChannelPool.open(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+            Socket socket = server.accept();
+            try {
+                channel.read(new byte[4], 0, 4, 1000);
+                Assert.fail("expect timeout");
+            } catch (SocketTimeoutException e) {
+                // expected
+            }
+            socket.close();
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.alibaba.otter.canal.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.Perl5Matcher;
+
+/**
+ * 预编译的tableName匹配, 与多个pattern按照"|"合并后的正则完全匹配语义一致
+ *
+ * <pre>
+ * 大致设计：
+ * 1. 不包含正则语法的pattern(比如 test\.t1), 直接放入HashSet
+ * 2. 其余pattern按照固定前缀构造一棵trie, 只有前缀命中的pattern才需要继续判断
+ *    a. 前缀 + .* 的形式(比如 test\..*), 到达trie节点即为命中
+ *    b. 只包含普通字符和单个.的形式(比如 test.t1), 按位比较
+ *    c. 其他的形式交给oro正则完全匹配, 和原有的{@linkplain PatternUtils}行为保持一致
+ * </pre>
+ *
+ * 传入的target需要是小写
+ *
+ * @since 1.1.5
+ */
+public class TableNameMatcher {
+
+    private static final String META       = "\\^$.|?*+()[]{}";
+    private static final String QUANTIFIER = "?*+{";
+
+    private final Set<String>   names      = new HashSet<String>();
+    private final Node          root       = new Node();
+
+    public TableNameMatcher(List<String> patterns){
+        for (String pattern : patterns) {
+            for (String alternative : splitAlternation(pattern)) {
+                compile(alternative);
+            }
+        }
+    }
+
+    public boolean matches(String target) {
+        if (names.contains(target)) {
+            return true;
+        }
+
+        Node node = root;
+        int index = 0;
+        while (node != null) {
+            if (node.prefixAll) {
+                return true;
+            }
+
+            if (node.matchers != null) {
+                for (Matcher matcher : node.matchers) {
+                    if (matcher.matches(target)) {
+                        return true;
+                    }
+                }
+            }
+
+            if (index == target.length()) {
+                break;
+            }
+            node = node.children != null ? node.children.get(target.charAt(index++)) : null;
+        }
+        return false;
+    }
+
+    private void compile(String pattern) {
+        StringBuilder chars = new StringBuilder();
+        List<Integer> anyIndexes = new ArrayList<Integer>();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int step = 1;
+            if (c == '\\' && i + 1 < pattern.length() && !Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                // 转义的符号, 比如 \.
+                c = pattern.charAt(i + 1);
+                step = 2;
+            } else if (c == '.') {
+                anyIndexes.add(chars.length());
+            } else if (META.indexOf(c) >= 0) {
+                break;
+            }
+
+            if (i + step < pattern.length() && QUANTIFIER.indexOf(pattern.charAt(i + step)) >= 0) {
+                // 带有数量词的字符不能做为前缀
+                if (c == '.' && step == 1) {
+                    anyIndexes.remove(anyIndexes.size() - 1);
+                }
+                break;
+            }
+
+            chars.append(Character.toLowerCase(c));
+            i += step;
+        }
+
+        String rest = pattern.substring(i);
+        int prefixLength = anyIndexes.isEmpty() ? chars.length() : anyIndexes.get(0);
+        Node node = root.child(chars.substring(0, prefixLength));
+        if (rest.isEmpty()) {
+            if (anyIndexes.isEmpty()) {
+                names.add(chars.toString());
+            } else {
+                node.add(new WildcardMatcher(chars.toString(), anyIndexes));
+            }
+        } else if (anyIndexes.isEmpty() && ".*".equals(rest)) {
+            node.prefixAll = true;
+        } else {
+            node.add(new RegexMatcher(pattern));
+        }
+    }
+
+    /**
+     * 按照最外层的"|"拆分, 各分支单独做头尾完全匹配
+     */
+    private static List<String> splitAlternation(String pattern) {
+        List<String> result = new ArrayList<String>();
+        int depth = 0;
+        boolean inClass = false;
+        int start = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                }
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                result.add(pattern.substring(start, i));
+                start = i + 1;
+            }
+        }
+        result.add(pattern.substring(start));
+        return result;
+    }
+
+    private static class Node {
+
+        private Map<Character, Node> children;
+        private List<Matcher>        matchers;
+        private boolean              prefixAll;
+
+        Node child(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (node.children == null) {
+                    node.children = new HashMap<Character, Node>();
+                }
+                Node child = node.children.get(prefix.charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        void add(Matcher matcher) {
+            if (matchers == null) {
+                matchers = new ArrayList<Matcher>(1);
+            }
+            matchers.add(matcher);
+        }
+    }
+
+    private interface Matcher {
+
+        boolean matches(String target);
+    }
+
+    /**
+     * 普通字符和单个.组成的pattern, 比如 test.t1
+     */
+    private static class WildcardMatcher implements Matcher {
+
+        private final char[]    chars;
+        private final boolean[] any;
+
+        WildcardMatcher(String chars, List<Integer> anyIndexes){
+            this.chars = chars.toCharArray();
+            this.any = new boolean[this.chars.length];
+            for (Integer index : anyIndexes) {
+                any[index] = true;
+            }
+        }
+
+        public boolean matches(String target) {
+            if (target.length() != chars.length) {
+                return false;
+            }
+
+            for (int i = 0; i < chars.length; i++) {
+                if (!any[i] && target.charAt(i) != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class RegexMatcher implements Matcher {
+
+        private final Pattern pattern;
+
+        RegexMatcher(String pattern){
+            // 对pattern进行头尾完全匹配
+            this.pattern = PatternUtils.getPattern("^" + pattern + "$");
+        }
+
+        public boolean matches(String target) {
+            return new Perl5Matcher().matches(target, pattern);
+        }
+    }
+}
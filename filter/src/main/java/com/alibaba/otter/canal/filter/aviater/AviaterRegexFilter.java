@@ -4,38 +4,38 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 
 import com.alibaba.otter.canal.filter.CanalEventFilter;
+import com.alibaba.otter.canal.filter.TableNameMatcher;
 import com.alibaba.otter.canal.filter.exception.CanalFilterException;
-import com.googlecode.aviator.AviatorEvaluator;
-import com.googlecode.aviator.Expression;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * 基于aviater进行tableName正则匹配的过滤算法
  *
+ * <pre>
+ * pattern在构造时预编译为{@linkplain TableNameMatcher}, 每个tableName的匹配结果会被缓存,
+ * 规则发生变化时会重新构造filter, 缓存随之失效
+ * </pre>
+ *
  * @author jianghang 2012-7-20 下午06:01:34
  */
 public class AviaterRegexFilter implements CanalEventFilter<String> {
 
     private static final String SPLIT = ",";
     private static final String PATTERN_SPLIT = "|";
-    private static final String FILTER_EXPRESSION = "regex(pattern,target)";
-    private static final RegexFunction regexFunction = new RegexFunction();
-    private final Expression exp = AviatorEvaluator.compile(FILTER_EXPRESSION, true);
-
-    static {
-        AviatorEvaluator.addFunction(regexFunction);
-    }
+    private static final int CACHE_SIZE = 64 * 1024;                 // 缓存的tableName数量上限
 
     private static final Comparator<String> COMPARATOR = new StringComparator();
 
     final private String pattern;
     final private boolean defaultEmptyValue;
+    final private TableNameMatcher matcher;
+    final private Cache<String, Boolean> results = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
 
     public AviaterRegexFilter(String pattern) {
         this(pattern, true);
@@ -55,6 +55,7 @@ public class AviaterRegexFilter implements CanalEventFilter<String> {
         // 因为 foo|foot 匹配 foot 会出错，原因是 foot 匹配了 foo 之后，会返回 foo，但是 foo 的长度和 foot
         // 的长度不一样
         Collections.sort(list, COMPARATOR);
+        this.matcher = new TableNameMatcher(list);
         // 对pattern进行头尾完全匹配
         list = completionPattern(list);
         this.pattern = StringUtils.join(list, PATTERN_SPLIT);
@@ -69,10 +70,12 @@ public class AviaterRegexFilter implements CanalEventFilter<String> {
             return defaultEmptyValue;
         }
 
-        Map<String, Object> env = new HashMap<String, Object>();
-        env.put("pattern", pattern);
-        env.put("target", filtered.toLowerCase());
-        return (Boolean) exp.execute(env);
+        Boolean result = results.getIfPresent(filtered);
+        if (result == null) {
+            result = matcher.matches(filtered.toLowerCase());
+            results.put(filtered, result);
+        }
+        return result;
     }
 
     /**
@@ -98,6 +98,35 @@ public class AviaterFilterTest {
 
     }
 
+    @Test
+    public void testCompiled() {
+        // 精确表名/前缀/单字符通配/正则混合
+        AviaterRegexFilter filter = new AviaterRegexFilter("test\\.t1,log\\..*,s1.t2,db_\\d+\\.order_.*,mysql\\.*");
+
+        Assert.assertEquals(true, filter.filter("test.t1"));
+        Assert.assertEquals(true, filter.filter("TEST.T1"));
+        Assert.assertEquals(false, filter.filter("test.t11"));
+        Assert.assertEquals(true, filter.filter("log.t1"));
+        Assert.assertEquals(false, filter.filter("logs.t1"));
+        Assert.assertEquals(true, filter.filter("s1.t2"));
+        Assert.assertEquals(true, filter.filter("s1xt2"));
+        Assert.assertEquals(false, filter.filter("s1.t22"));
+        Assert.assertEquals(true, filter.filter("db_12.order_1"));
+        Assert.assertEquals(false, filter.filter("db_.order_1"));
+        Assert.assertEquals(true, filter.filter("mysql.."));
+        Assert.assertEquals(false, filter.filter("mysql.user"));
+        // 命中缓存之后结果不变
+        Assert.assertEquals(true, filter.filter("test.t1"));
+        Assert.assertEquals(false, filter.filter("test.t11"));
+
+        // 黑名单在pattern为空时默认不过滤
+        AviaterRegexFilter blackFilter = new AviaterRegexFilter("", false);
+        Assert.assertEquals(false, blackFilter.filter("test.t1"));
+        blackFilter = new AviaterRegexFilter("test\\..*", false);
+        Assert.assertEquals(true, blackFilter.filter("test.t1"));
+        Assert.assertEquals(false, blackFilter.filter(""));
+    }
+
     @Test
     public void test_el() {
         AviaterELFilter filter = new AviaterELFilter("str(entry.entryType) == 'ROWDATA'");
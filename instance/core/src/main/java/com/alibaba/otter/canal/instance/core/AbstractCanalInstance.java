@@ -15,12 +15,15 @@ import com.alibaba.otter.canal.parse.ha.CanalHAController;
 import com.alibaba.otter.canal.parse.ha.HeartBeatHAController;
 import com.alibaba.otter.canal.parse.inbound.AbstractEventParser;
 import com.alibaba.otter.canal.parse.inbound.group.GroupEventParser;
+import com.alibaba.otter.canal.parse.inbound.mysql.AbstractMysqlEventParser;
 import com.alibaba.otter.canal.parse.inbound.mysql.MysqlEventParser;
 import com.alibaba.otter.canal.parse.index.CanalLogPositionManager;
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.sink.CanalEventSink;
 import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.file.FileEventStore;
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.Event;
 
 /**
@@ -183,6 +186,16 @@ public class AbstractCanalInstance extends AbstractCanalLifeCycle implements Can
             }
         }
 
+        if (eventParser instanceof AbstractMysqlEventParser && isRawStore()) {
+            AbstractMysqlEventParser mysqlEventParser = (AbstractMysqlEventParser) eventParser;
+            if (mysqlEventParser.isLazyRowChange()) {
+                // raw模式下返回给客户端的是序列化后的entry, 每一条都需要完整的RowChange, 延迟构造只会增加一次解析和序列化
+                logger.warn("lazyRowChange is ignored for destination {} because the event store is in raw mode",
+                    destination);
+                mysqlEventParser.setLazyRowChange(false);
+            }
+        }
+
         if (eventParser instanceof MysqlEventParser) {
             MysqlEventParser mysqlEventParser = (MysqlEventParser) eventParser;
             CanalHAController haController = mysqlEventParser.getHaController();
@@ -198,6 +211,15 @@ public class AbstractCanalInstance extends AbstractCanalLifeCycle implements Can
         }
     }
 
+    private boolean isRawStore() {
+        if (eventStore instanceof MemoryEventStoreWithBuffer) {
+            return ((MemoryEventStoreWithBuffer) eventStore).isRaw();
+        } else if (eventStore instanceof FileEventStore) {
+            return ((FileEventStore) eventStore).isRaw();
+        }
+        return true;
+    }
+
     protected void stopEventParserInternal(CanalEventParser eventParser) {
         if (eventParser instanceof AbstractEventParser) {
             AbstractEventParser abstractEventParser = (AbstractEventParser) eventParser;
@@ -222,7 +222,12 @@ public class CanalInstanceWithManager extends AbstractCanalInstance {
         if (groupSize <= 1) {
             eventSink = new EntryEventSink();
         } else {
-            eventSink = new GroupEventSink(groupSize);
+            GroupEventSink groupEventSink = new GroupEventSink(groupSize);
+            if (parameters.getGroupParallelMerge() != null && parameters.getGroupParallelMerge()) {
+                groupEventSink.setParallelMerge(true);
+                groupEventSink.setMergeToleranceMillis(parameters.getGroupMergeToleranceMillis());
+            }
+            eventSink = groupEventSink;
         }
 
         if (eventSink instanceof EntryEventSink) {
@@ -119,6 +119,8 @@ public class CanalParameter implements Serializable {
     private Long standbyLogfileOffest = null;
     private Long standbyTimestamp = null;
     private Boolean parallel = Boolean.FALSE;
+    private Boolean groupParallelMerge = Boolean.FALSE;             // 多库合并时是否使用merger线程归并
+    private Long groupMergeToleranceMillis = 0L;                    // 多库合并时允许的时间误差
 
     //自定义alarmHandler类全路径
     private String alarmHandlerClass = null;
@@ -1054,6 +1056,22 @@ public class CanalParameter implements Serializable {
         this.parallel = parallel;
     }
 
+    public Boolean getGroupParallelMerge() {
+        return groupParallelMerge;
+    }
+
+    public void setGroupParallelMerge(Boolean groupParallelMerge) {
+        this.groupParallelMerge = groupParallelMerge;
+    }
+
+    public Long getGroupMergeToleranceMillis() {
+        return groupMergeToleranceMillis;
+    }
+
+    public void setGroupMergeToleranceMillis(Long groupMergeToleranceMillis) {
+        this.groupMergeToleranceMillis = groupMergeToleranceMillis;
+    }
+
     public String getAlarmHandlerClass() {
         return alarmHandlerClass;
     }
@@ -91,6 +91,8 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
 
     protected EventTransactionBuffer transactionBuffer;
     protected int transactionSize = 1024;
+    protected long transactionSpillThreshold = 0;                                       // 事务超过该字节数时溢出到文件
+    protected String transactionSpillDir;                                               // 事务溢出文件目录
     protected AtomicBoolean needTransactionPosition = new AtomicBoolean(false);
     protected long lastEntryTime = 0L;
     protected volatile boolean detectingEnable = true;                                    // 是否开启心跳检查
@@ -104,6 +106,8 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
     protected Integer parallelThreadSize = Runtime.getRuntime()
             .availableProcessors() * 60 / 100;     // 60%的能力跑解析,剩余部分处理网络
     protected int parallelBufferSize = 256;                                     // 必须为2的幂
+    protected boolean parallelBufferPooled = true;                                    // 网络packet是否使用slab池化
+    protected boolean parallelDeferRowsDecode = false;                                // ROWS事件是否延迟到多线程中decode
     protected MultiStageCoprocessor multiStageCoprocessor;
     protected ParserExceptionHandler parserExceptionHandler;
     protected long serverId;
@@ -160,6 +164,8 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         // 配置transaction buffer
         // 初始化缓冲队列
         transactionBuffer.setBufferSize(transactionSize);// 设置buffer大小
+        transactionBuffer.setSpillThreshold(transactionSpillThreshold);
+        transactionBuffer.setSpillDir(transactionSpillDir);
         transactionBuffer.start();
         // 构造bin log parser
         binlogParser = buildParser();// 初始化一下BinLogParser
@@ -622,6 +628,14 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         this.transactionSize = transactionSize;
     }
 
+    public void setTransactionSpillThreshold(long transactionSpillThreshold) {
+        this.transactionSpillThreshold = transactionSpillThreshold;
+    }
+
+    public void setTransactionSpillDir(String transactionSpillDir) {
+        this.transactionSpillDir = transactionSpillDir;
+    }
+
     public CanalLogPositionManager getLogPositionManager() {
         return logPositionManager;
     }
@@ -672,6 +686,22 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         this.parallelBufferSize = parallelBufferSize;
     }
 
+    public boolean isParallelBufferPooled() {
+        return parallelBufferPooled;
+    }
+
+    public void setParallelBufferPooled(boolean parallelBufferPooled) {
+        this.parallelBufferPooled = parallelBufferPooled;
+    }
+
+    public boolean isParallelDeferRowsDecode() {
+        return parallelDeferRowsDecode;
+    }
+
+    public void setParallelDeferRowsDecode(boolean parallelDeferRowsDecode) {
+        this.parallelDeferRowsDecode = parallelDeferRowsDecode;
+    }
+
     public ParserExceptionHandler getParserExceptionHandler() {
         return parserExceptionHandler;
     }
@@ -1,12 +1,22 @@
 package com.alibaba.otter.canal.parse.inbound;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.lang.StringUtils;
 import org.springframework.util.Assert;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
 import com.alibaba.otter.canal.store.CanalStoreException;
@@ -14,6 +24,12 @@ import com.alibaba.otter.canal.store.CanalStoreException;
 /**
  * 缓冲event队列，提供按事务刷新数据的机制
  *
+ * <pre>
+ * 开启spillThreshold之后, 缓冲的数据超过该字节数时将当前事务溢出到本地临时文件:
+ * 1. 之后该事务的数据直接追加到文件中, 不再占用内存
+ * 2. 事务结束时从文件中读取, 按照不超过spillThreshold字节的批次依次输出
+ * </pre>
+ *
  * @author jianghang 2012-12-6 上午11:05:12
  * @version 1.0.0
  */
@@ -29,6 +45,13 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
 
     private TransactionFlushCallback flushCallback;
 
+    private long spillThreshold = 0;                            // 超过该字节数时溢出到文件, <=0代表不开启
+    private String spillDir;                                    // 溢出文件目录, 默认为java.io.tmpdir
+    private long bufferedMemSize = 0;                           // 当前buffer中未flush数据的字节数
+    private File spillFile;
+    private OutputStream spillOutput;
+    private boolean spilling = false;                           // 当前事务是否已经溢出到文件
+
     public EventTransactionBuffer() {
 
     }
@@ -51,6 +74,8 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
     public void stop() throws CanalStoreException {
         putSequence.set(INIT_SQEUENCE);
         flushSequence.set(INIT_SQEUENCE);
+        bufferedMemSize = 0;
+        discardSpill();
 
         entries = null;
         super.stop();
@@ -93,9 +118,17 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
     public void reset() {
         putSequence.set(INIT_SQEUENCE);
         flushSequence.set(INIT_SQEUENCE);
+        bufferedMemSize = 0;
+        // 丢弃已经溢出的数据, 重连之后会重新接收
+        discardSpill();
     }
 
     private void put(CanalEntry.Entry data) throws InterruptedException {
+        if (spilling) {
+            spill(data);
+            return;
+        }
+
         // 首先检查是否有空位
         if (checkFreeSlotAt(putSequence.get() + 1)) {
             long current = putSequence.get();
@@ -104,6 +137,13 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
             // 先写数据，再更新对应的cursor,并发度高的情况，putSequence会被get请求可见，拿出了ringbuffer中的老的Entry值
             entries[getIndex(next)] = data;
             putSequence.set(next);
+
+            if (spillThreshold > 0) {
+                bufferedMemSize += data.getSerializedSize();
+                if (bufferedMemSize > spillThreshold) {
+                    spillBuffered();
+                }
+            }
         } else {
             flush();// buffer区满了，刷新一下
             put(data);// 继续加一下新数据
@@ -111,6 +151,11 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
     }
 
     private void flush() throws InterruptedException {
+        if (spilling) {
+            flushSpilled();
+            return;
+        }
+
         long start = this.flushSequence.get() + 1;
         long end = this.putSequence.get();
 
@@ -122,6 +167,102 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
 
             flushCallback.flush(transaction);
             flushSequence.set(end);// flush成功后，更新flush位置
+            bufferedMemSize = 0;
+        }
+    }
+
+    /**
+     * 将buffer中未flush的数据转移到溢出文件, 之后当前事务的数据都写入文件
+     */
+    private void spillBuffered() {
+        long start = this.flushSequence.get() + 1;
+        long end = this.putSequence.get();
+        for (long next = start; next <= end; next++) {
+            spill(this.entries[getIndex(next)]);
+            this.entries[getIndex(next)] = null;
+        }
+
+        flushSequence.set(end);
+        bufferedMemSize = 0;
+        spilling = true;
+    }
+
+    private void spill(CanalEntry.Entry data) {
+        try {
+            if (spillOutput == null) {
+                File dir = new File(StringUtils.isEmpty(spillDir) ? System.getProperty("java.io.tmpdir") : spillDir);
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IOException("can't create spill dir " + dir.getPath());
+                }
+                if (spillFile == null) {
+                    spillFile = File.createTempFile("canal-transaction-", ".spill", dir);
+                }
+                spillOutput = new BufferedOutputStream(new FileOutputStream(spillFile), 64 * 1024);
+            }
+
+            data.writeDelimitedTo(spillOutput);
+        } catch (IOException e) {
+            throw new CanalParseException("spill transaction failed", e);
+        }
+    }
+
+    /**
+     * 从溢出文件中读取事务数据, 按照spillThreshold切分后输出
+     */
+    private void flushSpilled() throws InterruptedException {
+        InputStream input = null;
+        try {
+            spillOutput.close();
+            spillOutput = null;
+
+            input = new BufferedInputStream(new FileInputStream(spillFile), 64 * 1024);
+            List<CanalEntry.Entry> transaction = new ArrayList<CanalEntry.Entry>();
+            long size = 0;
+            CanalEntry.Entry entry;
+            while ((entry = CanalEntry.Entry.parseDelimitedFrom(input)) != null) {
+                long entrySize = entry.getSerializedSize();
+                if (!transaction.isEmpty() && size + entrySize > spillThreshold) {
+                    flushCallback.flush(transaction);
+                    transaction = new ArrayList<CanalEntry.Entry>();
+                    size = 0;
+                }
+                transaction.add(entry);
+                size += entrySize;
+            }
+
+            if (!transaction.isEmpty()) {
+                flushCallback.flush(transaction);
+            }
+        } catch (IOException e) {
+            throw new CanalParseException("read spilled transaction failed", e);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        // 保留文件给下一个溢出的事务复用, 重新打开时会清空
+        spilling = false;
+    }
+
+    private void discardSpill() {
+        spilling = false;
+        if (spillOutput != null) {
+            try {
+                spillOutput.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            spillOutput = null;
+        }
+
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
         }
     }
 
@@ -151,6 +292,14 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
         this.bufferSize = bufferSize;
     }
 
+    public void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public void setSpillDir(String spillDir) {
+        this.spillDir = spillDir;
+    }
+
     public void setFlushCallback(TransactionFlushCallback flushCallback) {
         this.flushCallback = flushCallback;
     }
@@ -16,6 +16,7 @@ import com.alibaba.otter.canal.parse.inbound.mysql.tsdb.DefaultTableMetaTSDBFact
 import com.alibaba.otter.canal.parse.inbound.mysql.tsdb.TableMetaTSDB;
 import com.alibaba.otter.canal.parse.inbound.mysql.tsdb.TableMetaTSDBFactory;
 import com.alibaba.otter.canal.protocol.position.EntryPosition;
+import com.taobao.tddl.dbsync.binlog.LogContext;
 
 public abstract class AbstractMysqlEventParser extends AbstractEventParser {
 
@@ -35,11 +36,22 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
     protected boolean filterQueryDml = false;
     protected boolean filterQueryDdl = false;
     protected boolean filterRows = false;
+    protected boolean lazyRowChange = false;
     protected boolean filterTableError = false;
     protected boolean useDruidDdlFilter = true;
     // instance received binlog bytes
     protected final AtomicLong receivedBinlogBytes = new AtomicLong(0L);
     private final AtomicLong eventsPublishBlockingTime = new AtomicLong(0L);
+    // table meta读缓存未命中次数及锁等待时间
+    protected final AtomicLong tableMetaCacheMissCount = new AtomicLong(0L);
+    protected final AtomicLong tableMetaLockWaitTime = new AtomicLong(0L);
+    // LogContext中缓存的table map数量上限, 以及当前数量和累计淘汰次数
+    protected int maxTableMaps = LogContext.DEFAULT_MAX_TABLES;
+    protected final AtomicLong tableMapCount = new AtomicLong(0L);
+    protected final AtomicLong tableMapEvictCount = new AtomicLong(0L);
+    // mysql8.0压缩事务(TRANSACTION_PAYLOAD_EVENT)解压前后的字节数
+    protected final AtomicLong payloadCompressedBytes = new AtomicLong(0L);
+    protected final AtomicLong payloadUncompressedBytes = new AtomicLong(0L);
 
     protected BinlogParser buildParser() {
         LogEventConvert convert = new LogEventConvert();
@@ -59,6 +71,7 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
         convert.setFilterQueryDml(filterQueryDml);
         convert.setFilterQueryDdl(filterQueryDdl);
         convert.setFilterRows(filterRows);
+        convert.setLazyRowChange(lazyRowChange);
         convert.setFilterTableError(filterTableError);
         convert.setUseDruidDdlFilter(useDruidDdlFilter);
         return convert;
@@ -134,12 +147,19 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
                 throw new CanalParseException("use gtid and TableMeta TSDB should be config timestamp > 0");
             }
 
-            return tableMetaTSDB.rollback(position);
+            return rollbackTableMeta(position);
         }
 
         return true;
     }
 
+    /**
+     * 回滚tsdb, 子类如果持有TableMetaCache需要同时失效读缓存
+     */
+    protected boolean rollbackTableMeta(EntryPosition position) {
+        return tableMetaTSDB.rollback(position);
+    }
+
     public void start() throws CanalParseException {
         if (enableTsdb) {
             if (tableMetaTSDB == null) {
@@ -175,6 +195,11 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
                 transactionBuffer,
                 destination);
         mysqlMultiStageCoprocessor.setEventsPublishBlockingTime(eventsPublishBlockingTime);
+        mysqlMultiStageCoprocessor.setBufferPooled(parallelBufferPooled);
+        mysqlMultiStageCoprocessor.setDeferRowsDecode(parallelDeferRowsDecode);
+        mysqlMultiStageCoprocessor.setMaxTableMaps(maxTableMaps);
+        mysqlMultiStageCoprocessor.setTableMapMetrics(tableMapCount, tableMapEvictCount);
+        mysqlMultiStageCoprocessor.setPayloadMetrics(payloadCompressedBytes, payloadUncompressedBytes);
         return mysqlMultiStageCoprocessor;
     }
 
@@ -208,6 +233,14 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
         this.filterRows = filterRows;
     }
 
+    public boolean isLazyRowChange() {
+        return lazyRowChange;
+    }
+
+    public void setLazyRowChange(boolean lazyRowChange) {
+        this.lazyRowChange = lazyRowChange;
+    }
+
     public void setFilterTableError(boolean filterTableError) {
         this.filterTableError = filterTableError;
     }
@@ -252,6 +285,34 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
         return this.receivedBinlogBytes;
     }
 
+    public AtomicLong getTableMetaCacheMissCount() {
+        return this.tableMetaCacheMissCount;
+    }
+
+    public AtomicLong getTableMetaLockWaitTime() {
+        return this.tableMetaLockWaitTime;
+    }
+
+    public AtomicLong getTableMapCount() {
+        return this.tableMapCount;
+    }
+
+    public AtomicLong getTableMapEvictCount() {
+        return this.tableMapEvictCount;
+    }
+
+    public AtomicLong getPayloadCompressedBytes() {
+        return this.payloadCompressedBytes;
+    }
+
+    public AtomicLong getPayloadUncompressedBytes() {
+        return this.payloadUncompressedBytes;
+    }
+
+    public void setMaxTableMaps(int maxTableMaps) {
+        this.maxTableMaps = maxTableMaps;
+    }
+
     public int getTsdbSnapshotInterval() {
         return tsdbSnapshotInterval;
     }
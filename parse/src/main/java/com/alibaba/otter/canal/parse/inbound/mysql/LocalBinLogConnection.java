@@ -3,6 +3,7 @@ package com.alibaba.otter.canal.parse.inbound.mysql;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
@@ -35,9 +36,18 @@ public class LocalBinLogConnection implements ErosaConnection {
     private boolean needWait;
     private String directory;
     private int bufferSize = 16 * 1024;
+    // 使用mmap读取binlog文件
+    private boolean mmap = false;
     private boolean running = false;
     private long serverId;
     private FileParserListener parserListener;
+    // table map缓存数量限制及统计
+    private int maxTableMaps = LogContext.DEFAULT_MAX_TABLES;
+    private AtomicLong tableMapCount;
+    private AtomicLong tableMapEvictCount;
+    // 压缩事务payload的压缩前后字节数
+    private AtomicLong payloadCompressedBytes;
+    private AtomicLong payloadUncompressedBytes;
 
     public LocalBinLogConnection() {
     }
@@ -81,9 +91,10 @@ public class LocalBinLogConnection implements ErosaConnection {
     public void dump(String binlogfilename, Long binlogPosition, SinkFunction func) throws IOException {
         File current = new File(directory, binlogfilename);
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        FileLogFetcher fetcher = createFetcher();
         LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
-        LogContext context = new LogContext();
+        LogContext context = createLogContext();
+        SinkFunction<LogEvent> payloadSink = createPayloadSink(func, false);
         try {
             fetcher.open(current, binlogPosition);
             context.setLogPosition(new LogPosition(binlogfilename, binlogPosition));
@@ -99,7 +110,7 @@ public class LocalBinLogConnection implements ErosaConnection {
                         throw new ServerIdNotMatchException("unexpected serverId " + serverId + " in binlog file !");
                     }
 
-                    if (!func.sink(event)) {
+                    if (!payloadSink.sink(event)) {
                         needContinue = false;
                         break;
                     }
@@ -144,12 +155,12 @@ public class LocalBinLogConnection implements ErosaConnection {
         String binlogFilename = null;
         long binlogFileOffset = 0;
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        FileLogFetcher fetcher = createFetcher();
         LogDecoder decoder = new LogDecoder();
         decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
         decoder.handle(LogEvent.QUERY_EVENT);
         decoder.handle(LogEvent.XID_EVENT);
-        LogContext context = new LogContext();
+        LogContext context = createLogContext();
         try {
             fetcher.open(current);
             context.setLogPosition(new LogPosition(current.getName()));
@@ -226,9 +237,9 @@ public class LocalBinLogConnection implements ErosaConnection {
             throw new CanalParseException("binlog:" + binlogfilename + " is not found");
         }
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        FileLogFetcher fetcher = createFetcher();
         LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
-        LogContext context = new LogContext();
+        LogContext context = createLogContext();
         try {
             fetcher.open(current, binlogPosition);
             context.setLogPosition(new LogPosition(binlogfilename, binlogPosition));
@@ -295,12 +306,12 @@ public class LocalBinLogConnection implements ErosaConnection {
         String binlogFilename = null;
         long binlogFileOffset = 0;
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        FileLogFetcher fetcher = createFetcher();
         LogDecoder decoder = new LogDecoder();
         decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
         decoder.handle(LogEvent.QUERY_EVENT);
         decoder.handle(LogEvent.XID_EVENT);
-        LogContext context = new LogContext();
+        LogContext context = createLogContext();
         try {
             fetcher.open(current);
             context.setLogPosition(new LogPosition(current.getName()));
@@ -376,6 +387,7 @@ public class LocalBinLogConnection implements ErosaConnection {
         connection.setBufferSize(this.bufferSize);
         connection.setDirectory(this.directory);
         connection.setNeedWait(this.needWait);
+        connection.setMmap(this.mmap);
         return connection;
     }
 
@@ -412,6 +424,14 @@ public class LocalBinLogConnection implements ErosaConnection {
         return serverId;
     }
 
+    public boolean isMmap() {
+        return mmap;
+    }
+
+    public void setMmap(boolean mmap) {
+        this.mmap = mmap;
+    }
+
     public void setServerId(long serverId) {
         this.serverId = serverId;
     }
@@ -420,6 +440,37 @@ public class LocalBinLogConnection implements ErosaConnection {
         this.parserListener = parserListener;
     }
 
+    public void setMaxTableMaps(int maxTableMaps) {
+        this.maxTableMaps = maxTableMaps;
+    }
+
+    public void setTableMapMetrics(AtomicLong tableMapCount, AtomicLong tableMapEvictCount) {
+        this.tableMapCount = tableMapCount;
+        this.tableMapEvictCount = tableMapEvictCount;
+    }
+
+    public void setPayloadMetrics(AtomicLong payloadCompressedBytes, AtomicLong payloadUncompressedBytes) {
+        this.payloadCompressedBytes = payloadCompressedBytes;
+        this.payloadUncompressedBytes = payloadUncompressedBytes;
+    }
+
+    private FileLogFetcher createFetcher() {
+        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        fetcher.setMmap(mmap);
+        return fetcher;
+    }
+
+    private SinkFunction<LogEvent> createPayloadSink(SinkFunction<LogEvent> func, boolean boundaryOnly) {
+        return new TransactionPayloadSinkFunction(func, payloadCompressedBytes, payloadUncompressedBytes, boundaryOnly);
+    }
+
+    private LogContext createLogContext() {
+        LogContext context = new LogContext();
+        context.setMaxTables(maxTableMaps);
+        context.setTableMetrics(tableMapCount, tableMapEvictCount);
+        return context;
+    }
+
     public interface FileParserListener {
 
         void onFinish(String fileName);
@@ -32,6 +32,7 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
     protected String directory;
     protected boolean needWait = false;
     protected int bufferSize = 16 * 1024;
+    protected boolean mmapFetch = false;       // 是否使用mmap读取binlog文件
 
     public LocalBinlogEventParser() {
         // this.runningInfo = new AuthenticationInfo();
@@ -61,9 +62,20 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
         }
 
         tableMetaCache = new TableMetaCache(metaConnection, tableMetaTSDB);
+        tableMetaCache.setCacheMissCount(tableMetaCacheMissCount);
+        tableMetaCache.setLockWaitTime(tableMetaLockWaitTime);
         ((LogEventConvert) binlogParser).setTableMetaCache(tableMetaCache);
     }
 
+    @Override
+    protected boolean rollbackTableMeta(EntryPosition position) {
+        if (tableMetaCache != null) {
+            return tableMetaCache.rollback(position);
+        }
+
+        return super.rollbackTableMeta(position);
+    }
+
     @Override
     protected void afterDump(ErosaConnection connection) {
         if (metaConnection != null) {
@@ -106,8 +118,12 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
         LocalBinLogConnection connection = new LocalBinLogConnection();
 
         connection.setBufferSize(this.bufferSize);
+        connection.setMmap(this.mmapFetch);
         connection.setDirectory(this.directory);
         connection.setNeedWait(this.needWait);
+        connection.setMaxTableMaps(this.maxTableMaps);
+        connection.setTableMapMetrics(tableMapCount, tableMapEvictCount);
+        connection.setPayloadMetrics(payloadCompressedBytes, payloadUncompressedBytes);
 
         return connection;
     }
@@ -172,6 +188,10 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
         this.bufferSize = bufferSize;
     }
 
+    public void setMmapFetch(boolean mmapFetch) {
+        this.mmapFetch = mmapFetch;
+    }
+
     public void setMasterPosition(EntryPosition masterPosition) {
         this.masterPosition = masterPosition;
     }
@@ -35,6 +35,7 @@ import com.alibaba.otter.canal.parse.inbound.SinkFunction;
 import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.DirectLogFetcher;
 import com.alibaba.otter.canal.parse.support.AuthenticationInfo;
 import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogBufferPool;
 import com.taobao.tddl.dbsync.binlog.LogContext;
 import com.taobao.tddl.dbsync.binlog.LogDecoder;
 import com.taobao.tddl.dbsync.binlog.LogEvent;
@@ -57,6 +58,13 @@ public class MysqlConnection implements ErosaConnection {
     private int binlogChecksum = LogEvent.BINLOG_CHECKSUM_ALG_OFF;
     // dump binlog bytes, 暂不包括meta与TSDB
     private AtomicLong receivedBinlogBytes;
+    // table map缓存数量限制及统计
+    private int maxTableMaps = LogContext.DEFAULT_MAX_TABLES;
+    private AtomicLong tableMapCount;
+    private AtomicLong tableMapEvictCount;
+    // 压缩事务payload的压缩前后字节数
+    private AtomicLong payloadCompressedBytes;
+    private AtomicLong payloadUncompressedBytes;
 
     public MysqlConnection() {
     }
@@ -130,7 +138,10 @@ public class MysqlConnection implements ErosaConnection {
         decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
         decoder.handle(LogEvent.QUERY_EVENT);
         decoder.handle(LogEvent.XID_EVENT);
-        LogContext context = new LogContext();
+        // 压缩事务中的事务头尾需要展开后才能识别
+        decoder.handle(LogEvent.TRANSACTION_PAYLOAD_EVENT);
+        LogContext context = createLogContext();
+        SinkFunction<LogEvent> payloadSink = createPayloadSink(func, true);
         // 若entry position存在gtid，则使用传入的gtid作为gtidSet
         // 拼接的标准,否则同时开启gtid和tsdb时，会导致丢失gtid
         // 而当源端数据库gtid 有purged时会有如下类似报错
@@ -150,7 +161,7 @@ public class MysqlConnection implements ErosaConnection {
                 throw new CanalParseException("parse failed");
             }
 
-            if (!func.sink(event)) {
+            if (!payloadSink.sink(event)) {
                 break;
             }
         }
@@ -164,7 +175,8 @@ public class MysqlConnection implements ErosaConnection {
         DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize());
         fetcher.start(connector.getChannel());
         LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
-        LogContext context = new LogContext();
+        LogContext context = createLogContext();
+        SinkFunction<LogEvent> payloadSink = createPayloadSink(func, false);
         context.setFormatDescription(new FormatDescriptionLogEvent(4, binlogChecksum));
         while (fetcher.fetch()) {
             accumulateReceivedBytes(fetcher.limit());
@@ -175,7 +187,7 @@ public class MysqlConnection implements ErosaConnection {
                 throw new CanalParseException("parse failed");
             }
 
-            if (!func.sink(event)) {
+            if (!payloadSink.sink(event)) {
                 break;
             }
 
@@ -195,7 +207,8 @@ public class MysqlConnection implements ErosaConnection {
         try {
             fetcher.start(connector.getChannel());
             LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
-            LogContext context = new LogContext();
+            LogContext context = createLogContext();
+            SinkFunction<LogEvent> payloadSink = createPayloadSink(func, false);
             context.setFormatDescription(new FormatDescriptionLogEvent(4, binlogChecksum));
             // fix bug: #890 将gtid传输至context中，供decode使用
             context.setGtidSet(gtidSet);
@@ -208,7 +221,7 @@ public class MysqlConnection implements ErosaConnection {
                     throw new CanalParseException("parse failed");
                 }
 
-                if (!func.sink(event)) {
+                if (!payloadSink.sink(event)) {
                     break;
                 }
             }
@@ -229,18 +242,22 @@ public class MysqlConnection implements ErosaConnection {
         sendBinlogDump(binlogfilename, binlogPosition);
         ((MysqlMultiStageCoprocessor) coprocessor).setConnection(this);
         ((MysqlMultiStageCoprocessor) coprocessor).setBinlogChecksum(binlogChecksum);
+        LogBufferPool bufferPool = ((MysqlMultiStageCoprocessor) coprocessor).getBufferPool();
         DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize());
         try {
             fetcher.start(connector.getChannel());
             while (fetcher.fetch()) {
                 accumulateReceivedBytes(fetcher.limit());
-                LogBuffer buffer = fetcher.duplicate();
+                LogBuffer buffer = duplicate(fetcher, bufferPool);
                 fetcher.consume(fetcher.limit());
                 if (!coprocessor.publish(buffer)) {
                     break;
                 }
             }
         } finally {
+            if (bufferPool != null) {
+                bufferPool.clear();
+            }
             fetcher.close();
         }
     }
@@ -257,22 +274,37 @@ public class MysqlConnection implements ErosaConnection {
         sendBinlogDumpGTID(gtidSet);
         ((MysqlMultiStageCoprocessor) coprocessor).setConnection(this);
         ((MysqlMultiStageCoprocessor) coprocessor).setBinlogChecksum(binlogChecksum);
+        LogBufferPool bufferPool = ((MysqlMultiStageCoprocessor) coprocessor).getBufferPool();
         DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize());
         try {
             fetcher.start(connector.getChannel());
             while (fetcher.fetch()) {
                 accumulateReceivedBytes(fetcher.limit());
-                LogBuffer buffer = fetcher.duplicate();
+                LogBuffer buffer = duplicate(fetcher, bufferPool);
                 fetcher.consume(fetcher.limit());
                 if (!coprocessor.publish(buffer)) {
                     break;
                 }
             }
         } finally {
+            if (bufferPool != null) {
+                bufferPool.clear();
+            }
             fetcher.close();
         }
     }
 
+    /**
+     * 开启池化时将packet拷贝到可回收的slab中, 否则退化为完整的内存拷贝
+     */
+    private LogBuffer duplicate(DirectLogFetcher fetcher, LogBufferPool bufferPool) {
+        if (bufferPool != null) {
+            return bufferPool.copyOf(fetcher);
+        }
+
+        return fetcher.duplicate();
+    }
+
     private void sendRegisterSlave() throws IOException {
         RegisterSlaveCommandPacket cmd = new RegisterSlaveCommandPacket();
         SocketAddress socketAddress = connector.getChannel().getLocalSocketAddress();
@@ -533,6 +565,17 @@ public class MysqlConnection implements ErosaConnection {
         }
     }
 
+    private SinkFunction<LogEvent> createPayloadSink(SinkFunction<LogEvent> func, boolean boundaryOnly) {
+        return new TransactionPayloadSinkFunction(func, payloadCompressedBytes, payloadUncompressedBytes, boundaryOnly);
+    }
+
+    private LogContext createLogContext() {
+        LogContext context = new LogContext();
+        context.setMaxTables(maxTableMaps);
+        context.setTableMetrics(tableMapCount, tableMapEvictCount);
+        return context;
+    }
+
     private void accumulateReceivedBytes(long x) {
         if (receivedBinlogBytes != null) {
             receivedBinlogBytes.addAndGet(x);
@@ -682,4 +725,18 @@ public class MysqlConnection implements ErosaConnection {
         this.receivedBinlogBytes = receivedBinlogBytes;
     }
 
+    public void setMaxTableMaps(int maxTableMaps) {
+        this.maxTableMaps = maxTableMaps;
+    }
+
+    public void setTableMapMetrics(AtomicLong tableMapCount, AtomicLong tableMapEvictCount) {
+        this.tableMapCount = tableMapCount;
+        this.tableMapEvictCount = tableMapEvictCount;
+    }
+
+    public void setPayloadMetrics(AtomicLong payloadCompressedBytes, AtomicLong payloadUncompressedBytes) {
+        this.payloadCompressedBytes = payloadCompressedBytes;
+        this.payloadUncompressedBytes = payloadUncompressedBytes;
+    }
+
 }
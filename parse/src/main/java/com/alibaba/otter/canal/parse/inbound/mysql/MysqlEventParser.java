@@ -128,10 +128,20 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
             }
 
             tableMetaCache = new TableMetaCache(metaConnection, tableMetaTSDB);
+            tableMetaCache.setCacheMissCount(tableMetaCacheMissCount);
+            tableMetaCache.setLockWaitTime(tableMetaLockWaitTime);
             ((LogEventConvert) binlogParser).setTableMetaCache(tableMetaCache);
         }
     }
 
+    protected boolean rollbackTableMeta(EntryPosition position) {
+        if (tableMetaCache != null) {
+            return tableMetaCache.rollback(position);
+        }
+
+        return super.rollbackTableMeta(position);
+    }
+
     protected void afterDump(ErosaConnection connection) {
         super.afterDump(connection);
 
@@ -321,6 +331,9 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
         connection.getConnector().setSoTimeout(defaultConnectionTimeoutInSeconds * 1000);
         connection.setCharset(connectionCharset);
         connection.setReceivedBinlogBytes(receivedBinlogBytes);
+        connection.setMaxTableMaps(maxTableMaps);
+        connection.setTableMapMetrics(tableMapCount, tableMapEvictCount);
+        connection.setPayloadMetrics(payloadCompressedBytes, payloadUncompressedBytes);
         // 随机生成slaveId
         if (this.slaveId <= 0) {
             this.slaveId = generateUniqueServerId();
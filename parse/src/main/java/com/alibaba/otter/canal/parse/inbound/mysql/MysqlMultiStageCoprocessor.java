@@ -1,10 +1,13 @@
 package com.alibaba.otter.canal.parse.inbound.mysql;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
@@ -26,15 +29,20 @@ import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.SequenceReportingEventHandler;
 import com.lmax.disruptor.WorkHandler;
 import com.lmax.disruptor.WorkerPool;
 import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogBufferPool;
 import com.taobao.tddl.dbsync.binlog.LogContext;
 import com.taobao.tddl.dbsync.binlog.LogDecoder;
 import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.PooledLogBuffer;
+import com.taobao.tddl.dbsync.binlog.event.DeferredRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.DeleteRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.RowsLogEvent;
+import com.taobao.tddl.dbsync.binlog.event.TransactionPayloadLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.UpdateRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.WriteRowsLogEvent;
 
@@ -48,12 +56,17 @@ import com.taobao.tddl.dbsync.binlog.event.WriteRowsLogEvent;
  * 4. 投递到store (单线程)
  * </pre>
  *
+ * 开启deferRowsDecode之后, 第2阶段对ROWS事件只解析header和table_id, ROWS事件的完整decode也下放到第3阶段的多线程中完成,
+ * 最终由第4阶段的sequence barrier保证顺序
+ *
+ * ringbuffer满时, 网络接收线程阻塞在notFull上, 由第4阶段处理完数据之后唤醒, 不再自旋等待
+ *
  * @author agapple 2018年7月3日 下午4:54:17
  * @since 1.0.26
  */
 public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implements MultiStageCoprocessor {
 
-    private static final int maxFullTimes = 10;
+    private static final long maxWaitMillis = 100;                                  // 单次阻塞等待的最长时间, 超时后检查运行状态
     private LogEventConvert logEventConvert;
     private EventTransactionBuffer transactionBuffer;
     private ErosaConnection connection;
@@ -71,6 +84,17 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
     private BatchEventProcessor<MessageEvent> simpleParserStage;
     private BatchEventProcessor<MessageEvent> sinkStoreStage;
     private LogContext logContext;
+    private boolean bufferPooled = true;
+    private boolean deferRowsDecode = false;
+    private int maxTableMaps = LogContext.DEFAULT_MAX_TABLES;
+    private AtomicLong tableMapCount;
+    private AtomicLong tableMapEvictCount;
+    private AtomicLong payloadCompressedBytes;
+    private AtomicLong payloadUncompressedBytes;
+    private LogBufferPool bufferPool;
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Condition notFull = publishLock.newCondition();
+    private volatile boolean publishWaiting = false;
 
     public MysqlMultiStageCoprocessor(int ringBufferSize, int parserThreadCount, LogEventConvert logEventConvert,
                                       EventTransactionBuffer transactionBuffer, String destination) {
@@ -85,6 +109,10 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
     public void start() {
         super.start();
         this.exception = null;
+        if (bufferPooled) {
+            // 网络接收的packet统一拷贝到slab中, 由SinkStoreStage负责释放
+            this.bufferPool = new LogBufferPool();
+        }
         this.disruptorMsgBuffer = RingBuffer.createSingleProducer(new MessageEventFactory(),
                 ringBufferSize,
                 new BlockingWaitStrategy());
@@ -98,6 +126,8 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
         ExceptionHandler exceptionHandler = new SimpleFatalExceptionHandler();
         // stage 2
         this.logContext = new LogContext();
+        this.logContext.setMaxTables(maxTableMaps);
+        this.logContext.setTableMetrics(tableMapCount, tableMapEvictCount);
         simpleParserStage = new BatchEventProcessor<MessageEvent>(disruptorMsgBuffer,
                 sequenceBarrier,
                 new SimpleParserStage(logContext));
@@ -175,6 +205,13 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
         return this.publish(buffer, null);
     }
 
+    /**
+     * 获取packet的slab分配器, 未开启池化时返回null
+     */
+    public LogBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * 网络数据投递
      */
@@ -218,29 +255,46 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
                 if (fullTimes == 0) {
                     blockingStart = System.nanoTime();
                 }
-                // park
-                // LockSupport.parkNanos(1L);
-                applyWait(++fullTimes);
-                interupted = Thread.interrupted();
-                if (fullTimes % 1000 == 0) {
-                    long nextStart = System.nanoTime();
-                    eventsPublishBlockingTime.addAndGet(nextStart - blockingStart);
-                    blockingStart = nextStart;
+                fullTimes++;
+                try {
+                    awaitCapacity();
+                } catch (InterruptedException ie) {
+                    interupted = true;
                 }
+                long nextStart = System.nanoTime();
+                eventsPublishBlockingTime.addAndGet(nextStart - blockingStart);
+                blockingStart = nextStart;
             }
         } while (!interupted && isStart());
         return isStart();
     }
 
-    // 处理无数据的情况，避免空循环挂死
-    private void applyWait(int fullTimes) {
-        int newFullTimes = fullTimes > maxFullTimes ? maxFullTimes : fullTimes;
-        if (fullTimes <= 3) { // 3次以内
-            Thread.yield();
-        } else { // 超过3次，最多只sleep 1ms
-            LockSupport.parkNanos(100 * 1000L * newFullTimes);
+    /**
+     * 等待sink stage释放空间
+     */
+    private void awaitCapacity() throws InterruptedException {
+        final ReentrantLock lock = this.publishLock;
+        lock.lockInterruptibly();
+        try {
+            publishWaiting = true;
+            // 先设置等待标记再检查一次, 避免错过sink stage的唤醒
+            if (!disruptorMsgBuffer.hasAvailableCapacity(1)) {
+                notFull.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            publishWaiting = false;
+            lock.unlock();
         }
+    }
 
+    private void signalCapacity() {
+        final ReentrantLock lock = this.publishLock;
+        lock.lock();
+        try {
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
     }
 
     private class SimpleParserStage implements EventHandler<MessageEvent>, LifecycleAware {
@@ -261,36 +315,53 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
                 LogEvent logEvent = event.getEvent();
                 if (logEvent == null) {
                     LogBuffer buffer = event.getBuffer();
-                    logEvent = decoder.decode(buffer, context);
+                    if (deferRowsDecode) {
+                        // ROWS事件只做预解析, 完整decode交给DmlParserStage
+                        logEvent = decoder.decodeDeferredRows(buffer, context);
+                    }
+                    if (logEvent == null) {
+                        logEvent = decoder.decode(buffer, context);
+                    }
                     event.setEvent(logEvent);
                 }
 
                 int eventType = logEvent.getHeader().getType();
                 TableMeta tableMeta = null;
                 boolean needDmlParse = false;
-                switch (eventType) {
-                    case LogEvent.WRITE_ROWS_EVENT_V1:
-                    case LogEvent.WRITE_ROWS_EVENT:
-                        tableMeta = logEventConvert.parseRowsEventForTableMeta((WriteRowsLogEvent) logEvent);
-                        needDmlParse = true;
-                        break;
-                    case LogEvent.UPDATE_ROWS_EVENT_V1:
-                    case LogEvent.PARTIAL_UPDATE_ROWS_EVENT:
-                    case LogEvent.UPDATE_ROWS_EVENT:
-                        tableMeta = logEventConvert.parseRowsEventForTableMeta((UpdateRowsLogEvent) logEvent);
-                        needDmlParse = true;
-                        break;
-                    case LogEvent.DELETE_ROWS_EVENT_V1:
-                    case LogEvent.DELETE_ROWS_EVENT:
-                        tableMeta = logEventConvert.parseRowsEventForTableMeta((DeleteRowsLogEvent) logEvent);
-                        needDmlParse = true;
-                        break;
-                    case LogEvent.ROWS_QUERY_LOG_EVENT:
-                        needDmlParse = true;
-                        break;
-                    default:
-                        CanalEntry.Entry entry = logEventConvert.parse(event.getEvent(), false);
-                        event.setEntry(entry);
+                if (logEvent instanceof DeferredRowsLogEvent) {
+                    tableMeta = logEventConvert.parseRowsEventForTableMeta((DeferredRowsLogEvent) logEvent);
+                    // 表结构不存在(被过滤)时, 不需要再做完整的decode
+                    needDmlParse = (tableMeta != null);
+                } else {
+                    switch (eventType) {
+                        case LogEvent.WRITE_ROWS_EVENT_V1:
+                        case LogEvent.WRITE_ROWS_EVENT:
+                            tableMeta = logEventConvert.parseRowsEventForTableMeta((WriteRowsLogEvent) logEvent);
+                            needDmlParse = true;
+                            break;
+                        case LogEvent.UPDATE_ROWS_EVENT_V1:
+                        case LogEvent.PARTIAL_UPDATE_ROWS_EVENT:
+                        case LogEvent.UPDATE_ROWS_EVENT:
+                            tableMeta = logEventConvert.parseRowsEventForTableMeta((UpdateRowsLogEvent) logEvent);
+                            needDmlParse = true;
+                            break;
+                        case LogEvent.DELETE_ROWS_EVENT_V1:
+                        case LogEvent.DELETE_ROWS_EVENT:
+                            tableMeta = logEventConvert.parseRowsEventForTableMeta((DeleteRowsLogEvent) logEvent);
+                            needDmlParse = true;
+                            break;
+                        case LogEvent.ROWS_QUERY_LOG_EVENT:
+                            needDmlParse = true;
+                            break;
+                        case LogEvent.TRANSACTION_PAYLOAD_EVENT:
+                            // 压缩事务中的ROWS事件同样需要和DDL按顺序获取表结构, 只把行数据的解析交给DmlParserStage
+                            parsePayloadForTableMeta(event);
+                            needDmlParse = true;
+                            break;
+                        default:
+                            CanalEntry.Entry entry = logEventConvert.parse(event.getEvent(), false);
+                            event.setEntry(entry);
+                    }
                 }
 
                 // 记录一下DML的表结构
@@ -302,6 +373,27 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
             }
         }
 
+        private void parsePayloadForTableMeta(MessageEvent event) {
+            List<LogEvent> payloadEvents = TransactionPayloadSinkFunction.decode((TransactionPayloadLogEvent) event.getEvent(),
+                payloadCompressedBytes,
+                payloadUncompressedBytes);
+            List<TableMeta> payloadTables = new ArrayList<TableMeta>(payloadEvents.size());
+            List<CanalEntry.Entry> entrys = new ArrayList<CanalEntry.Entry>(payloadEvents.size());
+            for (LogEvent payloadEvent : payloadEvents) {
+                if (payloadEvent instanceof RowsLogEvent) {
+                    payloadTables.add(logEventConvert.parseRowsEventForTableMeta((RowsLogEvent) payloadEvent));
+                    entrys.add(null);
+                } else {
+                    payloadTables.add(null);
+                    entrys.add(logEventConvert.parse(payloadEvent, false));
+                }
+            }
+
+            event.setPayloadEvents(payloadEvents);
+            event.setPayloadTables(payloadTables);
+            event.setEntrys(entrys);
+        }
+
         @Override
         public void onStart() {
 
@@ -325,9 +417,33 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
                         case LogEvent.ROWS_QUERY_LOG_EVENT:
                             entry = logEventConvert.parse(event.getEvent(), false);
                             break;
+                        case LogEvent.TRANSACTION_PAYLOAD_EVENT:
+                            // 基于SimpleParserStage获取的表结构解析ROWS事件, 其他事件已经完成解析
+                            List<LogEvent> payloadEvents = event.getPayloadEvents();
+                            List<TableMeta> payloadTables = event.getPayloadTables();
+                            List<CanalEntry.Entry> entrys = new ArrayList<CanalEntry.Entry>(payloadEvents.size());
+                            for (int i = 0; i < payloadEvents.size(); i++) {
+                                CanalEntry.Entry payloadEntry = event.getEntrys().get(i);
+                                TableMeta payloadTable = payloadTables.get(i);
+                                if (payloadTable != null) {
+                                    payloadEntry = logEventConvert.parseRowsEvent((RowsLogEvent) payloadEvents.get(i),
+                                        payloadTable);
+                                }
+                                if (payloadEntry != null) {
+                                    entrys.add(payloadEntry);
+                                }
+                            }
+                            event.setEntrys(entrys);
+                            break;
                         default:
+                            LogEvent logEvent = event.getEvent();
+                            if (logEvent instanceof DeferredRowsLogEvent) {
+                                // 延迟模式下, 在当前线程完成ROWS事件的完整decode
+                                logEvent = ((DeferredRowsLogEvent) logEvent).decode();
+                                event.setEvent(logEvent);
+                            }
                             // 单独解析dml事件
-                            entry = logEventConvert.parseRowsEvent((RowsLogEvent) event.getEvent(), event.getTable());
+                            entry = logEventConvert.parseRowsEvent((RowsLogEvent) logEvent, event.getTable());
                     }
 
                     event.setEntry(entry);
@@ -349,13 +465,24 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
         }
     }
 
-    private class SinkStoreStage implements EventHandler<MessageEvent>, LifecycleAware {
+    private class SinkStoreStage implements SequenceReportingEventHandler<MessageEvent>, LifecycleAware {
+
+        private Sequence sequenceCallback;
+
+        public void setSequenceCallback(Sequence sequenceCallback) {
+            this.sequenceCallback = sequenceCallback;
+        }
 
         public void onEvent(MessageEvent event, long sequence, boolean endOfBatch) throws Exception {
             try {
                 if (event.getEntry() != null) {
                     transactionBuffer.add(event.getEntry());
                 }
+                if (event.getEntrys() != null) {
+                    for (CanalEntry.Entry entry : event.getEntrys()) {
+                        transactionBuffer.add(entry);
+                    }
+                }
 
                 LogEvent logEvent = event.getEvent();
                 if (connection instanceof MysqlConnection && logEvent.getSemival() == 1) {
@@ -364,12 +491,23 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
                             logEvent.getHeader().getLogPos());
                 }
 
+                // entry已经构造完成, 归还slab
+                event.releaseBuffer();
                 // clear for gc
                 event.setBuffer(null);
                 event.setEvent(null);
                 event.setTable(null);
                 event.setEntry(null);
+                event.setEntrys(null);
+                event.setPayloadEvents(null);
+                event.setPayloadTables(null);
                 event.setNeedDmlParse(false);
+
+                // 提前汇报处理进度, 不等待整个batch结束, 及时唤醒阻塞的网络接收线程
+                sequenceCallback.set(sequence);
+                if (publishWaiting) {
+                    signalCapacity();
+                }
             } catch (Throwable e) {
                 exception = new CanalParseException(e);
                 throw exception;
@@ -391,6 +529,11 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
 
         private LogBuffer buffer;
         private CanalEntry.Entry entry;
+        // 压缩事务展开后的entry列表
+        private List<CanalEntry.Entry> entrys;
+        // 压缩事务展开后的事件, 以及SimpleParserStage为其中ROWS事件获取的表结构
+        private List<LogEvent> payloadEvents;
+        private List<TableMeta> payloadTables;
         private boolean needDmlParse = false;
         private TableMeta table;
         private LogEvent event;
@@ -403,6 +546,15 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
             this.buffer = buffer;
         }
 
+        /**
+         * 池化的buffer在投递时引用计数为1, 由MessageEvent持有, entry构造完成后释放
+         */
+        public void releaseBuffer() {
+            if (buffer instanceof PooledLogBuffer) {
+                ((PooledLogBuffer) buffer).release();
+            }
+        }
+
         public LogEvent getEvent() {
             return event;
         }
@@ -419,6 +571,14 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
             this.entry = entry;
         }
 
+        public List<CanalEntry.Entry> getEntrys() {
+            return entrys;
+        }
+
+        public void setEntrys(List<CanalEntry.Entry> entrys) {
+            this.entrys = entrys;
+        }
+
         public boolean isNeedDmlParse() {
             return needDmlParse;
         }
@@ -435,6 +595,22 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
             this.table = table;
         }
 
+        public List<LogEvent> getPayloadEvents() {
+            return payloadEvents;
+        }
+
+        public void setPayloadEvents(List<LogEvent> payloadEvents) {
+            this.payloadEvents = payloadEvents;
+        }
+
+        public List<TableMeta> getPayloadTables() {
+            return payloadTables;
+        }
+
+        public void setPayloadTables(List<TableMeta> payloadTables) {
+            this.payloadTables = payloadTables;
+        }
+
     }
 
     class SimpleFatalExceptionHandler implements ExceptionHandler {
@@ -481,4 +657,26 @@ public class MysqlMultiStageCoprocessor extends AbstractCanalLifeCycle implement
         this.gtidSet = gtidSet;
     }
 
+    public void setBufferPooled(boolean bufferPooled) {
+        this.bufferPooled = bufferPooled;
+    }
+
+    public void setDeferRowsDecode(boolean deferRowsDecode) {
+        this.deferRowsDecode = deferRowsDecode;
+    }
+
+    public void setMaxTableMaps(int maxTableMaps) {
+        this.maxTableMaps = maxTableMaps;
+    }
+
+    public void setTableMapMetrics(AtomicLong tableMapCount, AtomicLong tableMapEvictCount) {
+        this.tableMapCount = tableMapCount;
+        this.tableMapEvictCount = tableMapEvictCount;
+    }
+
+    public void setPayloadMetrics(AtomicLong payloadCompressedBytes, AtomicLong payloadUncompressedBytes) {
+        this.payloadCompressedBytes = payloadCompressedBytes;
+        this.payloadUncompressedBytes = payloadUncompressedBytes;
+    }
+
 }
@@ -0,0 +1,72 @@
+package com.alibaba.otter.canal.parse.inbound.mysql;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
+import com.alibaba.otter.canal.parse.inbound.SinkFunction;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.event.TransactionPayloadLogEvent;
+
+/**
+ * 串行解析模式下展开mysql8.0的压缩事务, 将payload中的事件逐个交给下游处理
+ *
+ * @since 1.1.5
+ */
+class TransactionPayloadSinkFunction implements SinkFunction<LogEvent> {
+
+    private final SinkFunction<LogEvent> delegate;
+    private final AtomicLong             compressedBytes;
+    private final AtomicLong             uncompressedBytes;
+    // seek时只关心事务头尾, 忽略payload中的其他事件
+    private final boolean                boundaryOnly;
+
+    TransactionPayloadSinkFunction(SinkFunction<LogEvent> delegate, AtomicLong compressedBytes,
+                                   AtomicLong uncompressedBytes, boolean boundaryOnly){
+        this.delegate = delegate;
+        this.compressedBytes = compressedBytes;
+        this.uncompressedBytes = uncompressedBytes;
+        this.boundaryOnly = boundaryOnly;
+    }
+
+    @Override
+    public boolean sink(LogEvent event) {
+        if (!(event instanceof TransactionPayloadLogEvent)) {
+            return delegate.sink(event);
+        }
+
+        for (LogEvent payloadEvent : decode((TransactionPayloadLogEvent) event, compressedBytes, uncompressedBytes)) {
+            int type = payloadEvent.getHeader().getType();
+            if (boundaryOnly && type != LogEvent.QUERY_EVENT && type != LogEvent.XID_EVENT) {
+                continue;
+            }
+
+            if (!delegate.sink(payloadEvent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解压并decode payload中的事件, 同时记录压缩前后的字节数
+     */
+    static List<LogEvent> decode(TransactionPayloadLogEvent event, AtomicLong compressedBytes,
+                                 AtomicLong uncompressedBytes) {
+        try {
+            List<LogEvent> events = event.decodeEvents();
+            if (compressedBytes != null) {
+                compressedBytes.addAndGet(event.getPayloadSize());
+            }
+            if (uncompressedBytes != null) {
+                uncompressedBytes.addAndGet(event.getUncompressedSize());
+            }
+            return events;
+        } catch (IOException e) {
+            throw new CanalParseException("decode transaction payload failed at "
+                                          + event.getHeader().getLogFileName() + ":"
+                                          + event.getHeader().getLogPos(), e);
+        }
+    }
+}
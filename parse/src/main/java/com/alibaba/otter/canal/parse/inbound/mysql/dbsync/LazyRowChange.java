@@ -0,0 +1,247 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.CanalEntry.Pair;
+import com.alibaba.otter.canal.protocol.CanalEntry.RowChange;
+import com.google.protobuf.ByteString;
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.event.RowsLogBuffer;
+import com.taobao.tddl.dbsync.binlog.event.RowsLogEvent;
+
+/**
+ * 延迟构造的RowChange
+ *
+ * <pre>
+ * 1. 解析阶段只保存rows event的原始行数据及对应的行解析计划, 不构造Column/RowData对象
+ * 2. header中带有lazyRowChange标记, storeValue为私有格式的payload
+ * 3. 消费时通过{@link #materialize(Entry)}还原为标准的RowChange, 未被消费的数据不需要付出解析成本
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class LazyRowChange {
+
+    public static final String LAZY_ROW_CHANGE = "lazyRowChange";
+    private static final byte  VERSION         = 1;
+
+    /**
+     * 判断entry是否为延迟构造的RowChange
+     */
+    public static boolean isLazy(Entry entry) {
+        if (entry == null || !entry.hasHeader()) {
+            return false;
+        }
+
+        for (Pair pair : entry.getHeader().getPropsList()) {
+            if (LAZY_ROW_CHANGE.equals(pair.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 还原为标准的entry, 非延迟的entry直接返回
+     */
+    public static Entry materialize(Entry entry) {
+        if (!isLazy(entry)) {
+            return entry;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(entry.getStoreValue().newInput());
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new CanalParseException("unsupport lazy row change version : " + version);
+            }
+
+            String charsetName = in.readUTF();
+            EventType eventType = EventType.valueOf(in.readInt());
+            long tableId = in.readLong();
+            int columnLen = in.readInt();
+            int jsonColumnCount = in.readInt();
+            boolean partial = in.readBoolean();
+            BitSet columns = readBitSet(in);
+            BitSet changeColumns = readBitSet(in);
+            RowDecodePlan plan = readPlan(in);
+            byte[] rows = new byte[in.readInt()];
+            in.readFully(rows);
+
+            RowChange.Builder rowChangeBuider = RowChange.newBuilder();
+            rowChangeBuider.setTableId(tableId);
+            rowChangeBuider.setIsDdl(false);
+            rowChangeBuider.setEventType(eventType);
+            RowsLogBuffer buffer = new RowsLogBuffer(new LogBuffer(rows, 0, rows.length),
+                columnLen,
+                charsetName,
+                jsonColumnCount,
+                partial);
+            Header header = entry.getHeader();
+            int rowsCount = LogEventConvert.parseRows(rowChangeBuider,
+                buffer,
+                columns,
+                changeColumns,
+                eventType,
+                plan,
+                Charset.forName(charsetName),
+                header.getLogfileName() + ":" + header.getLogfileOffset());
+
+            Header.Builder headerBuilder = header.toBuilder();
+            for (int i = headerBuilder.getPropsCount() - 1; i >= 0; i--) {
+                if (LAZY_ROW_CHANGE.equals(headerBuilder.getProps(i).getKey())) {
+                    headerBuilder.removeProps(i);
+                }
+            }
+            if (rowsCount > 0) {
+                headerBuilder.addProps(LogEventConvert.createSpecialPair("rowsCount", String.valueOf(rowsCount)));
+            }
+
+            return entry.toBuilder()
+                .setHeader(headerBuilder.build())
+                .setStoreValue(rowChangeBuider.build().toByteString())
+                .build();
+        } catch (IOException e) {
+            throw new CanalParseException("materialize lazy row change failed.", e);
+        }
+    }
+
+    /**
+     * 解析计划中存在需要在解析时抛出的异常时, 不能延迟
+     */
+    static boolean supports(RowDecodePlan plan) {
+        if (plan.tableError) {
+            return false;
+        }
+
+        for (RowDecodePlan.ColumnPlan column : plan.columns) {
+            if (column.unmatchMessage != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Header mark(Header header) {
+        return header.toBuilder().addProps(LogEventConvert.createSpecialPair(LAZY_ROW_CHANGE, "true")).build();
+    }
+
+    static ByteString encode(RowsLogEvent event, EventType eventType, RowDecodePlan plan, Charset charset)
+                                                                                                            throws IOException {
+        byte[] rows = event.getRowsData();
+        byte[] columns = encodePlan(plan);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.length + columns.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeUTF(charset.name());
+        out.writeInt(eventType.getNumber());
+        out.writeLong(event.getTableId());
+        out.writeInt(event.getColumnLen());
+        out.writeInt(event.getJsonColumnCount());
+        out.writeBoolean(event.isPartial());
+        writeBitSet(out, event.getColumns());
+        writeBitSet(out, event.getChangeColumns());
+        out.write(columns);
+        out.writeInt(rows.length);
+        out.write(rows);
+        out.flush();
+        return ByteString.copyFrom(bytes.toByteArray());
+    }
+
+    private static byte[] encodePlan(RowDecodePlan plan) throws IOException {
+        byte[] encoded = plan.encoded;
+        if (encoded != null) {
+            return encoded;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(plan.columns.length * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(plan.columns.length);
+        for (RowDecodePlan.ColumnPlan column : plan.columns) {
+            out.writeInt(column.index);
+            out.writeInt(column.type);
+            out.writeInt(column.meta);
+            writeString(out, column.name);
+            out.writeBoolean(column.key);
+            writeString(out, column.mysqlType);
+            out.writeBoolean(column.binary);
+            out.writeBoolean(column.text);
+            out.writeBoolean(column.unsigned);
+            out.writeInt(column.nullJavaType);
+            out.writeBoolean(column.needed);
+            out.writeBoolean(column.rdsRowId);
+        }
+        out.flush();
+        encoded = bytes.toByteArray();
+        // 计划本身不可变, 并发情况下重复编码也没有问题
+        plan.encoded = encoded;
+        return encoded;
+    }
+
+    private static RowDecodePlan readPlan(DataInputStream in) throws IOException {
+        RowDecodePlan.ColumnPlan[] columns = new RowDecodePlan.ColumnPlan[in.readInt()];
+        for (int i = 0; i < columns.length; i++) {
+            RowDecodePlan.ColumnPlan column = new RowDecodePlan.ColumnPlan();
+            column.index = in.readInt();
+            column.type = in.readInt();
+            column.meta = in.readInt();
+            column.name = readString(in);
+            column.key = in.readBoolean();
+            column.mysqlType = readString(in);
+            column.binary = in.readBoolean();
+            column.text = in.readBoolean();
+            column.unsigned = in.readBoolean();
+            column.nullJavaType = in.readInt();
+            column.needed = in.readBoolean();
+            column.rdsRowId = in.readBoolean();
+            columns[i] = column;
+        }
+        return new RowDecodePlan(null, null, columns, false);
+    }
+
+    private static void writeBitSet(DataOutputStream out, BitSet bitSet) throws IOException {
+        if (bitSet == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        long[] words = bitSet.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBitSet(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -11,6 +11,8 @@ import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -41,6 +43,7 @@ import com.alibaba.otter.canal.protocol.CanalEntry.Type;
 import com.alibaba.otter.canal.protocol.position.EntryPosition;
 import com.google.protobuf.ByteString;
 import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.event.DeferredRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.DeleteRowsLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.GtidLogEvent;
 import com.taobao.tddl.dbsync.binlog.event.HeartbeatLogEvent;
@@ -85,6 +88,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     public static final String BEGIN = "BEGIN";
     public static final String COMMIT = "COMMIT";
     public static final Logger logger = LoggerFactory.getLogger(LogEventConvert.class);
+    private static final int MAX_ROW_DECODE_PLANS = 4096;
 
     private volatile AviaterRegexFilter nameFilter;                                                          // 运行时引用可能会有变化，比如规则发生变化时
     private volatile AviaterRegexFilter nameBlackFilter;
@@ -92,6 +96,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     private Map<String, List<String>> fieldBlackFilterMap = new HashMap<String, List<String>>();
 
     private TableMetaCache tableMetaCache;
+    // 按table id缓存的行解析计划
+    private final ConcurrentMap<Long, RowDecodePlan> rowDecodePlans = new ConcurrentHashMap<Long, RowDecodePlan>();
     private Charset charset = Charset.defaultCharset();
     private boolean filterQueryDcl = false;
     private boolean filterQueryDml = false;
@@ -100,6 +106,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     private boolean filterTableError = false;
     // 新增rows过滤，用于仅订阅除rows以外的数据
     private boolean filterRows = false;
+    // 是否延迟构造RowChange, 只保留原始行数据直到被消费
+    private boolean lazyRowChange = false;
     private boolean useDruidDdlFilter = true;
 
     public LogEventConvert() {
@@ -437,10 +445,20 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     }
 
     public TableMeta parseRowsEventForTableMeta(RowsLogEvent event) {
-        TableMapLogEvent table = event.getTable();
+        return parseRowsEventForTableMeta(event.getHeader(), event.getTable(), event.getTableId());
+    }
+
+    /**
+     * 延迟解析模式下, 基于预解析的header和table map获取表结构
+     */
+    public TableMeta parseRowsEventForTableMeta(DeferredRowsLogEvent event) {
+        return parseRowsEventForTableMeta(event.getHeader(), event.getTable(), event.getTableId());
+    }
+
+    private TableMeta parseRowsEventForTableMeta(LogHeader header, TableMapLogEvent table, long tableId) {
         if (table == null) {
             // tableId对应的记录不存在
-            throw new TableIdNotFoundException("not found tableId:" + event.getTableId());
+            throw new TableIdNotFoundException("not found tableId:" + tableId);
         }
 
         boolean isHeartBeat = isAliSQLHeartBeat(table.getDbName(), table.getTableName());
@@ -474,7 +492,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
             tableMeta = new TableMeta(table.getDbName(), table.getTableName(), Arrays.asList(idMeta, typeMeta));
         }
 
-        EntryPosition position = createPosition(event.getHeader());
+        EntryPosition position = createPosition(header);
         if (tableMetaCache != null && tableMeta == null) {// 入错存在table meta
             tableMeta = getTableMeta(table.getDbName(), table.getTableName(), true, position);
             if (tableMeta == null) {
@@ -518,41 +536,36 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 throw new CanalParseException("unsupport event type :" + event.getHeader().getType());
             }
 
+            // 行解析计划在一个事件内只需要计算一次
+            RowDecodePlan plan = getRowDecodePlan(event, tableMeta);
+            TableMapLogEvent table = event.getTable();
+            if (lazyRowChange && LazyRowChange.supports(plan)) {
+                // 只保留原始行数据和解析计划, RowChange在消费时再构造
+                Header header = createHeader(event.getHeader(),
+                        table.getDbName(),
+                        table.getTableName(),
+                        eventType,
+                        -1);
+                header = LazyRowChange.mark(header);
+                return createEntry(header, EntryType.ROWDATA, LazyRowChange.encode(event, eventType, plan, charset));
+            }
+
             RowChange.Builder rowChangeBuider = RowChange.newBuilder();
             rowChangeBuider.setTableId(event.getTableId());
             rowChangeBuider.setIsDdl(false);
 
             rowChangeBuider.setEventType(eventType);
             RowsLogBuffer buffer = event.getRowsBuf(charset.name());
-            BitSet columns = event.getColumns();
-            BitSet changeColumns = event.getChangeColumns();
-
-            boolean tableError = false;
-            int rowsCount = 0;
-            while (buffer.nextOneRow(columns, false)) {
-                // 处理row记录
-                RowData.Builder rowDataBuilder = RowData.newBuilder();
-                if (EventType.INSERT == eventType) {
-                    // insert的记录放在before字段中
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, true, tableMeta);
-                } else if (EventType.DELETE == eventType) {
-                    // delete的记录放在before字段中
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta);
-                } else {
-                    // update需要处理before/after
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta);
-                    if (!buffer.nextOneRow(changeColumns, true)) {
-                        rowChangeBuider.addRowDatas(rowDataBuilder.build());
-                        break;
-                    }
-
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, changeColumns, true, tableMeta);
-                }
-
-                rowsCount++;
-                rowChangeBuider.addRowDatas(rowDataBuilder.build());
-            }
-            TableMapLogEvent table = event.getTable();
+            LogHeader logHeader = event.getHeader();
+            int rowsCount = parseRows(rowChangeBuider,
+                    buffer,
+                    event.getColumns(),
+                    event.getChangeColumns(),
+                    eventType,
+                    plan,
+                    charset,
+                    logHeader.getLogFileName() + ":" + (logHeader.getLogPos() - logHeader.getEventLen()));
+            boolean tableError = plan.tableError && rowChangeBuider.getRowDatasCount() > 0;
             Header header = createHeader(event.getHeader(),
                     table.getDbName(),
                     table.getTableName(),
@@ -579,15 +592,38 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 logHeader.getServerId()); // 记录到秒
     }
 
-    private boolean parseOneRow(RowData.Builder rowDataBuilder, RowsLogEvent event, RowsLogBuffer buffer, BitSet cols,
-                                boolean isAfter, TableMeta tableMeta) throws UnsupportedEncodingException {
-        int columnCnt = event.getTable().getColumnCnt();
-        ColumnInfo[] columnInfo = event.getTable().getColumnInfo();
+    /**
+     * 获取table map对应的行解析计划, 列定义和表结构不变时复用之前编译的结果
+     */
+    private RowDecodePlan getRowDecodePlan(RowsLogEvent event, TableMeta tableMeta) {
+        TableMapLogEvent table = event.getTable();
+        Long tableId = table.getTableId();
+        RowDecodePlan plan = rowDecodePlans.get(tableId);
+        if (plan != null && plan.matches(tableMeta, table.getColumnInfo())) {
+            return plan;
+        }
+
+        plan = compileRowDecodePlan(event, tableMeta);
+        if (!plan.tableError) {
+            if (rowDecodePlans.size() >= MAX_ROW_DECODE_PLANS) {
+                // table id会随着表的打开不断增长, 简单做一次清理
+                rowDecodePlans.clear();
+            }
+            rowDecodePlans.put(tableId, plan);
+        }
+        return plan;
+    }
+
+    private RowDecodePlan compileRowDecodePlan(RowsLogEvent event, TableMeta tableMeta) {
+        TableMapLogEvent table = event.getTable();
+        int columnCnt = table.getColumnCnt();
+        ColumnInfo[] columnInfo = table.getColumnInfo();
         // mysql8.0针对set @@global.binlog_row_metadata='FULL' 可以记录部分的metadata信息
-        boolean existOptionalMetaData = event.getTable().isExistOptionalMetaData();
+        boolean existOptionalMetaData = table.isExistOptionalMetaData();
         boolean tableError = false;
         // check table fileds count，只能处理加字段
         boolean existRDSNoPrimaryKey = false;
+        TableMeta resolvedTableMeta = tableMeta;
         //获取字段过滤条件
         List<String> fieldList = null;
         List<String> blackFieldList = null;
@@ -617,45 +653,147 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 // 3. 锁住应用请求，将临时表rename为老表的名字，完成增加字段的操作
                 // 尝试做一次reload，可能因为ddl没有正确解析，或者使用了类似online ddl的操作
                 // 因为online ddl没有对应表名的alter语法，所以不会有clear cache的操作
-                tableMeta = getTableMeta(event.getTable().getDbName(), event.getTable().getTableName(), false, position);// 强制重新获取一次
-                if (tableMeta == null) {
+                resolvedTableMeta = getTableMeta(table.getDbName(), table.getTableName(), false, position);// 强制重新获取一次
+                if (resolvedTableMeta == null) {
                     tableError = true;
                     if (!filterTableError) {
-                        throw new CanalParseException("not found [" + event.getTable().getDbName() + "."
-                                + event.getTable().getTableName() + "] in db , pls check!");
+                        throw new CanalParseException("not found [" + table.getDbName() + "."
+                                + table.getTableName() + "] in db , pls check!");
                     }
                 }
 
                 // 在做一次判断
-                if (tableMeta != null && columnInfo.length > tableMeta.getFields().size()) {
+                if (resolvedTableMeta != null && columnInfo.length > resolvedTableMeta.getFields().size()) {
                     tableError = true;
                     if (!filterTableError) {
-                        throw new CanalParseException("column size is not match for table:" + tableMeta.getFullName()
-                                + "," + columnInfo.length + " vs " + tableMeta.getFields().size());
+                        throw new CanalParseException("column size is not match for table:"
+                                + resolvedTableMeta.getFullName() + "," + columnInfo.length + " vs "
+                                + resolvedTableMeta.getFields().size());
                     }
                 }
-                // } else {
-                // logger.warn("[" + event.getTable().getDbName() + "." +
-                // event.getTable().getTableName()
-                // + "] is no primary key , skip alibaba_rds_row_id column");
             }
         }
 
+        RowDecodePlan.ColumnPlan[] columns = new RowDecodePlan.ColumnPlan[columnCnt];
         for (int i = 0; i < columnCnt; i++) {
             ColumnInfo info = columnInfo[i];
+            RowDecodePlan.ColumnPlan column = new RowDecodePlan.ColumnPlan();
+            column.index = i;
+            column.type = info.type;
+            column.meta = info.meta;
+            columns[i] = column;
+
+            if (existRDSNoPrimaryKey && i == columnCnt - 1 && info.type == LogEvent.MYSQL_TYPE_LONGLONG) {
+                // 不解析最后一列
+                column.rdsRowId = true;
+                column.name = "#alibaba_rds_row_id#";
+                column.key = true;
+                column.mysqlType = "bigint";
+                column.needed = needField(fieldList, blackFieldList, column.name);
+                continue;
+            }
+
+            FieldMeta fieldMeta = null;
+            if (resolvedTableMeta != null && !tableError) {
+                // 处理file meta
+                fieldMeta = resolvedTableMeta.getFields().get(i);
+            }
+
+            if (fieldMeta != null && existOptionalMetaData && tableMetaCache.isOnTSDB()) {
+                // check column info
+                boolean check = StringUtils.equalsIgnoreCase(fieldMeta.getColumnName(), info.name);
+                check &= (fieldMeta.isUnsigned() == info.unsigned);
+                check &= (fieldMeta.isNullable() == info.nullable);
+
+                if (!check) {
+                    column.unmatchMessage = "MySQL8.0 unmatch column metadata & pls submit issue , table : "
+                            + resolvedTableMeta.getFullName() + ", db fieldMeta : " + fieldMeta.toString()
+                            + " , binlog fieldMeta : " + info.toString();
+                }
+            }
+
+            if (fieldMeta != null) {
+                column.name = fieldMeta.getColumnName();
+                column.key = fieldMeta.isKey();
+                // 增加mysql type类型,issue 73
+                column.mysqlType = fieldMeta.getColumnType();
+                // fixed issue
+                // https://github.com/alibaba/canal/issues/66，特殊处理binary/varbinary，不能做编码处理
+                column.binary = StringUtils.containsIgnoreCase(fieldMeta.getColumnType(), "BINARY");
+                column.text = isText(fieldMeta.getColumnType());
+                column.unsigned = fieldMeta.isUnsigned();
+            } else if (existOptionalMetaData) {
+                column.name = info.name;
+                column.key = info.pk;
+                // mysql8.0里没有mysql type类型
+                column.unsigned = info.unsigned;
+            }
+
+            column.nullJavaType = RowsLogBuffer.mysqlToJavaType(info.type, info.meta, column.binary);
+            column.needed = needField(fieldList, blackFieldList, column.name == null ? "" : column.name);
+        }
+
+        return new RowDecodePlan(tableMeta, columnInfo, columns, tableError);
+    }
+
+    /**
+     * 按解析计划解析一个rows event中的所有行记录, 返回完整解析的行数
+     *
+     * @param position 当前事件的binlog位点, 用于异常信息
+     */
+    static int parseRows(RowChange.Builder rowChangeBuider, RowsLogBuffer buffer, BitSet columns,
+                         BitSet changeColumns, EventType eventType, RowDecodePlan plan, Charset charset,
+                         String position) throws UnsupportedEncodingException {
+        // decimal直接输出plain string, 避免BigDecimal的构造和toPlainString
+        buffer.setDecimalAsString(true);
+        // row image列数在一个事件内只需要计算一次
+        int columnCount = columns.cardinality();
+        int changeColumnCount = changeColumns != null ? changeColumns.cardinality() : 0;
+
+        int rowsCount = 0;
+        while (buffer.nextOneRow(columnCount, false)) {
+            // 处理row记录
+            RowData.Builder rowDataBuilder = RowData.newBuilder();
+            if (EventType.INSERT == eventType) {
+                // insert的记录放在before字段中
+                parseOneRow(rowDataBuilder, buffer, columns, true, plan, charset, position);
+            } else if (EventType.DELETE == eventType) {
+                // delete的记录放在before字段中
+                parseOneRow(rowDataBuilder, buffer, columns, false, plan, charset, position);
+            } else {
+                // update需要处理before/after
+                parseOneRow(rowDataBuilder, buffer, columns, false, plan, charset, position);
+                if (!buffer.nextOneRow(changeColumnCount, true)) {
+                    rowChangeBuider.addRowDatas(rowDataBuilder.build());
+                    break;
+                }
+
+                parseOneRow(rowDataBuilder, buffer, changeColumns, true, plan, charset, position);
+            }
+
+            rowsCount++;
+            rowChangeBuider.addRowDatas(rowDataBuilder.build());
+        }
+        return rowsCount;
+    }
+
+    private static void parseOneRow(RowData.Builder rowDataBuilder, RowsLogBuffer buffer, BitSet cols,
+                                    boolean isAfter, RowDecodePlan plan, Charset charset, String position)
+                                                                                                           throws UnsupportedEncodingException {
+        for (RowDecodePlan.ColumnPlan column : plan.columns) {
+            final int i = column.index;
             // mysql 5.6开始支持nolob/mininal类型,并不一定记录所有的列,需要进行判断
             if (!cols.get(i)) {
                 continue;
             }
 
-            if (existRDSNoPrimaryKey && i == columnCnt - 1 && info.type == LogEvent.MYSQL_TYPE_LONGLONG) {
+            if (column.rdsRowId) {
                 // 不解析最后一列
-                String rdsRowIdColumnName = "#alibaba_rds_row_id#";
-                buffer.nextValue(rdsRowIdColumnName, i, info.type, info.meta, false);
+                buffer.nextValue(column.name, i, column.type, column.meta, false);
                 Column.Builder columnBuilder = Column.newBuilder();
-                columnBuilder.setName(rdsRowIdColumnName);
+                columnBuilder.setName(column.name);
                 columnBuilder.setIsKey(true);
-                columnBuilder.setMysqlType("bigint");
+                columnBuilder.setMysqlType(column.mysqlType);
                 columnBuilder.setIndex(i);
                 columnBuilder.setIsNull(false);
                 Serializable value = buffer.getValue();
@@ -663,7 +801,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 columnBuilder.setSqlType(Types.BIGINT);
                 columnBuilder.setUpdated(false);
 
-                if (needField(fieldList, blackFieldList, columnBuilder.getName())) {
+                if (column.needed) {
                     if (isAfter) {
                         rowDataBuilder.addAfterColumns(columnBuilder.build());
                     } else {
@@ -673,55 +811,22 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 continue;
             }
 
-            FieldMeta fieldMeta = null;
-            if (tableMeta != null && !tableError) {
-                // 处理file meta
-                fieldMeta = tableMeta.getFields().get(i);
-            }
-
-            if (fieldMeta != null && existOptionalMetaData && tableMetaCache.isOnTSDB()) {
-                // check column info
-                boolean check = StringUtils.equalsIgnoreCase(fieldMeta.getColumnName(), info.name);
-                check &= (fieldMeta.isUnsigned() == info.unsigned);
-                check &= (fieldMeta.isNullable() == info.nullable);
-
-                if (!check) {
-                    throw new CanalParseException("MySQL8.0 unmatch column metadata & pls submit issue , table : "
-                            + tableMeta.getFullName() + ", db fieldMeta : "
-                            + fieldMeta.toString() + " , binlog fieldMeta : " + info.toString()
-                            + " , on : " + event.getHeader().getLogFileName() + ":"
-                            + (event.getHeader().getLogPos() - event.getHeader().getEventLen()));
-                }
+            if (column.unmatchMessage != null) {
+                throw new CanalParseException(column.unmatchMessage + " , on : " + position);
             }
 
             Column.Builder columnBuilder = Column.newBuilder();
-            if (fieldMeta != null) {
-                columnBuilder.setName(fieldMeta.getColumnName());
-                columnBuilder.setIsKey(fieldMeta.isKey());
-                // 增加mysql type类型,issue 73
-                columnBuilder.setMysqlType(fieldMeta.getColumnType());
-            } else if (existOptionalMetaData) {
-                columnBuilder.setName(info.name);
-                columnBuilder.setIsKey(info.pk);
-                // mysql8.0里没有mysql type类型
-                // columnBuilder.setMysqlType(fieldMeta.getColumnType());
+            if (column.name != null) {
+                columnBuilder.setName(column.name);
+                columnBuilder.setIsKey(column.key);
+            }
+            if (column.mysqlType != null) {
+                columnBuilder.setMysqlType(column.mysqlType);
             }
             columnBuilder.setIndex(i);
             columnBuilder.setIsNull(false);
 
-            // fixed issue
-            // https://github.com/alibaba/canal/issues/66，特殊处理binary/varbinary，不能做编码处理
-            boolean isBinary = false;
-            boolean isSingleBit = false;
-            if (fieldMeta != null) {
-                if (StringUtils.containsIgnoreCase(fieldMeta.getColumnType(), "VARBINARY")) {
-                    isBinary = true;
-                } else if (StringUtils.containsIgnoreCase(fieldMeta.getColumnType(), "BINARY")) {
-                    isBinary = true;
-                }
-            }
-
-            buffer.nextValue(columnBuilder.getName(), i, info.type, info.meta, isBinary);
+            buffer.nextValue(columnBuilder.getName(), i, column.type, column.meta, column.binary, column.nullJavaType);
             int javaType = buffer.getJavaType();
             if (buffer.isNull()) {
                 columnBuilder.setIsNull(true);
@@ -735,8 +840,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                     case Types.BIGINT:
                         // 处理unsigned类型
                         Number number = (Number) value;
-                        boolean isUnsigned = (fieldMeta != null ? fieldMeta.isUnsigned() : (existOptionalMetaData ? info.unsigned : false));
-                        if (isUnsigned && number.longValue() < 0) {
+                        if (column.unsigned && number.longValue() < 0) {
                             switch (buffer.getLength()) {
                                 case 1: /* MYSQL_TYPE_TINY */
                                     columnBuilder.setValue(String.valueOf(Integer.valueOf(TINYINT_MAX_VALUE
@@ -783,7 +887,11 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                         columnBuilder.setValue(String.valueOf(value));
                         break;
                     case Types.DECIMAL:
-                        columnBuilder.setValue(((BigDecimal) value).toPlainString());
+                        if (value instanceof BigDecimal) {
+                            columnBuilder.setValue(((BigDecimal) value).toPlainString());
+                        } else {
+                            columnBuilder.setValue(value.toString());
+                        }
                         break;
                     case Types.TIMESTAMP:
                         // 修复时间边界值
@@ -803,7 +911,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                         // https://github.com/AlibabaTech/canal/issues/18
                         // mysql binlog中blob/text都处理为blob类型，需要反查table
                         // meta，按编码解析text
-                        if (fieldMeta != null && isText(fieldMeta.getColumnType())) {
+                        if (column.text) {
                             columnBuilder.setValue(new String((byte[]) value, charset));
                             javaType = Types.CLOB;
                         } else {
@@ -829,7 +937,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                     && isUpdate(rowDataBuilder.getBeforeColumnsList(),
                     columnBuilder.getIsNull() ? null : columnBuilder.getValue(),
                     i));
-            if (needField(fieldList, blackFieldList, columnBuilder.getName())) {
+            if (column.needed) {
                 if (isAfter) {
                     rowDataBuilder.addAfterColumns(columnBuilder.build());
                 } else {
@@ -837,9 +945,6 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 }
             }
         }
-
-        return tableError;
-
     }
 
     private Entry buildQueryEntry(String queryString, LogHeader logHeader, String tableName) {
@@ -913,7 +1018,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         return headerBuilder.build();
     }
 
-    private boolean isUpdate(List<Column> bfColumns, String newValue, int index) {
+    private static boolean isUpdate(List<Column> bfColumns, String newValue, int index) {
         if (bfColumns == null) {
             throw new CanalParseException("ERROR ## the bfColumns is null");
         }
@@ -1033,6 +1138,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         for (Map.Entry<String, List<String>> entry : this.fieldFilterMap.entrySet()) {
             logger.warn("--> init field filter : " + entry.getKey() + "->" + entry.getValue());
         }
+        // 行解析计划中缓存了字段过滤的结果, 过滤条件变化后需要重新编译
+        rowDecodePlans.clear();
     }
 
     public void setFieldBlackFilterMap(Map<String, List<String>> fieldBlackFilterMap) {
@@ -1045,6 +1152,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         for (Map.Entry<String, List<String>> entry : this.fieldBlackFilterMap.entrySet()) {
             logger.warn("--> init field black filter : " + entry.getKey() + "->" + entry.getValue());
         }
+        // 同setFieldFilterMap
+        rowDecodePlans.clear();
     }
 
     public void setTableMetaCache(TableMetaCache tableMetaCache) {
@@ -1071,6 +1180,10 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         this.filterRows = filterRows;
     }
 
+    public void setLazyRowChange(boolean lazyRowChange) {
+        this.lazyRowChange = lazyRowChange;
+    }
+
     public void setUseDruidDdlFilter(boolean useDruidDdlFilter) {
         this.useDruidDdlFilter = useDruidDdlFilter;
     }
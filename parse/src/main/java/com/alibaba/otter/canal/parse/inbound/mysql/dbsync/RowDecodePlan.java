@@ -0,0 +1,84 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.alibaba.otter.canal.parse.inbound.TableMeta;
+import com.taobao.tddl.dbsync.binlog.event.TableMapLogEvent.ColumnInfo;
+
+/**
+ * 基于TableMapLogEvent预先编译的行解析计划
+ *
+ * <pre>
+ * 1. 每个列的mysql type/meta、binary/text判断、unsigned、字段过滤结果等只计算一次
+ * 2. 按table id缓存, table map中的列定义或者对应的TableMeta发生变化后重新编译
+ * 3. 行解析时只需要按计划顺序读取, 避免宽表每行每列重复的字符串比较和map查找
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+final class RowDecodePlan {
+
+    final TableMeta    tableMeta;  // 编译时传入的表结构, 用于判断缓存是否有效
+    final ColumnInfo[] columnInfo;
+    final ColumnPlan[] columns;
+    final boolean      tableError;
+    // 延迟解析模式下列计划的序列化结果
+    volatile byte[]    encoded;
+
+    RowDecodePlan(TableMeta tableMeta, ColumnInfo[] columnInfo, ColumnPlan[] columns, boolean tableError){
+        this.tableMeta = tableMeta;
+        this.columnInfo = columnInfo;
+        this.columns = columns;
+        this.tableError = tableError;
+    }
+
+    /**
+     * 判断计划是否仍然适用于新的table map
+     */
+    boolean matches(TableMeta tableMeta, ColumnInfo[] columnInfo) {
+        if (this.tableMeta != tableMeta) {
+            return false;
+        }
+
+        if (this.columnInfo == columnInfo) {
+            return true;
+        }
+
+        if (this.columnInfo.length != columnInfo.length) {
+            return false;
+        }
+
+        for (int i = 0; i < columnInfo.length; i++) {
+            ColumnInfo source = this.columnInfo[i];
+            ColumnInfo target = columnInfo[i];
+            if (source.type != target.type || source.meta != target.meta || source.unsigned != target.unsigned
+                || source.nullable != target.nullable || source.pk != target.pk
+                || !StringUtils.equals(source.name, target.name)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static final class ColumnPlan {
+
+        int     index;
+        int     type;
+        int     meta;
+        // name为null时代表没有可用的列名
+        String  name;
+        boolean key;
+        String  mysqlType;
+        boolean binary;
+        boolean text;
+        boolean unsigned;
+        int     nullJavaType;
+        // 是否满足字段过滤条件
+        boolean needed;
+        // rds无主键表的隐藏列
+        boolean rdsRowId;
+        // mysql8.0 optional metadata与tsdb不一致时的异常信息, 解析到该列时抛出
+        String  unmatchMessage;
+    }
+}
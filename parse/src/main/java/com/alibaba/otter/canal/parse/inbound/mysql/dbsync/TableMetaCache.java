@@ -5,6 +5,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -44,6 +48,12 @@ public class TableMetaCache {
     private TableMetaTSDB tableMetaTSDB;
     // 第一层tableId,第二层schema.table,解决tableId重复，对应多张表
     private LoadingCache<String, TableMeta> tableMetaDB;
+    // tsdb模式下的读缓存, 命中时无锁读取, 只有未命中/DDL变更/rollback时才需要加锁
+    private final ConcurrentMap<String, TableMeta> tableMetaSnapshot = new ConcurrentHashMap<String, TableMeta>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // 统计参数
+    private AtomicLong lockWaitTime = new AtomicLong(0L);
+    private AtomicLong cacheMissCount = new AtomicLong(0L);
 
     public TableMetaCache(MysqlConnection con, TableMetaTSDB tableMetaTSDB) {
         this.connection = con;
@@ -159,34 +169,28 @@ public class TableMetaCache {
         return getTableMeta(schema, table, true, position);
     }
 
-    public synchronized TableMeta getTableMeta(String schema, String table, boolean useCache, EntryPosition position) {
-        TableMeta tableMeta = null;
+    public TableMeta getTableMeta(String schema, String table, boolean useCache, EntryPosition position) {
         if (tableMetaTSDB != null) {
-            tableMeta = tableMetaTSDB.find(schema, table);
-            if (tableMeta == null) {
-                // 因为条件变化，可能第一次的tableMeta没取到，需要从db获取一次，并记录到snapshot中
-                String fullName = getFullName(schema, table);
-                ResultSetPacket packet = null;
-                String createDDL = null;
-                try {
-                    try {
-                        packet = connection.query("show create table " + fullName);
-                    } catch (Exception e) {
-                        // 尝试做一次retry操作
-                        connection.reconnect();
-                        packet = connection.query("show create table " + fullName);
-                    }
-                    if (packet.getFieldValues().size() > 0) {
-                        createDDL = packet.getFieldValues().get(1);
+            String fullName = getFullName(schema, table);
+            TableMeta tableMeta = tableMetaSnapshot.get(fullName);
+            if (tableMeta != null) {
+                return tableMeta;
+            }
+
+            cacheMissCount.incrementAndGet();
+            lock();
+            try {
+                tableMeta = tableMetaSnapshot.get(fullName);
+                if (tableMeta == null) {
+                    tableMeta = getTableMetaByTSDB(schema, table, position);
+                    if (tableMeta != null) {
+                        tableMetaSnapshot.put(fullName, tableMeta);
                     }
-                    // 强制覆盖掉内存值
-                    tableMetaTSDB.apply(position, schema, createDDL, "first");
-                    tableMeta = tableMetaTSDB.find(schema, table);
-                } catch (IOException e) {
-                    throw new CanalParseException("fetch failed by table meta:" + fullName, e);
                 }
+                return tableMeta;
+            } finally {
+                lock.unlock();
             }
-            return tableMeta;
         } else {
             if (!useCache) {
                 tableMetaDB.invalidate(getFullName(schema, table));
@@ -196,9 +200,38 @@ public class TableMetaCache {
         }
     }
 
+    private TableMeta getTableMetaByTSDB(String schema, String table, EntryPosition position) {
+        TableMeta tableMeta = tableMetaTSDB.find(schema, table);
+        if (tableMeta == null) {
+            // 因为条件变化，可能第一次的tableMeta没取到，需要从db获取一次，并记录到snapshot中
+            String fullName = getFullName(schema, table);
+            ResultSetPacket packet = null;
+            String createDDL = null;
+            try {
+                try {
+                    packet = connection.query("show create table " + fullName);
+                } catch (Exception e) {
+                    // 尝试做一次retry操作
+                    connection.reconnect();
+                    packet = connection.query("show create table " + fullName);
+                }
+                if (packet.getFieldValues().size() > 0) {
+                    createDDL = packet.getFieldValues().get(1);
+                }
+                // 强制覆盖掉内存值
+                tableMetaTSDB.apply(position, schema, createDDL, "first");
+                tableMeta = tableMetaTSDB.find(schema, table);
+            } catch (IOException e) {
+                throw new CanalParseException("fetch failed by table meta:" + fullName, e);
+            }
+        }
+        return tableMeta;
+    }
+
     public void clearTableMeta(String schema, String table) {
         if (tableMetaTSDB != null) {
-            // tsdb不需要做,会基于ddl sql自动清理
+            // tsdb不需要做,会基于ddl sql自动清理, 只需要清理读缓存
+            tableMetaSnapshot.remove(getFullName(schema, table));
         } else {
             tableMetaDB.invalidate(getFullName(schema, table));
         }
@@ -206,7 +239,12 @@ public class TableMetaCache {
 
     public void clearTableMetaWithSchemaName(String schema) {
         if (tableMetaTSDB != null) {
-            // tsdb不需要做,会基于ddl sql自动清理
+            // tsdb不需要做,会基于ddl sql自动清理, 只需要清理读缓存
+            for (String name : tableMetaSnapshot.keySet()) {
+                if (StringUtils.startsWithIgnoreCase(name, "`" + schema + "`.")) {
+                    tableMetaSnapshot.remove(name);
+                }
+            }
         } else {
             for (String name : tableMetaDB.asMap().keySet()) {
                 if (StringUtils.startsWithIgnoreCase(name, schema + ".")) {
@@ -219,7 +257,8 @@ public class TableMetaCache {
 
     public void clearTableMeta() {
         if (tableMetaTSDB != null) {
-            // tsdb不需要做,会基于ddl sql自动清理
+            // tsdb不需要做,会基于ddl sql自动清理, 只需要清理读缓存
+            tableMetaSnapshot.clear();
         } else {
             tableMetaDB.invalidateAll();
         }
@@ -235,13 +274,49 @@ public class TableMetaCache {
      */
     public boolean apply(EntryPosition position, String schema, String ddl, String extra) {
         if (tableMetaTSDB != null) {
-            return tableMetaTSDB.apply(position, schema, ddl, extra);
+            lock();
+            try {
+                // ddl变更后无法确定影响的表(比如rename/drop database), 直接清空读缓存
+                tableMetaSnapshot.clear();
+                return tableMetaTSDB.apply(position, schema, ddl, extra);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            // ignore
+            return true;
+        }
+    }
+
+    /**
+     * 回滚tsdb到指定位点, 同时清空读缓存
+     */
+    public boolean rollback(EntryPosition position) {
+        if (tableMetaTSDB != null) {
+            lock();
+            try {
+                tableMetaSnapshot.clear();
+                return tableMetaTSDB.rollback(position);
+            } finally {
+                lock.unlock();
+            }
         } else {
             // ignore
             return true;
         }
     }
 
+    private void lock() {
+        if (lock.tryLock()) {
+            return;
+        }
+
+        // 记录锁竞争的等待时间
+        long start = System.nanoTime();
+        lock.lock();
+        lockWaitTime.addAndGet(System.nanoTime() - start);
+    }
+
     private String getFullName(String schema, String table) {
         StringBuilder builder = new StringBuilder();
         return builder.append('`')
@@ -271,4 +346,12 @@ public class TableMetaCache {
         this.isOnRDS = isOnRDS;
     }
 
+    public void setLockWaitTime(AtomicLong lockWaitTime) {
+        this.lockWaitTime = lockWaitTime;
+    }
+
+    public void setCacheMissCount(AtomicLong cacheMissCount) {
+        this.cacheMissCount = cacheMissCount;
+    }
+
 }
@@ -28,6 +28,7 @@ public class RdsBinlogEventParserProxy extends MysqlEventParser {
     private String instanceId;                                             // rds实例id
     private String directory;                                              // binlog目录
     private int batchFileSize = 4;                          // 最多下载的binlog文件数量
+    private boolean mmapFetch = false;                      // 是否使用mmap读取下载的binlog文件
 
     private RdsLocalBinlogEventParser rdsLocalBinlogEventParser = null;
     private ExecutorService executorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
@@ -63,12 +64,16 @@ public class RdsBinlogEventParserProxy extends MysqlEventParser {
             rdsLocalBinlogEventParser.setFilterQueryDdl(this.filterQueryDdl);
             rdsLocalBinlogEventParser.setFilterQueryDml(this.filterQueryDml);
             rdsLocalBinlogEventParser.setFilterRows(this.filterRows);
+            rdsLocalBinlogEventParser.setLazyRowChange(this.lazyRowChange);
+            rdsLocalBinlogEventParser.setMaxTableMaps(this.maxTableMaps);
             rdsLocalBinlogEventParser.setFilterTableError(this.filterTableError);
             // rdsLocalBinlogEventParser.setIsGTIDMode(this.isGTIDMode);
             rdsLocalBinlogEventParser.setMasterInfo(this.masterInfo);
             rdsLocalBinlogEventParser.setEventFilter(this.eventFilter);
             rdsLocalBinlogEventParser.setMasterPosition(this.masterPosition);
             rdsLocalBinlogEventParser.setTransactionSize(this.transactionSize);
+            rdsLocalBinlogEventParser.setTransactionSpillThreshold(this.transactionSpillThreshold);
+            rdsLocalBinlogEventParser.setTransactionSpillDir(this.transactionSpillDir);
             rdsLocalBinlogEventParser.setUrl(this.rdsOpenApiUrl);
             rdsLocalBinlogEventParser.setAccesskey(this.accesskey);
             rdsLocalBinlogEventParser.setSecretkey(this.secretkey);
@@ -76,8 +81,11 @@ public class RdsBinlogEventParserProxy extends MysqlEventParser {
             rdsLocalBinlogEventParser.setEventSink(eventSink);
             rdsLocalBinlogEventParser.setDirectory(directory);
             rdsLocalBinlogEventParser.setBatchFileSize(batchFileSize);
+            rdsLocalBinlogEventParser.setMmapFetch(mmapFetch);
             rdsLocalBinlogEventParser.setParallel(this.parallel);
             rdsLocalBinlogEventParser.setParallelBufferSize(this.parallelBufferSize);
+            rdsLocalBinlogEventParser.setParallelBufferPooled(this.parallelBufferPooled);
+            rdsLocalBinlogEventParser.setParallelDeferRowsDecode(this.parallelDeferRowsDecode);
             rdsLocalBinlogEventParser.setParallelThreadSize(this.parallelThreadSize);
             rdsLocalBinlogEventParser.setFinishListener(new RdsLocalBinlogEventParser.ParseFinishListener() {
 
@@ -177,4 +185,8 @@ public class RdsBinlogEventParserProxy extends MysqlEventParser {
         this.batchFileSize = batchFileSize;
     }
 
+    public void setMmapFetch(boolean mmapFetch) {
+        this.mmapFetch = mmapFetch;
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.alibaba.otter.canal.parse.index;
+
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.store.CanalEventStore;
+
+/**
+ * 基于持久化store的位点管理, 直接使用store中最后一条数据的位点作为parser的恢复位点
+ *
+ * <pre>
+ * 适用于数据不会随重启丢失的store(比如FileEventStore), store启动时会截断到最后一个完整事务, 保证返回的位点是事务尾
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class EventStoreLogPositionManager extends AbstractLogPositionManager {
+
+    private final CanalEventStore eventStore;
+
+    public EventStoreLogPositionManager(CanalEventStore eventStore){
+        if (eventStore == null) {
+            throw new NullPointerException("null eventStore");
+        }
+
+        this.eventStore = eventStore;
+    }
+
+    @Override
+    public LogPosition getLatestIndexBy(String destination) {
+        if (!eventStore.isStart()) {
+            return null;
+        }
+
+        return (LogPosition) eventStore.getLatestPosition();
+    }
+
+    @Override
+    public void persistLogPosition(String destination, LogPosition logPosition) throws CanalParseException {
+        // store中的数据本身就是持久化的, do nothing
+    }
+}
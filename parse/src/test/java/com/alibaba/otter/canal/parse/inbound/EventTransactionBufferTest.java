@@ -2,6 +2,7 @@ package com.alibaba.otter.canal.parse.inbound;
 
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -116,6 +117,48 @@ public class EventTransactionBufferTest {
         buffer.stop();
     }
 
+    @Test
+    public void testSpillFlush() {
+        final int bufferSize = 64;
+        final int transactionSize = bufferSize * 4;
+        final long spillThreshold = 512;
+        final List<Entry> flushed = new ArrayList<Entry>();
+        EventTransactionBuffer buffer = new EventTransactionBuffer();
+        buffer.setBufferSize(bufferSize);
+        buffer.setSpillThreshold(spillThreshold);
+        buffer.setFlushCallback(new TransactionFlushCallback() {
+
+            public void flush(List<Entry> transaction) throws InterruptedException {
+                long size = 0;
+                for (Entry data : transaction) {
+                    size += data.getSerializedSize();
+                }
+                // 溢出的事务按照spillThreshold切分输出
+                Assert.assertTrue(transaction.size() == 1 || size <= spillThreshold);
+                flushed.addAll(transaction);
+            }
+        });
+        buffer.start();
+
+        try {
+            buffer.add(buildEntry("1", 1L, 40L, EntryType.TRANSACTIONBEGIN));
+            for (int i = 1; i < transactionSize - 1; i++) {
+                buffer.add(buildEntry("1", 1L + i, 40L + i));
+            }
+            // 超过buffer大小, 但事务未结束之前不会输出
+            Assert.assertEquals(0, flushed.size());
+            buffer.add(buildEntry("1", 1L + transactionSize - 1, 40L, EntryType.TRANSACTIONEND));
+        } catch (InterruptedException e) {
+            Assert.fail(e.getMessage());
+        }
+
+        Assert.assertEquals(transactionSize, flushed.size());
+        for (int i = 0; i < transactionSize; i++) {
+            Assert.assertEquals(1L + i, flushed.get(i).getHeader().getLogfileOffset());
+        }
+        buffer.stop();
+    }
+
     private static Entry buildEntry(String binlogFile, long offset, long timestamp) {
         Header.Builder headerBuilder = Header.newBuilder();
         headerBuilder.setLogfileName(binlogFile);
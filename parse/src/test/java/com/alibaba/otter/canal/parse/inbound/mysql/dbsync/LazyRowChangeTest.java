@@ -0,0 +1,186 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.sql.Types;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Column;
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.CanalEntry.Pair;
+import com.alibaba.otter.canal.protocol.CanalEntry.RowChange;
+import com.google.protobuf.ByteString;
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
+import com.taobao.tddl.dbsync.binlog.event.RowsLogEvent;
+
+/**
+ * 延迟构造的RowChange编码/还原之后, 需要与直接解析的结果保持一致
+ */
+public class LazyRowChangeTest {
+
+    private static final Charset UTF8    = Charset.forName("UTF-8");
+    private static final long    TABLEID = 100L;
+
+    @Test
+    public void testEncodeAndMaterialize() throws Exception {
+        RowsLogEvent event = buildWriteRows();
+        RowDecodePlan plan = buildPlan();
+
+        RowChange.Builder expect = RowChange.newBuilder();
+        expect.setTableId(event.getTableId());
+        expect.setIsDdl(false);
+        expect.setEventType(EventType.INSERT);
+        int rowsCount = LogEventConvert.parseRows(expect,
+            event.getRowsBuf(UTF8.name()),
+            event.getColumns(),
+            event.getChangeColumns(),
+            EventType.INSERT,
+            plan,
+            UTF8,
+            "mysql-bin.000001:300");
+        Assert.assertEquals(2, rowsCount);
+
+        Assert.assertTrue(LazyRowChange.supports(plan));
+        ByteString payload = LazyRowChange.encode(event, EventType.INSERT, plan, UTF8);
+        Assert.assertNotNull(plan.encoded);
+        // 计划的编码结果被缓存, 重复编码结果一致
+        Assert.assertEquals(payload, LazyRowChange.encode(event, EventType.INSERT, plan, UTF8));
+
+        Header header = Header.newBuilder()
+            .setLogfileName("mysql-bin.000001")
+            .setLogfileOffset(300L)
+            .setEventType(EventType.INSERT)
+            .build();
+        Entry entry = Entry.newBuilder()
+            .setHeader(LazyRowChange.mark(header))
+            .setEntryType(EntryType.ROWDATA)
+            .setStoreValue(payload)
+            .build();
+        Assert.assertTrue(LazyRowChange.isLazy(entry));
+
+        Entry materialized = LazyRowChange.materialize(entry);
+        Assert.assertFalse(LazyRowChange.isLazy(materialized));
+        Assert.assertEquals(expect.build(), RowChange.parseFrom(materialized.getStoreValue()));
+        Assert.assertEquals("2", findProp(materialized.getHeader(), "rowsCount"));
+        Assert.assertNull(findProp(materialized.getHeader(), LazyRowChange.LAZY_ROW_CHANGE));
+        Assert.assertEquals(header.getLogfileOffset(), materialized.getHeader().getLogfileOffset());
+
+        RowChange rowChange = RowChange.parseFrom(materialized.getStoreValue());
+        Column id = rowChange.getRowDatas(0).getAfterColumns(0);
+        Column name = rowChange.getRowDatas(0).getAfterColumns(1);
+        Assert.assertEquals("1", id.getValue());
+        Assert.assertTrue(id.getIsKey());
+        Assert.assertEquals("abc", name.getValue());
+        Assert.assertTrue(rowChange.getRowDatas(1).getAfterColumns(1).getIsNull());
+
+        // 非延迟的entry直接返回
+        Assert.assertSame(materialized, LazyRowChange.materialize(materialized));
+    }
+
+    @Test
+    public void testUnsupportedPlan() {
+        RowDecodePlan plan = buildPlan();
+        plan.columns[1].unmatchMessage = "unmatch";
+        Assert.assertFalse(LazyRowChange.supports(plan));
+        Assert.assertFalse(LazyRowChange.supports(new RowDecodePlan(null, null, buildPlan().columns, true)));
+    }
+
+    private static RowDecodePlan buildPlan() {
+        RowDecodePlan.ColumnPlan id = new RowDecodePlan.ColumnPlan();
+        id.index = 0;
+        id.type = LogEvent.MYSQL_TYPE_LONG;
+        id.name = "id";
+        id.key = true;
+        id.mysqlType = "int(11)";
+        id.nullJavaType = Types.INTEGER;
+        id.needed = true;
+
+        RowDecodePlan.ColumnPlan name = new RowDecodePlan.ColumnPlan();
+        name.index = 1;
+        name.type = LogEvent.MYSQL_TYPE_VARCHAR;
+        name.meta = 60;
+        name.name = "name";
+        name.mysqlType = "varchar(60)";
+        name.nullJavaType = Types.VARCHAR;
+        name.needed = true;
+        return new RowDecodePlan(null, null, new RowDecodePlan.ColumnPlan[] { id, name }, false);
+    }
+
+    private static RowsLogEvent buildWriteRows() throws Exception {
+        LogContext context = new LogContext(new FormatDescriptionLogEvent(4, LogEvent.BINLOG_CHECKSUM_ALG_OFF));
+        context.setLogPosition(new LogPosition("mysql-bin.000001", 4L));
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeLe(body, TABLEID, 6);
+        writeLe(body, 0, 2); // flags
+        writeString(body, "test");
+        writeString(body, "t1");
+        body.write(2); // column count
+        body.write(LogEvent.MYSQL_TYPE_LONG);
+        body.write(LogEvent.MYSQL_TYPE_VARCHAR);
+        body.write(2); // metadata length
+        writeLe(body, 60, 2); // varchar max length
+        body.write(0x02); // null bits
+        decode(decoder, context, LogEvent.TABLE_MAP_EVENT, body, 200L);
+
+        body = new ByteArrayOutputStream();
+        writeLe(body, TABLEID, 6);
+        writeLe(body, RowsLogEvent.STMT_END_F, 2);
+        writeLe(body, 2, 2); // extra data length
+        body.write(2); // column count
+        body.write(0x03); // columns present
+        body.write(0x00); // row 1: null bits
+        writeLe(body, 1, 4);
+        body.write(3);
+        body.write("abc".getBytes(UTF8));
+        body.write(0x02); // row 2: name is null
+        writeLe(body, 2, 4);
+        return (RowsLogEvent) decode(decoder, context, LogEvent.WRITE_ROWS_EVENT, body, 300L);
+    }
+
+    private static LogEvent decode(LogDecoder decoder, LogContext context, int type, ByteArrayOutputStream body,
+                                   long logPos) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeLe(out, 1600000000L, 4); // when
+        out.write(type);
+        writeLe(out, 1L, 4); // server id
+        writeLe(out, FormatDescriptionLogEvent.LOG_EVENT_HEADER_LEN + body.size(), 4);
+        writeLe(out, logPos, 4);
+        writeLe(out, 0, 2); // flags
+        out.write(body.toByteArray());
+        byte[] data = out.toByteArray();
+        return decoder.decode(new LogBuffer(data, 0, data.length), context);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        out.write(value.length());
+        out.write(value.getBytes(UTF8), 0, value.length());
+        out.write(0);
+    }
+
+    private static void writeLe(ByteArrayOutputStream out, long value, int len) {
+        for (int i = 0; i < len; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    private static String findProp(Header header, String key) {
+        for (Pair pair : header.getPropsList()) {
+            if (key.equals(pair.getKey())) {
+                return pair.getValue();
+            }
+        }
+        return null;
+    }
+}
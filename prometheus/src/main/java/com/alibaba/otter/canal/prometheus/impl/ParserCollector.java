@@ -33,11 +33,23 @@ public class ParserCollector extends Collector implements InstanceRegistry {
     private static final String PUBLISH_BLOCKING = "canal_instance_publish_blocking_time";
     private static final String RECEIVED_BINLOG = "canal_instance_received_binlog_bytes";
     private static final String PARSER_MODE = "canal_instance_parser_mode";
+    private static final String TABLE_META_MISS = "canal_instance_table_meta_cache_miss";
+    private static final String TABLE_META_LOCK_WAIT = "canal_instance_table_meta_lock_wait_time";
+    private static final String TABLE_MAP_COUNT = "canal_instance_table_map_count";
+    private static final String TABLE_MAP_EVICT = "canal_instance_table_map_evictions";
+    private static final String PAYLOAD_COMPRESSED = "canal_instance_payload_compressed_bytes";
+    private static final String PAYLOAD_UNCOMPRESSED = "canal_instance_payload_uncompressed_bytes";
     private static final String MODE_LABEL = "parallel";
     private static final String PARSER_LABEL = "parser";
     private static final String PUBLISH_BLOCKING_HELP = "Publish blocking time of dump thread in milliseconds";
     private static final String RECEIVED_BINLOG_HELP = "Received binlog bytes";
     private static final String MODE_HELP = "Parser mode(parallel/serial) of instance";
+    private static final String TABLE_META_MISS_HELP = "Table meta cache miss count";
+    private static final String TABLE_META_LOCK_WAIT_HELP = "Table meta cache lock wait time in milliseconds";
+    private static final String TABLE_MAP_COUNT_HELP = "Cached table map event count of log context";
+    private static final String TABLE_MAP_EVICT_HELP = "Table map events evicted from log context";
+    private static final String PAYLOAD_COMPRESSED_HELP = "Compressed bytes of transaction payload events";
+    private static final String PAYLOAD_UNCOMPRESSED_HELP = "Uncompressed bytes of transaction payload events";
     private final List<String> modeLabels = Arrays.asList(DEST, MODE_LABEL);
     private final List<String> parserLabels = Arrays.asList(DEST, PARSER_LABEL);
     private final ConcurrentMap<String, ParserMetricsHolder> instances = new ConcurrentHashMap<>();
@@ -62,30 +74,60 @@ public class ParserCollector extends Collector implements InstanceRegistry {
                 MODE_HELP, modeLabels);
         CounterMetricFamily blockingCounter = new CounterMetricFamily(PUBLISH_BLOCKING,
                 PUBLISH_BLOCKING_HELP, parserLabels);
+        CounterMetricFamily missCounter = new CounterMetricFamily(TABLE_META_MISS,
+                TABLE_META_MISS_HELP, parserLabels);
+        CounterMetricFamily lockWaitCounter = new CounterMetricFamily(TABLE_META_LOCK_WAIT,
+                TABLE_META_LOCK_WAIT_HELP, parserLabels);
+        GaugeMetricFamily tableMapGauge = new GaugeMetricFamily(TABLE_MAP_COUNT,
+                TABLE_MAP_COUNT_HELP, parserLabels);
+        CounterMetricFamily evictCounter = new CounterMetricFamily(TABLE_MAP_EVICT,
+                TABLE_MAP_EVICT_HELP, parserLabels);
+        CounterMetricFamily compressedCounter = new CounterMetricFamily(PAYLOAD_COMPRESSED,
+                PAYLOAD_COMPRESSED_HELP, parserLabels);
+        CounterMetricFamily uncompressedCounter = new CounterMetricFamily(PAYLOAD_UNCOMPRESSED,
+                PAYLOAD_UNCOMPRESSED_HELP, parserLabels);
         for (ParserMetricsHolder emh : instances.values()) {
             if (emh instanceof GroupParserMetricsHolder) {
                 GroupParserMetricsHolder group = (GroupParserMetricsHolder) emh;
                 for (ParserMetricsHolder semh : group.holders) {
-                    singleCollect(bytesCounter, blockingCounter, modeGauge, semh);
+                    singleCollect(bytesCounter, blockingCounter, missCounter, lockWaitCounter, tableMapGauge, evictCounter,
+                            compressedCounter, uncompressedCounter, modeGauge, semh);
                 }
             } else {
-                singleCollect(bytesCounter, blockingCounter, modeGauge, emh);
+                singleCollect(bytesCounter, blockingCounter, missCounter, lockWaitCounter, tableMapGauge, evictCounter,
+                        compressedCounter, uncompressedCounter, modeGauge, emh);
             }
         }
         mfs.add(bytesCounter);
         mfs.add(modeGauge);
+        mfs.add(missCounter);
+        mfs.add(lockWaitCounter);
+        mfs.add(tableMapGauge);
+        mfs.add(evictCounter);
+        mfs.add(compressedCounter);
+        mfs.add(uncompressedCounter);
         if (!blockingCounter.samples.isEmpty()) {
             mfs.add(blockingCounter);
         }
         return mfs;
     }
 
-    private void singleCollect(CounterMetricFamily bytesCounter, CounterMetricFamily blockingCounter, GaugeMetricFamily modeGauge, ParserMetricsHolder holder) {
+    private void singleCollect(CounterMetricFamily bytesCounter, CounterMetricFamily blockingCounter,
+                               CounterMetricFamily missCounter, CounterMetricFamily lockWaitCounter,
+                               GaugeMetricFamily tableMapGauge, CounterMetricFamily evictCounter,
+                               CounterMetricFamily compressedCounter, CounterMetricFamily uncompressedCounter,
+                               GaugeMetricFamily modeGauge, ParserMetricsHolder holder) {
         if (holder.isParallel) {
             blockingCounter.addMetric(holder.parserLabelValues, (holder.eventsPublishBlockingTime.doubleValue() / NANO_PER_MILLI));
         }
         modeGauge.addMetric(holder.modeLabelValues, 1);
         bytesCounter.addMetric(holder.parserLabelValues, holder.receivedBinlogBytes.doubleValue());
+        missCounter.addMetric(holder.parserLabelValues, holder.tableMetaCacheMissCount.doubleValue());
+        lockWaitCounter.addMetric(holder.parserLabelValues, (holder.tableMetaLockWaitTime.doubleValue() / NANO_PER_MILLI));
+        tableMapGauge.addMetric(holder.parserLabelValues, holder.tableMapCount.doubleValue());
+        evictCounter.addMetric(holder.parserLabelValues, holder.tableMapEvictCount.doubleValue());
+        compressedCounter.addMetric(holder.parserLabelValues, holder.payloadCompressedBytes.doubleValue());
+        uncompressedCounter.addMetric(holder.parserLabelValues, holder.payloadUncompressedBytes.doubleValue());
     }
 
     @Override
@@ -113,9 +155,21 @@ public class ParserCollector extends Collector implements InstanceRegistry {
         holder.modeLabelValues = Arrays.asList(destination, Boolean.toString(parser.isParallel()));
         holder.eventsPublishBlockingTime = parser.getEventsPublishBlockingTime();
         holder.receivedBinlogBytes = parser.getReceivedBinlogBytes();
+        holder.tableMetaCacheMissCount = parser.getTableMetaCacheMissCount();
+        holder.tableMetaLockWaitTime = parser.getTableMetaLockWaitTime();
+        holder.tableMapCount = parser.getTableMapCount();
+        holder.tableMapEvictCount = parser.getTableMapEvictCount();
+        holder.payloadCompressedBytes = parser.getPayloadCompressedBytes();
+        holder.payloadUncompressedBytes = parser.getPayloadUncompressedBytes();
         holder.isParallel = parser.isParallel();
         Preconditions.checkNotNull(holder.eventsPublishBlockingTime);
         Preconditions.checkNotNull(holder.receivedBinlogBytes);
+        Preconditions.checkNotNull(holder.tableMetaCacheMissCount);
+        Preconditions.checkNotNull(holder.tableMetaLockWaitTime);
+        Preconditions.checkNotNull(holder.tableMapCount);
+        Preconditions.checkNotNull(holder.tableMapEvictCount);
+        Preconditions.checkNotNull(holder.payloadCompressedBytes);
+        Preconditions.checkNotNull(holder.payloadUncompressedBytes);
         return holder;
     }
 
@@ -147,6 +201,12 @@ public class ParserCollector extends Collector implements InstanceRegistry {
         // metrics for single parser
         private AtomicLong receivedBinlogBytes;
         private AtomicLong eventsPublishBlockingTime;
+        private AtomicLong tableMetaCacheMissCount;
+        private AtomicLong tableMetaLockWaitTime;
+        private AtomicLong tableMapCount;
+        private AtomicLong tableMapEvictCount;
+        private AtomicLong payloadCompressedBytes;
+        private AtomicLong payloadUncompressedBytes;
         // parser mode
         private boolean isParallel;
     }
@@ -21,11 +21,15 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
     private static final String EMPTY_BATCHES = "canal_instance_client_empty_batches";
     private static final String ERRORS = "canal_instance_client_request_error";
     private static final String LATENCY = "canal_instance_client_request_latency";
+    private static final String UNCOMPRESSED_BYTES = "canal_instance_client_uncompressed_bytes";
+    private static final String COMPRESSED_BYTES = "canal_instance_client_compressed_bytes";
     private final Counter outboundCounter;
     private final Counter packetsCounter;
     private final Counter emptyBatchesCounter;
     private final Counter errorsCounter;
     private final Histogram responseLatency;
+    private final Counter uncompressedCounter;
+    private final Counter compressedCounter;
     private volatile boolean running = false;
 
     private static class SingletonHolder {
@@ -64,6 +68,17 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
                 // buckets in milliseconds
                 .buckets(2.5, 10.0, 25.0, 100.0)
                 .create();
+        // 压缩比 = compressed / uncompressed
+        this.uncompressedCounter = Counter.build()
+                .labelNames(DEST_LABELS)
+                .name(UNCOMPRESSED_BYTES)
+                .help("Total bytes of compressed packets before compression.")
+                .create();
+        this.compressedCounter = Counter.build()
+                .labelNames(DEST_LABELS)
+                .name(COMPRESSED_BYTES)
+                .help("Total bytes of compressed packets after compression.")
+                .create();
     }
 
     @Override
@@ -71,6 +86,11 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
         String destination = result.getDestination();
         PacketType type = result.getType();
         outboundCounter.labels(destination).inc(result.getAmount());
+        int uncompressed = result.getUncompressedAmount();
+        if (uncompressed > 0) {
+            uncompressedCounter.labels(destination).inc(uncompressed);
+            compressedCounter.labels(destination).inc(result.getAmount());
+        }
         short errorCode = result.getErrorCode();
         if (errorCode > 0) {
             errorsCounter.labels(destination, Short.toString(errorCode)).inc();
@@ -79,6 +99,7 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
         responseLatency.labels(destination).observe(((double) latency) / NANO_PER_MILLI);
         switch (type) {
             case GET:
+            case STREAM:
                 boolean empty = result.getEmpty();
                 // 区分一下空包
                 if (empty) {
@@ -111,6 +132,12 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
         if (responseLatency != null) {
             responseLatency.register();
         }
+        if (uncompressedCounter != null) {
+            uncompressedCounter.register();
+        }
+        if (compressedCounter != null) {
+            compressedCounter.register();
+        }
         running = true;
     }
 
@@ -132,6 +159,12 @@ public class PrometheusClientInstanceProfiler implements ClientInstanceProfiler
         if (responseLatency != null) {
             CollectorRegistry.defaultRegistry.unregister(responseLatency);
         }
+        if (uncompressedCounter != null) {
+            CollectorRegistry.defaultRegistry.unregister(uncompressedCounter);
+        }
+        if (compressedCounter != null) {
+            CollectorRegistry.defaultRegistry.unregister(compressedCounter);
+        }
     }
 
     @Override
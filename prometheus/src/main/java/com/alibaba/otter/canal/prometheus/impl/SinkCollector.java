@@ -4,6 +4,7 @@ import static com.alibaba.otter.canal.prometheus.CanalInstanceExports.DEST_LABEL
 
 import io.prometheus.client.Collector;
 import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,6 +31,8 @@ public class SinkCollector extends Collector implements InstanceRegistry {
     private static final long NANO_PER_MILLI = 1000 * 1000L;
     private static final String SINK_BLOCKING_TIME = "canal_instance_sink_blocking_time";
     private static final String SINK_BLOCK_TIME_HELP = "Total sink blocking time in milliseconds";
+    private static final String SINK_COALESCE_RATIO = "canal_instance_sink_coalesce_ratio";
+    private static final String SINK_COALESCE_RATIO_HELP = "Sunk transactions per store put";
     private final ConcurrentMap<String, SinkMetricsHolder> instances = new ConcurrentHashMap<String, SinkMetricsHolder>();
 
     private SinkCollector() {
@@ -50,10 +53,16 @@ public class SinkCollector extends Collector implements InstanceRegistry {
         CounterMetricFamily blockingCounter = new CounterMetricFamily(SINK_BLOCKING_TIME,
                 SINK_BLOCK_TIME_HELP,
                 DEST_LABELS_LIST);
+        GaugeMetricFamily coalesceRatio = new GaugeMetricFamily(SINK_COALESCE_RATIO,
+                SINK_COALESCE_RATIO_HELP,
+                DEST_LABELS_LIST);
         for (SinkMetricsHolder smh : instances.values()) {
             blockingCounter.addMetric(smh.destLabelValues, (smh.eventsSinkBlockingTime.doubleValue() / NANO_PER_MILLI));
+            long puts = smh.sinkPuts.get();
+            coalesceRatio.addMetric(smh.destLabelValues, puts > 0 ? smh.sinkTransactions.doubleValue() / puts : 1.0);
         }
         mfs.add(blockingCounter);
+        mfs.add(coalesceRatio);
         return mfs;
     }
 
@@ -68,7 +77,11 @@ public class SinkCollector extends Collector implements InstanceRegistry {
         }
         EntryEventSink entrySink = (EntryEventSink) sink;
         holder.eventsSinkBlockingTime = entrySink.getEventsSinkBlockingTime();
+        holder.sinkTransactions = entrySink.getSinkTransactions();
+        holder.sinkPuts = entrySink.getSinkPuts();
         Preconditions.checkNotNull(holder.eventsSinkBlockingTime);
+        Preconditions.checkNotNull(holder.sinkTransactions);
+        Preconditions.checkNotNull(holder.sinkPuts);
         SinkMetricsHolder old = instances.put(destination, holder);
         if (old != null) {
             logger.warn("Remote stale SinkCollector for instance {}.", destination);
@@ -84,6 +97,8 @@ public class SinkCollector extends Collector implements InstanceRegistry {
     private class SinkMetricsHolder {
 
         private AtomicLong eventsSinkBlockingTime;
+        private AtomicLong sinkTransactions;
+        private AtomicLong sinkPuts;
         private List<String> destLabelValues;
     }
 }
@@ -3,7 +3,7 @@ package com.alibaba.otter.canal.prometheus.impl;
 import com.alibaba.otter.canal.instance.core.CanalInstance;
 import com.alibaba.otter.canal.prometheus.InstanceRegistry;
 import com.alibaba.otter.canal.store.CanalEventStore;
-import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
+import com.alibaba.otter.canal.store.CanalStoreMetrics;
 import com.alibaba.otter.canal.store.model.BatchMode;
 import com.google.common.base.Preconditions;
 import io.prometheus.client.Collector;
@@ -34,6 +34,8 @@ public class StoreCollector extends Collector implements InstanceRegistry {
     private static final String STORE = "canal_instance_store";
     private static final String PRODUCE_MEM = "canal_instance_store_produce_mem";
     private static final String CONSUME_MEM = "canal_instance_store_consume_mem";
+    private static final String RETAINED_MEM = "canal_instance_store_retained_mem";
+    private static final String PEAK_RETAINED_MEM = "canal_instance_store_peak_retained_mem";
     private static final String PUT_DELAY = "canal_instance_put_delay";
     private static final String GET_DELAY = "canal_instance_get_delay";
     private static final String ACK_DELAY = "canal_instance_ack_delay";
@@ -45,6 +47,8 @@ public class StoreCollector extends Collector implements InstanceRegistry {
     private static final String STORE_HELP = "Canal instance info";
     private static final String PRODUCE_MEM_HELP = "Produced mem bytes of canal instance";
     private static final String CONSUME_MEM_HELP = "Consumed mem bytes of canal instance";
+    private static final String RETAINED_MEM_HELP = "Retained mem bytes of canal instance store";
+    private static final String PEAK_RETAINED_MEM_HELP = "Peak retained mem bytes of canal instance store";
     private static final String PUT_DELAY_HELP = "Traffic delay of canal instance put";
     private static final String GET_DELAY_HELP = "Traffic delay of canal instance get";
     private static final String ACK_DELAY_HELP = "Traffic delay of canal instance ack";
@@ -78,6 +82,10 @@ public class StoreCollector extends Collector implements InstanceRegistry {
                 PRODUCE_MEM_HELP, DEST_LABELS_LIST);
         CounterMetricFamily ackMem = new CounterMetricFamily(CONSUME_MEM,
                 CONSUME_MEM_HELP, DEST_LABELS_LIST);
+        GaugeMetricFamily retainedMem = new GaugeMetricFamily(RETAINED_MEM,
+                RETAINED_MEM_HELP, DEST_LABELS_LIST);
+        GaugeMetricFamily peakRetainedMem = new GaugeMetricFamily(PEAK_RETAINED_MEM,
+                PEAK_RETAINED_MEM_HELP, DEST_LABELS_LIST);
         GaugeMetricFamily putDelay = new GaugeMetricFamily(PUT_DELAY,
                 PUT_DELAY_HELP, DEST_LABELS_LIST);
         GaugeMetricFamily getDelay = new GaugeMetricFamily(GET_DELAY,
@@ -91,6 +99,7 @@ public class StoreCollector extends Collector implements InstanceRegistry {
         CounterMetricFamily ackRows = new CounterMetricFamily(ACK_ROWS,
                 ACK_ROWS_HELP, DEST_LABELS_LIST);
         boolean hasMem = false;
+        boolean hasRetained = false;
         for (StoreMetricsHolder smh : instances.values()) {
             final boolean isMem = smh.batchMode.isMemSize();
             put.addMetric(smh.destLabelValues, smh.putSeq.doubleValue());
@@ -111,6 +120,11 @@ public class StoreCollector extends Collector implements InstanceRegistry {
             getRows.addMetric(smh.destLabelValues, smh.getTableRows.doubleValue());
             ackRows.addMetric(smh.destLabelValues, smh.ackTableRows.doubleValue());
             store.addMetric(smh.storeLabelValues, 1);
+            if (smh.retainedMemSize != null) {
+                hasRetained = true;
+                retainedMem.addMetric(smh.destLabelValues, smh.retainedMemSize.doubleValue());
+                peakRetainedMem.addMetric(smh.destLabelValues, smh.peakRetainedMemSize.doubleValue());
+            }
             if (isMem) {
                 hasMem = true;
                 putMem.addMetric(smh.destLabelValues, smh.putMemSize.doubleValue());
@@ -126,6 +140,10 @@ public class StoreCollector extends Collector implements InstanceRegistry {
         mfs.add(putRows);
         mfs.add(getRows);
         mfs.add(ackRows);
+        if (hasRetained) {
+            mfs.add(retainedMem);
+            mfs.add(peakRetainedMem);
+        }
         if (hasMem) {
             mfs.add(putMem);
             mfs.add(ackMem);
@@ -138,28 +156,30 @@ public class StoreCollector extends Collector implements InstanceRegistry {
         final String destination = instance.getDestination();
         StoreMetricsHolder holder = new StoreMetricsHolder();
         CanalEventStore store = instance.getEventStore();
-        if (!(store instanceof MemoryEventStoreWithBuffer)) {
-            throw new IllegalArgumentException("EventStore must be MemoryEventStoreWithBuffer");
+        if (!(store instanceof CanalStoreMetrics)) {
+            throw new IllegalArgumentException("EventStore must implement CanalStoreMetrics");
         }
-        MemoryEventStoreWithBuffer memStore = (MemoryEventStoreWithBuffer) store;
-        holder.batchMode = memStore.getBatchMode();
-        holder.putSeq = memStore.getPutSequence();
-        holder.ackSeq = memStore.getAckSequence();
+        CanalStoreMetrics storeMetrics = (CanalStoreMetrics) store;
+        holder.batchMode = storeMetrics.getBatchMode();
+        holder.putSeq = storeMetrics.getPutSequence();
+        holder.ackSeq = storeMetrics.getAckSequence();
         holder.destLabelValues = Collections.singletonList(destination);
-        holder.size = memStore.getBufferSize();
+        holder.size = storeMetrics.getBufferSize();
         holder.storeLabelValues = Arrays.asList(destination, holder.batchMode.name(), Integer.toString(holder.size));
-        holder.putExecTime = memStore.getPutExecTime();
-        holder.getExecTime = memStore.getGetExecTime();
-        holder.ackExecTime = memStore.getAckExecTime();
-        holder.putTableRows = memStore.getPutTableRows();
-        holder.getTableRows = memStore.getGetTableRows();
-        holder.ackTableRows = memStore.getAckTableRows();
+        holder.putExecTime = storeMetrics.getPutExecTime();
+        holder.getExecTime = storeMetrics.getGetExecTime();
+        holder.ackExecTime = storeMetrics.getAckExecTime();
+        holder.putTableRows = storeMetrics.getPutTableRows();
+        holder.getTableRows = storeMetrics.getGetTableRows();
+        holder.ackTableRows = storeMetrics.getAckTableRows();
+        holder.retainedMemSize = storeMetrics.getRetainedMemSize();
+        holder.peakRetainedMemSize = storeMetrics.getPeakRetainedMemSize();
         Preconditions.checkNotNull(holder.batchMode);
         Preconditions.checkNotNull(holder.putSeq);
         Preconditions.checkNotNull(holder.ackSeq);
         if (holder.batchMode.isMemSize()) {
-            holder.putMemSize = memStore.getPutMemSize();
-            holder.ackMemSize = memStore.getAckMemSize();
+            holder.putMemSize = storeMetrics.getPutMemSize();
+            holder.ackMemSize = storeMetrics.getAckMemSize();
             Preconditions.checkNotNull(holder.putMemSize);
             Preconditions.checkNotNull(holder.ackMemSize);
         }
@@ -187,6 +207,8 @@ public class StoreCollector extends Collector implements InstanceRegistry {
         private AtomicLong putTableRows;
         private AtomicLong getTableRows;
         private AtomicLong ackTableRows;
+        private AtomicLong retainedMemSize;
+        private AtomicLong peakRetainedMemSize;
         private int size;
         private List<String> destLabelValues;
         private List<String> storeLabelValues;
@@ -220,6 +220,18 @@ public final class CanalPacket {
          * <code>CLIENTROLLBACK = 12;</code>
          */
         CLIENTROLLBACK(12),
+        /**
+         * <pre>
+         * streaming
+         * </pre>
+         *
+         * <code>STREAM = 13;</code>
+         */
+        STREAM(13),
+        /**
+         * <code>CREDIT = 14;</code>
+         */
+        CREDIT(14),
         UNRECOGNIZED(-1),
         ;
 
@@ -287,6 +299,18 @@ public final class CanalPacket {
          * <code>CLIENTROLLBACK = 12;</code>
          */
         public static final int CLIENTROLLBACK_VALUE = 12;
+        /**
+         * <pre>
+         * streaming
+         * </pre>
+         *
+         * <code>STREAM = 13;</code>
+         */
+        public static final int STREAM_VALUE = 13;
+        /**
+         * <code>CREDIT = 14;</code>
+         */
+        public static final int CREDIT_VALUE = 14;
 
 
         public final int getNumber() {
@@ -333,6 +357,10 @@ public final class CanalPacket {
                     return HEARTBEAT;
                 case 12:
                     return CLIENTROLLBACK;
+                case 13:
+                    return STREAM;
+                case 14:
+                    return CREDIT;
                 default:
                     return null;
             }
@@ -11587,143 +11615,2103 @@ public final class CanalPacket {
 
     }
 
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Get_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable;
-    private static final com.google.protobuf.Descriptors.Descriptor
-            internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor;
-    private static final
-    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
-            internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable;
+    public interface StreamOrBuilder extends
+            // @@protoc_insertion_point(interface_extends:com.alibaba.otter.canal.protocol.Stream)
+            com.google.protobuf.MessageOrBuilder {
 
-    public static com.google.protobuf.Descriptors.FileDescriptor
-    getDescriptor() {
-        return descriptor;
+        /**
+         * <code>string destination = 1;</code>
+         */
+        java.lang.String getDestination();
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        com.google.protobuf.ByteString
+        getDestinationBytes();
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        java.lang.String getClientId();
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        com.google.protobuf.ByteString
+        getClientIdBytes();
+
+        /**
+         * <code>int32 fetch_size = 3;</code>
+         */
+        int getFetchSize();
+
+        /**
+         * <pre>
+         * 毫秒, 超时无数据时推送空的Messages
+         * </pre>
+         *
+         * <code>int64 timeout = 4;</code>
+         */
+        long getTimeout();
+
+        /**
+         * <pre>
+         * 初始窗口, batch数
+         * </pre>
+         *
+         * <code>int32 batches = 5;</code>
+         */
+        int getBatches();
+
+        /**
+         * <pre>
+         * 初始窗口, 字节数
+         * </pre>
+         *
+         * <code>int64 bytes = 6;</code>
+         */
+        long getBytes();
     }
 
-    private static com.google.protobuf.Descriptors.FileDescriptor
-            descriptor;
+    /**
+     * <pre>
+     * 流式订阅, server在client授予的窗口内主动推送Messages
+     * </pre>
+     *
+     * Protobuf type {@code com.alibaba.otter.canal.protocol.Stream}
+     */
+    public static final class Stream extends
+            com.google.protobuf.GeneratedMessageV3 implements
+            // @@protoc_insertion_point(message_implements:com.alibaba.otter.canal.protocol.Stream)
+            StreamOrBuilder {
+        private static final long serialVersionUID = 0L;
 
-    static {
-        java.lang.String[] descriptorData = {
-                "\n\023CanalProtocol.proto\022 com.alibaba.otter" +
-                        ".canal.protocol\"\205\002\n\006Packet\022\026\n\014magic_numb" +
-                        "er\030\001 \001(\005H\000\022\021\n\007version\030\002 \001(\005H\001\022:\n\004type\030\003 " +
-                        "\001(\0162,.com.alibaba.otter.canal.protocol.P" +
-                        "acketType\022D\n\013compression\030\004 \001(\0162-.com.ali" +
-                        "baba.otter.canal.protocol.CompressionH\002\022" +
-                        "\014\n\004body\030\005 \001(\014B\026\n\024magic_number_presentB\021\n" +
-                        "\017version_presentB\025\n\023compression_present\"" +
-                        "<\n\tHeartBeat\022\026\n\016send_timestamp\030\001 \001(\003\022\027\n\017" +
-                        "start_timestamp\030\002 \001(\003\"\255\001\n\tHandshake\022 \n\026c" +
-                        "ommunication_encoding\030\001 \001(\tH\000\022\r\n\005seeds\030\002" +
-                        " \001(\014\022M\n\026supported_compressions\030\003 \001(\0162-.c" +
-                        "om.alibaba.otter.canal.protocol.Compress" +
-                        "ionB \n\036communication_encoding_present\"\363\001" +
-                        "\n\nClientAuth\022\020\n\010username\030\001 \001(\t\022\020\n\010passwo" +
-                        "rd\030\002 \001(\014\022\032\n\020net_read_timeout\030\003 \001(\005H\000\022\033\n\021" +
-                        "net_write_timeout\030\004 \001(\005H\001\022\023\n\013destination" +
-                        "\030\005 \001(\t\022\021\n\tclient_id\030\006 \001(\t\022\016\n\006filter\030\007 \001(" +
-                        "\t\022\027\n\017start_timestamp\030\010 \001(\003B\032\n\030net_read_t" +
-                        "imeout_presentB\033\n\031net_write_timeout_pres" +
-                        "ent\"H\n\003Ack\022\024\n\nerror_code\030\001 \001(\005H\000\022\025\n\rerro" +
-                        "r_message\030\002 \001(\tB\024\n\022error_code_present\"E\n" +
-                        "\tClientAck\022\023\n\013destination\030\001 \001(\t\022\021\n\tclien" +
-                        "t_id\030\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003\"=\n\003Sub\022\023\n\013d" +
-                        "estination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006f" +
-                        "ilter\030\007 \001(\t\"?\n\005Unsub\022\023\n\013destination\030\001 \001(" +
-                        "\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006filter\030\007 \001(\t\"\257\001\n" +
-                        "\003Get\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030\002" +
-                        " \001(\t\022\022\n\nfetch_size\030\003 \001(\005\022\021\n\007timeout\030\004 \001(" +
-                        "\003H\000\022\016\n\004unit\030\005 \001(\005H\001\022\022\n\010auto_ack\030\006 \001(\010H\002B" +
-                        "\021\n\017timeout_presentB\016\n\014unit_presentB\022\n\020au" +
-                        "to_ack_present\".\n\010Messages\022\020\n\010batch_id\030\001" +
-                        " \001(\003\022\020\n\010messages\030\002 \003(\014\"S\n\004Dump\022\017\n\007journa" +
-                        "l\030\001 \001(\t\022\020\n\010position\030\002 \001(\003\022\023\n\ttimestamp\030\003" +
-                        " \001(\003H\000B\023\n\021timestamp_present\"J\n\016ClientRol" +
-                        "lback\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030" +
-                        "\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003*U\n\013Compression\022\037" +
-                        "\n\033COMPRESSIONCOMPATIBLEPROTO2\020\000\022\010\n\004NONE\020" +
-                        "\001\022\010\n\004ZLIB\020\002\022\010\n\004GZIP\020\003\022\007\n\003LZF\020\004*\346\001\n\nPacke" +
-                        "tType\022\037\n\033PACKAGETYPECOMPATIBLEPROTO2\020\000\022\r" +
-                        "\n\tHANDSHAKE\020\001\022\030\n\024CLIENTAUTHENTICATION\020\002\022" +
-                        "\007\n\003ACK\020\003\022\020\n\014SUBSCRIPTION\020\004\022\022\n\016UNSUBSCRIP" +
-                        "TION\020\005\022\007\n\003GET\020\006\022\014\n\010MESSAGES\020\007\022\r\n\tCLIENTA" +
-                        "CK\020\010\022\014\n\010SHUTDOWN\020\t\022\010\n\004DUMP\020\n\022\r\n\tHEARTBEA" +
-                        "T\020\013\022\022\n\016CLIENTROLLBACK\020\014B1\n com.alibaba.o" +
-                        "tter.canal.protocolB\013CanalPacketH\001b\006prot" +
-                        "o3"
-        };
-        com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
-                new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
-                    public com.google.protobuf.ExtensionRegistry assignDescriptors(
-                            com.google.protobuf.Descriptors.FileDescriptor root) {
-                        descriptor = root;
-                        return null;
+        // Use Stream.newBuilder() to construct.
+        private Stream(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+            super(builder);
+        }
+
+        private Stream() {
+            destination_ = "";
+            clientId_ = "";
+            fetchSize_ = 0;
+            timeout_ = 0L;
+            batches_ = 0;
+            bytes_ = 0L;
+        }
+
+        @java.lang.Override
+        public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+            return this.unknownFields;
+        }
+
+        private Stream(
+                com.google.protobuf.CodedInputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            this();
+            if (extensionRegistry == null) {
+                throw new java.lang.NullPointerException();
+            }
+            int mutable_bitField0_ = 0;
+            com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+                    com.google.protobuf.UnknownFieldSet.newBuilder();
+            try {
+                boolean done = false;
+                while (!done) {
+                    int tag = input.readTag();
+                    switch (tag) {
+                        case 0:
+                            done = true;
+                            break;
+                        case 10: {
+                            java.lang.String s = input.readStringRequireUtf8();
+
+                            destination_ = s;
+                            break;
+                        }
+                        case 18: {
+                            java.lang.String s = input.readStringRequireUtf8();
+
+                            clientId_ = s;
+                            break;
+                        }
+                        case 24: {
+
+                            fetchSize_ = input.readInt32();
+                            break;
+                        }
+                        case 32: {
+
+                            timeout_ = input.readInt64();
+                            break;
+                        }
+                        case 40: {
+
+                            batches_ = input.readInt32();
+                            break;
+                        }
+                        case 48: {
+
+                            bytes_ = input.readInt64();
+                            break;
+                        }
+                        default: {
+                            if (!parseUnknownFieldProto3(
+                                    input, unknownFields, extensionRegistry, tag)) {
+                                done = true;
+                            }
+                            break;
+                        }
                     }
-                };
-        com.google.protobuf.Descriptors.FileDescriptor
-                .internalBuildGeneratedFileFrom(descriptorData,
-                        new com.google.protobuf.Descriptors.FileDescriptor[]{
-                        }, assigner);
-        internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor =
-                getDescriptor().getMessageTypes().get(0);
-        internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable = new
-                com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
-                internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor,
-                new java.lang.String[]{"MagicNumber", "Version", "Type", "Compression", "Body", "MagicNumberPresent", "VersionPresent", "CompressionPresent",});
+                }
+            } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                throw e.setUnfinishedMessage(this);
+            } catch (java.io.IOException e) {
+                throw new com.google.protobuf.InvalidProtocolBufferException(
+                        e).setUnfinishedMessage(this);
+            } finally {
+                this.unknownFields = unknownFields.build();
+                makeExtensionsImmutable();
+            }
+        }
+
+        public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+            return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+        }
+
+        @java.lang.Override
+        protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+            return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable
+                    .ensureFieldAccessorsInitialized(
+                            com.alibaba.otter.canal.protocol.CanalPacket.Stream.class, com.alibaba.otter.canal.protocol.CanalPacket.Stream.Builder.class);
+        }
+
+        public static final int DESTINATION_FIELD_NUMBER = 1;
+        private volatile java.lang.Object destination_;
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        public java.lang.String getDestination() {
+            java.lang.Object ref = destination_;
+            if (ref instanceof java.lang.String) {
+                return (java.lang.String) ref;
+            } else {
+                com.google.protobuf.ByteString bs =
+                        (com.google.protobuf.ByteString) ref;
+                java.lang.String s = bs.toStringUtf8();
+                destination_ = s;
+                return s;
+            }
+        }
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        public com.google.protobuf.ByteString
+        getDestinationBytes() {
+            java.lang.Object ref = destination_;
+            if (ref instanceof java.lang.String) {
+                com.google.protobuf.ByteString b =
+                        com.google.protobuf.ByteString.copyFromUtf8(
+                                (java.lang.String) ref);
+                destination_ = b;
+                return b;
+            } else {
+                return (com.google.protobuf.ByteString) ref;
+            }
+        }
+
+        public static final int CLIENT_ID_FIELD_NUMBER = 2;
+        private volatile java.lang.Object clientId_;
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        public java.lang.String getClientId() {
+            java.lang.Object ref = clientId_;
+            if (ref instanceof java.lang.String) {
+                return (java.lang.String) ref;
+            } else {
+                com.google.protobuf.ByteString bs =
+                        (com.google.protobuf.ByteString) ref;
+                java.lang.String s = bs.toStringUtf8();
+                clientId_ = s;
+                return s;
+            }
+        }
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        public com.google.protobuf.ByteString
+        getClientIdBytes() {
+            java.lang.Object ref = clientId_;
+            if (ref instanceof java.lang.String) {
+                com.google.protobuf.ByteString b =
+                        com.google.protobuf.ByteString.copyFromUtf8(
+                                (java.lang.String) ref);
+                clientId_ = b;
+                return b;
+            } else {
+                return (com.google.protobuf.ByteString) ref;
+            }
+        }
+
+        public static final int FETCH_SIZE_FIELD_NUMBER = 3;
+        private int fetchSize_;
+
+        /**
+         * <code>int32 fetch_size = 3;</code>
+         */
+        public int getFetchSize() {
+            return fetchSize_;
+        }
+
+        public static final int TIMEOUT_FIELD_NUMBER = 4;
+        private long timeout_;
+
+        /**
+         * <pre>
+         * 毫秒, 超时无数据时推送空的Messages
+         * </pre>
+         *
+         * <code>int64 timeout = 4;</code>
+         */
+        public long getTimeout() {
+            return timeout_;
+        }
+
+        public static final int BATCHES_FIELD_NUMBER = 5;
+        private int batches_;
+
+        /**
+         * <pre>
+         * 初始窗口, batch数
+         * </pre>
+         *
+         * <code>int32 batches = 5;</code>
+         */
+        public int getBatches() {
+            return batches_;
+        }
+
+        public static final int BYTES_FIELD_NUMBER = 6;
+        private long bytes_;
+
+        /**
+         * <pre>
+         * 初始窗口, 字节数
+         * </pre>
+         *
+         * <code>int64 bytes = 6;</code>
+         */
+        public long getBytes() {
+            return bytes_;
+        }
+
+        private byte memoizedIsInitialized = -1;
+
+        @java.lang.Override
+        public final boolean isInitialized() {
+            byte isInitialized = memoizedIsInitialized;
+            if (isInitialized == 1) return true;
+            if (isInitialized == 0) return false;
+
+            memoizedIsInitialized = 1;
+            return true;
+        }
+
+        @java.lang.Override
+        public void writeTo(com.google.protobuf.CodedOutputStream output)
+                throws java.io.IOException {
+            if (!getDestinationBytes().isEmpty()) {
+                com.google.protobuf.GeneratedMessageV3.writeString(output, 1, destination_);
+            }
+            if (!getClientIdBytes().isEmpty()) {
+                com.google.protobuf.GeneratedMessageV3.writeString(output, 2, clientId_);
+            }
+            if (fetchSize_ != 0) {
+                output.writeInt32(3, fetchSize_);
+            }
+            if (timeout_ != 0L) {
+                output.writeInt64(4, timeout_);
+            }
+            if (batches_ != 0) {
+                output.writeInt32(5, batches_);
+            }
+            if (bytes_ != 0L) {
+                output.writeInt64(6, bytes_);
+            }
+            unknownFields.writeTo(output);
+        }
+
+        @java.lang.Override
+        public int getSerializedSize() {
+            int size = memoizedSize;
+            if (size != -1) return size;
+
+            size = 0;
+            if (!getDestinationBytes().isEmpty()) {
+                size += com.google.protobuf.GeneratedMessageV3.computeStringSize(1, destination_);
+            }
+            if (!getClientIdBytes().isEmpty()) {
+                size += com.google.protobuf.GeneratedMessageV3.computeStringSize(2, clientId_);
+            }
+            if (fetchSize_ != 0) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt32Size(3, fetchSize_);
+            }
+            if (timeout_ != 0L) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt64Size(4, timeout_);
+            }
+            if (batches_ != 0) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt32Size(5, batches_);
+            }
+            if (bytes_ != 0L) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt64Size(6, bytes_);
+            }
+            size += unknownFields.getSerializedSize();
+            memoizedSize = size;
+            return size;
+        }
+
+        @java.lang.Override
+        public boolean equals(final java.lang.Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof com.alibaba.otter.canal.protocol.CanalPacket.Stream)) {
+                return super.equals(obj);
+            }
+            com.alibaba.otter.canal.protocol.CanalPacket.Stream other = (com.alibaba.otter.canal.protocol.CanalPacket.Stream) obj;
+
+            boolean result = true;
+            result = result && getDestination()
+                    .equals(other.getDestination());
+            result = result && getClientId()
+                    .equals(other.getClientId());
+            result = result && (getFetchSize()
+                    == other.getFetchSize());
+            result = result && (getTimeout()
+                    == other.getTimeout());
+            result = result && (getBatches()
+                    == other.getBatches());
+            result = result && (getBytes()
+                    == other.getBytes());
+            result = result && unknownFields.equals(other.unknownFields);
+            return result;
+        }
+
+        @java.lang.Override
+        public int hashCode() {
+            if (memoizedHashCode != 0) {
+                return memoizedHashCode;
+            }
+            int hash = 41;
+            hash = (19 * hash) + getDescriptor().hashCode();
+            hash = (37 * hash) + DESTINATION_FIELD_NUMBER;
+            hash = (53 * hash) + getDestination().hashCode();
+            hash = (37 * hash) + CLIENT_ID_FIELD_NUMBER;
+            hash = (53 * hash) + getClientId().hashCode();
+            hash = (37 * hash) + FETCH_SIZE_FIELD_NUMBER;
+            hash = (53 * hash) + getFetchSize();
+            hash = (37 * hash) + TIMEOUT_FIELD_NUMBER;
+            hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+                    getTimeout());
+            hash = (37 * hash) + BATCHES_FIELD_NUMBER;
+            hash = (53 * hash) + getBatches();
+            hash = (37 * hash) + BYTES_FIELD_NUMBER;
+            hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+                    getBytes());
+            hash = (29 * hash) + unknownFields.hashCode();
+            memoizedHashCode = hash;
+            return hash;
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                java.nio.ByteBuffer data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                java.nio.ByteBuffer data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                com.google.protobuf.ByteString data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                com.google.protobuf.ByteString data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(byte[] data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                byte[] data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(java.io.InputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                java.io.InputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseDelimitedFrom(java.io.InputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseDelimitedWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseDelimitedFrom(
+                java.io.InputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                com.google.protobuf.CodedInputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+                com.google.protobuf.CodedInputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        @java.lang.Override
+        public Builder newBuilderForType() {
+            return newBuilder();
+        }
+
+        public static Builder newBuilder() {
+            return DEFAULT_INSTANCE.toBuilder();
+        }
+
+        public static Builder newBuilder(com.alibaba.otter.canal.protocol.CanalPacket.Stream prototype) {
+            return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+        }
+
+        @java.lang.Override
+        public Builder toBuilder() {
+            return this == DEFAULT_INSTANCE
+                    ? new Builder() : new Builder().mergeFrom(this);
+        }
+
+        @java.lang.Override
+        protected Builder newBuilderForType(
+                com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+            Builder builder = new Builder(parent);
+            return builder;
+        }
+
+        /**
+         * Protobuf type {@code com.alibaba.otter.canal.protocol.Stream}
+         */
+        public static final class Builder extends
+                com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+                // @@protoc_insertion_point(builder_implements:com.alibaba.otter.canal.protocol.Stream)
+                com.alibaba.otter.canal.protocol.CanalPacket.StreamOrBuilder {
+            public static final com.google.protobuf.Descriptors.Descriptor
+            getDescriptor() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+            }
+
+            @java.lang.Override
+            protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internalGetFieldAccessorTable() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable
+                        .ensureFieldAccessorsInitialized(
+                                com.alibaba.otter.canal.protocol.CanalPacket.Stream.class, com.alibaba.otter.canal.protocol.CanalPacket.Stream.Builder.class);
+            }
+
+            // Construct using com.alibaba.otter.canal.protocol.CanalPacket.Stream.newBuilder()
+            private Builder() {
+                maybeForceBuilderInitialization();
+            }
+
+            private Builder(
+                    com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+                super(parent);
+                maybeForceBuilderInitialization();
+            }
+
+            private void maybeForceBuilderInitialization() {
+                if (com.google.protobuf.GeneratedMessageV3
+                        .alwaysUseFieldBuilders) {
+                }
+            }
+
+            @java.lang.Override
+            public Builder clear() {
+                super.clear();
+                destination_ = "";
+
+                clientId_ = "";
+
+                fetchSize_ = 0;
+
+                timeout_ = 0L;
+
+                batches_ = 0;
+
+                bytes_ = 0L;
+
+                return this;
+            }
+
+            @java.lang.Override
+            public com.google.protobuf.Descriptors.Descriptor
+            getDescriptorForType() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Stream getDefaultInstanceForType() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.Stream.getDefaultInstance();
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Stream build() {
+                com.alibaba.otter.canal.protocol.CanalPacket.Stream result = buildPartial();
+                if (!result.isInitialized()) {
+                    throw newUninitializedMessageException(result);
+                }
+                return result;
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Stream buildPartial() {
+                com.alibaba.otter.canal.protocol.CanalPacket.Stream result = new com.alibaba.otter.canal.protocol.CanalPacket.Stream(this);
+                result.destination_ = destination_;
+                result.clientId_ = clientId_;
+                result.fetchSize_ = fetchSize_;
+                result.timeout_ = timeout_;
+                result.batches_ = batches_;
+                result.bytes_ = bytes_;
+                onBuilt();
+                return result;
+            }
+
+            @java.lang.Override
+            public Builder clone() {
+                return (Builder) super.clone();
+            }
+
+            @java.lang.Override
+            public Builder setField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    java.lang.Object value) {
+                return (Builder) super.setField(field, value);
+            }
+
+            @java.lang.Override
+            public Builder clearField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field) {
+                return (Builder) super.clearField(field);
+            }
+
+            @java.lang.Override
+            public Builder clearOneof(
+                    com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+                return (Builder) super.clearOneof(oneof);
+            }
+
+            @java.lang.Override
+            public Builder setRepeatedField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    int index, java.lang.Object value) {
+                return (Builder) super.setRepeatedField(field, index, value);
+            }
+
+            @java.lang.Override
+            public Builder addRepeatedField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    java.lang.Object value) {
+                return (Builder) super.addRepeatedField(field, value);
+            }
+
+            @java.lang.Override
+            public Builder mergeFrom(com.google.protobuf.Message other) {
+                if (other instanceof com.alibaba.otter.canal.protocol.CanalPacket.Stream) {
+                    return mergeFrom((com.alibaba.otter.canal.protocol.CanalPacket.Stream) other);
+                } else {
+                    super.mergeFrom(other);
+                    return this;
+                }
+            }
+
+            public Builder mergeFrom(com.alibaba.otter.canal.protocol.CanalPacket.Stream other) {
+                if (other == com.alibaba.otter.canal.protocol.CanalPacket.Stream.getDefaultInstance()) return this;
+                if (!other.getDestination().isEmpty()) {
+                    destination_ = other.destination_;
+                    onChanged();
+                }
+                if (!other.getClientId().isEmpty()) {
+                    clientId_ = other.clientId_;
+                    onChanged();
+                }
+                if (other.getFetchSize() != 0) {
+                    setFetchSize(other.getFetchSize());
+                }
+                if (other.getTimeout() != 0L) {
+                    setTimeout(other.getTimeout());
+                }
+                if (other.getBatches() != 0) {
+                    setBatches(other.getBatches());
+                }
+                if (other.getBytes() != 0L) {
+                    setBytes(other.getBytes());
+                }
+                this.mergeUnknownFields(other.unknownFields);
+                onChanged();
+                return this;
+            }
+
+            @java.lang.Override
+            public final boolean isInitialized() {
+                return true;
+            }
+
+            @java.lang.Override
+            public Builder mergeFrom(
+                    com.google.protobuf.CodedInputStream input,
+                    com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                    throws java.io.IOException {
+                com.alibaba.otter.canal.protocol.CanalPacket.Stream parsedMessage = null;
+                try {
+                    parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+                } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                    parsedMessage = (com.alibaba.otter.canal.protocol.CanalPacket.Stream) e.getUnfinishedMessage();
+                    throw e.unwrapIOException();
+                } finally {
+                    if (parsedMessage != null) {
+                        mergeFrom(parsedMessage);
+                    }
+                }
+                return this;
+            }
+
+            private java.lang.Object destination_ = "";
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public java.lang.String getDestination() {
+                java.lang.Object ref = destination_;
+                if (!(ref instanceof java.lang.String)) {
+                    com.google.protobuf.ByteString bs =
+                            (com.google.protobuf.ByteString) ref;
+                    java.lang.String s = bs.toStringUtf8();
+                    destination_ = s;
+                    return s;
+                } else {
+                    return (java.lang.String) ref;
+                }
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public com.google.protobuf.ByteString
+            getDestinationBytes() {
+                java.lang.Object ref = destination_;
+                if (ref instanceof String) {
+                    com.google.protobuf.ByteString b =
+                            com.google.protobuf.ByteString.copyFromUtf8(
+                                    (java.lang.String) ref);
+                    destination_ = b;
+                    return b;
+                } else {
+                    return (com.google.protobuf.ByteString) ref;
+                }
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder setDestination(
+                    java.lang.String value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+
+                destination_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder clearDestination() {
+
+                destination_ = getDefaultInstance().getDestination();
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder setDestinationBytes(
+                    com.google.protobuf.ByteString value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+                checkByteStringIsUtf8(value);
+
+                destination_ = value;
+                onChanged();
+                return this;
+            }
+
+            private java.lang.Object clientId_ = "";
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public java.lang.String getClientId() {
+                java.lang.Object ref = clientId_;
+                if (!(ref instanceof java.lang.String)) {
+                    com.google.protobuf.ByteString bs =
+                            (com.google.protobuf.ByteString) ref;
+                    java.lang.String s = bs.toStringUtf8();
+                    clientId_ = s;
+                    return s;
+                } else {
+                    return (java.lang.String) ref;
+                }
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public com.google.protobuf.ByteString
+            getClientIdBytes() {
+                java.lang.Object ref = clientId_;
+                if (ref instanceof String) {
+                    com.google.protobuf.ByteString b =
+                            com.google.protobuf.ByteString.copyFromUtf8(
+                                    (java.lang.String) ref);
+                    clientId_ = b;
+                    return b;
+                } else {
+                    return (com.google.protobuf.ByteString) ref;
+                }
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder setClientId(
+                    java.lang.String value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+
+                clientId_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder clearClientId() {
+
+                clientId_ = getDefaultInstance().getClientId();
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder setClientIdBytes(
+                    com.google.protobuf.ByteString value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+                checkByteStringIsUtf8(value);
+
+                clientId_ = value;
+                onChanged();
+                return this;
+            }
+
+            private int fetchSize_;
+
+            /**
+             * <code>int32 fetch_size = 3;</code>
+             */
+            public int getFetchSize() {
+                return fetchSize_;
+            }
+
+            /**
+             * <code>int32 fetch_size = 3;</code>
+             */
+            public Builder setFetchSize(int value) {
+
+                fetchSize_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>int32 fetch_size = 3;</code>
+             */
+            public Builder clearFetchSize() {
+
+                fetchSize_ = 0;
+                onChanged();
+                return this;
+            }
+
+            private long timeout_;
+
+            /**
+             * <pre>
+             * 毫秒, 超时无数据时推送空的Messages
+             * </pre>
+             *
+             * <code>int64 timeout = 4;</code>
+             */
+            public long getTimeout() {
+                return timeout_;
+            }
+
+            /**
+             * <pre>
+             * 毫秒, 超时无数据时推送空的Messages
+             * </pre>
+             *
+             * <code>int64 timeout = 4;</code>
+             */
+            public Builder setTimeout(long value) {
+
+                timeout_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <pre>
+             * 毫秒, 超时无数据时推送空的Messages
+             * </pre>
+             *
+             * <code>int64 timeout = 4;</code>
+             */
+            public Builder clearTimeout() {
+
+                timeout_ = 0L;
+                onChanged();
+                return this;
+            }
+
+            private int batches_;
+
+            /**
+             * <pre>
+             * 初始窗口, batch数
+             * </pre>
+             *
+             * <code>int32 batches = 5;</code>
+             */
+            public int getBatches() {
+                return batches_;
+            }
+
+            /**
+             * <pre>
+             * 初始窗口, batch数
+             * </pre>
+             *
+             * <code>int32 batches = 5;</code>
+             */
+            public Builder setBatches(int value) {
+
+                batches_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <pre>
+             * 初始窗口, batch数
+             * </pre>
+             *
+             * <code>int32 batches = 5;</code>
+             */
+            public Builder clearBatches() {
+
+                batches_ = 0;
+                onChanged();
+                return this;
+            }
+
+            private long bytes_;
+
+            /**
+             * <pre>
+             * 初始窗口, 字节数
+             * </pre>
+             *
+             * <code>int64 bytes = 6;</code>
+             */
+            public long getBytes() {
+                return bytes_;
+            }
+
+            /**
+             * <pre>
+             * 初始窗口, 字节数
+             * </pre>
+             *
+             * <code>int64 bytes = 6;</code>
+             */
+            public Builder setBytes(long value) {
+
+                bytes_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <pre>
+             * 初始窗口, 字节数
+             * </pre>
+             *
+             * <code>int64 bytes = 6;</code>
+             */
+            public Builder clearBytes() {
+
+                bytes_ = 0L;
+                onChanged();
+                return this;
+            }
+
+            @java.lang.Override
+            public final Builder setUnknownFields(
+                    final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.setUnknownFieldsProto3(unknownFields);
+            }
+
+            @java.lang.Override
+            public final Builder mergeUnknownFields(
+                    final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.mergeUnknownFields(unknownFields);
+            }
+
+
+            // @@protoc_insertion_point(builder_scope:com.alibaba.otter.canal.protocol.Stream)
+        }
+
+        // @@protoc_insertion_point(class_scope:com.alibaba.otter.canal.protocol.Stream)
+        private static final com.alibaba.otter.canal.protocol.CanalPacket.Stream DEFAULT_INSTANCE;
+
+        static {
+            DEFAULT_INSTANCE = new com.alibaba.otter.canal.protocol.CanalPacket.Stream();
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Stream getDefaultInstance() {
+            return DEFAULT_INSTANCE;
+        }
+
+        private static final com.google.protobuf.Parser<Stream>
+                PARSER = new com.google.protobuf.AbstractParser<Stream>() {
+            @java.lang.Override
+            public Stream parsePartialFrom(
+                    com.google.protobuf.CodedInputStream input,
+                    com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                    throws com.google.protobuf.InvalidProtocolBufferException {
+                return new Stream(input, extensionRegistry);
+            }
+        };
+
+        public static com.google.protobuf.Parser<Stream> parser() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.google.protobuf.Parser<Stream> getParserForType() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.alibaba.otter.canal.protocol.CanalPacket.Stream getDefaultInstanceForType() {
+            return DEFAULT_INSTANCE;
+        }
+
+    }
+
+    public interface CreditOrBuilder extends
+            // @@protoc_insertion_point(interface_extends:com.alibaba.otter.canal.protocol.Credit)
+            com.google.protobuf.MessageOrBuilder {
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        java.lang.String getDestination();
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        com.google.protobuf.ByteString
+        getDestinationBytes();
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        java.lang.String getClientId();
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        com.google.protobuf.ByteString
+        getClientIdBytes();
+
+        /**
+         * <code>int32 batches = 3;</code>
+         */
+        int getBatches();
+
+        /**
+         * <code>int64 bytes = 4;</code>
+         */
+        long getBytes();
+    }
+
+    /**
+     * <pre>
+     * 流式订阅下client追加的窗口
+     * </pre>
+     *
+     * Protobuf type {@code com.alibaba.otter.canal.protocol.Credit}
+     */
+    public static final class Credit extends
+            com.google.protobuf.GeneratedMessageV3 implements
+            // @@protoc_insertion_point(message_implements:com.alibaba.otter.canal.protocol.Credit)
+            CreditOrBuilder {
+        private static final long serialVersionUID = 0L;
+
+        // Use Credit.newBuilder() to construct.
+        private Credit(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+            super(builder);
+        }
+
+        private Credit() {
+            destination_ = "";
+            clientId_ = "";
+            batches_ = 0;
+            bytes_ = 0L;
+        }
+
+        @java.lang.Override
+        public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+            return this.unknownFields;
+        }
+
+        private Credit(
+                com.google.protobuf.CodedInputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            this();
+            if (extensionRegistry == null) {
+                throw new java.lang.NullPointerException();
+            }
+            int mutable_bitField0_ = 0;
+            com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+                    com.google.protobuf.UnknownFieldSet.newBuilder();
+            try {
+                boolean done = false;
+                while (!done) {
+                    int tag = input.readTag();
+                    switch (tag) {
+                        case 0:
+                            done = true;
+                            break;
+                        case 10: {
+                            java.lang.String s = input.readStringRequireUtf8();
+
+                            destination_ = s;
+                            break;
+                        }
+                        case 18: {
+                            java.lang.String s = input.readStringRequireUtf8();
+
+                            clientId_ = s;
+                            break;
+                        }
+                        case 24: {
+
+                            batches_ = input.readInt32();
+                            break;
+                        }
+                        case 32: {
+
+                            bytes_ = input.readInt64();
+                            break;
+                        }
+                        default: {
+                            if (!parseUnknownFieldProto3(
+                                    input, unknownFields, extensionRegistry, tag)) {
+                                done = true;
+                            }
+                            break;
+                        }
+                    }
+                }
+            } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                throw e.setUnfinishedMessage(this);
+            } catch (java.io.IOException e) {
+                throw new com.google.protobuf.InvalidProtocolBufferException(
+                        e).setUnfinishedMessage(this);
+            } finally {
+                this.unknownFields = unknownFields.build();
+                makeExtensionsImmutable();
+            }
+        }
+
+        public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+            return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor;
+        }
+
+        @java.lang.Override
+        protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+            return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Credit_fieldAccessorTable
+                    .ensureFieldAccessorsInitialized(
+                            com.alibaba.otter.canal.protocol.CanalPacket.Credit.class, com.alibaba.otter.canal.protocol.CanalPacket.Credit.Builder.class);
+        }
+
+        public static final int DESTINATION_FIELD_NUMBER = 1;
+        private volatile java.lang.Object destination_;
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        public java.lang.String getDestination() {
+            java.lang.Object ref = destination_;
+            if (ref instanceof java.lang.String) {
+                return (java.lang.String) ref;
+            } else {
+                com.google.protobuf.ByteString bs =
+                        (com.google.protobuf.ByteString) ref;
+                java.lang.String s = bs.toStringUtf8();
+                destination_ = s;
+                return s;
+            }
+        }
+
+        /**
+         * <code>string destination = 1;</code>
+         */
+        public com.google.protobuf.ByteString
+        getDestinationBytes() {
+            java.lang.Object ref = destination_;
+            if (ref instanceof java.lang.String) {
+                com.google.protobuf.ByteString b =
+                        com.google.protobuf.ByteString.copyFromUtf8(
+                                (java.lang.String) ref);
+                destination_ = b;
+                return b;
+            } else {
+                return (com.google.protobuf.ByteString) ref;
+            }
+        }
+
+        public static final int CLIENT_ID_FIELD_NUMBER = 2;
+        private volatile java.lang.Object clientId_;
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        public java.lang.String getClientId() {
+            java.lang.Object ref = clientId_;
+            if (ref instanceof java.lang.String) {
+                return (java.lang.String) ref;
+            } else {
+                com.google.protobuf.ByteString bs =
+                        (com.google.protobuf.ByteString) ref;
+                java.lang.String s = bs.toStringUtf8();
+                clientId_ = s;
+                return s;
+            }
+        }
+
+        /**
+         * <code>string client_id = 2;</code>
+         */
+        public com.google.protobuf.ByteString
+        getClientIdBytes() {
+            java.lang.Object ref = clientId_;
+            if (ref instanceof java.lang.String) {
+                com.google.protobuf.ByteString b =
+                        com.google.protobuf.ByteString.copyFromUtf8(
+                                (java.lang.String) ref);
+                clientId_ = b;
+                return b;
+            } else {
+                return (com.google.protobuf.ByteString) ref;
+            }
+        }
+
+        public static final int BATCHES_FIELD_NUMBER = 3;
+        private int batches_;
+
+        /**
+         * <code>int32 batches = 3;</code>
+         */
+        public int getBatches() {
+            return batches_;
+        }
+
+        public static final int BYTES_FIELD_NUMBER = 4;
+        private long bytes_;
+
+        /**
+         * <code>int64 bytes = 4;</code>
+         */
+        public long getBytes() {
+            return bytes_;
+        }
+
+        private byte memoizedIsInitialized = -1;
+
+        @java.lang.Override
+        public final boolean isInitialized() {
+            byte isInitialized = memoizedIsInitialized;
+            if (isInitialized == 1) return true;
+            if (isInitialized == 0) return false;
+
+            memoizedIsInitialized = 1;
+            return true;
+        }
+
+        @java.lang.Override
+        public void writeTo(com.google.protobuf.CodedOutputStream output)
+                throws java.io.IOException {
+            if (!getDestinationBytes().isEmpty()) {
+                com.google.protobuf.GeneratedMessageV3.writeString(output, 1, destination_);
+            }
+            if (!getClientIdBytes().isEmpty()) {
+                com.google.protobuf.GeneratedMessageV3.writeString(output, 2, clientId_);
+            }
+            if (batches_ != 0) {
+                output.writeInt32(3, batches_);
+            }
+            if (bytes_ != 0L) {
+                output.writeInt64(4, bytes_);
+            }
+            unknownFields.writeTo(output);
+        }
+
+        @java.lang.Override
+        public int getSerializedSize() {
+            int size = memoizedSize;
+            if (size != -1) return size;
+
+            size = 0;
+            if (!getDestinationBytes().isEmpty()) {
+                size += com.google.protobuf.GeneratedMessageV3.computeStringSize(1, destination_);
+            }
+            if (!getClientIdBytes().isEmpty()) {
+                size += com.google.protobuf.GeneratedMessageV3.computeStringSize(2, clientId_);
+            }
+            if (batches_ != 0) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt32Size(3, batches_);
+            }
+            if (bytes_ != 0L) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt64Size(4, bytes_);
+            }
+            size += unknownFields.getSerializedSize();
+            memoizedSize = size;
+            return size;
+        }
+
+        @java.lang.Override
+        public boolean equals(final java.lang.Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof com.alibaba.otter.canal.protocol.CanalPacket.Credit)) {
+                return super.equals(obj);
+            }
+            com.alibaba.otter.canal.protocol.CanalPacket.Credit other = (com.alibaba.otter.canal.protocol.CanalPacket.Credit) obj;
+
+            boolean result = true;
+            result = result && getDestination()
+                    .equals(other.getDestination());
+            result = result && getClientId()
+                    .equals(other.getClientId());
+            result = result && (getBatches()
+                    == other.getBatches());
+            result = result && (getBytes()
+                    == other.getBytes());
+            result = result && unknownFields.equals(other.unknownFields);
+            return result;
+        }
+
+        @java.lang.Override
+        public int hashCode() {
+            if (memoizedHashCode != 0) {
+                return memoizedHashCode;
+            }
+            int hash = 41;
+            hash = (19 * hash) + getDescriptor().hashCode();
+            hash = (37 * hash) + DESTINATION_FIELD_NUMBER;
+            hash = (53 * hash) + getDestination().hashCode();
+            hash = (37 * hash) + CLIENT_ID_FIELD_NUMBER;
+            hash = (53 * hash) + getClientId().hashCode();
+            hash = (37 * hash) + BATCHES_FIELD_NUMBER;
+            hash = (53 * hash) + getBatches();
+            hash = (37 * hash) + BYTES_FIELD_NUMBER;
+            hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+                    getBytes());
+            hash = (29 * hash) + unknownFields.hashCode();
+            memoizedHashCode = hash;
+            return hash;
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                java.nio.ByteBuffer data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                java.nio.ByteBuffer data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                com.google.protobuf.ByteString data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                com.google.protobuf.ByteString data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(byte[] data)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                byte[] data,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(java.io.InputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                java.io.InputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseDelimitedFrom(java.io.InputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseDelimitedWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseDelimitedFrom(
+                java.io.InputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                com.google.protobuf.CodedInputStream input)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input);
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit parseFrom(
+                com.google.protobuf.CodedInputStream input,
+                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3
+                    .parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        @java.lang.Override
+        public Builder newBuilderForType() {
+            return newBuilder();
+        }
+
+        public static Builder newBuilder() {
+            return DEFAULT_INSTANCE.toBuilder();
+        }
+
+        public static Builder newBuilder(com.alibaba.otter.canal.protocol.CanalPacket.Credit prototype) {
+            return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+        }
+
+        @java.lang.Override
+        public Builder toBuilder() {
+            return this == DEFAULT_INSTANCE
+                    ? new Builder() : new Builder().mergeFrom(this);
+        }
+
+        @java.lang.Override
+        protected Builder newBuilderForType(
+                com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+            Builder builder = new Builder(parent);
+            return builder;
+        }
+
+        /**
+         * Protobuf type {@code com.alibaba.otter.canal.protocol.Credit}
+         */
+        public static final class Builder extends
+                com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+                // @@protoc_insertion_point(builder_implements:com.alibaba.otter.canal.protocol.Credit)
+                com.alibaba.otter.canal.protocol.CanalPacket.CreditOrBuilder {
+            public static final com.google.protobuf.Descriptors.Descriptor
+            getDescriptor() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor;
+            }
+
+            @java.lang.Override
+            protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internalGetFieldAccessorTable() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Credit_fieldAccessorTable
+                        .ensureFieldAccessorsInitialized(
+                                com.alibaba.otter.canal.protocol.CanalPacket.Credit.class, com.alibaba.otter.canal.protocol.CanalPacket.Credit.Builder.class);
+            }
+
+            // Construct using com.alibaba.otter.canal.protocol.CanalPacket.Credit.newBuilder()
+            private Builder() {
+                maybeForceBuilderInitialization();
+            }
+
+            private Builder(
+                    com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+                super(parent);
+                maybeForceBuilderInitialization();
+            }
+
+            private void maybeForceBuilderInitialization() {
+                if (com.google.protobuf.GeneratedMessageV3
+                        .alwaysUseFieldBuilders) {
+                }
+            }
+
+            @java.lang.Override
+            public Builder clear() {
+                super.clear();
+                destination_ = "";
+
+                clientId_ = "";
+
+                batches_ = 0;
+
+                bytes_ = 0L;
+
+                return this;
+            }
+
+            @java.lang.Override
+            public com.google.protobuf.Descriptors.Descriptor
+            getDescriptorForType() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor;
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Credit getDefaultInstanceForType() {
+                return com.alibaba.otter.canal.protocol.CanalPacket.Credit.getDefaultInstance();
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Credit build() {
+                com.alibaba.otter.canal.protocol.CanalPacket.Credit result = buildPartial();
+                if (!result.isInitialized()) {
+                    throw newUninitializedMessageException(result);
+                }
+                return result;
+            }
+
+            @java.lang.Override
+            public com.alibaba.otter.canal.protocol.CanalPacket.Credit buildPartial() {
+                com.alibaba.otter.canal.protocol.CanalPacket.Credit result = new com.alibaba.otter.canal.protocol.CanalPacket.Credit(this);
+                result.destination_ = destination_;
+                result.clientId_ = clientId_;
+                result.batches_ = batches_;
+                result.bytes_ = bytes_;
+                onBuilt();
+                return result;
+            }
+
+            @java.lang.Override
+            public Builder clone() {
+                return (Builder) super.clone();
+            }
+
+            @java.lang.Override
+            public Builder setField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    java.lang.Object value) {
+                return (Builder) super.setField(field, value);
+            }
+
+            @java.lang.Override
+            public Builder clearField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field) {
+                return (Builder) super.clearField(field);
+            }
+
+            @java.lang.Override
+            public Builder clearOneof(
+                    com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+                return (Builder) super.clearOneof(oneof);
+            }
+
+            @java.lang.Override
+            public Builder setRepeatedField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    int index, java.lang.Object value) {
+                return (Builder) super.setRepeatedField(field, index, value);
+            }
+
+            @java.lang.Override
+            public Builder addRepeatedField(
+                    com.google.protobuf.Descriptors.FieldDescriptor field,
+                    java.lang.Object value) {
+                return (Builder) super.addRepeatedField(field, value);
+            }
+
+            @java.lang.Override
+            public Builder mergeFrom(com.google.protobuf.Message other) {
+                if (other instanceof com.alibaba.otter.canal.protocol.CanalPacket.Credit) {
+                    return mergeFrom((com.alibaba.otter.canal.protocol.CanalPacket.Credit) other);
+                } else {
+                    super.mergeFrom(other);
+                    return this;
+                }
+            }
+
+            public Builder mergeFrom(com.alibaba.otter.canal.protocol.CanalPacket.Credit other) {
+                if (other == com.alibaba.otter.canal.protocol.CanalPacket.Credit.getDefaultInstance()) return this;
+                if (!other.getDestination().isEmpty()) {
+                    destination_ = other.destination_;
+                    onChanged();
+                }
+                if (!other.getClientId().isEmpty()) {
+                    clientId_ = other.clientId_;
+                    onChanged();
+                }
+                if (other.getBatches() != 0) {
+                    setBatches(other.getBatches());
+                }
+                if (other.getBytes() != 0L) {
+                    setBytes(other.getBytes());
+                }
+                this.mergeUnknownFields(other.unknownFields);
+                onChanged();
+                return this;
+            }
+
+            @java.lang.Override
+            public final boolean isInitialized() {
+                return true;
+            }
+
+            @java.lang.Override
+            public Builder mergeFrom(
+                    com.google.protobuf.CodedInputStream input,
+                    com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                    throws java.io.IOException {
+                com.alibaba.otter.canal.protocol.CanalPacket.Credit parsedMessage = null;
+                try {
+                    parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+                } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                    parsedMessage = (com.alibaba.otter.canal.protocol.CanalPacket.Credit) e.getUnfinishedMessage();
+                    throw e.unwrapIOException();
+                } finally {
+                    if (parsedMessage != null) {
+                        mergeFrom(parsedMessage);
+                    }
+                }
+                return this;
+            }
+
+            private java.lang.Object destination_ = "";
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public java.lang.String getDestination() {
+                java.lang.Object ref = destination_;
+                if (!(ref instanceof java.lang.String)) {
+                    com.google.protobuf.ByteString bs =
+                            (com.google.protobuf.ByteString) ref;
+                    java.lang.String s = bs.toStringUtf8();
+                    destination_ = s;
+                    return s;
+                } else {
+                    return (java.lang.String) ref;
+                }
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public com.google.protobuf.ByteString
+            getDestinationBytes() {
+                java.lang.Object ref = destination_;
+                if (ref instanceof String) {
+                    com.google.protobuf.ByteString b =
+                            com.google.protobuf.ByteString.copyFromUtf8(
+                                    (java.lang.String) ref);
+                    destination_ = b;
+                    return b;
+                } else {
+                    return (com.google.protobuf.ByteString) ref;
+                }
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder setDestination(
+                    java.lang.String value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+
+                destination_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder clearDestination() {
+
+                destination_ = getDefaultInstance().getDestination();
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string destination = 1;</code>
+             */
+            public Builder setDestinationBytes(
+                    com.google.protobuf.ByteString value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+                checkByteStringIsUtf8(value);
+
+                destination_ = value;
+                onChanged();
+                return this;
+            }
+
+            private java.lang.Object clientId_ = "";
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public java.lang.String getClientId() {
+                java.lang.Object ref = clientId_;
+                if (!(ref instanceof java.lang.String)) {
+                    com.google.protobuf.ByteString bs =
+                            (com.google.protobuf.ByteString) ref;
+                    java.lang.String s = bs.toStringUtf8();
+                    clientId_ = s;
+                    return s;
+                } else {
+                    return (java.lang.String) ref;
+                }
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public com.google.protobuf.ByteString
+            getClientIdBytes() {
+                java.lang.Object ref = clientId_;
+                if (ref instanceof String) {
+                    com.google.protobuf.ByteString b =
+                            com.google.protobuf.ByteString.copyFromUtf8(
+                                    (java.lang.String) ref);
+                    clientId_ = b;
+                    return b;
+                } else {
+                    return (com.google.protobuf.ByteString) ref;
+                }
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder setClientId(
+                    java.lang.String value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+
+                clientId_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder clearClientId() {
+
+                clientId_ = getDefaultInstance().getClientId();
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>string client_id = 2;</code>
+             */
+            public Builder setClientIdBytes(
+                    com.google.protobuf.ByteString value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+                checkByteStringIsUtf8(value);
+
+                clientId_ = value;
+                onChanged();
+                return this;
+            }
+
+            private int batches_;
+
+            /**
+             * <code>int32 batches = 3;</code>
+             */
+            public int getBatches() {
+                return batches_;
+            }
+
+            /**
+             * <code>int32 batches = 3;</code>
+             */
+            public Builder setBatches(int value) {
+
+                batches_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>int32 batches = 3;</code>
+             */
+            public Builder clearBatches() {
+
+                batches_ = 0;
+                onChanged();
+                return this;
+            }
+
+            private long bytes_;
+
+            /**
+             * <code>int64 bytes = 4;</code>
+             */
+            public long getBytes() {
+                return bytes_;
+            }
+
+            /**
+             * <code>int64 bytes = 4;</code>
+             */
+            public Builder setBytes(long value) {
+
+                bytes_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>int64 bytes = 4;</code>
+             */
+            public Builder clearBytes() {
+
+                bytes_ = 0L;
+                onChanged();
+                return this;
+            }
+
+            @java.lang.Override
+            public final Builder setUnknownFields(
+                    final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.setUnknownFieldsProto3(unknownFields);
+            }
+
+            @java.lang.Override
+            public final Builder mergeUnknownFields(
+                    final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.mergeUnknownFields(unknownFields);
+            }
+
+
+            // @@protoc_insertion_point(builder_scope:com.alibaba.otter.canal.protocol.Credit)
+        }
+
+        // @@protoc_insertion_point(class_scope:com.alibaba.otter.canal.protocol.Credit)
+        private static final com.alibaba.otter.canal.protocol.CanalPacket.Credit DEFAULT_INSTANCE;
+
+        static {
+            DEFAULT_INSTANCE = new com.alibaba.otter.canal.protocol.CanalPacket.Credit();
+        }
+
+        public static com.alibaba.otter.canal.protocol.CanalPacket.Credit getDefaultInstance() {
+            return DEFAULT_INSTANCE;
+        }
+
+        private static final com.google.protobuf.Parser<Credit>
+                PARSER = new com.google.protobuf.AbstractParser<Credit>() {
+            @java.lang.Override
+            public Credit parsePartialFrom(
+                    com.google.protobuf.CodedInputStream input,
+                    com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                    throws com.google.protobuf.InvalidProtocolBufferException {
+                return new Credit(input, extensionRegistry);
+            }
+        };
+
+        public static com.google.protobuf.Parser<Credit> parser() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.google.protobuf.Parser<Credit> getParserForType() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.alibaba.otter.canal.protocol.CanalPacket.Credit getDefaultInstanceForType() {
+            return DEFAULT_INSTANCE;
+        }
+
+    }
+
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Get_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor
+            internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor;
+    private static final
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+            internal_static_com_alibaba_otter_canal_protocol_Credit_fieldAccessorTable;
+
+    public static com.google.protobuf.Descriptors.FileDescriptor
+    getDescriptor() {
+        return descriptor;
+    }
+
+    private static com.google.protobuf.Descriptors.FileDescriptor
+            descriptor;
+
+    static {
+        java.lang.String[] descriptorData = {
+                "\n\023CanalProtocol.proto\022 com.alibaba.otter" +
+                        ".canal.protocol\"\205\002\n\006Packet\022\026\n\014magic_numb" +
+                        "er\030\001 \001(\005H\000\022\021\n\007version\030\002 \001(\005H\001\022:\n\004type\030\003 " +
+                        "\001(\0162,.com.alibaba.otter.canal.protocol.P" +
+                        "acketType\022D\n\013compression\030\004 \001(\0162-.com.ali" +
+                        "baba.otter.canal.protocol.CompressionH\002\022" +
+                        "\014\n\004body\030\005 \001(\014B\026\n\024magic_number_presentB\021\n" +
+                        "\017version_presentB\025\n\023compression_present\"" +
+                        "<\n\tHeartBeat\022\026\n\016send_timestamp\030\001 \001(\003\022\027\n\017" +
+                        "start_timestamp\030\002 \001(\003\"\255\001\n\tHandshake\022 \n\026c" +
+                        "ommunication_encoding\030\001 \001(\tH\000\022\r\n\005seeds\030\002" +
+                        " \001(\014\022M\n\026supported_compressions\030\003 \001(\0162-.c" +
+                        "om.alibaba.otter.canal.protocol.Compress" +
+                        "ionB \n\036communication_encoding_present\"\363\001" +
+                        "\n\nClientAuth\022\020\n\010username\030\001 \001(\t\022\020\n\010passwo" +
+                        "rd\030\002 \001(\014\022\032\n\020net_read_timeout\030\003 \001(\005H\000\022\033\n\021" +
+                        "net_write_timeout\030\004 \001(\005H\001\022\023\n\013destination" +
+                        "\030\005 \001(\t\022\021\n\tclient_id\030\006 \001(\t\022\016\n\006filter\030\007 \001(" +
+                        "\t\022\027\n\017start_timestamp\030\010 \001(\003B\032\n\030net_read_t" +
+                        "imeout_presentB\033\n\031net_write_timeout_pres" +
+                        "ent\"H\n\003Ack\022\024\n\nerror_code\030\001 \001(\005H\000\022\025\n\rerro" +
+                        "r_message\030\002 \001(\tB\024\n\022error_code_present\"E\n" +
+                        "\tClientAck\022\023\n\013destination\030\001 \001(\t\022\021\n\tclien" +
+                        "t_id\030\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003\"=\n\003Sub\022\023\n\013d" +
+                        "estination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006f" +
+                        "ilter\030\007 \001(\t\"?\n\005Unsub\022\023\n\013destination\030\001 \001(" +
+                        "\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006filter\030\007 \001(\t\"\257\001\n" +
+                        "\003Get\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030\002" +
+                        " \001(\t\022\022\n\nfetch_size\030\003 \001(\005\022\021\n\007timeout\030\004 \001(" +
+                        "\003H\000\022\016\n\004unit\030\005 \001(\005H\001\022\022\n\010auto_ack\030\006 \001(\010H\002B" +
+                        "\021\n\017timeout_presentB\016\n\014unit_presentB\022\n\020au" +
+                        "to_ack_present\".\n\010Messages\022\020\n\010batch_id\030\001" +
+                        " \001(\003\022\020\n\010messages\030\002 \003(\014\"S\n\004Dump\022\017\n\007journa" +
+                        "l\030\001 \001(\t\022\020\n\010position\030\002 \001(\003\022\023\n\ttimestamp\030\003" +
+                        " \001(\003H\000B\023\n\021timestamp_present\"J\n\016ClientRol" +
+                        "lback\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030" +
+                        "\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003\"u\n\006Stream\022\023\n\013des" +
+                        "tination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\022\n\nfet" +
+                        "ch_size\030\003 \001(\005\022\017\n\007timeout\030\004 \001(\003\022\017\n\007batche" +
+                        "s\030\005 \001(\005\022\r\n\005bytes\030\006 \001(\003\"P\n\006Credit\022\023\n\013dest" +
+                        "ination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\017\n\007batc" +
+                        "hes\030\003 \001(\005\022\r\n\005bytes\030\004 \001(\003*U\n\013Compression\022" +
+                        "\037\n\033COMPRESSIONCOMPATIBLEPROTO2\020\000\022\010\n\004NONE" +
+                        "\020\001\022\010\n\004ZLIB\020\002\022\010\n\004GZIP\020\003\022\007\n\003LZF\020\004*\376\001\n\nPack" +
+                        "etType\022\037\n\033PACKAGETYPECOMPATIBLEPROTO2\020\000\022" +
+                        "\r\n\tHANDSHAKE\020\001\022\030\n\024CLIENTAUTHENTICATION\020\002" +
+                        "\022\007\n\003ACK\020\003\022\020\n\014SUBSCRIPTION\020\004\022\022\n\016UNSUBSCRI" +
+                        "PTION\020\005\022\007\n\003GET\020\006\022\014\n\010MESSAGES\020\007\022\r\n\tCLIENT" +
+                        "ACK\020\010\022\014\n\010SHUTDOWN\020\t\022\010\n\004DUMP\020\n\022\r\n\tHEARTBE" +
+                        "AT\020\013\022\022\n\016CLIENTROLLBACK\020\014\022\n\n\006STREAM\020\r\022\n\n\006" +
+                        "CREDIT\020\016B1\n com.alibaba.otter.canal.prot" +
+                        "ocolB\013CanalPacketH\001b\006proto3"
+        };
+        com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+                new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
+                    public com.google.protobuf.ExtensionRegistry assignDescriptors(
+                            com.google.protobuf.Descriptors.FileDescriptor root) {
+                        descriptor = root;
+                        return null;
+                    }
+                };
+        com.google.protobuf.Descriptors.FileDescriptor
+                .internalBuildGeneratedFileFrom(descriptorData,
+                        new com.google.protobuf.Descriptors.FileDescriptor[]{
+                        }, assigner);
+        internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor =
+                getDescriptor().getMessageTypes().get(0);
+        internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable = new
+                com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+                internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor,
+                new java.lang.String[]{"MagicNumber", "Version", "Type", "Compression", "Body", "MagicNumberPresent", "VersionPresent", "CompressionPresent",});
         internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor =
                 getDescriptor().getMessageTypes().get(1);
         internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable = new
@@ -11790,6 +13778,18 @@ public final class CanalPacket {
                 com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
                 internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor,
                 new java.lang.String[]{"Destination", "ClientId", "BatchId",});
+        internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor =
+                getDescriptor().getMessageTypes().get(12);
+        internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable = new
+                com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+                internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor,
+                new java.lang.String[]{"Destination", "ClientId", "FetchSize", "Timeout", "Batches", "Bytes",});
+        internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor =
+                getDescriptor().getMessageTypes().get(13);
+        internal_static_com_alibaba_otter_canal_protocol_Credit_fieldAccessorTable = new
+                com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+                internal_static_com_alibaba_otter_canal_protocol_Credit_descriptor,
+                new java.lang.String[]{"Destination", "ClientId", "Batches", "Bytes",});
     }
 
     // @@protoc_insertion_point(outer_class_scope)
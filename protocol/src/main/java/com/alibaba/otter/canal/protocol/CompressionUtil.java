@@ -0,0 +1,80 @@
+package com.alibaba.otter.canal.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+
+/**
+ * 网络包body的压缩/解压缩
+ *
+ * <pre>
+ * 1. client在CLIENTAUTHENTICATION包的compression字段中声明期望的压缩方式
+ * 2. server只对超过阈值的MESSAGES包进行压缩，并在Packet的compression字段中标记，client按包解压缩
+ * 3. 目前支持ZLIB/GZIP，使用jdk自带的实现，压缩级别使用BEST_SPEED
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class CompressionUtil {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public static boolean isSupported(Compression compression) {
+        return compression == Compression.ZLIB || compression == Compression.GZIP;
+    }
+
+    public static ByteString compress(Compression compression, MessageLite message) throws IOException {
+        // 行数据的压缩比一般在4倍以上
+        ByteString.Output output = ByteString.newOutput(Math.max(message.getSerializedSize() / 4, BUFFER_SIZE));
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, compression == Compression.GZIP);
+        try {
+            OutputStream out;
+            if (compression == Compression.GZIP) {
+                // GZIPOutputStream没有提供指定压缩级别的构造函数, 替换掉默认的deflater
+                out = new GZIPOutputStream(output, BUFFER_SIZE) {
+
+                    {
+                        def.end();
+                        def = deflater;
+                    }
+                };
+            } else if (compression == Compression.ZLIB) {
+                out = new DeflaterOutputStream(output, deflater, BUFFER_SIZE);
+            } else {
+                throw new IOException("unsupported compression:" + compression);
+            }
+
+            message.writeTo(out);
+            out.close();
+            return output.toByteString();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static ByteString decompress(Compression compression, ByteString data) throws IOException {
+        InputStream in;
+        if (compression == Compression.GZIP) {
+            in = new GZIPInputStream(data.newInput(), BUFFER_SIZE);
+        } else if (compression == Compression.ZLIB) {
+            in = new InflaterInputStream(data.newInput());
+        } else {
+            throw new IOException("unsupported compression:" + compression);
+        }
+
+        try {
+            return ByteString.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+}
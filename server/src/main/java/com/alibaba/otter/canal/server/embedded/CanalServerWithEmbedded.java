@@ -18,6 +18,7 @@ import org.springframework.util.CollectionUtils;
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.instance.core.CanalInstance;
 import com.alibaba.otter.canal.instance.core.CanalInstanceGenerator;
+import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.LazyRowChange;
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.Message;
@@ -32,11 +33,12 @@ import com.alibaba.otter.canal.spi.CanalMetricsProvider;
 import com.alibaba.otter.canal.spi.CanalMetricsService;
 import com.alibaba.otter.canal.spi.NopCanalMetricsService;
 import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalMultiClientEventStore;
+import com.alibaba.otter.canal.store.file.FileEventStore;
 import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.Event;
 import com.alibaba.otter.canal.store.model.Events;
 import com.google.common.base.Function;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.MigrateMap;
 import com.google.protobuf.ByteString;
@@ -199,6 +201,11 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             logger.info("subscribe successfully, use last cursor position:{} ", clientIdentity, position);
         }
 
+        if (canalInstance.getEventStore() instanceof CanalMultiClientEventStore) {
+            // 订阅时即注册client在store中的下标, 未get之前也需要阻止回收其未ack的数据
+            ((CanalMultiClientEventStore) canalInstance.getEventStore()).subscribe(clientIdentity, position);
+        }
+
         // 通知下订阅关系变化
         canalInstance.subscribeChange(clientIdentity);
     }
@@ -210,6 +217,10 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
     public void unsubscribe(ClientIdentity clientIdentity) throws CanalServerException {
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
         canalInstance.getMetaManager().unsubscribe(clientIdentity); // 执行一下meta订阅
+        if (canalInstance.getEventStore() instanceof CanalMultiClientEventStore) {
+            // 释放client在store中的下标，避免阻塞数据回收
+            ((CanalMultiClientEventStore) canalInstance.getEventStore()).unsubscribe(clientIdentity);
+        }
 
         logger.info("unsubscribe successfully, {}", clientIdentity);
     }
@@ -253,6 +264,9 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         checkStart(clientIdentity.getDestination());
         checkSubscribe(clientIdentity);
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
+        Events<Event> events = null;
+        Long batchId = null;
+        List<Object> payloads = null;
         synchronized (canalInstance) {
             // 获取到流式数据中的最后一批获取的位置
             PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().getLastestBatch(clientIdentity);
@@ -263,48 +277,36 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
                         positionRanges));
             }
 
-            Events<Event> events = null;
             Position start = canalInstance.getMetaManager().getCursor(clientIdentity);
-            events = getEvents(canalInstance.getEventStore(), start, batchSize, timeout, unit);
+            events = getEvents(clientIdentity, canalInstance.getEventStore(), start, batchSize, timeout, unit);
 
             if (CollectionUtils.isEmpty(events.getEvents())) {
                 logger.debug("get successfully, clientId:{} batchSize:{} but result is null",
                         clientIdentity.getClientId(),
                         batchSize);
                 return new Message(-1, true, new ArrayList()); // 返回空包，避免生成batchId，浪费性能
-            } else {
-                // 记录到流式信息
-                Long batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());
-                boolean raw = isRaw(canalInstance.getEventStore());
-                List entrys = null;
-                if (raw) {
-                    entrys = Lists.transform(events.getEvents(), new Function<Event, ByteString>() {
-
-                        public ByteString apply(Event input) {
-                            return input.getRawEntry();
-                        }
-                    });
-                } else {
-                    entrys = Lists.transform(events.getEvents(), new Function<Event, CanalEntry.Entry>() {
-
-                        public CanalEntry.Entry apply(Event input) {
-                            return input.getEntry();
-                        }
-                    });
-                }
-                if (logger.isInfoEnabled()) {
-                    logger.info("get successfully, clientId:{} batchSize:{} real size is {} and result is [batchId:{} , position:{}]",
-                            clientIdentity.getClientId(),
-                            batchSize,
-                            entrys.size(),
-                            batchId,
-                            events.getPositionRange());
-                }
-                // 直接提交ack
-                ack(clientIdentity, batchId);
-                return new Message(batchId, raw, entrys);
             }
+
+            // 记录到流式信息
+            batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());
+            // ack之后store会回收event中的数据, 先在锁内保留引用
+            payloads = payloads(events.getEvents());
+            // 直接提交ack
+            ack(clientIdentity, batchId);
         }
+
+        // RowChange的构造在锁外完成, 不阻塞同一instance的其他请求
+        boolean raw = isRaw(canalInstance.getEventStore());
+        List entrys = buildEntrys(payloads, raw);
+        if (logger.isInfoEnabled()) {
+            logger.info("get successfully, clientId:{} batchSize:{} real size is {} and result is [batchId:{} , position:{}]",
+                    clientIdentity.getClientId(),
+                    batchSize,
+                    entrys.size(),
+                    batchId,
+                    events.getPositionRange());
+        }
+        return new Message(batchId, raw, entrys);
     }
 
     /**
@@ -332,6 +334,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
      *    2. timeout不为0，则采用get+timeout方式，获取数据，超时还没有batchSize足够的数据，有多少返回多少
      *
      * 注意： meta获取和数据的获取需要保证顺序性，优先拿到meta的，一定也会是优先拿到数据，所以需要加同步. (不能出现先拿到meta，拿到第二批数据，这样就会导致数据顺序性出现问题)
+     * 对于支持多client的store，阻塞等待数据在同步块之外完成，同步块内只做位置获取、tryGet以及batch记录
      * </pre>
      */
     @Override
@@ -341,61 +344,57 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         checkSubscribe(clientIdentity);
 
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
-        synchronized (canalInstance) {
-            // 获取到流式数据中的最后一批获取的位置
-            PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().getLastestBatch(clientIdentity);
-
-            Events<Event> events = null;
-            if (positionRanges != null) { // 存在流数据
-                events = getEvents(canalInstance.getEventStore(), positionRanges.getStart(), batchSize, timeout, unit);
-            } else {// ack后第一次获取
-                Position start = canalInstance.getMetaManager().getCursor(clientIdentity);
-                if (start == null) { // 第一次，还没有过ack记录，则获取当前store中的第一条
-                    start = canalInstance.getEventStore().getFirstPosition();
+        Events<Event> events = null;
+        Long batchId = null;
+        List<Object> payloads = null;
+        while (batchId == null) {
+            // 阻塞等待数据时不持有instance锁，不影响其他client以及rollback
+            boolean waited = waitEvents(clientIdentity,
+                    canalInstance,
+                    getStartWithoutAck(clientIdentity, canalInstance),
+                    batchSize,
+                    timeout,
+                    unit);
+            synchronized (canalInstance) {
+                // 位置的获取和batch的记录在锁内完成，等待期间可能有其他请求或者rollback，需要重新获取位置
+                Position start = getStartWithoutAck(clientIdentity, canalInstance);
+                events = getEvents(clientIdentity,
+                        canalInstance.getEventStore(),
+                        start,
+                        batchSize,
+                        waited ? null : timeout,
+                        unit);
+
+                if (CollectionUtils.isEmpty(events.getEvents())) {
+                    if (waited && timeout <= 0) {
+                        continue; // 阻塞模式下数据已被其他请求获取，继续等待
+                    }
+                    // logger.debug("getWithoutAck successfully, clientId:{}
+                    // batchSize:{} but result
+                    // is null",
+                    // clientIdentity.getClientId(),
+                    // batchSize);
+                    return new Message(-1, true, new ArrayList()); // 返回空包，避免生成batchId，浪费性能
                 }
 
-                events = getEvents(canalInstance.getEventStore(), start, batchSize, timeout, unit);
-            }
-
-            if (CollectionUtils.isEmpty(events.getEvents())) {
-                // logger.debug("getWithoutAck successfully, clientId:{}
-                // batchSize:{} but result
-                // is null",
-                // clientIdentity.getClientId(),
-                // batchSize);
-                return new Message(-1, true, new ArrayList()); // 返回空包，避免生成batchId，浪费性能
-            } else {
                 // 记录到流式信息
-                Long batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());
-                boolean raw = isRaw(canalInstance.getEventStore());
-                List entrys = null;
-                if (raw) {
-                    entrys = Lists.transform(events.getEvents(), new Function<Event, ByteString>() {
-
-                        public ByteString apply(Event input) {
-                            return input.getRawEntry();
-                        }
-                    });
-                } else {
-                    entrys = Lists.transform(events.getEvents(), new Function<Event, CanalEntry.Entry>() {
-
-                        public CanalEntry.Entry apply(Event input) {
-                            return input.getEntry();
-                        }
-                    });
-                }
-                if (logger.isInfoEnabled()) {
-                    logger.info("getWithoutAck successfully, clientId:{} batchSize:{}  real size is {} and result is [batchId:{} , position:{}]",
-                            clientIdentity.getClientId(),
-                            batchSize,
-                            entrys.size(),
-                            batchId,
-                            events.getPositionRange());
-                }
-                return new Message(batchId, raw, entrys);
+                batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());
+                payloads = payloads(events.getEvents());
             }
+        }
 
+        // RowChange的构造在锁外完成, 不阻塞同一instance的其他请求
+        boolean raw = isRaw(canalInstance.getEventStore());
+        List entrys = buildEntrys(payloads, raw);
+        if (logger.isInfoEnabled()) {
+            logger.info("getWithoutAck successfully, clientId:{} batchSize:{}  real size is {} and result is [batchId:{} , position:{}]",
+                    clientIdentity.getClientId(),
+                    batchSize,
+                    entrys.size(),
+                    batchId,
+                    events.getPositionRange());
         }
+        return new Message(batchId, raw, entrys);
     }
 
     /**
@@ -462,7 +461,14 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         }
 
         // 可定时清理数据
-        canalInstance.getEventStore().ack(positionRanges.getEnd(), positionRanges.getEndSeq());
+        CanalEventStore eventStore = canalInstance.getEventStore();
+        if (eventStore instanceof CanalMultiClientEventStore) {
+            ((CanalMultiClientEventStore) eventStore).ack(clientIdentity,
+                    positionRanges.getEnd(),
+                    positionRanges.getEndSeq());
+        } else {
+            eventStore.ack(positionRanges.getEnd(), positionRanges.getEndSeq());
+        }
     }
 
     /**
@@ -482,7 +488,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             // 清除batch信息
             canalInstance.getMetaManager().clearAllBatchs(clientIdentity);
             // rollback eventStore中的状态信息
-            canalInstance.getEventStore().rollback();
+            rollbackEventStore(clientIdentity, canalInstance.getEventStore());
             logger.info("rollback successfully, clientId:{}", new Object[]{clientIdentity.getClientId()});
         }
     }
@@ -513,7 +519,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             // lastRollbackPostions.put(clientIdentity,
             // positionRanges.getEnd());// 记录一下最后rollback的位置
             // TODO 后续rollback到指定的batchId位置
-            canalInstance.getEventStore().rollback();// rollback
+            rollbackEventStore(clientIdentity, canalInstance.getEventStore());// rollback
             // eventStore中的状态信息
             logger.info("rollback successfully, clientId:{} batchId:{} position:{}",
                     clientIdentity.getClientId(),
@@ -531,8 +537,26 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
     /**
      * 根据不同的参数，选择不同的方式获取数据
      */
-    private Events<Event> getEvents(CanalEventStore eventStore, Position start, int batchSize, Long timeout,
-                                    TimeUnit unit) {
+    private Events<Event> getEvents(ClientIdentity clientIdentity, CanalEventStore eventStore, Position start,
+                                    int batchSize, Long timeout, TimeUnit unit) {
+        if (eventStore instanceof CanalMultiClientEventStore) {
+            // 每个client使用独立的下标
+            CanalMultiClientEventStore<Event> multiClientStore = (CanalMultiClientEventStore<Event>) eventStore;
+            if (timeout == null) {
+                return multiClientStore.tryGet(clientIdentity, start, batchSize);
+            } else {
+                try {
+                    if (timeout <= 0) {
+                        return multiClientStore.get(clientIdentity, start, batchSize);
+                    } else {
+                        return multiClientStore.get(clientIdentity, start, batchSize, timeout, unit);
+                    }
+                } catch (Exception e) {
+                    throw new CanalServerException(e);
+                }
+            }
+        }
+
         if (timeout == null) {
             return eventStore.tryGet(start, batchSize);
         } else {
@@ -548,6 +572,95 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         }
     }
 
+    /**
+     * 在instance锁内获取event中数据的引用, raw模式下为ByteString, 否则为CanalEntry.Entry
+     */
+    private List<Object> payloads(List<Event> events) {
+        List<Object> payloads = new ArrayList<Object>(events.size());
+        for (Event event : events) {
+            ByteString rawEntry = event.getRawEntry();
+            payloads.add(rawEntry != null ? rawEntry : event.getEntry());
+        }
+        return payloads;
+    }
+
+    /**
+     * 构造返回给客户端的entry列表, 延迟构造的RowChange在这里完成解析, 需要在instance锁之外调用
+     *
+     * <pre>
+     * 1. 使用预先构造的list而非Lists.transform视图, 避免每次访问元素都重复解析
+     * 2. raw模式的instance会关闭lazyRowChange, 这里只兼容自行组装的instance, 延迟的entry需要解析后再序列化
+     * </pre>
+     */
+    private List buildEntrys(List<Object> payloads, boolean raw) {
+        if (raw) {
+            List<ByteString> entrys = new ArrayList<ByteString>(payloads.size());
+            for (Object payload : payloads) {
+                if (payload instanceof ByteString) {
+                    entrys.add((ByteString) payload);
+                } else {
+                    entrys.add(LazyRowChange.materialize((CanalEntry.Entry) payload).toByteString());
+                }
+            }
+            return entrys;
+        } else {
+            List<CanalEntry.Entry> entrys = new ArrayList<CanalEntry.Entry>(payloads.size());
+            for (Object payload : payloads) {
+                entrys.add(LazyRowChange.materialize((CanalEntry.Entry) payload));
+            }
+            return entrys;
+        }
+    }
+
+    /**
+     * getWithoutAck的起始位置: 存在未ack的batch时从最后一个batch开始，否则从cursor开始，第一次获取时从store中的第一条开始
+     */
+    private Position getStartWithoutAck(ClientIdentity clientIdentity, CanalInstance canalInstance) {
+        // 获取到流式数据中的最后一批获取的位置
+        PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().getLastestBatch(clientIdentity);
+        if (positionRanges != null) { // 存在流数据
+            return positionRanges.getStart();
+        }
+
+        // ack后第一次获取
+        Position start = canalInstance.getMetaManager().getCursor(clientIdentity);
+        if (start == null) { // 第一次，还没有过ack记录，则获取当前store中的第一条
+            start = canalInstance.getEventStore().getFirstPosition();
+        }
+        return start;
+    }
+
+    /**
+     * 在instance锁之外等待store中有可获取的数据，返回true代表已经完成等待，加锁之后只需要tryGet
+     */
+    private boolean waitEvents(ClientIdentity clientIdentity, CanalInstance canalInstance, Position start,
+                               int batchSize, Long timeout, TimeUnit unit) {
+        CanalEventStore eventStore = canalInstance.getEventStore();
+        if (timeout == null || !(eventStore instanceof CanalMultiClientEventStore)) {
+            return false; // 即时获取，或者store不支持单独等待，保持在锁内获取
+        }
+
+        CanalMultiClientEventStore<Event> multiClientStore = (CanalMultiClientEventStore<Event>) eventStore;
+        try {
+            if (timeout <= 0) {
+                multiClientStore.waitFor(clientIdentity, start, batchSize);
+            } else {
+                multiClientStore.waitFor(clientIdentity, start, batchSize, timeout, unit);
+            }
+        } catch (Exception e) {
+            throw new CanalServerException(e);
+        }
+        return true;
+    }
+
+    private void rollbackEventStore(ClientIdentity clientIdentity, CanalEventStore eventStore) {
+        if (eventStore instanceof CanalMultiClientEventStore) {
+            ((CanalMultiClientEventStore) eventStore).rollback(clientIdentity);
+        } else {
+            eventStore.rollback();
+        }
+    }
+
     private void checkSubscribe(ClientIdentity clientIdentity) {
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
         boolean hasSubscribe = canalInstance.getMetaManager().hasSubscribe(clientIdentity);
@@ -587,6 +700,8 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
     private boolean isRaw(CanalEventStore eventStore) {
         if (eventStore instanceof MemoryEventStoreWithBuffer) {
             return ((MemoryEventStoreWithBuffer) eventStore).isRaw();
+        } else if (eventStore instanceof FileEventStore) {
+            return ((FileEventStore) eventStore).isRaw();
         }
 
         return true;
@@ -1,6 +1,7 @@
 package com.alibaba.otter.canal.server.netty;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.commons.lang.StringUtils;
@@ -14,6 +15,7 @@ import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
 import com.alibaba.otter.canal.server.CanalServer;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.netty.handler.ClientAuthenticationHandler;
@@ -34,6 +36,7 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
     private int port;
     private Channel serverChannel = null;
     private ServerBootstrap bootstrap = null;
+    private ExecutorService compressExecutor = null; // 压缩MESSAGES的线程池, 不占用netty的io线程
     private ChannelGroup childGroups = null; // socket channel
     // container, used to
     // close sockets
@@ -64,6 +67,8 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
 
         this.bootstrap = new ServerBootstrap(new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),
                 Executors.newCachedThreadPool()));
+        this.compressExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new NamedThreadFactory("canal-server-compress", true));
         /*
          * enable keep-alive mechanism, handle abnormal network connection
          * scenarios on OS level. the threshold parameters are depended on OS.
@@ -85,8 +90,9 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
                 // support to maintain child socket channel.
                 pipelines.addLast(HandshakeInitializationHandler.class.getName(),
                         new HandshakeInitializationHandler(childGroups));
-                pipelines.addLast(ClientAuthenticationHandler.class.getName(),
-                        new ClientAuthenticationHandler(embeddedServer));
+                ClientAuthenticationHandler authenticationHandler = new ClientAuthenticationHandler(embeddedServer);
+                authenticationHandler.setCompressExecutor(compressExecutor);
+                pipelines.addLast(ClientAuthenticationHandler.class.getName(), authenticationHandler);
 
                 SessionHandler sessionHandler = new SessionHandler(embeddedServer);
                 pipelines.addLast(SessionHandler.class.getName(), sessionHandler);
@@ -119,6 +125,11 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
             this.bootstrap.releaseExternalResources();
         }
 
+        if (this.compressExecutor != null) {
+            this.compressExecutor.shutdownNow();
+            this.compressExecutor = null;
+        }
+
         if (embeddedServer.isStart()) {
             embeddedServer.stop();
         }
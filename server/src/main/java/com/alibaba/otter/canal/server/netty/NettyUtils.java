@@ -1,5 +1,6 @@
 package com.alibaba.otter.canal.server.netty;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -15,10 +16,20 @@ import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
 
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalPacket;
 import com.alibaba.otter.canal.protocol.CanalPacket.Ack;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CompressionUtil;
+import com.alibaba.otter.canal.protocol.Message;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 
 public class NettyUtils {
 
@@ -26,6 +37,7 @@ public class NettyUtils {
     public static int HEADER_LENGTH = 4;
     public static Timer hashedWheelTimer = new HashedWheelTimer();
     public static int VERSION = 1;
+    public static int COMPRESS_THRESHOLD = 1024;                                   // 小于该大小的MESSAGES不做压缩
 
     public static void write(Channel channel, ByteBuffer body, ChannelFutureListener channelFutureListner) {
         byte[] header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN).putInt(body.limit()).array();
@@ -42,14 +54,25 @@ public class NettyUtils {
     }
 
     public static void write(Channel channel, byte[] body, ChannelFutureListener channelFutureListner) {
-        byte[] header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN).putInt(body.length).array();
+        write(channel, ChannelBuffers.wrappedBuffer(body), channelFutureListner);
+    }
+
+    public static void write(Channel channel, ChannelBuffer body, ChannelFutureListener channelFutureListner) {
         if (channelFutureListner == null) {
-            Channels.write(channel, ChannelBuffers.wrappedBuffer(header, body));
+            Channels.write(channel, frame(body));
         } else {
-            Channels.write(channel, ChannelBuffers.wrappedBuffer(header, body)).addListener(channelFutureListner);
+            Channels.write(channel, frame(body)).addListener(channelFutureListner);
         }
     }
 
+    /**
+     * 添加包头长度
+     */
+    public static ChannelBuffer frame(ChannelBuffer body) {
+        byte[] header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN).putInt(body.readableBytes()).array();
+        return ChannelBuffers.wrappedBuffer(ChannelBuffers.wrappedBuffer(header), body);
+    }
+
     public static void ack(Channel channel, ChannelFutureListener channelFutureListner) {
         write(channel,
                 Packet.newBuilder()
@@ -87,6 +110,77 @@ public class NettyUtils {
                 .toByteArray();
     }
 
+    /**
+     * 构造raw模式的MESSAGES数据包, 直接引用store中的ByteString, 只有包头和每条数据的tag/length需要额外分配
+     */
+    public static ChannelBuffer messagesPacket(long batchId, List<ByteString> rawEntries) throws IOException {
+        // message size
+        int messageSize = CodedOutputStream.computeInt64Size(1, batchId);
+        int prefixSize = 0;
+        for (ByteString rawEntry : rawEntries) {
+            prefixSize += CodedOutputStream.computeTagSize(2) + CodedOutputStream.computeRawVarint32Size(rawEntry.size());
+            messageSize += rawEntry.size();
+        }
+        messageSize += prefixSize;
+        // packet header + message header
+        int headerSize = CodedOutputStream.computeEnumSize(3, PacketType.MESSAGES.getNumber())
+                         + CodedOutputStream.computeTagSize(5) + CodedOutputStream.computeRawVarint32Size(messageSize)
+                         + CodedOutputStream.computeInt64Size(1, batchId);
+
+        byte[] header = new byte[headerSize + prefixSize];
+        CodedOutputStream output = CodedOutputStream.newInstance(header);
+        output.writeEnum(3, PacketType.MESSAGES.getNumber());
+        output.writeTag(5, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(messageSize);
+        output.writeInt64(1, batchId);
+        // 每条数据的tag/length写在同一个数组中, 按段引用
+        for (ByteString rawEntry : rawEntries) {
+            output.writeTag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeRawVarint32(rawEntry.size());
+        }
+        output.checkNoSpaceLeft();
+
+        ChannelBuffer[] components = new ChannelBuffer[1 + rawEntries.size() * 2];
+        components[0] = ChannelBuffers.wrappedBuffer(header, 0, headerSize);
+        int offset = headerSize;
+        for (int i = 0; i < rawEntries.size(); i++) {
+            ByteString rawEntry = rawEntries.get(i);
+            int length = CodedOutputStream.computeTagSize(2) + CodedOutputStream.computeRawVarint32Size(rawEntry.size());
+            components[1 + i * 2] = ChannelBuffers.wrappedBuffer(header, offset, length);
+            components[2 + i * 2] = ChannelBuffers.wrappedBuffer(rawEntry.asReadOnlyByteBuffer());
+            offset += length;
+        }
+        return ChannelBuffers.wrappedBuffer(components);
+    }
+
+    public static Messages messages(Message message) {
+        Messages.Builder messageBuilder = CanalPacket.Messages.newBuilder();
+        messageBuilder.setBatchId(message.getId());
+        if (message.getId() != -1) {
+            if (message.isRaw() && !CollectionUtils.isEmpty(message.getRawEntries())) {
+                messageBuilder.addAllMessages(message.getRawEntries());
+            } else if (!CollectionUtils.isEmpty(message.getEntries())) {
+                for (Entry entry : message.getEntries()) {
+                    messageBuilder.addMessages(entry.toByteString());
+                }
+            }
+        }
+        return messageBuilder.build();
+    }
+
+    /**
+     * 构造压缩后的MESSAGES数据包, 通过Packet的compression字段标记压缩方式
+     */
+    public static byte[] compressedMessagesPacket(Messages messages, Compression compression) throws IOException {
+        return Packet.newBuilder()
+                .setType(PacketType.MESSAGES)
+                .setVersion(VERSION)
+                .setCompression(compression)
+                .setBody(CompressionUtil.compress(compression, messages))
+                .build()
+                .toByteArray();
+    }
+
     public static byte[] errorPacket(int errorCode, String errorMessage) {
         return Packet.newBuilder()
                 .setType(CanalPacket.PacketType.ACK)
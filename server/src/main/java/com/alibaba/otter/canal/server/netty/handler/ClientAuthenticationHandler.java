@@ -1,5 +1,6 @@
 package com.alibaba.otter.canal.server.netty.handler;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
@@ -22,6 +23,7 @@ import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitors;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.CompressionUtil;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.netty.NettyUtils;
 
@@ -38,6 +40,7 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
     private final int defaultSubscriptorDisconnectIdleTimeout = 60 * 60 * 1000;
     private CanalServerWithEmbedded embeddedServer;
     private byte[] seed;
+    private Executor compressExecutor;                                                  // 压缩MESSAGES的线程池
 
     public ClientAuthenticationHandler() {
 
@@ -86,6 +89,15 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
                         MDC.remove("destination");
                     }
                 }
+                // client声明的压缩方式，不支持时忽略，按照不压缩输出
+                if (CompressionUtil.isSupported(packet.getCompression()) && compressExecutor != null) {
+                    SessionHandler sessionHandler = (SessionHandler) ctx.getPipeline()
+                            .get(SessionHandler.class.getName());
+                    sessionHandler.setCompression(packet.getCompression());
+                    ctx.getPipeline().addBefore(SessionHandler.class.getName(),
+                            CompressionHandler.class.getName(),
+                            new CompressionHandler(compressExecutor));
+                }
                 // 鉴权一次性，暂不统计
                 NettyUtils.ack(ctx.getChannel(), new ChannelFutureListener() {
 
@@ -140,4 +152,8 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
         this.seed = seed;
     }
 
+    public void setCompressExecutor(Executor compressExecutor) {
+        this.compressExecutor = compressExecutor;
+    }
+
 }
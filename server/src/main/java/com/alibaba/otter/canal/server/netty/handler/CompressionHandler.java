@@ -0,0 +1,120 @@
+package com.alibaba.otter.canal.server.netty.handler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.DownstreamMessageEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
+import com.alibaba.otter.canal.server.netty.NettyUtils;
+import com.alibaba.otter.canal.server.netty.listener.ChannelFutureAggregator;
+
+/**
+ * 在独立的线程池中压缩MESSAGES数据包，不占用netty的io线程
+ *
+ * <pre>
+ * 1. 只在client协商了压缩方式时加入pipeline，位于{@linkplain SessionHandler}之前
+ * 2. 当前channel所有的下行事件按顺序串行处理，压缩数据包不会和其他的响应乱序
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class CompressionHandler implements ChannelDownstreamHandler {
+
+    private static final Logger        logger   = LoggerFactory.getLogger(CompressionHandler.class);
+    private final Executor             executor;
+    private final Queue<ChannelEvent>  events   = new ConcurrentLinkedQueue<ChannelEvent>();
+    private final AtomicBoolean        draining = new AtomicBoolean(false);
+
+    public CompressionHandler(Executor executor){
+        this.executor = executor;
+    }
+
+    public void handleDownstream(final ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        events.offer(e);
+        schedule(ctx);
+    }
+
+    private void schedule(final ChannelHandlerContext ctx) {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        Runnable task = new Runnable() {
+
+            public void run() {
+                drain(ctx);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // server关闭中，直接在当前线程输出
+            task.run();
+        }
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        try {
+            ChannelEvent e;
+            while ((e = events.poll()) != null) {
+                try {
+                    ctx.sendDownstream(encode(e));
+                } catch (Throwable t) {
+                    logger.error("compress messages failed", t);
+                    e.getFuture().setFailure(t);
+                }
+            }
+        } finally {
+            draining.set(false);
+            // 释放标记之后可能有新提交的事件
+            if (!events.isEmpty()) {
+                schedule(ctx);
+            }
+        }
+    }
+
+    private ChannelEvent encode(ChannelEvent e) throws Exception {
+        if (!(e instanceof MessageEvent) || !(((MessageEvent) e).getMessage() instanceof PendingMessages)) {
+            return e;
+        }
+
+        MessageEvent event = (MessageEvent) e;
+        PendingMessages pending = (PendingMessages) event.getMessage();
+        byte[] body = NettyUtils.compressedMessagesPacket(pending.messages, pending.compression);
+        if (pending.aggregator != null) {
+            pending.aggregator.setAmount(body.length);
+        }
+        return new DownstreamMessageEvent(event.getChannel(),
+            event.getFuture(),
+            NettyUtils.frame(ChannelBuffers.wrappedBuffer(body)),
+            event.getRemoteAddress());
+    }
+
+    /**
+     * 待压缩输出的MESSAGES
+     */
+    public static class PendingMessages {
+
+        private final Messages                messages;
+        private final Compression             compression;
+        private final ChannelFutureAggregator aggregator;
+
+        public PendingMessages(Messages messages, Compression compression, ChannelFutureAggregator aggregator){
+            this.messages = messages;
+            this.compression = compression;
+            this.aggregator = aggregator;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.SimpleChannelHandler;
@@ -15,18 +16,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.slf4j.helpers.MessageFormatter;
-import org.springframework.util.CollectionUtils;
 
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitor;
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitors;
-import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalPacket;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Credit;
 import com.alibaba.otter.canal.protocol.CanalPacket.Get;
 import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
 import com.alibaba.otter.canal.protocol.CanalPacket.Sub;
 import com.alibaba.otter.canal.protocol.CanalPacket.Unsub;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
@@ -34,14 +36,13 @@ import com.alibaba.otter.canal.protocol.Message;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.netty.NettyUtils;
 import com.alibaba.otter.canal.server.netty.listener.ChannelFutureAggregator;
-import com.google.protobuf.ByteString;
-import com.google.protobuf.CodedOutputStream;
-import com.google.protobuf.WireFormat;
 
 public class SessionHandler extends SimpleChannelHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionHandler.class);
     private CanalServerWithEmbedded embeddedServer;
+    private volatile StreamSession streamSession;                                    // 当前channel的流式订阅
+    private volatile Compression compression = Compression.NONE;                     // 认证时client协商的压缩方式
 
     public SessionHandler() {
     }
@@ -103,6 +104,7 @@ public class SessionHandler extends SimpleChannelHandler {
                                 Short.valueOf(unsub.getClientId()),
                                 unsub.getFilter());
                         MDC.put("destination", clientIdentity.getDestination());
+                        stopStreamSession();
                         embeddedServer.unsubscribe(clientIdentity);
                         stopCanalInstanceIfNecessary(clientIdentity);// 尝试关闭
                         byte[] ackBytes = NettyUtils.ackPacket();
@@ -154,77 +156,39 @@ public class SessionHandler extends SimpleChannelHandler {
                         }
                         // }
 
-                        if (message.getId() != -1 && message.isRaw()) {
-                            List<ByteString> rowEntries = message.getRawEntries();
-                            // message size
-                            int messageSize = 0;
-                            messageSize += com.google.protobuf.CodedOutputStream.computeInt64Size(1, message.getId());
-
-                            int dataSize = 0;
-                            for (int i = 0; i < rowEntries.size(); i++) {
-                                dataSize += com.google.protobuf.CodedOutputStream.computeBytesSizeNoTag(rowEntries.get(i));
-                            }
-                            messageSize += dataSize;
-                            messageSize += 1 * rowEntries.size();
-                            // packet size
-                            int size = 0;
-                            size += com.google.protobuf.CodedOutputStream.computeEnumSize(3,
-                                    PacketType.MESSAGES.getNumber());
-                            size += com.google.protobuf.CodedOutputStream.computeTagSize(5)
-                                    + com.google.protobuf.CodedOutputStream.computeRawVarint32Size(messageSize)
-                                    + messageSize;
-                            // recyle bytes
-                            // ByteBuffer byteBuffer = (ByteBuffer)
-                            // ctx.getAttachment();
-                            // if (byteBuffer != null && size <=
-                            // byteBuffer.capacity()) {
-                            // byteBuffer.clear();
-                            // } else {
-                            // byteBuffer =
-                            // ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
-                            // ctx.setAttachment(byteBuffer);
-                            // }
-                            // CodedOutputStream output =
-                            // CodedOutputStream.newInstance(byteBuffer);
-                            byte[] body = new byte[size];
-                            CodedOutputStream output = CodedOutputStream.newInstance(body);
-                            output.writeEnum(3, PacketType.MESSAGES.getNumber());
+                        Messages messages = null;
+                        if (compression != Compression.NONE && message.getId() != -1) {
+                            messages = NettyUtils.messages(message);
+                        }
 
-                            output.writeTag(5, WireFormat.WIRETYPE_LENGTH_DELIMITED);
-                            output.writeRawVarint32(messageSize);
-                            // message
-                            output.writeInt64(1, message.getId());
-                            for (int i = 0; i < rowEntries.size(); i++) {
-                                output.writeBytes(2, rowEntries.get(i));
-                            }
-                            output.checkNoSpaceLeft();
+                        if (messages != null && messages.getSerializedSize() >= NettyUtils.COMPRESS_THRESHOLD) {
+                            // 由CompressionHandler在线程池中压缩, 完成之后更新输出的大小
+                            ChannelFutureAggregator aggregator = new ChannelFutureAggregator(get.getDestination(),
+                                    get,
+                                    packet.getType(),
+                                    0,
+                                    messages.getSerializedSize(),
+                                    System.nanoTime() - start);
+                            Channels.write(ctx.getChannel(),
+                                    new CompressionHandler.PendingMessages(messages, compression, aggregator))
+                                    .addListener(aggregator);
+                        } else if (message.getId() != -1 && message.isRaw()) {
+                            // 包头和store中的ByteString组合输出, 避免拷贝到一个完整的大数组
+                            ChannelBuffer body = NettyUtils.messagesPacket(message.getId(), message.getRawEntries());
                             NettyUtils.write(ctx.getChannel(), body, new ChannelFutureAggregator(get.getDestination(),
                                     get,
                                     packet.getType(),
-                                    body.length,
+                                    body.readableBytes(),
                                     System.nanoTime() - start,
                                     message.getId() == -1));
-
-                            // output.flush();
-                            // byteBuffer.flip();
-                            // NettyUtils.write(ctx.getChannel(), byteBuffer,
-                            // null);
                         } else {
                             Packet.Builder packetBuilder = CanalPacket.Packet.newBuilder();
                             packetBuilder.setType(PacketType.MESSAGES).setVersion(NettyUtils.VERSION);
 
-                            Messages.Builder messageBuilder = CanalPacket.Messages.newBuilder();
-                            messageBuilder.setBatchId(message.getId());
-                            if (message.getId() != -1) {
-                                if (message.isRaw() && !CollectionUtils.isEmpty(message.getRawEntries())) {
-                                    messageBuilder.addAllMessages(message.getRawEntries());
-                                } else if (!CollectionUtils.isEmpty(message.getEntries())) {
-                                    for (Entry entry : message.getEntries()) {
-                                        messageBuilder.addMessages(entry.toByteString());
-                                    }
-                                }
+                            if (messages == null) {
+                                messages = NettyUtils.messages(message);
                             }
-                            byte[] body = packetBuilder.setBody(messageBuilder.build().toByteString())
+                            byte[] body = packetBuilder.setBody(messages.toByteString())
                                     .build()
                                     .toByteArray();
                             NettyUtils.write(ctx.getChannel(), body, new ChannelFutureAggregator(get.getDestination(),
@@ -293,10 +257,15 @@ public class SessionHandler extends SimpleChannelHandler {
                             && StringUtils.isNotEmpty(rollback.getClientId())) {
                         clientIdentity = new ClientIdentity(rollback.getDestination(),
                                 Short.valueOf(rollback.getClientId()));
-                        if (rollback.getBatchId() == 0L) {
-                            embeddedServer.rollback(clientIdentity);// 回滚所有批次
-                        } else {
-                            embeddedServer.rollback(clientIdentity, rollback.getBatchId()); // 只回滚单个批次
+                        StreamSession session = streamSession;
+                        // 流式订阅中，由推送线程执行rollback并写出结束标记；
+                        // 推送异常结束时已经写出了结束标记，和非流式订阅一样直接回滚
+                        if (session == null || !session.rollback(rollback.getBatchId())) {
+                            if (rollback.getBatchId() == 0L) {
+                                embeddedServer.rollback(clientIdentity);// 回滚所有批次
+                            } else {
+                                embeddedServer.rollback(clientIdentity, rollback.getBatchId()); // 只回滚单个批次
+                            }
                         }
                         new ChannelFutureAggregator(rollback.getDestination(),
                                 rollback,
@@ -317,6 +286,60 @@ public class SessionHandler extends SimpleChannelHandler {
                                         (short) 401));
                     }
                     break;
+                case STREAM:
+                    Stream stream = CanalPacket.Stream.parseFrom(packet.getBody());
+                    MDC.put("destination", stream.getDestination());
+                    if (StringUtils.isNotEmpty(stream.getDestination()) && StringUtils.isNotEmpty(stream.getClientId())) {
+                        StreamSession session = streamSession;
+                        if (session != null && session.isRunning()) {
+                            byte[] errorBytes = NettyUtils.errorPacket(403,
+                                    MessageFormatter.format("stream is already running", stream.toString()).getMessage());
+                            NettyUtils.write(ctx.getChannel(),
+                                    errorBytes,
+                                    new ChannelFutureAggregator(stream.getDestination(),
+                                            stream,
+                                            packet.getType(),
+                                            errorBytes.length,
+                                            System.nanoTime() - start,
+                                            (short) 403));
+                        } else {
+                            clientIdentity = new ClientIdentity(stream.getDestination(),
+                                    Short.valueOf(stream.getClientId()));
+                            // 数据由推送线程按照窗口主动写出，不再需要单独的GET
+                            streamSession = new StreamSession(embeddedServer,
+                                    ctx.getChannel(),
+                                    clientIdentity,
+                                    stream,
+                                    compression);
+                            streamSession.start();
+                        }
+                    } else {
+                        byte[] errorBytes = NettyUtils.errorPacket(401,
+                                MessageFormatter.format("destination or clientId is null", stream.toString()).getMessage());
+                        NettyUtils.write(ctx.getChannel(),
+                                errorBytes,
+                                new ChannelFutureAggregator(stream.getDestination(),
+                                        stream,
+                                        packet.getType(),
+                                        errorBytes.length,
+                                        System.nanoTime() - start,
+                                        (short) 401));
+                    }
+                    break;
+                case CREDIT:
+                    Credit credit = CanalPacket.Credit.parseFrom(packet.getBody());
+                    MDC.put("destination", credit.getDestination());
+                    StreamSession session = streamSession;
+                    // rollback之后client可能还会有在途的CREDIT，直接忽略
+                    if (session != null && session.isRunning()) {
+                        session.credit(credit.getBatches(), credit.getBytes());
+                    }
+                    new ChannelFutureAggregator(credit.getDestination(),
+                            credit,
+                            packet.getType(),
+                            0,
+                            System.nanoTime() - start).operationComplete(null);
+                    break;
                 default:
                     byte[] errorBytes = NettyUtils.errorPacket(400,
                             MessageFormatter.format("packet type={} is NOT supported!", packet.getType()).getMessage());
@@ -347,6 +370,7 @@ public class SessionHandler extends SimpleChannelHandler {
     }
 
     public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        stopStreamSession();
         // logger.info("remove binding subscription value object if any...");
         // ClientIdentity clientIdentity = (ClientIdentity) ctx.getAttachment();
         // // 如果唯一的订阅者都取消了订阅，直接关闭服务，针对内部版本模式下可以减少资源浪费
@@ -355,6 +379,14 @@ public class SessionHandler extends SimpleChannelHandler {
         // }
     }
 
+    private void stopStreamSession() {
+        StreamSession session = streamSession;
+        if (session != null) {
+            session.stop();
+            streamSession = null;
+        }
+    }
+
     private void stopCanalInstanceIfNecessary(ClientIdentity clientIdentity) {
         List<ClientIdentity> clientIdentitys = embeddedServer.listAllSubscribe(clientIdentity.getDestination());
         if (clientIdentitys != null && clientIdentitys.size() == 1 && clientIdentitys.contains(clientIdentity)) {
@@ -390,4 +422,8 @@ public class SessionHandler extends SimpleChannelHandler {
         this.embeddedServer = embeddedServer;
     }
 
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
 }
@@ -0,0 +1,301 @@
+package com.alibaba.otter.canal.server.netty.handler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.helpers.MessageFormatter;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
+import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.Message;
+import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
+import com.alibaba.otter.canal.server.netty.NettyUtils;
+import com.alibaba.otter.canal.server.netty.listener.ChannelFutureAggregator;
+
+/**
+ * 流式订阅的推送会话，每个channel最多存在一个
+ *
+ * <pre>
+ * 大致设计：
+ *  1. client通过STREAM开启，同时授予初始窗口(batch数 + 字节数)
+ *  2. 推送线程在窗口允许的范围内循环getWithoutAck，主动写出MESSAGES，每个MESSAGES(包括空包)扣减1个batch和对应的字节数
+ *  3. client通过CREDIT追加窗口，窗口耗尽时推送线程等待，不再继续从store中获取数据
+ *  4. ack依旧通过CLIENTACK异步提交；rollback交给推送线程执行，执行完成后写出ACK作为推送结束的标记
+ *     推送线程异常退出时写出带错误码的ACK作为结束标记，之后的rollback不再写出结束标记
+ *  5. timeout语义与GET保持一致：-1代表即时获取，0代表一直等待有数据，其余代表超时后推送空包
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class StreamSession {
+
+    private static final Logger           logger        = LoggerFactory.getLogger(StreamSession.class);
+    private static final long             maxWaitMillis = 100;                                        // 单次等待的最长时间，及时响应rollback/stop
+
+    private final CanalServerWithEmbedded embeddedServer;
+    private final Channel                 channel;
+    private final ClientIdentity          clientIdentity;
+    private final Stream                  stream;
+    private final Compression             compression;
+    private final ReentrantLock           lock          = new ReentrantLock();
+    private final Condition               hasCredit     = lock.newCondition();
+    private int                           batches;
+    private long                          bytes;
+    private volatile Long                 rollbackBatchId;                                            // 等待执行的rollback, 0代表回滚所有批次
+    private volatile boolean              running       = false;
+    private Thread                        pushThread;
+
+    public StreamSession(CanalServerWithEmbedded embeddedServer, Channel channel, ClientIdentity clientIdentity,
+                         Stream stream, Compression compression){
+        this.embeddedServer = embeddedServer;
+        this.channel = channel;
+        this.clientIdentity = clientIdentity;
+        this.stream = stream;
+        this.compression = compression;
+        this.batches = stream.getBatches();
+        this.bytes = stream.getBytes();
+    }
+
+    public void start() {
+        running = true;
+        pushThread = new Thread(new Runnable() {
+
+            public void run() {
+                MDC.put("destination", clientIdentity.getDestination());
+                try {
+                    push();
+                } finally {
+                    MDC.remove("destination");
+                }
+            }
+        }, "StreamSession-" + clientIdentity.getDestination() + "-" + clientIdentity.getClientId());
+        pushThread.setDaemon(true);
+        pushThread.start();
+    }
+
+    public void stop() {
+        running = false;
+        signal();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ClientIdentity getClientIdentity() {
+        return clientIdentity;
+    }
+
+    /**
+     * 追加窗口
+     */
+    public void credit(int batches, long bytes) {
+        lock.lock();
+        try {
+            this.batches += batches;
+            this.bytes += bytes;
+            hasCredit.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 交给推送线程执行rollback，避免和正在进行的getWithoutAck交错。推送已经结束时返回false，由调用方直接执行rollback
+     */
+    public boolean rollback(long batchId) {
+        lock.lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            rollbackBatchId = batchId;
+            hasCredit.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            hasCredit.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void push() {
+        long timeout = stream.getTimeout();
+        boolean ended = false; // 是否已经写出结束标记
+        while (running && channel.isConnected()) {
+            try {
+                if (rollbackBatchId != null) {
+                    break;
+                }
+
+                if (!awaitCredit()) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                Message message = fetch(timeout);
+                if (message == null) {
+                    continue;
+                }
+
+                int size = write(message, start);
+                lock.lock();
+                try {
+                    batches--;
+                    bytes -= size;
+                } finally {
+                    lock.unlock();
+                }
+            } catch (Throwable e) {
+                running = false;
+                ended = true;
+                // 错误包即为推送结束的标记，保留连接，client可以继续回滚并重新订阅
+                String errorMessage = MessageFormatter.format("something goes wrong with channel:{}, exception={}",
+                    channel,
+                    ExceptionUtils.getStackTrace(e)).getMessage();
+                logger.error("ErrotCode:{} , Caused by : \n{}", 400, errorMessage);
+                NettyUtils.write(channel, NettyUtils.errorPacket(400, errorMessage), null);
+            }
+        }
+
+        // 在锁内结束推送，已经接受的rollback一定会被执行，之后的rollback由SessionHandler直接执行
+        Long rollback;
+        lock.lock();
+        try {
+            running = false;
+            rollback = rollbackBatchId;
+            rollbackBatchId = null;
+        } finally {
+            lock.unlock();
+        }
+        if (rollback != null) {
+            doRollback(rollback, !ended);
+        }
+    }
+
+    private boolean awaitCredit() throws InterruptedException {
+        lock.lock();
+        try {
+            if (batches > 0 && bytes > 0) {
+                return true;
+            }
+
+            if (running && rollbackBatchId == null) {
+                hasCredit.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按照timeout获取数据，单次最多等待maxWaitMillis，返回null代表还需要继续等待
+     */
+    private Message fetch(long timeout) {
+        if (timeout < 0) {
+            return embeddedServer.getWithoutAck(clientIdentity, stream.getFetchSize());
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while (running && rollbackBatchId == null) {
+            long wait = maxWaitMillis;
+            if (timeout > 0) {
+                wait = Math.min(wait, deadline - System.currentTimeMillis());
+                if (wait <= 0) {
+                    // 超时仍没有数据，推送空包
+                    return new Message(-1);
+                }
+            }
+
+            Message message = embeddedServer.getWithoutAck(clientIdentity,
+                stream.getFetchSize(),
+                wait,
+                TimeUnit.MILLISECONDS);
+            if (message.getId() != -1) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private int write(Message message, long start) throws Exception {
+        boolean empty = message.getId() == -1;
+        Messages messages = null;
+        if (compression != Compression.NONE && !empty) {
+            messages = NettyUtils.messages(message);
+        }
+
+        if (messages != null && messages.getSerializedSize() >= NettyUtils.COMPRESS_THRESHOLD) {
+            // 在推送线程中完成压缩，不占用netty的io线程
+            byte[] body = NettyUtils.compressedMessagesPacket(messages, compression);
+            NettyUtils.write(channel, body, new ChannelFutureAggregator(clientIdentity.getDestination(),
+                stream,
+                PacketType.STREAM,
+                body.length,
+                messages.getSerializedSize(),
+                System.nanoTime() - start));
+            return body.length;
+        } else if (message.isRaw() && !empty) {
+            // 与GET一致，包头和store中的ByteString组合输出
+            ChannelBuffer body = NettyUtils.messagesPacket(message.getId(), message.getRawEntries());
+            int size = body.readableBytes();
+            NettyUtils.write(channel, body, new ChannelFutureAggregator(clientIdentity.getDestination(),
+                stream,
+                PacketType.STREAM,
+                size,
+                System.nanoTime() - start,
+                false));
+            return size;
+        }
+
+        if (messages == null) {
+            messages = NettyUtils.messages(message);
+        }
+        byte[] body = Packet.newBuilder()
+            .setType(PacketType.MESSAGES)
+            .setVersion(NettyUtils.VERSION)
+            .setBody(messages.toByteString())
+            .build()
+            .toByteArray();
+        NettyUtils.write(channel, body, new ChannelFutureAggregator(clientIdentity.getDestination(),
+            stream,
+            PacketType.STREAM,
+            body.length,
+            System.nanoTime() - start,
+            empty));
+        return body.length;
+    }
+
+    private void doRollback(long batchId, boolean writeMarker) {
+        if (batchId == 0L) {
+            embeddedServer.rollback(clientIdentity);// 回滚所有批次
+        } else {
+            embeddedServer.rollback(clientIdentity, batchId); // 只回滚单个批次
+        }
+        if (writeMarker) {
+            // 推送结束的标记，client收到之后重新开始流式订阅
+            byte[] ackBytes = NettyUtils.ackPacket();
+            NettyUtils.write(channel, ackBytes, null);
+        }
+        logger.info("stream of clientId:{} is rolled back, batchId:{}", clientIdentity.getClientId(), batchId);
+    }
+}
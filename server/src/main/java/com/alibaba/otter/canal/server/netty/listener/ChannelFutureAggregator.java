@@ -28,6 +28,14 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
         this(destination, request, type, amount, latency, false, errorCode);
     }
 
+    /**
+     * 压缩输出的MESSAGES, uncompressedAmount为压缩前的body大小
+     */
+    public ChannelFutureAggregator(String destination, GeneratedMessageV3 request, CanalPacket.PacketType type, int amount, int uncompressedAmount, long latency) {
+        this(destination, request, type, amount, latency, false, (short) 0);
+        this.result.uncompressedAmount = uncompressedAmount + HEADER_LENGTH;
+    }
+
     private ChannelFutureAggregator(String destination, GeneratedMessageV3 request, CanalPacket.PacketType type, int amount, long latency, boolean empty, short errorCode) {
         this.result = new ClientRequestResult.Builder()
                 .destination(destination)
@@ -40,6 +48,13 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
                 .build();
     }
 
+    /**
+     * 异步压缩完成之后更新实际输出的大小
+     */
+    public void setAmount(int amount) {
+        this.result.amount = amount + HEADER_LENGTH;
+    }
+
     @Override
     public void operationComplete(ChannelFuture future) {
         // profiling after I/O operation
@@ -58,6 +73,7 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
         private CanalPacket.PacketType type;
         private GeneratedMessageV3 request;
         private int amount;
+        private int uncompressedAmount;
         private long latency;
         private short errorCode;
         private boolean empty;
@@ -71,6 +87,7 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
             this.type = Preconditions.checkNotNull(builder.type);
             this.request = builder.request;
             this.amount = builder.amount;
+            this.uncompressedAmount = builder.uncompressedAmount;
             this.latency = builder.latency;
             this.errorCode = builder.errorCode;
             this.empty = builder.empty;
@@ -84,6 +101,7 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
             private CanalPacket.PacketType type;
             private GeneratedMessageV3 request;
             private int amount;
+            private int uncompressedAmount;
             private long latency;
             private short errorCode;
             private boolean empty;
@@ -109,6 +127,11 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
                 return this;
             }
 
+            Builder uncompressedAmount(int uncompressedAmount) {
+                this.uncompressedAmount = uncompressedAmount;
+                return this;
+            }
+
             Builder latency(long latency) {
                 this.latency = latency;
                 return this;
@@ -134,6 +157,7 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
                 type = prototype.type;
                 request = prototype.request;
                 amount = prototype.amount;
+                uncompressedAmount = prototype.uncompressedAmount;
                 latency = prototype.latency;
                 errorCode = prototype.errorCode;
                 empty = prototype.empty;
@@ -163,6 +187,13 @@ public class ChannelFutureAggregator implements ChannelFutureListener {
             return amount;
         }
 
+        /**
+         * 压缩前的大小, 未压缩时为0
+         */
+        public int getUncompressedAmount() {
+            return uncompressedAmount;
+        }
+
         public long getLatency() {
             return latency;
         }
@@ -4,17 +4,24 @@ import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
 import com.alibaba.otter.canal.protocol.CanalEntry.Header;
 import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.CanalPacket.Credit;
 import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
+import com.alibaba.otter.canal.protocol.CompressionUtil;
 import com.alibaba.otter.canal.protocol.Message;
 import com.alibaba.otter.canal.protocol.exception.CanalClientException;
+import com.alibaba.otter.canal.server.netty.NettyUtils;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.WireFormat;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -55,6 +62,99 @@ public class ProtocolTest {
         }
     }
 
+    @Test
+    public void testMessagesPacket() throws IOException {
+        List<ByteString> rawEntries = new ArrayList<ByteString>();
+        for (int i = 0; i < 10; i++) {
+            Header.Builder headerBuilder = Header.newBuilder();
+            headerBuilder.setLogfileName("mysql-bin.000001");
+            headerBuilder.setLogfileOffset(1024 * i);
+            headerBuilder.setExecuteTime(1024 * i);
+            Entry.Builder entryBuilder = Entry.newBuilder();
+            entryBuilder.setHeader(headerBuilder.build());
+            entryBuilder.setEntryType(EntryType.ROWDATA);
+            // 覆盖varint长度为1个字节和2个字节的情况
+            entryBuilder.setStoreValue(ByteString.copyFrom(new byte[i * 20]));
+            rawEntries.add(entryBuilder.build().toByteString());
+        }
+        Message message = new Message(3, true, rawEntries);
+
+        ChannelBuffer buffer = NettyUtils.messagesPacket(message.getId(), message.getRawEntries());
+        byte[] body = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), body);
+        Assert.assertArrayEquals(buildData(message), body);
+
+        Packet packet = Packet.parseFrom(body);
+        Assert.assertEquals(PacketType.MESSAGES, packet.getType());
+        Messages messages = Messages.parseFrom(packet.getBody());
+        Assert.assertEquals(3, messages.getBatchId());
+        Assert.assertEquals(rawEntries, messages.getMessagesList());
+    }
+
+    @Test
+    public void testStreamPacket() throws IOException {
+        Stream stream = Stream.newBuilder()
+            .setDestination("example")
+            .setClientId("1001")
+            .setFetchSize(1000)
+            .setTimeout(-1)
+            .setBatches(4)
+            .setBytes(64 * 1024 * 1024)
+            .build();
+        Packet packet = Packet.parseFrom(Packet.newBuilder()
+            .setType(PacketType.STREAM)
+            .setBody(stream.toByteString())
+            .build()
+            .toByteArray());
+        Assert.assertEquals(PacketType.STREAM, packet.getType());
+        Assert.assertEquals(stream, Stream.parseFrom(packet.getBody()));
+        Assert.assertEquals("STREAM", PacketType.STREAM.getValueDescriptor().getName());
+
+        Credit credit = Credit.newBuilder()
+            .setDestination("example")
+            .setClientId("1001")
+            .setBatches(1)
+            .setBytes(1024)
+            .build();
+        packet = Packet.parseFrom(Packet.newBuilder()
+            .setType(PacketType.CREDIT)
+            .setBody(credit.toByteString())
+            .build()
+            .toByteArray());
+        Assert.assertEquals(PacketType.CREDIT, packet.getType());
+        Credit result = Credit.parseFrom(packet.getBody());
+        Assert.assertEquals(1, result.getBatches());
+        Assert.assertEquals(1024, result.getBytes());
+        Assert.assertEquals("Credit", Credit.getDescriptor().getName());
+    }
+
+    @Test
+    public void testCompressedMessagesPacket() throws IOException {
+        List<ByteString> rawEntries = new ArrayList<ByteString>();
+        for (int i = 0; i < 100; i++) {
+            Header.Builder headerBuilder = Header.newBuilder();
+            headerBuilder.setLogfileName("mysql-bin.000001");
+            headerBuilder.setLogfileOffset(1024 * i);
+            headerBuilder.setExecuteTime(1024 * i);
+            Entry.Builder entryBuilder = Entry.newBuilder();
+            entryBuilder.setHeader(headerBuilder.build());
+            entryBuilder.setEntryType(EntryType.ROWDATA);
+            rawEntries.add(entryBuilder.build().toByteString());
+        }
+        Messages messages = NettyUtils.messages(new Message(3, true, rawEntries));
+
+        for (Compression compression : new Compression[] { Compression.ZLIB, Compression.GZIP }) {
+            Packet packet = Packet.parseFrom(NettyUtils.compressedMessagesPacket(messages, compression));
+            Assert.assertEquals(PacketType.MESSAGES, packet.getType());
+            Assert.assertEquals(compression, packet.getCompression());
+            Assert.assertTrue(packet.getBody().size() < messages.getSerializedSize());
+
+            ByteString body = CompressionUtil.decompress(packet.getCompression(), packet.getBody());
+            Assert.assertEquals(messages, Messages.parseFrom(body));
+        }
+        Assert.assertFalse(CompressionUtil.isSupported(Compression.LZF));
+    }
+
     @SuppressWarnings("deprecation")
     private byte[] buildData(Message message) throws IOException {
         List<ByteString> rowEntries = message.getRawEntries();
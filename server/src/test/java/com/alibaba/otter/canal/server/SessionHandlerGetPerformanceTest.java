@@ -0,0 +1,175 @@
+package com.alibaba.otter.canal.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
+import com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth;
+import com.alibaba.otter.canal.protocol.CanalPacket.Get;
+import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Sub;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.Message;
+import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
+import com.alibaba.otter.canal.server.exception.CanalServerException;
+import com.alibaba.otter.canal.server.netty.CanalServerWithNetty;
+import com.alibaba.otter.canal.server.netty.NettyUtils;
+import com.google.protobuf.ByteString;
+
+/**
+ * 进程内的CanalServerWithNetty, 不同batch大小下raw模式GET的吞吐
+ */
+public class SessionHandlerGetPerformanceTest {
+
+    private static final String DESTINATION = "example";
+    private static final int    PORT        = 11188;
+    private static final int    ENTRY_SIZE  = 1024;
+
+    public static void main(String args[]) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        for (int batchBytes : new int[] { 1024 * 1024, 5 * 1024 * 1024, 20 * 1024 * 1024 }) {
+            run(batchBytes, count);
+        }
+        System.exit(0);
+    }
+
+    private static void run(int batchBytes, int count) throws Exception {
+        // 预先构造数据, 不计入耗时
+        List<ByteString> rawEntries = new ArrayList<ByteString>();
+        for (int i = 0; i < batchBytes / ENTRY_SIZE; i++) {
+            rawEntries.add(buildEntry(i).toByteString());
+        }
+        final Message message = new Message(1, true, rawEntries);
+
+        CanalServerWithEmbedded embeddedServer = new CanalServerWithEmbedded() {
+
+            public boolean isStart(String destination) {
+                return true;
+            }
+
+            public void subscribe(ClientIdentity clientIdentity) throws CanalServerException {
+            }
+
+            public Message getWithoutAck(ClientIdentity clientIdentity, int batchSize) throws CanalServerException {
+                return message;
+            }
+
+            public void ack(ClientIdentity clientIdentity, long batchId) throws CanalServerException {
+            }
+        };
+
+        CanalServerWithNetty nettyServer = CanalServerWithNetty.instance();
+        nettyServer.setEmbeddedServer(embeddedServer);
+        nettyServer.setPort(PORT);
+        nettyServer.start();
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.connect(new InetSocketAddress("127.0.0.1", PORT));
+            readNextPacket(channel); // handshake
+            writeWithHeader(channel, Packet.newBuilder()
+                .setType(PacketType.CLIENTAUTHENTICATION)
+                .setVersion(NettyUtils.VERSION)
+                .setBody(ClientAuth.newBuilder().setUsername("").build().toByteString())
+                .build()
+                .toByteArray());
+            readNextPacket(channel);
+            writeWithHeader(channel, Packet.newBuilder()
+                .setType(PacketType.SUBSCRIPTION)
+                .setVersion(NettyUtils.VERSION)
+                .setBody(Sub.newBuilder().setDestination(DESTINATION).setClientId("1").build().toByteString())
+                .build()
+                .toByteArray());
+            readNextPacket(channel);
+
+            byte[] get = Packet.newBuilder()
+                .setType(PacketType.GET)
+                .setVersion(NettyUtils.VERSION)
+                .setBody(Get.newBuilder()
+                    .setDestination(DESTINATION)
+                    .setClientId("1")
+                    .setFetchSize(rawEntries.size())
+                    .build()
+                    .toByteString())
+                .build()
+                .toByteArray();
+            byte[] ack = Packet.newBuilder()
+                .setType(PacketType.CLIENTACK)
+                .setVersion(NettyUtils.VERSION)
+                .setBody(ClientAck.newBuilder()
+                    .setDestination(DESTINATION)
+                    .setClientId("1")
+                    .setBatchId(message.getId())
+                    .build()
+                    .toByteString())
+                .build()
+                .toByteArray();
+
+            long bytes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                writeWithHeader(channel, get);
+                bytes += readNextPacket(channel);
+                writeWithHeader(channel, ack);
+            }
+            long cost = System.nanoTime() - start;
+            channel.close();
+
+            System.out.println(String.format("batch:%dKB gets:%d cost:%dms tps:%.1f/s throughput:%.1fMB/s",
+                batchBytes / 1024,
+                count,
+                cost / 1000000,
+                count * 1000000000.0 / cost,
+                bytes * 1000000000.0 / cost / 1024 / 1024));
+        } finally {
+            nettyServer.stop();
+        }
+    }
+
+    private static int readNextPacket(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(NettyUtils.HEADER_LENGTH);
+        read(channel, header);
+        int bodyLen = header.getInt(0);
+        ByteBuffer bodyBuf = ByteBuffer.allocate(bodyLen);
+        read(channel, bodyBuf);
+        return bodyLen;
+    }
+
+    private static void writeWithHeader(SocketChannel channel, byte[] body) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(NettyUtils.HEADER_LENGTH + body.length);
+        buffer.putInt(body.length);
+        buffer.put(body);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void read(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int r = channel.read(buffer);
+            if (r == -1) {
+                throw new IOException("end of stream when reading header");
+            }
+        }
+    }
+
+    private static Entry buildEntry(int index) {
+        Header.Builder headerBuilder = Header.newBuilder();
+        headerBuilder.setLogfileName("mysql-bin.000001");
+        headerBuilder.setLogfileOffset(index);
+        headerBuilder.setExecuteTime(index);
+        Entry.Builder entryBuilder = Entry.newBuilder();
+        entryBuilder.setHeader(headerBuilder.build());
+        entryBuilder.setEntryType(EntryType.ROWDATA);
+        entryBuilder.setStoreValue(ByteString.copyFrom(new byte[ENTRY_SIZE - 64]));
+        return entryBuilder.build();
+    }
+}
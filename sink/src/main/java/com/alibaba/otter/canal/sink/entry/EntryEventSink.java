@@ -3,14 +3,17 @@ package com.alibaba.otter.canal.sink.entry;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
@@ -20,19 +23,26 @@ import com.alibaba.otter.canal.sink.CanalEventDownStreamHandler;
 import com.alibaba.otter.canal.sink.CanalEventSink;
 import com.alibaba.otter.canal.sink.exception.CanalSinkException;
 import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.file.FileEventStore;
 import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.Event;
 
 /**
  * mysql binlog数据对象输出
  *
+ * <pre>
+ * 开启coalesceSize之后, 连续的多个小事务会合并为一次store写入:
+ * 1. 只合并完整的sink批次, 不拆分事务, 不影响store中的ack位点
+ * 2. 累计event数量达到coalesceSize、收到heartbeat或者等待超过coalesceLingerMicros时写入store
+ * </pre>
+ *
  * @author jianghang 2012-7-4 下午03:23:16
  * @version 1.0.0
  */
 public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry>> implements CanalEventSink<List<CanalEntry.Entry>> {
 
     private static final Logger logger = LoggerFactory.getLogger(EntryEventSink.class);
-    private static final int maxFullTimes = 10;
+    private static final long maxWaitMillis = 100;                                      // 单次阻塞等待store的最长时间
     private CanalEventStore<Event> eventStore;
     protected boolean filterTransactionEntry = false;                                        // 是否需要尽可能过滤事务头/尾
     protected boolean filterEmtryTransactionEntry = true;                                         // 是否需要过滤空的事务头/尾
@@ -45,6 +55,26 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
     protected AtomicLong lastEmptyTransactionCount = new AtomicLong(0L);
     protected AtomicLong eventsSinkBlockingTime = new AtomicLong(0L);
     protected boolean raw;
+    private final Event.Dictionary dictionary = new Event.Dictionary();          // 当前instance的journalName/gtid字典
+    protected long batchMemLimit = 0;                                            // 单次put的字节上限, <=0代表不切分
+    protected int coalesceSize = 0;                                              // 合并写入的event数量上限, <=1代表不合并
+    protected long coalesceLingerMicros = 500;                                   // 合并等待的最长时间
+    protected AtomicLong sinkTransactions = new AtomicLong(0L);                  // sink的批次数
+    protected AtomicLong sinkPuts = new AtomicLong(0L);                          // 实际写入store的次数
+    private final Object pendingLock = new Object();
+    private List<Event> pendingEvents = new ArrayList<Event>();
+    private long pendingStartTime;
+    private ScheduledExecutorService lingerExecutor;
+    private final Runnable lingerTask = new Runnable() {
+
+        public void run() {
+            try {
+                flushPending(false);
+            } catch (Throwable e) {
+                logger.error("flush coalesced events failed", e);
+            }
+        }
+    };
 
     public EntryEventSink() {
         addHandler(new HeartBeatEntryEventHandler());
@@ -56,6 +86,10 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
 
         if (eventStore instanceof MemoryEventStoreWithBuffer) {
             this.raw = ((MemoryEventStoreWithBuffer) eventStore).isRaw();
+            // 单次put最多占用1/4的字节上限, consumer释放部分内存之后就可以继续写入, 避免大事务等待store完全清空
+            this.batchMemLimit = ((MemoryEventStoreWithBuffer) eventStore).getBufferMemLimit() >> 2;
+        } else if (eventStore instanceof FileEventStore) {
+            this.raw = ((FileEventStore) eventStore).isRaw();
         }
 
         for (CanalEventDownStreamHandler handler : getHandlers()) {
@@ -63,11 +97,29 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
                 handler.start();
             }
         }
+
+        if (isCoalesce()) {
+            // 只在缓存第一批数据时调度一次, 空闲时不会定时唤醒
+            lingerExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("EntryEventSink-Coalesce",
+                true));
+        }
     }
 
     public void stop() {
         super.stop();
 
+        if (lingerExecutor != null) {
+            lingerExecutor.shutdownNow();
+            lingerExecutor = null;
+        }
+        // 已经停止, 尽力写入一次, store满的情况下丢弃, 重启后会从ack位点重新获取
+        if (!flushPending(true)) {
+            logger.warn("discard coalesced events when stop");
+            synchronized (pendingLock) {
+                pendingEvents = new ArrayList<Event>();
+            }
+        }
+
         for (CanalEventDownStreamHandler handler : getHandlers()) {
             if (handler.isStart()) {
                 handler.stop();
@@ -91,6 +143,8 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
         boolean hasRowData = false;
         boolean hasHeartBeat = false;
         List<Event> events = new ArrayList<Event>();
+        // 同一批次的数据来源相同, 共用一个LogIdentity
+        LogIdentity logIdentity = new LogIdentity(remoteAddress, -1L);
         for (CanalEntry.Entry entry : entrys) {
             if (!doFilter(entry)) {
                 continue;
@@ -111,13 +165,13 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
 
             hasRowData |= (entry.getEntryType() == EntryType.ROWDATA);
             hasHeartBeat |= (entry.getEntryType() == EntryType.HEARTBEAT);
-            Event event = new Event(new LogIdentity(remoteAddress, -1L), entry, raw);
+            Event event = new Event(logIdentity, entry, raw, dictionary);
             events.add(event);
         }
 
         if (hasRowData || hasHeartBeat) {
             // 存在row记录 或者 存在heartbeat记录，直接跳给后续处理
-            return doSink(events);
+            return coalesceAndSink(events, hasHeartBeat);
         } else {
             // 需要过滤的数据
             if (filterEmtryTransactionEntry && !CollectionUtils.isEmpty(events)) {
@@ -127,7 +181,7 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
                         || lastEmptyTransactionCount.incrementAndGet() > emptyTransctionThresold) {
                     lastEmptyTransactionCount.set(0L);
                     lastEmptyTransactionTimestamp = currentTimestamp;
-                    return doSink(events);
+                    return coalesceAndSink(events, false);
                 }
             }
 
@@ -153,50 +207,119 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
         }
     }
 
+    /**
+     * 合并连续的小事务, flushNow为true时立即写入store
+     */
+    private boolean coalesceAndSink(List<Event> events, boolean flushNow) {
+        sinkTransactions.incrementAndGet();
+        if (!isCoalesce()) {
+            sinkPuts.incrementAndGet();
+            return doSink(events);
+        }
+
+        synchronized (pendingLock) {
+            boolean first = pendingEvents.isEmpty();
+            if (first) {
+                pendingStartTime = System.nanoTime();
+            }
+            pendingEvents.addAll(events);
+            // 在parser线程上检查linger是否已经超时, 包括定时写入失败之后保留下来的数据
+            if (flushNow || pendingEvents.size() >= coalesceSize || isLingerExpired()) {
+                return flushPending(true);
+            }
+
+            ScheduledExecutorService executor = lingerExecutor;
+            if (first && executor != null) {
+                executor.schedule(lingerTask, coalesceLingerMicros, TimeUnit.MICROSECONDS);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 写入合并的数据, force为false时只写入等待超过coalesceLingerMicros的数据.
+     * 写入失败时数据保留在缓存中, 由下一次sink或者stop重新写入, 不会丢弃已经sink成功的数据
+     */
+    private boolean flushPending(boolean force) {
+        synchronized (pendingLock) {
+            if (pendingEvents.isEmpty()) {
+                return true;
+            }
+            if (!force && !isLingerExpired()) {
+                return true;
+            }
+
+            List<Event> events = pendingEvents;
+            pendingEvents = new ArrayList<Event>();
+            sinkPuts.incrementAndGet();
+            boolean success = doSink(events);
+            if (!success) {
+                pendingEvents = events;
+            }
+            return success;
+        }
+    }
+
+    private boolean isLingerExpired() {
+        return System.nanoTime() - pendingStartTime >= TimeUnit.MICROSECONDS.toNanos(coalesceLingerMicros);
+    }
+
+    private boolean isCoalesce() {
+        return coalesceSize > 1 && coalesceLingerMicros > 0;
+    }
+
     protected boolean doSink(List<Event> events) {
+        if (batchMemLimit <= 0 || events.size() <= 1) {
+            return doSinkBatch(events);
+        }
+
+        // 按照字节数切分批次, 基于store的字节上限进行反压
+        List<Event> batch = new ArrayList<Event>();
+        long batchSize = 0;
+        for (Event event : events) {
+            if (!batch.isEmpty() && batchSize + event.getRawLength() > batchMemLimit) {
+                if (!doSinkBatch(batch)) {
+                    return false;
+                }
+                batch = new ArrayList<Event>();
+                batchSize = 0;
+            }
+            batch.add(event);
+            batchSize += event.getRawLength();
+        }
+        return doSinkBatch(batch);
+    }
+
+    private boolean doSinkBatch(List<Event> events) {
         for (CanalEventDownStreamHandler<List<Event>> handler : getHandlers()) {
             events = handler.before(events);
         }
-        long blockingStart = 0L;
-        int fullTimes = 0;
-        do {
-            if (eventStore.tryPut(events)) {
-                if (fullTimes > 0) {
-                    eventsSinkBlockingTime.addAndGet(System.nanoTime() - blockingStart);
-                }
+        boolean success = eventStore.tryPut(events);
+        while (!success && running) {
+            // store已满, 阻塞等待store的ack信号, 超时后检查一下运行状态并重试
+            long blockingStart = System.nanoTime();
+            try {
+                success = eventStore.put(events, maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                eventsSinkBlockingTime.addAndGet(System.nanoTime() - blockingStart);
+            }
+
+            if (!success) {
                 for (CanalEventDownStreamHandler<List<Event>> handler : getHandlers()) {
-                    events = handler.after(events);
-                }
-                return true;
-            } else {
-                if (fullTimes == 0) {
-                    blockingStart = System.nanoTime();
-                }
-                applyWait(++fullTimes);
-                if (fullTimes % 100 == 0) {
-                    long nextStart = System.nanoTime();
-                    eventsSinkBlockingTime.addAndGet(nextStart - blockingStart);
-                    blockingStart = nextStart;
+                    events = handler.retry(events);
                 }
             }
+        }
 
+        if (success) {
             for (CanalEventDownStreamHandler<List<Event>> handler : getHandlers()) {
-                events = handler.retry(events);
+                events = handler.after(events);
             }
-
-        } while (running && !Thread.interrupted());
-        return false;
-    }
-
-    // 处理无数据的情况，避免空循环挂死
-    private void applyWait(int fullTimes) {
-        int newFullTimes = fullTimes > maxFullTimes ? maxFullTimes : fullTimes;
-        if (fullTimes <= 3) { // 3次以内
-            Thread.yield();
-        } else { // 超过3次，最多只sleep 10ms
-            LockSupport.parkNanos(1000 * 1000L * newFullTimes);
         }
-
+        return success;
     }
 
     private String getSchemaNameAndTableName(CanalEntry.Entry entry) {
@@ -223,8 +346,24 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
         this.emptyTransctionThresold = emptyTransctionThresold;
     }
 
+    public void setCoalesceSize(int coalesceSize) {
+        this.coalesceSize = coalesceSize;
+    }
+
+    public void setCoalesceLingerMicros(long coalesceLingerMicros) {
+        this.coalesceLingerMicros = coalesceLingerMicros;
+    }
+
     public AtomicLong getEventsSinkBlockingTime() {
         return eventsSinkBlockingTime;
     }
 
+    public AtomicLong getSinkTransactions() {
+        return sinkTransactions;
+    }
+
+    public AtomicLong getSinkPuts() {
+        return sinkPuts;
+    }
+
 }
@@ -15,6 +15,9 @@ import com.alibaba.otter.canal.store.model.Event;
  * 1. 多库合并时，需要控制不满足groupSize的条件，就会阻塞其他库的合并操作.  (比如刚启动时会所有通道正常工作才开始合并，或者中间过程出现主备切换)
  * 2. 库解析出现问题，但没有进行主备切换，此时需要通过{@linkplain CanalEventDownStreamHandler}进行定时监听合并数据的产生时间间隔
  *    a. 因为一旦库解析异常，就不会再sink数据，此时groupSize就会一直缺少，就会阻塞其他库的合并，也就是不会有数据写入到store中
+ * 3. 开启parallelMerge后，使用{@linkplain TimelineMerger}代替barrier，各个库只需要写入自己的队列，由单独的merger线程归并写入store
+ *    a. sink等到数据被merger写入store之后才返回成功，parser记录的位点不会超前于store中的数据
+ *    b. merger写入store失败之后会退出，后续的sink会直接抛出异常
  * </pre>
  *
  * @author jianghang 2012-10-15 下午09:54:18
@@ -24,6 +27,9 @@ public class GroupEventSink extends EntryEventSink {
 
     private int groupSize;
     private GroupBarrier barrier;  // 归并排序需要预先知道组的大小，用于判断是否组内所有的sink都已经开始正常取数据
+    private boolean parallelMerge = false; // 是否使用merger线程进行多路归并
+    private long mergeToleranceMillis = 0;  // 允许超前于空闲库最后一次输出时间的毫秒数
+    private TimelineMerger merger;
 
     public GroupEventSink() {
         this(1);
@@ -35,16 +41,43 @@ public class GroupEventSink extends EntryEventSink {
     }
 
     public void start() {
+        // 归并需要每个事务单独通过barrier, 不支持合并写入
+        coalesceSize = 0;
         super.start();
 
-        if (filterTransactionEntry) {
+        if (parallelMerge) {
+            merger = new TimelineMerger(groupSize, mergeToleranceMillis, !filterTransactionEntry) {
+
+                protected boolean emit(List<Event> events) {
+                    return doMergeSink(events);
+                }
+            };
+            merger.start();
+        } else if (filterTransactionEntry) {
             barrier = new TimelineBarrier(groupSize);
         } else {
             barrier = new TimelineTransactionBarrier(groupSize);// 支持事务保留
         }
     }
 
+    public void stop() {
+        if (merger != null) {
+            merger.stop();
+            merger = null;
+        }
+        super.stop();
+    }
+
     protected boolean doSink(List<Event> events) {
+        if (merger != null) {
+            try {
+                merger.put(events);
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+
         int size = events.size();
         for (int i = 0; i < events.size(); i++) {
             Event event = events.get(i);
@@ -69,7 +102,23 @@ public class GroupEventSink extends EntryEventSink {
 
     public void interrupt() {
         super.interrupt();
-        barrier.interrupt();
+        if (merger != null) {
+            merger.interrupt();
+        } else if (barrier != null) {
+            barrier.interrupt();
+        }
+    }
+
+    private boolean doMergeSink(List<Event> events) {
+        return super.doSink(events);
+    }
+
+    public void setParallelMerge(boolean parallelMerge) {
+        this.parallelMerge = parallelMerge;
+    }
+
+    public void setMergeToleranceMillis(long mergeToleranceMillis) {
+        this.mergeToleranceMillis = mergeToleranceMillis;
     }
 
 }
@@ -0,0 +1,293 @@
+package com.alibaba.otter.canal.sink.entry.group;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.sink.exception.CanalSinkException;
+import com.alibaba.otter.canal.store.model.Event;
+
+/**
+ * 基于堆的多路归并，作为{@linkplain TimelineBarrier}的并行替代
+ *
+ * <pre>
+ * 大致设计：
+ *  1. 每个sink线程对应一个source，提交一批数据之后等待merger输出完成才返回，parser记录的位点不会超过已写入store的数据
+ *  2. 由单个merger线程按照待输出数据的timestamp构造最小堆，依次输出最小的数据，只唤醒对应的sink线程
+ *  3. 没有待输出数据的source，只有当堆顶数据的timestamp <= 该source最后一次输出的timestamp + tolerance时才允许输出，
+ *     tolerance=0时等价于{@linkplain TimelineBarrier}的严格归并
+ *  4. source数量不满足groupSize时阻塞所有输出；sink线程退出后对应的source会被剔除，直到新的sink线程(比如主备切换后重建的parser)补上
+ *  5. 按事务合并时，source输出了事务头之后会一直独占，直到输出事务尾
+ *  6. 输出失败时merger退出，等待中以及后续的put直接抛出异常，由parser从上一次记录的位点重启
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public abstract class TimelineMerger extends AbstractCanalLifeCycle {
+
+    private static final Logger            logger         = LoggerFactory.getLogger(TimelineMerger.class);
+    private static final long              maxWaitMillis  = 100;                                          // 单次等待数据的最长时间
+
+    private final int                      groupSize;
+    private final long                     toleranceMillis;
+    private final boolean                  transaction;
+    private final ConcurrentMap<Thread, Source> sources   = new ConcurrentHashMap<Thread, Source>();
+    private final ReentrantLock            lock           = new ReentrantLock();
+    private final Condition                notEmpty       = lock.newCondition();
+    private volatile boolean               waiting        = false;
+    private volatile Source                current;                                                       // 事务独占中的source
+    private volatile Throwable             failure;                                                       // merger输出失败的原因
+    private Thread                         mergeThread;
+
+    public TimelineMerger(int groupSize, long toleranceMillis, boolean transaction){
+        this.groupSize = groupSize;
+        this.toleranceMillis = toleranceMillis;
+        this.transaction = transaction;
+    }
+
+    public void start() {
+        super.start();
+        mergeThread = new Thread(new Runnable() {
+
+            public void run() {
+                merge();
+            }
+        }, "TimelineMerger");
+        mergeThread.setDaemon(true);
+        mergeThread.start();
+    }
+
+    public void stop() {
+        super.stop();
+        if (mergeThread != null) {
+            mergeThread.interrupt();
+            try {
+                mergeThread.join(maxWaitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mergeThread = null;
+        }
+        sources.clear();
+    }
+
+    /**
+     * 提交当前线程的一批数据，阻塞到merger将其写入store为止
+     */
+    public void put(List<Event> events) throws InterruptedException {
+        checkFailure();
+        Thread thread = Thread.currentThread();
+        Source source = sources.get(thread);
+        if (source == null) {
+            source = new Source(thread);
+            Source old = sources.putIfAbsent(thread, source);
+            if (old != null) {
+                source = old;
+            }
+        }
+
+        // 之前被中断的一批可能还没有输出
+        awaitEmitted(source);
+        source.pending = events;
+        // merger在等待前会先设置waiting再重新检查一次, 只有merger真正等待时才需要加锁通知
+        if (waiting) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        awaitEmitted(source);
+    }
+
+    private void awaitEmitted(Source source) throws InterruptedException {
+        while (source.pending != null) {
+            // merger已经退出时不会再输出, 避免一直阻塞
+            checkFailure();
+            if (!running) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(maxWaitMillis));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 当前线程的source出现异常，解除事务独占，允许其他source输出
+     */
+    public void interrupt() {
+        Source source = current;
+        if (source != null && source.owner == Thread.currentThread()) {
+            current = null;
+        }
+    }
+
+    /**
+     * 按timestamp顺序输出数据
+     */
+    protected abstract boolean emit(List<Event> events);
+
+    private void merge() {
+        PriorityQueue<Source> heap = new PriorityQueue<Source>(Math.max(groupSize, 1), new Comparator<Source>() {
+
+            public int compare(Source o1, Source o2) {
+                long t1 = o1.headTimestamp();
+                long t2 = o2.headTimestamp();
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        });
+        List<Source> missing = new ArrayList<Source>();
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                Source source = next(heap, missing);
+                if (source == null) {
+                    await(heap, missing);
+                    continue;
+                }
+
+                List<Event> events = source.pending;
+                if (!emit(events)) {
+                    if (running) {
+                        failure = new CanalSinkException("emit merged events failed");
+                    }
+                    return;
+                }
+                source.lastTimestamp = events.get(events.size() - 1).getExecuteTime();
+                if (transaction) {
+                    current = updateTransaction(source, events) ? source : null;
+                }
+
+                // 先移出堆再清理待输出数据, 其他source在堆中的位置不变
+                if (source.queued) {
+                    heap.remove(source);
+                    source.queued = false;
+                }
+                // 输出成功之后才唤醒对应的sink线程
+                source.pending = null;
+                LockSupport.unpark(source.owner);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable e) {
+                logger.error("merge events failed", e);
+                failure = e;
+                return;
+            }
+        }
+    }
+
+    private void checkFailure() {
+        Throwable e = failure;
+        if (e != null) {
+            throw new CanalSinkException("timeline merger failed", e);
+        }
+    }
+
+    /**
+     * 选出允许输出的source，没有时返回null
+     */
+    private Source next(PriorityQueue<Source> heap, List<Source> missing) {
+        // 只有merger线程会清理待输出数据，已经在堆中的source不变，只需要检查之前为空的source
+        missing.clear();
+        Iterator<Source> it = sources.values().iterator();
+        while (it.hasNext()) {
+            Source source = it.next();
+            if (source.queued) {
+                continue;
+            }
+            if (source.pending != null) {
+                heap.add(source);
+                source.queued = true;
+            } else if (!source.owner.isAlive()) {
+                // 对应的sink线程已经退出(比如主备切换后重建了parser)，剔除占位
+                it.remove();
+                if (current == source) {
+                    current = null;
+                }
+            } else {
+                missing.add(source);
+            }
+        }
+
+        Source tx = current;
+        if (tx != null) {
+            // 事务独占中，只允许当前source输出
+            return tx.pending == null ? null : tx;
+        }
+
+        if (heap.size() + missing.size() < groupSize) {
+            return null;
+        }
+
+        Source min = heap.peek();
+        if (min == null) {
+            return null;
+        }
+
+        long timestamp = min.headTimestamp();
+        for (Source source : missing) {
+            if (source.lastTimestamp == Long.MIN_VALUE || timestamp > source.lastTimestamp + toleranceMillis) {
+                return null;
+            }
+        }
+        return min;
+    }
+
+    private void await(PriorityQueue<Source> heap, List<Source> missing) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting = true;
+            if (next(heap, missing) == null) {
+                notEmpty.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            waiting = false;
+            lock.unlock();
+        }
+    }
+
+    private boolean updateTransaction(Source source, List<Event> events) {
+        boolean inTransaction = (current == source);
+        for (Event event : events) {
+            if (event.getEntryType() == EntryType.TRANSACTIONBEGIN) {
+                inTransaction = true;
+            } else if (event.getEntryType() == EntryType.TRANSACTIONEND) {
+                inTransaction = false;
+            }
+        }
+        return inTransaction;
+    }
+
+    private static class Source {
+
+        private final Thread               owner;
+        private volatile List<Event>       pending;                                       // 等待输出的数据, 输出之后由merger清理
+        private volatile long              lastTimestamp = Long.MIN_VALUE;               // 最后一次输出的timestamp
+        private boolean                    queued        = false;                        // 是否在merger的堆中, 只由merger线程访问
+
+        Source(Thread owner){
+            this.owner = owner;
+        }
+
+        long headTimestamp() {
+            List<Event> events = pending;
+            return events != null ? events.get(0).getExecuteTime() : Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.alibaba.otter.canal.sink;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.sink.entry.EntryEventSink;
+import com.alibaba.otter.canal.sink.stub.DummyEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.model.Event;
+
+public class EntryEventSinkCoalesceTest {
+
+    private final InetSocketAddress address = new InetSocketAddress("127.0.0.1", 3306);
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final List<Integer> puts = Collections.synchronizedList(new ArrayList<Integer>());
+        DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean tryPut(List<Event> datas) throws CanalStoreException {
+                puts.add(datas.size());
+                return true;
+            }
+        };
+
+        EntryEventSink eventSink = new EntryEventSink();
+        eventSink.setEventStore(eventStore);
+        eventSink.setCoalesceSize(10);
+        eventSink.setCoalesceLingerMicros(50 * 1000);
+        eventSink.start();
+
+        for (int i = 0; i < 25; i++) {
+            Assert.assertTrue(eventSink.sink(Arrays.asList(buildEntry("1", 1L + i, 1L + i)), address, "ljhtest1"));
+        }
+        // 剩余不满coalesceSize的数据在linger之后写入
+        Thread.sleep(200L);
+
+        int total = 0;
+        for (Integer size : puts) {
+            total += size;
+        }
+        Assert.assertEquals(25, total);
+        Assert.assertTrue(puts.size() < 25);
+        Assert.assertEquals(25, eventSink.getSinkTransactions().get());
+        Assert.assertEquals(puts.size(), eventSink.getSinkPuts().get());
+        eventSink.stop();
+    }
+
+    @Test
+    public void testLingerFlushFailed() throws Exception {
+        final List<Integer> puts = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicBoolean full = new AtomicBoolean(true);
+        DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean put(List<Event> datas, long timeout, TimeUnit unit) throws InterruptedException,
+                                                                               CanalStoreException {
+                unit.sleep(timeout);
+                return tryPut(datas);
+            }
+
+            public boolean tryPut(List<Event> datas) throws CanalStoreException {
+                if (full.get()) {
+                    return false;
+                }
+                puts.add(datas.size());
+                return true;
+            }
+        };
+
+        EntryEventSink eventSink = new EntryEventSink();
+        eventSink.setEventStore(eventStore);
+        eventSink.setCoalesceSize(10);
+        eventSink.setCoalesceLingerMicros(10 * 1000);
+        eventSink.start();
+
+        Assert.assertTrue(eventSink.sink(Arrays.asList(buildEntry("1", 1L, 1L)), address, "ljhtest1"));
+        // 定时写入阻塞在store上, 停止之后写入失败的数据不会被丢弃
+        Thread.sleep(50L);
+        full.set(false);
+        eventSink.stop();
+        Assert.assertEquals(Arrays.asList(1), puts);
+    }
+
+    private static Entry buildEntry(String binlogFile, long offset, long timestamp) {
+        Header.Builder headerBuilder = Header.newBuilder();
+        headerBuilder.setLogfileName(binlogFile);
+        headerBuilder.setLogfileOffset(offset);
+        headerBuilder.setExecuteTime(timestamp);
+        headerBuilder.setEventType(EventType.INSERT);
+        Entry.Builder entryBuilder = Entry.newBuilder();
+        entryBuilder.setHeader(headerBuilder.build());
+        entryBuilder.setEntryType(EntryType.ROWDATA);
+        return entryBuilder.build();
+    }
+}
@@ -1,18 +1,25 @@
 package com.alibaba.otter.canal.sink;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.commons.lang.math.RandomUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalEntry.Header;
 import com.alibaba.otter.canal.sink.entry.group.GroupEventSink;
+import com.alibaba.otter.canal.sink.exception.CanalSinkException;
 import com.alibaba.otter.canal.sink.stub.DummyEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.model.Event;
 
 public class GroupEventSinkTest {
 
@@ -105,6 +112,113 @@ public class GroupEventSinkTest {
         executor.shutdownNow();
     }
 
+    @Test
+    public void testParallelMerge() throws Exception {
+        final List<Long> timestamps = Collections.synchronizedList(new ArrayList<Long>());
+        DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean tryPut(List<Event> datas) throws CanalStoreException {
+                for (Event event : datas) {
+                    timestamps.add(event.getExecuteTime());
+                }
+                return true;
+            }
+        };
+
+        final GroupEventSink eventSink = new GroupEventSink(3);
+        eventSink.setFilterTransactionEntry(true);
+        eventSink.setEventStore(eventStore);
+        eventSink.setParallelMerge(true);
+        eventSink.start();
+
+        final CountDownLatch advance = new CountDownLatch(1);
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+
+                public void run() {
+                    try {
+                        for (int j = 0; j < 100; j++) {
+                            long timestamp = 1L + index + j * 3;
+                            eventSink.sink(Arrays.asList(buildEntry("1", timestamp, timestamp)),
+                                address,
+                                "ljhtest" + index);
+                        }
+                        // sink线程退出后groupSize不满足, 会阻塞剩余数据的归并, 这里保持存活继续输出
+                        advance.await();
+                        long timestamp = 301L + index;
+                        eventSink.sink(Arrays.asList(buildEntry("1", timestamp, timestamp)), address, "ljhtest" + index);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        waitForSize(timestamps, 298);
+        Thread.sleep(200L);
+        // 严格归并, 第一个库空闲时不能输出超过其最后一次输出时间的数据
+        Assert.assertEquals(298, timestamps.size());
+
+        advance.countDown();
+        waitForSize(timestamps, 301);
+        Thread.sleep(200L);
+        // 302和303需要等待第一个库的下一次输出, stop之后对应的sink返回失败
+        eventSink.stop();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(301, timestamps.size());
+        for (int i = 0; i < timestamps.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i + 1), timestamps.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelMergeFailed() throws Exception {
+        DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean tryPut(List<Event> datas) throws CanalStoreException {
+                throw new CanalStoreException("store failed");
+            }
+        };
+
+        GroupEventSink eventSink = new GroupEventSink(1);
+        eventSink.setFilterTransactionEntry(true);
+        eventSink.setEventStore(eventStore);
+        eventSink.setParallelMerge(true);
+        eventSink.start();
+
+        // 写入store失败时sink不能返回成功, 否则parser会记录未写入数据的位点
+        CanalSinkException failure = null;
+        try {
+            eventSink.sink(Arrays.asList(buildEntry("1", 1L, 1L)), address, "ljhtest1");
+        } catch (CanalSinkException e) {
+            failure = e;
+        }
+        Assert.assertNotNull(failure);
+        Assert.assertTrue(failure.getCause() instanceof CanalStoreException);
+
+        // merger退出之后, 后续的sink直接失败
+        try {
+            eventSink.sink(Arrays.asList(buildEntry("1", 2L, 2L)), address, "ljhtest1");
+            Assert.fail();
+        } catch (CanalSinkException e) {
+            Assert.assertTrue(e.getCause() instanceof CanalStoreException);
+        } finally {
+            eventSink.stop();
+        }
+    }
+
+    private static void waitForSize(List<?> list, int size) throws InterruptedException {
+        for (int i = 0; i < 100 && list.size() < size; i++) {
+            Thread.sleep(50L);
+        }
+    }
+
     private static Entry buildEntry(String binlogFile, long offset, long timestamp) {
         Header.Builder headerBuilder = Header.newBuilder();
         headerBuilder.setLogfileName(binlogFile);
@@ -0,0 +1,64 @@
+package com.alibaba.otter.canal.store;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 支持多个client独立消费的store, 每个client拥有独立的get/ack下标, 数据只有在所有client都ack之后才会被回收
+ *
+ * @since 1.1.5
+ */
+public interface CanalMultiClientEventStore<T> extends CanalEventStore<T> {
+
+    /**
+     * 注册client的下标, 从client已经ack的position之后开始消费, 注册之后即参与数据回收的判断. 重复订阅时保留已有的下标
+     */
+    void subscribe(ClientIdentity clientIdentity, Position position) throws CanalStoreException;
+
+    /**
+     * 获取指定client的数据，阻塞等待其操作完成
+     */
+    Events<T> get(ClientIdentity clientIdentity, Position start, int batchSize) throws InterruptedException,
+            CanalStoreException;
+
+    /**
+     * 获取指定client的数据，阻塞等待其操作完成或者时间超时
+     */
+    Events<T> get(ClientIdentity clientIdentity, Position start, int batchSize, long timeout, TimeUnit unit)
+            throws InterruptedException, CanalStoreException;
+
+    /**
+     * 等待指定client存在可获取的数据(数量>=batchSize)，不会移动get下标
+     */
+    void waitFor(ClientIdentity clientIdentity, Position start, int batchSize) throws InterruptedException,
+            CanalStoreException;
+
+    /**
+     * 等待指定client存在可获取的数据(数量>=batchSize)或者时间超时，不会移动get下标，返回数据是否足够
+     */
+    boolean waitFor(ClientIdentity clientIdentity, Position start, int batchSize, long timeout, TimeUnit unit)
+            throws InterruptedException, CanalStoreException;
+
+    /**
+     * 获取指定client的数据，即时返回
+     */
+    Events<T> tryGet(ClientIdentity clientIdentity, Position start, int batchSize) throws CanalStoreException;
+
+    /**
+     * 确认指定client在seqId之前的数据
+     */
+    void ack(ClientIdentity clientIdentity, Position position, Long seqId) throws CanalStoreException;
+
+    /**
+     * 回滚指定client未ack的get状态
+     */
+    void rollback(ClientIdentity clientIdentity) throws CanalStoreException;
+
+    /**
+     * 移除client的下标, 不再阻塞数据回收
+     */
+    void unsubscribe(ClientIdentity clientIdentity) throws CanalStoreException;
+}
@@ -0,0 +1,50 @@
+package com.alibaba.otter.canal.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.otter.canal.store.model.BatchMode;
+
+/**
+ * store对外暴露的监控信息
+ *
+ * @since 1.1.5
+ */
+public interface CanalStoreMetrics {
+
+    BatchMode getBatchMode();
+
+    /**
+     * store的容量, 内存store为ringbuffer大小, 文件store为segment数量
+     */
+    int getBufferSize();
+
+    AtomicLong getPutSequence();
+
+    AtomicLong getAckSequence();
+
+    AtomicLong getPutMemSize();
+
+    AtomicLong getAckMemSize();
+
+    /**
+     * 当前store中数据实际占用的堆内存字节数, 数据不在堆内存中的store返回null
+     */
+    AtomicLong getRetainedMemSize();
+
+    /**
+     * 启动以来占用堆内存的峰值, 数据不在堆内存中的store返回null
+     */
+    AtomicLong getPeakRetainedMemSize();
+
+    AtomicLong getPutExecTime();
+
+    AtomicLong getGetExecTime();
+
+    AtomicLong getAckExecTime();
+
+    AtomicLong getPutTableRows();
+
+    AtomicLong getGetTableRows();
+
+    AtomicLong getAckTableRows();
+}
@@ -0,0 +1,179 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.position.LogIdentity;
+import com.alibaba.otter.canal.store.model.Event;
+import com.google.protobuf.ByteString;
+
+/**
+ * {@linkplain Event}的二进制编码, 位点相关的字段在前, entry数据在最后, 读取时可以只解析位点信息
+ *
+ * @since 1.1.5
+ */
+class EventCodec {
+
+    private static final Charset UTF_8         = Charset.forName("UTF-8");
+    private static final byte    PAYLOAD_NONE  = 0;
+    private static final byte    PAYLOAD_RAW   = 1;
+    private static final byte    PAYLOAD_ENTRY = 2;
+
+    private final Output         output        = new Output();
+    private final DataOutputStream data        = new DataOutputStream(output);
+
+    /**
+     * 编码到内部buffer中, 返回的数组在下一次encode前有效
+     */
+    byte[] encode(Event event) throws IOException {
+        output.reset();
+        data.writeLong(event.getExecuteTime());
+        data.writeLong(event.getPosition());
+        data.writeLong(event.getServerId());
+        data.writeLong(event.getRawLength());
+        data.writeInt(event.getRowsCount());
+        data.writeInt(event.getEntryType() != null ? event.getEntryType().getNumber() : -1);
+        data.writeInt(event.getEventType() != null ? event.getEventType().getNumber() : -1);
+        writeString(event.getJournalName());
+        writeString(event.getGtid());
+
+        LogIdentity identity = event.getLogIdentity();
+        if (identity == null) {
+            data.writeByte(0);
+        } else {
+            data.writeByte(1);
+            InetSocketAddress address = identity.getSourceAddress();
+            if (address == null) {
+                data.writeByte(0);
+            } else {
+                data.writeByte(1);
+                writeString(address.getHostString());
+                // 保存ip, 读取时避免dns解析
+                writeBytes(address.getAddress() != null ? address.getAddress().getAddress() : null);
+                data.writeInt(address.getPort());
+            }
+            data.writeLong(identity.getSlaveId() != null ? identity.getSlaveId() : Long.MIN_VALUE);
+        }
+
+        if (event.getRawEntry() != null) {
+            data.writeByte(PAYLOAD_RAW);
+            data.writeInt(event.getRawEntry().size());
+            event.getRawEntry().writeTo(data);
+        } else if (event.getEntry() != null) {
+            data.writeByte(PAYLOAD_ENTRY);
+            data.writeInt(event.getEntry().getSerializedSize());
+            event.getEntry().writeTo(data);
+        } else {
+            data.writeByte(PAYLOAD_NONE);
+        }
+        data.flush();
+        return output.array();
+    }
+
+    int size() {
+        return output.size();
+    }
+
+    /**
+     * 解码Event, withPayload为false时只解析位点等元信息
+     */
+    static Event decode(ByteBuffer buffer, boolean withPayload) throws IOException {
+        Event event = new Event();
+        event.setExecuteTime(buffer.getLong());
+        event.setPosition(buffer.getLong());
+        event.setServerId(buffer.getLong());
+        event.setRawLength(buffer.getLong());
+        event.setRowsCount(buffer.getInt());
+        int entryType = buffer.getInt();
+        event.setEntryType(entryType >= 0 ? EntryType.valueOf(entryType) : null);
+        int eventType = buffer.getInt();
+        event.setEventType(eventType >= 0 ? EventType.valueOf(eventType) : null);
+        event.setJournalName(readString(buffer));
+        event.setGtid(readString(buffer));
+
+        if (buffer.get() == 1) {
+            LogIdentity identity = new LogIdentity();
+            if (buffer.get() == 1) {
+                String host = readString(buffer);
+                byte[] ip = readBytes(buffer);
+                int port = buffer.getInt();
+                if (ip != null) {
+                    identity.setSourceAddress(new InetSocketAddress(InetAddress.getByAddress(host, ip), port));
+                } else {
+                    identity.setSourceAddress(InetSocketAddress.createUnresolved(host, port));
+                }
+            }
+            long slaveId = buffer.getLong();
+            identity.setSlaveId(slaveId != Long.MIN_VALUE ? slaveId : null);
+            event.setLogIdentity(identity);
+        }
+
+        if (withPayload) {
+            byte payloadType = buffer.get();
+            if (payloadType != PAYLOAD_NONE) {
+                // 直接从映射内存拷贝一次
+                int length = buffer.getInt();
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                ByteString bytes = ByteString.copyFrom(payload);
+                if (payloadType == PAYLOAD_RAW) {
+                    event.setRawEntry(bytes);
+                } else {
+                    event.setEntry(CanalEntry.Entry.parseFrom(bytes));
+                }
+            }
+        }
+        return event;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value != null ? value.getBytes(UTF_8) : null);
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(value.length);
+            data.write(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] value = readBytes(buffer);
+        return value != null ? new String(value, UTF_8) : null;
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    /**
+     * 暴露内部数组, 避免toByteArray的拷贝
+     */
+    private static class Output extends ByteArrayOutputStream {
+
+        public Output(){
+            super(4096);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * 一个append-only的segment文件, 以及对应的稀疏索引文件
+ *
+ * <pre>
+ * 1. 数据文件(.log): 预分配capacity大小并整体mmap, 记录格式为 [int length][int crc32][body], length为0代表文件结尾
+ * 2. 索引文件(.idx): 每indexInterval条记录保存一次记录的文件偏移(int), 第i项对应sequence = baseSequence + i * indexInterval
+ * 3. 文件名为segment中第一条记录的sequence
+ * </pre>
+ *
+ * NOTE: 非线程安全, 由{@linkplain FileEventStore}加锁访问
+ *
+ * @since 1.1.5
+ */
+class EventSegment {
+
+    static final String      LOG_SUFFIX  = ".log";
+    static final String      IDX_SUFFIX  = ".idx";
+    static final int         HEADER_SIZE = 8;
+
+    private final long       baseSequence;
+    private final File       logFile;
+    private final File       indexFile;
+    private final int        indexInterval;
+    private RandomAccessFile logRaf;
+    private MappedByteBuffer buffer;
+    private RandomAccessFile indexRaf;
+    private int[]            index       = new int[16];
+    private int              indexCount;
+    private int              writePosition;
+    private int              count;
+    private final CRC32      crc         = new CRC32();
+
+    private EventSegment(File dir, long baseSequence, int indexInterval){
+        this.baseSequence = baseSequence;
+        this.indexInterval = indexInterval;
+        this.logFile = new File(dir, fileName(baseSequence) + LOG_SUFFIX);
+        this.indexFile = new File(dir, fileName(baseSequence) + IDX_SUFFIX);
+    }
+
+    /**
+     * 创建一个新的segment
+     */
+    static EventSegment create(File dir, long baseSequence, int capacity, int indexInterval) throws IOException {
+        EventSegment segment = new EventSegment(dir, baseSequence, indexInterval);
+        segment.open(capacity);
+        segment.indexRaf.setLength(0);
+        return segment;
+    }
+
+    /**
+     * 加载已存在的segment, 通过索引定位到最后一个索引点后再扫描出文件结尾
+     */
+    static EventSegment load(File dir, long baseSequence, int indexInterval) throws IOException {
+        EventSegment segment = new EventSegment(dir, baseSequence, indexInterval);
+        segment.open((int) segment.logFile.length());
+        segment.recover();
+        return segment;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d", baseSequence);
+    }
+
+    /**
+     * 追加一条记录, 调用前需要通过{@link #hasRemaining(int)}确认空间
+     */
+    void append(byte[] data, int length) {
+        if (count % indexInterval == 0) {
+            addIndex(writePosition, true);
+        }
+
+        crc.reset();
+        crc.update(data, 0, length);
+        buffer.putInt(writePosition + 4, (int) crc.getValue());
+        buffer.position(writePosition + HEADER_SIZE);
+        buffer.put(data, 0, length);
+        // 最后写入长度, 保证扫描时看到的记录是完整的
+        buffer.putInt(writePosition, length);
+        writePosition += HEADER_SIZE + length;
+        count++;
+    }
+
+    boolean hasRemaining(int length) {
+        return writePosition + HEADER_SIZE + length <= buffer.capacity();
+    }
+
+    /**
+     * 查找sequence对应记录的文件偏移
+     */
+    int offsetOf(long sequence) {
+        if (sequence < baseSequence || sequence > lastSequence()) {
+            throw new IllegalArgumentException("sequence " + sequence + " is out of segment " + logFile.getName());
+        }
+
+        long delta = sequence - baseSequence;
+        int offset = index[(int) (delta / indexInterval)];
+        for (long i = delta % indexInterval; i > 0; i--) {
+            offset = nextOffset(offset);
+        }
+        return offset;
+    }
+
+    int nextOffset(int offset) {
+        return offset + HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    /**
+     * 返回offset处记录的body, 与segment共享内存, 只读
+     */
+    ByteBuffer read(int offset) {
+        int length = buffer.getInt(offset);
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + HEADER_SIZE);
+        body.limit(offset + HEADER_SIZE + length);
+        return body.slice();
+    }
+
+    /**
+     * 只保留sequence(包含)之前的记录
+     */
+    void truncate(long sequence) throws IOException {
+        int keep = (int) Math.max(sequence - baseSequence + 1, 0);
+        if (keep >= count) {
+            return;
+        }
+
+        int end = keep > 0 ? nextOffset(offsetOf(sequence)) : 0;
+        for (int i = end; i < writePosition; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        writePosition = end;
+        count = keep;
+        indexCount = (keep + indexInterval - 1) / indexInterval;
+        indexRaf.setLength((long) indexCount * 4);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * 最后一条记录的sequence, 空segment返回baseSequence - 1
+     */
+    long lastSequence() {
+        return baseSequence + count - 1;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        unmap(buffer);
+        buffer = null;
+        if (logRaf != null) {
+            logRaf.close();
+            logRaf = null;
+        }
+        if (indexRaf != null) {
+            indexRaf.close();
+            indexRaf = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        logFile.delete();
+        indexFile.delete();
+    }
+
+    private void open(int capacity) throws IOException {
+        logRaf = new RandomAccessFile(logFile, "rw");
+        // READ_WRITE映射会自动扩展文件到capacity大小
+        buffer = logRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        indexRaf = new RandomAccessFile(indexFile, "rw");
+    }
+
+    private void recover() throws IOException {
+        // 读取已持久化的索引, 最后一个索引点之前的记录不需要再扫描
+        int persisted = (int) (indexRaf.length() / 4);
+        indexRaf.seek(0);
+        for (int i = 0; i < persisted; i++) {
+            addIndex(indexRaf.readInt(), false);
+        }
+
+        int offset = 0;
+        count = 0;
+        if (indexCount > 0 && isValid(index[indexCount - 1])) {
+            offset = index[indexCount - 1];
+            count = (indexCount - 1) * indexInterval;
+        } else {
+            indexCount = 0;
+        }
+
+        while (isValid(offset)) {
+            if (count % indexInterval == 0 && count / indexInterval >= indexCount) {
+                addIndex(offset, false);
+            }
+            offset = nextOffset(offset);
+            count++;
+        }
+        writePosition = offset;
+        indexCount = (count + indexInterval - 1) / indexInterval;
+
+        // 清理掉不完整的尾部数据(掉电时页面可能乱序落盘, 需要清理到文件结尾), 并重写索引文件
+        for (int i = writePosition; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        indexRaf.setLength(0);
+        for (int i = 0; i < indexCount; i++) {
+            indexRaf.writeInt(index[i]);
+        }
+    }
+
+    private boolean isValid(int offset) {
+        if (offset < 0 || offset + HEADER_SIZE > buffer.capacity()) {
+            return false;
+        }
+
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+            return false;
+        }
+
+        ByteBuffer body = read(offset);
+        crc.reset();
+        crc.update(body);
+        return buffer.getInt(offset + 4) == (int) crc.getValue();
+    }
+
+    private void addIndex(int offset, boolean persist) {
+        if (indexCount == index.length) {
+            index = Arrays.copyOf(index, indexCount << 1);
+        }
+        index[indexCount++] = offset;
+        if (persist) {
+            try {
+                indexRaf.seek((long) (indexCount - 1) * 4);
+                indexRaf.writeInt(offset);
+            } catch (IOException e) {
+                // 索引可以在加载时通过扫描重建
+                throw new IllegalStateException("write index failed: " + indexFile.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * 尽量提前释放映射, 失败时交给gc处理
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Throwable e) {
+            // ignore
+        }
+    }
+}
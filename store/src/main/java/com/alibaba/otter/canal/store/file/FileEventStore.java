@@ -0,0 +1,884 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
+import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreMetrics;
+import com.alibaba.otter.canal.store.CanalStoreScavenge;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 基于本地文件构建的store, 消费端延迟较大时不会阻塞parser, 重启后可以直接从本地文件继续消费
+ *
+ * <pre>
+ * 1. 数据按sequence顺序追加写入segment文件, 每个segment带一个稀疏索引, 通过mmap读写
+ * 2. put/get/ack三个下标的语义与{@linkplain com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer}一致, ack下标持久化到ack.meta中
+ * 3. ack之后, 完全位于ack位置之前的segment会被删除; 未ack的数据最多占用maxSegments个segment, 超过后put阻塞
+ * 4. 启动时会截断最后一个事务尾之后的数据, 保证store中最后一条数据就是parser可以恢复的位点
+ * </pre>
+ *
+ * @since 1.1.5
+ */
+public class FileEventStore extends AbstractCanalStoreScavenge implements CanalEventStore<Event>, CanalStoreScavenge, CanalStoreMetrics {
+
+    private static final Logger logger          = LoggerFactory.getLogger(FileEventStore.class);
+    private static final long   INIT_SEQUENCE   = -1;
+    private static final String ACK_FILE        = "ack.meta";
+
+    private String              dataDir;                                                       // 数据目录, 按destination区分子目录
+    private int                 segmentSize     = 64 * 1024 * 1024;                             // 单个segment文件大小
+    private int                 maxSegments     = 128;                                         // 最多保留的segment数量
+    private int                 indexInterval   = 32;                                          // 每隔多少条数据记录一个索引
+    private int                 bufferMemUnit   = 1024;                                        // memsize的单位，默认为1kb大小
+
+    private File                storeDir;
+    private List<EventSegment>  segments        = new ArrayList<EventSegment>();               // 按sequence递增
+    private RandomAccessFile    ackFile;
+    private EventCodec          codec;
+    private Event               lastEvent;                                                     // 最后一次写入的数据
+
+    // 记录下put/get/ack操作的三个下标
+    private AtomicLong          putSequence     = new AtomicLong(INIT_SEQUENCE);
+    private AtomicLong          getSequence     = new AtomicLong(INIT_SEQUENCE);
+    private AtomicLong          ackSequence     = new AtomicLong(INIT_SEQUENCE);
+
+    // 记录下put/get/ack操作的三个memsize大小
+    private AtomicLong          putMemSize      = new AtomicLong(0);
+    private AtomicLong          getMemSize      = new AtomicLong(0);
+    private AtomicLong          ackMemSize      = new AtomicLong(0);
+
+    // 记录下put/get/ack操作的三个execTime
+    private AtomicLong          putExecTime     = new AtomicLong(System.currentTimeMillis());
+    private AtomicLong          getExecTime     = new AtomicLong(System.currentTimeMillis());
+    private AtomicLong          ackExecTime     = new AtomicLong(System.currentTimeMillis());
+
+    // 记录下put/get/ack操作的三个table rows
+    private AtomicLong          putTableRows    = new AtomicLong(0);
+    private AtomicLong          getTableRows    = new AtomicLong(0);
+    private AtomicLong          ackTableRows    = new AtomicLong(0);
+
+    // 阻塞put/get操作控制信号
+    private ReentrantLock       lock            = new ReentrantLock();
+    private Condition           notFull         = lock.newCondition();
+    private Condition           notEmpty        = lock.newCondition();
+
+    private BatchMode           batchMode       = BatchMode.ITEMSIZE;
+    private boolean             ddlIsolation    = false;
+    private boolean             raw             = true;                                        // 针对entry是否开启raw模式
+
+    public void start() throws CanalStoreException {
+        super.start();
+        if (StringUtils.isEmpty(dataDir)) {
+            throw new IllegalArgumentException("dataDir is required");
+        }
+
+        storeDir = destination != null ? new File(new File(dataDir, destination), "store") : new File(dataDir);
+        if (!storeDir.exists() && !storeDir.mkdirs()) {
+            throw new CanalStoreException("create store dir failed : " + storeDir.getPath());
+        }
+
+        codec = new EventCodec();
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new CanalStoreException("recover file store failed : " + storeDir.getPath(), e);
+        }
+    }
+
+    public void stop() throws CanalStoreException {
+        super.stop();
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            // 只关闭文件, 数据保留到下次启动
+            for (EventSegment segment : segments) {
+                segment.force();
+                segment.close();
+            }
+            segments.clear();
+            if (ackFile != null) {
+                ackFile.close();
+                ackFile = null;
+            }
+        } catch (IOException e) {
+            throw new CanalStoreException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(List<Event> data) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                while (!checkFreeSpace()) { // 检查是否有空位
+                    notFull.await(); // wait until not full
+                }
+            } catch (InterruptedException ie) {
+                notFull.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+            doPut(data);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean put(List<Event> data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (checkFreeSpace()) {
+                    doPut(data);
+                    return true;
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+
+                try {
+                    nanos = notFull.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notFull.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryPut(List<Event> data) throws CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!checkFreeSpace()) {
+                return false;
+            } else {
+                doPut(data);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Event data) throws InterruptedException, CanalStoreException {
+        put(Arrays.asList(data));
+    }
+
+    public boolean put(Event data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return put(Arrays.asList(data), timeout, unit);
+    }
+
+    public boolean tryPut(Event data) throws CanalStoreException {
+        return tryPut(Arrays.asList(data));
+    }
+
+    /**
+     * 执行具体的put操作
+     */
+    private void doPut(List<Event> data) {
+        long size = 0;
+        try {
+            for (Event event : data) {
+                byte[] bytes = codec.encode(event);
+                int length = codec.size();
+                EventSegment segment = activeSegment();
+                if (segment == null || !segment.hasRemaining(length)) {
+                    segment = roll(length);
+                }
+                segment.append(bytes, length);
+                size += calculateSize(event);
+            }
+        } catch (IOException e) {
+            throw new CanalStoreException("write file store failed : " + storeDir.getPath(), e);
+        }
+
+        putSequence.addAndGet(data.size());
+        lastEvent = data.get(data.size() - 1);
+        if (batchMode.isMemSize()) {
+            putMemSize.getAndAdd(size);
+        }
+        profiling(data, OP.PUT);
+        // tell other threads that store is not empty
+        notEmpty.signal();
+    }
+
+    public Events<Event> get(Position start, int batchSize) throws InterruptedException, CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                while (!checkUnGetSlotAt((LogPosition) start, batchSize))
+                    notEmpty.await();
+            } catch (InterruptedException ie) {
+                notEmpty.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+
+            return doGet(start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
+                                                                                        CanalStoreException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (checkUnGetSlotAt((LogPosition) start, batchSize)) {
+                    return doGet(start, batchSize);
+                }
+
+                if (nanos <= 0) {
+                    // 如果时间到了，有多少取多少
+                    return doGet(start, batchSize);
+                }
+
+                try {
+                    nanos = notEmpty.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notEmpty.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return doGet(start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Events<Event> doGet(Position start, int batchSize) throws CanalStoreException {
+        LogPosition startPosition = (LogPosition) start;
+
+        long current = getSequence.get();
+        long maxAbleSequence = putSequence.get();
+        long next = current;
+        long end = current;
+        // 如果startPosition为null，说明是第一次，默认+1处理
+        if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+            next = next + 1;
+        }
+
+        if (current >= maxAbleSequence) {
+            return new Events<Event>();
+        }
+
+        Events<Event> result = new Events<Event>();
+        List<Event> entrys = result.getEvents();
+        long memsize = 0;
+        SegmentCursor cursor = new SegmentCursor(next);
+        if (batchMode.isItemSize()) {
+            end = (next + batchSize - 1) < maxAbleSequence ? (next + batchSize - 1) : maxAbleSequence;
+            // 提取数据并返回
+            for (; next <= end; next++) {
+                Event event = cursor.next(true);
+                if (ddlIsolation && isDdl(event.getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                }
+            }
+        } else {
+            long maxMemSize = batchSize * bufferMemUnit;
+            for (; memsize <= maxMemSize && next <= maxAbleSequence; next++) {
+                // 永远保证可以取出第一条的记录，避免死锁
+                Event event = cursor.next(true);
+                if (ddlIsolation && isDdl(event.getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                    memsize += calculateSize(event);
+                    end = next;// 记录end位点
+                }
+            }
+
+        }
+
+        PositionRange<LogPosition> range = new PositionRange<LogPosition>();
+        result.setPositionRange(range);
+
+        range.setStart(CanalEventUtils.createPosition(entrys.get(0)));
+        range.setEnd(CanalEventUtils.createPosition(entrys.get(result.getEvents().size() - 1)));
+        range.setEndSeq(end);
+        // 记录一下是否存在可以被ack的点
+
+        for (int i = entrys.size() - 1; i >= 0; i--) {
+            Event event = entrys.get(i);
+            // GTID模式,ack的位点必须是事务结尾,因为下一次订阅的时候mysql会发送这个gtid之后的next,如果在事务头就记录了会丢这最后一个事务
+            if ((CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntryType() && StringUtils.isEmpty(event.getGtid()))
+                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntryType() || isDdl(event.getEventType())) {
+                // 将事务头/尾设置可被为ack的点
+                range.setAck(CanalEventUtils.createPosition(event));
+                break;
+            }
+        }
+
+        if (getSequence.compareAndSet(current, end)) {
+            getMemSize.addAndGet(memsize);
+            profiling(result.getEvents(), OP.GET);
+            return result;
+        } else {
+            return new Events<Event>();
+        }
+    }
+
+    public LogPosition getFirstPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long firstSeqeuence = ackSequence.get();
+            if (firstSeqeuence == INIT_SEQUENCE && firstSeqeuence < putSequence.get()) {
+                // 没有ack过数据, 需要移动到下一条
+                return CanalEventUtils.createPosition(read(firstSeqeuence + 1), false);
+            } else if (firstSeqeuence > INIT_SEQUENCE && firstSeqeuence <= putSequence.get()) {
+                // 最后一次ack的位置数据
+                return CanalEventUtils.createPosition(read(firstSeqeuence), false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LogPosition getLatestPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long latestSequence = putSequence.get();
+            if (latestSequence > INIT_SEQUENCE && lastEvent != null) {
+                // ack追上put时为included = false
+                return CanalEventUtils.createPosition(lastEvent, latestSequence != ackSequence.get());
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void ack(Position position) throws CanalStoreException {
+        cleanUntil(position, -1L);
+    }
+
+    public void ack(Position position, Long seqId) throws CanalStoreException {
+        cleanUntil(position, seqId);
+    }
+
+    @Override
+    public void cleanUntil(Position position) throws CanalStoreException {
+        cleanUntil(position, -1L);
+    }
+
+    public void cleanUntil(Position position, Long seqId) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long sequence = ackSequence.get();
+            long maxSequence = getSequence.get();
+
+            long memsize = 0;
+            long localExecTime = 0L;
+            int deltaRows = 0;
+            if (seqId > 0) {
+                maxSequence = seqId;
+            }
+            if (sequence + 1 <= maxSequence) {
+                SegmentCursor cursor = new SegmentCursor(sequence + 1);
+                for (long next = sequence + 1; next <= maxSequence; next++) {
+                    // 只需要位点信息, 不解析entry数据
+                    Event event = cursor.next(false);
+                    if (localExecTime == 0 && event.getExecuteTime() > 0) {
+                        localExecTime = event.getExecuteTime();
+                    }
+                    deltaRows += event.getRowsCount();
+                    memsize += calculateSize(event);
+                    if ((seqId < 0 || next == seqId) && CanalEventUtils.checkPosition(event, (LogPosition) position)) {
+                        // 找到对应的position，更新ack seq
+                        if (batchMode.isMemSize()) {
+                            ackMemSize.addAndGet(memsize);
+                        }
+
+                        if (ackSequence.compareAndSet(sequence, next)) {// 避免并发ack
+                            persistAck(next);
+                            retain(next);
+                            notFull.signal();
+                            ackTableRows.addAndGet(deltaRows);
+                            if (localExecTime > 0) {
+                                ackExecTime.lazySet(localExecTime);
+                            }
+                            return;
+                        }
+                    }
+                }
+            }
+
+            // 找不到对应需要ack的position
+            throw new CanalStoreException("no match ack position" + position.toString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void rollback() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            getSequence.set(ackSequence.get());
+            getMemSize.set(ackMemSize.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cleanAll() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (EventSegment segment : segments) {
+                segment.delete();
+            }
+            segments.clear();
+            lastEvent = null;
+
+            putSequence.set(INIT_SEQUENCE);
+            getSequence.set(INIT_SEQUENCE);
+            ackSequence.set(INIT_SEQUENCE);
+            if (ackFile != null) {
+                persistAck(INIT_SEQUENCE);
+            }
+
+            putMemSize.set(0);
+            getMemSize.set(0);
+            ackMemSize.set(0);
+            notFull.signal();
+        } catch (IOException e) {
+            throw new CanalStoreException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================== helper method =================
+
+    /**
+     * 加载已有的segment, 恢复put/get/ack下标
+     */
+    private void recover() throws IOException {
+        List<Long> baseSequences = new ArrayList<Long>();
+        File[] files = storeDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(EventSegment.LOG_SUFFIX)) {
+                    baseSequences.add(Long.valueOf(name.substring(0, name.length() - EventSegment.LOG_SUFFIX.length())));
+                }
+            }
+        }
+        Collections.sort(baseSequences);
+        segments.clear();
+        for (Long baseSequence : baseSequences) {
+            segments.add(EventSegment.load(storeDir, baseSequence, indexInterval));
+        }
+
+        ackFile = new RandomAccessFile(new File(storeDir, ACK_FILE), "rw");
+        long ack = ackFile.length() >= 8 && !segments.isEmpty() ? ackFile.readLong() : INIT_SEQUENCE;
+        long last = segments.isEmpty() ? INIT_SEQUENCE : segments.get(segments.size() - 1).lastSequence();
+        long first = segments.isEmpty() ? 0 : segments.get(0).getBaseSequence();
+        ack = Math.min(ack, last);
+
+        // 截断最后一个事务尾之后的数据, 这部分数据会由parser重新解析写入
+        long truncate = ack;
+        for (long sequence = last; sequence > ack && sequence >= first; sequence--) {
+            if (CanalEntry.EntryType.TRANSACTIONEND == read(sequence, false).getEntryType()) {
+                truncate = sequence;
+                break;
+            }
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            EventSegment segment = segments.get(i);
+            if (segment.getBaseSequence() > truncate && i > 0) {
+                segment.delete();
+                segments.remove(i);
+            } else {
+                segment.truncate(truncate);
+            }
+        }
+        if (truncate < last) {
+            logger.warn("truncate uncompleted transaction in {} from sequence {} to {}", new Object[] {
+                    storeDir.getPath(), truncate + 1, last });
+        }
+
+        putSequence.set(truncate);
+        getSequence.set(ack);
+        ackSequence.set(ack);
+        persistAck(ack);
+        lastEvent = truncate > INIT_SEQUENCE && truncate >= first ? read(truncate) : null;
+
+        putMemSize.set(0);
+        getMemSize.set(0);
+        ackMemSize.set(0);
+        if (batchMode.isMemSize() && ack < truncate) {
+            long size = 0;
+            SegmentCursor cursor = new SegmentCursor(ack + 1);
+            for (long sequence = ack + 1; sequence <= truncate; sequence++) {
+                size += calculateSize(cursor.next(false));
+            }
+            putMemSize.set(size);
+        }
+        logger.info("recover file store {} with {} segments, ack sequence {}, put sequence {}", new Object[] {
+                storeDir.getPath(), segments.size(), ack, truncate });
+    }
+
+    private EventSegment activeSegment() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    private EventSegment roll(int length) throws IOException {
+        EventSegment active = activeSegment();
+        if (active != null) {
+            active.force();
+            if (active.getCount() == 0) {
+                // 空的segment放不下当前数据, 直接替换
+                active.delete();
+                segments.remove(segments.size() - 1);
+            }
+        }
+
+        int capacity = Math.max(segmentSize, length + EventSegment.HEADER_SIZE);
+        EventSegment segment = EventSegment.create(storeDir, putSequence.get() + 1, capacity, indexInterval);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * 删除完全位于ack下标之前的segment, ack所在的segment需要保留用于getFirstPosition
+     */
+    private void retain(long ack) {
+        while (segments.size() > 1 && segments.get(0).lastSequence() < ack) {
+            EventSegment segment = segments.remove(0);
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                logger.warn("delete segment failed, base sequence : " + segment.getBaseSequence(), e);
+            }
+        }
+    }
+
+    private void persistAck(long ack) throws CanalStoreException {
+        try {
+            ackFile.seek(0);
+            ackFile.writeLong(ack);
+        } catch (IOException e) {
+            throw new CanalStoreException("persist ack sequence failed : " + storeDir.getPath(), e);
+        }
+    }
+
+    private Event read(long sequence) {
+        return read(sequence, true);
+    }
+
+    private Event read(long sequence, boolean withPayload) {
+        return new SegmentCursor(sequence).next(withPayload);
+    }
+
+    /**
+     * 查询是否有空位, 未ack的数据超过maxSegments个segment后阻塞put
+     */
+    private boolean checkFreeSpace() {
+        // 达到maxSegments后只允许写满当前segment, 最多会多出一个segment
+        return segments.size() < maxSegments
+               || (segments.size() == maxSegments && activeSegment().hasRemaining(0));
+    }
+
+    /**
+     * 检查是否存在需要get的数据,并且数量>=batchSize
+     */
+    private boolean checkUnGetSlotAt(LogPosition startPosition, int batchSize) {
+        if (batchMode.isItemSize()) {
+            long current = getSequence.get();
+            long maxAbleSequence = putSequence.get();
+            long next = current;
+            if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+                next = next + 1;// 少一条数据
+            }
+
+            if (current < maxAbleSequence && next + batchSize - 1 <= maxAbleSequence) {
+                return true;
+            } else {
+                return false;
+            }
+        } else {
+            // 处理内存大小判断
+            long currentSize = getMemSize.get();
+            long maxAbleSize = putMemSize.get();
+
+            if (maxAbleSize - currentSize >= batchSize * bufferMemUnit) {
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private long calculateSize(Event event) {
+        // 直接返回binlog中的事件大小
+        return event.getRawLength();
+    }
+
+    private boolean isDdl(EventType type) {
+        return type == EventType.ALTER || type == EventType.CREATE || type == EventType.ERASE
+               || type == EventType.RENAME || type == EventType.TRUNCATE || type == EventType.CINDEX
+               || type == EventType.DINDEX;
+    }
+
+    private void profiling(List<Event> events, OP op) {
+        long localExecTime = 0L;
+        int deltaRows = 0;
+        if (events != null && !events.isEmpty()) {
+            for (Event e : events) {
+                if (localExecTime == 0 && e.getExecuteTime() > 0) {
+                    localExecTime = e.getExecuteTime();
+                }
+                deltaRows += e.getRowsCount();
+            }
+        }
+        switch (op) {
+            case PUT:
+                putTableRows.addAndGet(deltaRows);
+                if (localExecTime > 0) {
+                    putExecTime.lazySet(localExecTime);
+                }
+                break;
+            case GET:
+                getTableRows.addAndGet(deltaRows);
+                if (localExecTime > 0) {
+                    getExecTime.lazySet(localExecTime);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private enum OP {
+        PUT, GET
+    }
+
+    /**
+     * 从指定sequence开始顺序读取数据, 只在持有lock时使用
+     */
+    private class SegmentCursor {
+
+        private int          segmentIndex;
+        private EventSegment segment;
+        private int          offset;
+
+        SegmentCursor(long sequence){
+            // 二分查找sequence所在的segment
+            int low = 0;
+            int high = segments.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (segments.get(mid).getBaseSequence() <= sequence) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            segmentIndex = low;
+            segment = segments.get(low);
+            offset = segment.offsetOf(sequence);
+        }
+
+        Event next(boolean withPayload) {
+            if (offset >= segment.getWritePosition()) {
+                segment = segments.get(++segmentIndex);
+                offset = 0;
+            }
+
+            try {
+                Event event = EventCodec.decode(segment.read(offset), withPayload);
+                offset = segment.nextOffset(offset);
+                return event;
+            } catch (IOException e) {
+                throw new CanalStoreException("read file store failed : " + storeDir.getPath(), e);
+            }
+        }
+    }
+
+    // ================ setter / getter ==================
+
+    public void setDataDir(String dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    public void setIndexInterval(int indexInterval) {
+        this.indexInterval = indexInterval;
+    }
+
+    public int getBufferSize() {
+        return this.maxSegments;
+    }
+
+    public void setBufferMemUnit(int bufferMemUnit) {
+        this.bufferMemUnit = bufferMemUnit;
+    }
+
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public void setDdlIsolation(boolean ddlIsolation) {
+        this.ddlIsolation = ddlIsolation;
+    }
+
+    public boolean isRaw() {
+        return raw;
+    }
+
+    public void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
+    public AtomicLong getPutSequence() {
+        return putSequence;
+    }
+
+    public AtomicLong getAckSequence() {
+        return ackSequence;
+    }
+
+    public AtomicLong getPutMemSize() {
+        return putMemSize;
+    }
+
+    public AtomicLong getAckMemSize() {
+        return ackMemSize;
+    }
+
+    /**
+     * 数据保存在mmap文件中, 不占用堆内存, 不输出该指标
+     */
+    public AtomicLong getRetainedMemSize() {
+        return null;
+    }
+
+    public AtomicLong getPeakRetainedMemSize() {
+        return null;
+    }
+
+    public BatchMode getBatchMode() {
+        return batchMode;
+    }
+
+    public AtomicLong getPutExecTime() {
+        return putExecTime;
+    }
+
+    public AtomicLong getGetExecTime() {
+        return getExecTime;
+    }
+
+    public AtomicLong getAckExecTime() {
+        return ackExecTime;
+    }
+
+    public AtomicLong getPutTableRows() {
+        return putTableRows;
+    }
+
+    public AtomicLong getGetTableRows() {
+        return getTableRows;
+    }
+
+    public AtomicLong getAckTableRows() {
+        return ackTableRows;
+    }
+
+}
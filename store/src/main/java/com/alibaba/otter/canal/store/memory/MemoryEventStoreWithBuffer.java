@@ -1,27 +1,31 @@
 package com.alibaba.otter.canal.store.memory;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang.StringUtils;
 
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
 import com.alibaba.otter.canal.protocol.position.Position;
 import com.alibaba.otter.canal.protocol.position.PositionRange;
 import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
-import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalMultiClientEventStore;
 import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreMetrics;
 import com.alibaba.otter.canal.store.CanalStoreScavenge;
 import com.alibaba.otter.canal.store.helper.CanalEventUtils;
 import com.alibaba.otter.canal.store.model.BatchMode;
 import com.alibaba.otter.canal.store.model.Event;
 import com.alibaba.otter.canal.store.model.Events;
+import com.alibaba.otter.canal.store.model.WaitMode;
 
 /**
  * 基于内存buffer构建内存memory store
@@ -30,29 +34,44 @@ import com.alibaba.otter.canal.store.model.Events;
  * 变更记录：
  * 1. 新增BatchMode类型，支持按内存大小获取批次数据，内存大小更加可控.
  *   a. put操作，会首先根据bufferSize进行控制，然后再进行bufferSize * bufferMemUnit进行控制. 因存储的内容是以Event，如果纯依赖于memsize进行控制，会导致RingBuffer出现动态伸缩
+ * 2. 支持同一个destination下多个client独立消费，每个client拥有独立的get/ack下标
+ *   a. RingBuffer只回收所有client都已经ack的数据，store整体的ack下标跟随最慢的client
+ *   b. 不带ClientIdentity的get/ack/rollback使用默认下标，与多client模式不要混用
+ * 3. put与get/ack之间不再共用一把锁, 参考disruptor的单producer模型
+ *   a. producer先写数据再发布putSequence, consumer只读取putSequence之前的数据, 不需要加锁
+ *   b. 回收以ackSequence为准, consumer清理完数据之后再发布ackSequence
+ *   c. 阻塞等待通过WaitMode控制, 支持blocking/sleeping/yielding
+ * 4. 新增bufferMemLimit硬性字节上限, 按event实际占用的大小(raw模式为ByteString长度, 否则为protobuf序列化大小)统计
+ *   a. ack之后立即释放event数据, retainedMemSize即为ringbuffer中实际占用的字节数
+ *   b. store为空时总是允许写入, 避免超过上限的单个大事务挂死
  * </pre>
  *
  * @author jianghang 2012-6-20 上午09:46:31
  * @version 1.0.0
  */
-public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge implements CanalEventStore<Event>, CanalStoreScavenge {
+public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge implements CanalMultiClientEventStore<Event>, CanalStoreScavenge, CanalStoreMetrics {
 
     private static final long INIT_SEQUENCE = -1;
     private int bufferSize = 16 * 1024;
     private int bufferMemUnit = 1024;                                      // memsize的单位，默认为1kb大小
+    private long bufferMemLimit = 0;                                        // 占用内存的字节上限, <=0代表不限制
     private int indexMask;
     private Event[] entries;
 
     // 记录下put/get/ack操作的三个下标
-    private AtomicLong putSequence = new AtomicLong(INIT_SEQUENCE);             // 代表当前put操作最后一次写操作发生的位置
-    private AtomicLong getSequence = new AtomicLong(INIT_SEQUENCE);             // 代表当前get操作读取的最后一条的位置
-    private AtomicLong ackSequence = new AtomicLong(INIT_SEQUENCE);             // 代表当前ack操作的最后一条的位置
+    private AtomicLong putSequence = new PaddedAtomicLong(INIT_SEQUENCE);       // 代表当前put操作最后一次写操作发生的位置
+    private AtomicLong getSequence = new PaddedAtomicLong(INIT_SEQUENCE);       // 代表当前get操作读取的最后一条的位置
+    private AtomicLong ackSequence = new PaddedAtomicLong(INIT_SEQUENCE);       // 代表当前ack操作的最后一条的位置
 
     // 记录下put/get/ack操作的三个memsize大小
     private AtomicLong putMemSize = new AtomicLong(0);
     private AtomicLong getMemSize = new AtomicLong(0);
     private AtomicLong ackMemSize = new AtomicLong(0);
 
+    // 当前及峰值占用的内存字节数, 与batchMode无关
+    private AtomicLong retainedMemSize = new AtomicLong(0);
+    private AtomicLong peakRetainedMemSize = new AtomicLong(0);
+
     // 记录下put/get/ack操作的三个execTime
     private AtomicLong putExecTime = new AtomicLong(System.currentTimeMillis());
     private AtomicLong getExecTime = new AtomicLong(System.currentTimeMillis());
@@ -63,10 +82,19 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     private AtomicLong getTableRows = new AtomicLong(0);
     private AtomicLong ackTableRows = new AtomicLong(0);
 
-    // 阻塞put/get操作控制信号
+    // 未指定client时使用的默认下标, 多client模式下记录最慢client的ack位置
+    private ClientCursor defaultCursor = new ClientCursor(getSequence, ackSequence, getMemSize, ackMemSize);
+    // 每个client独立的get/ack下标, 由lock保护
+    private Map<ClientIdentity, ClientCursor> clientCursors = new HashMap<ClientIdentity, ClientCursor>();
+
+    // put只有sink一个线程, putLock只用于兼容多个producer的场景(比如group store), 与get/ack互不阻塞
+    private ReentrantLock putLock = new ReentrantLock();
+    // consumer之间的get/ack/rollback互斥
     private ReentrantLock lock = new ReentrantLock();
-    private Condition notFull = lock.newCondition();
-    private Condition notEmpty = lock.newCondition();
+    // 阻塞put/get操作控制信号
+    private WaitMode waitMode = WaitMode.BLOCKING;
+    private WaitStrategy notFull;
+    private WaitStrategy notEmpty;
 
     private BatchMode batchMode = BatchMode.ITEMSIZE;                        // 默认为内存大小模式
     private boolean ddlIsolation = false;
@@ -88,6 +116,8 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
 
         indexMask = bufferSize - 1;
         entries = new Event[bufferSize];
+        notFull = WaitStrategy.create(waitMode);
+        notEmpty = WaitStrategy.create(waitMode);
     }
 
     public void stop() throws CanalStoreException {
@@ -101,23 +131,16 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             return;
         }
 
-        final ReentrantLock lock = this.lock;
-        lock.lockInterruptibly();
+        final ReentrantLock putLock = this.putLock;
+        putLock.lockInterruptibly();
         try {
-            try {
-                while (!checkFreeSlotAt(putSequence.get() + data.size())) { // 检查是否有空位
-                    notFull.await(); // wait until not full
-                }
-            } catch (InterruptedException ie) {
-                notFull.signal(); // propagate to non-interrupted thread
-                throw ie;
-            }
+            notFull.waitFor(freeSlotBarrier(data.size(), calculateSize(data))); // wait until not full
             doPut(data);
             if (Thread.interrupted()) {
                 throw new InterruptedException();
             }
         } finally {
-            lock.unlock();
+            putLock.unlock();
         }
     }
 
@@ -126,28 +149,16 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             return true;
         }
 
-        long nanos = unit.toNanos(timeout);
-        final ReentrantLock lock = this.lock;
-        lock.lockInterruptibly();
+        final ReentrantLock putLock = this.putLock;
+        putLock.lockInterruptibly();
         try {
-            for (; ; ) {
-                if (checkFreeSlotAt(putSequence.get() + data.size())) {
-                    doPut(data);
-                    return true;
-                }
-                if (nanos <= 0) {
-                    return false;
-                }
-
-                try {
-                    nanos = notFull.awaitNanos(nanos);
-                } catch (InterruptedException ie) {
-                    notFull.signal(); // propagate to non-interrupted thread
-                    throw ie;
-                }
+            if (notFull.waitFor(freeSlotBarrier(data.size(), calculateSize(data)), unit.toNanos(timeout))) {
+                doPut(data);
+                return true;
             }
+            return false;
         } finally {
-            lock.unlock();
+            putLock.unlock();
         }
     }
 
@@ -156,17 +167,17 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             return true;
         }
 
-        final ReentrantLock lock = this.lock;
-        lock.lock();
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
         try {
-            if (!checkFreeSlotAt(putSequence.get() + data.size())) {
+            if (!checkFreeSlotAt(putSequence.get() + data.size(), calculateSize(data))) {
                 return false;
             } else {
                 doPut(data);
                 return true;
             }
         } finally {
-            lock.unlock();
+            putLock.unlock();
         }
     }
 
@@ -194,83 +205,93 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             entries[getIndex(next)] = data.get((int) (next - current - 1));
         }
 
+        long size = calculateSize(data);
+        // 先计入占用内存再发布putSequence, 保证ack释放时不会出现负数
+        long retained = retainedMemSize.addAndGet(size);
+        if (retained > peakRetainedMemSize.get()) {
+            // 只有一个producer写入, 不需要cas
+            peakRetainedMemSize.set(retained);
+        }
         putSequence.set(end);
 
         // 记录一下gets memsize信息，方便快速检索
         if (batchMode.isMemSize()) {
-            long size = 0;
-            for (Event event : data) {
-                size += calculateSize(event);
-            }
-
             putMemSize.getAndAdd(size);
         }
         profiling(data, OP.PUT);
         // tell other threads that store is not empty
-        notEmpty.signal();
+        notEmpty.signalAll();
     }
 
     public Events<Event> get(Position start, int batchSize) throws InterruptedException, CanalStoreException {
+        return get(null, start, batchSize);
+    }
+
+    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
+            CanalStoreException {
+        return get(null, start, batchSize, timeout, unit);
+    }
+
+    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+        return tryGet(null, start, batchSize);
+    }
+
+    public Events<Event> get(ClientIdentity clientIdentity, Position start, int batchSize)
+            throws InterruptedException, CanalStoreException {
+        ClientCursor cursor = getCursor(clientIdentity);
+        // 等待时不持有锁, 不影响其他client的get/ack
+        notEmpty.waitFor(unGetSlotBarrier(cursor, (LogPosition) start, batchSize));
+
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
-            try {
-                while (!checkUnGetSlotAt((LogPosition) start, batchSize))
-                    notEmpty.await();
-            } catch (InterruptedException ie) {
-                notEmpty.signal(); // propagate to non-interrupted thread
-                throw ie;
-            }
-
-            return doGet(start, batchSize);
+            return doGet(cursor, start, batchSize);
         } finally {
             lock.unlock();
         }
     }
 
-    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
-            CanalStoreException {
-        long nanos = unit.toNanos(timeout);
+    public Events<Event> get(ClientIdentity clientIdentity, Position start, int batchSize, long timeout,
+                             TimeUnit unit) throws InterruptedException, CanalStoreException {
+        ClientCursor cursor = getCursor(clientIdentity);
+        // 如果时间到了，有多少取多少
+        notEmpty.waitFor(unGetSlotBarrier(cursor, (LogPosition) start, batchSize), unit.toNanos(timeout));
+
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
-            for (; ; ) {
-                if (checkUnGetSlotAt((LogPosition) start, batchSize)) {
-                    return doGet(start, batchSize);
-                }
-
-                if (nanos <= 0) {
-                    // 如果时间到了，有多少取多少
-                    return doGet(start, batchSize);
-                }
-
-                try {
-                    nanos = notEmpty.awaitNanos(nanos);
-                } catch (InterruptedException ie) {
-                    notEmpty.signal(); // propagate to non-interrupted thread
-                    throw ie;
-                }
-
-            }
+            return doGet(cursor, start, batchSize);
         } finally {
             lock.unlock();
         }
     }
 
-    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+    public void waitFor(ClientIdentity clientIdentity, Position start, int batchSize) throws InterruptedException,
+            CanalStoreException {
+        notEmpty.waitFor(unGetSlotBarrier(getCursor(clientIdentity), (LogPosition) start, batchSize));
+    }
+
+    public boolean waitFor(ClientIdentity clientIdentity, Position start, int batchSize, long timeout,
+                           TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return notEmpty.waitFor(unGetSlotBarrier(getCursor(clientIdentity), (LogPosition) start, batchSize),
+            unit.toNanos(timeout));
+    }
+
+    public Events<Event> tryGet(ClientIdentity clientIdentity, Position start, int batchSize)
+            throws CanalStoreException {
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            return doGet(start, batchSize);
+            return doGet(getCursor(clientIdentity), start, batchSize);
         } finally {
             lock.unlock();
         }
     }
 
-    private Events<Event> doGet(Position start, int batchSize) throws CanalStoreException {
+    private Events<Event> doGet(ClientCursor cursor, Position start, int batchSize) throws CanalStoreException {
         LogPosition startPosition = (LogPosition) start;
 
-        long current = getSequence.get();
+        long current = cursor.getSequence.get();
         long maxAbleSequence = putSequence.get();
         long next = current;
         long end = current;
@@ -348,9 +369,9 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             }
         }
 
-        if (getSequence.compareAndSet(current, end)) {
-            getMemSize.addAndGet(memsize);
-            notFull.signal();
+        if (cursor.getSequence.compareAndSet(current, end)) {
+            cursor.getMemSize.addAndGet(memsize);
+            notFull.signalAll();
             profiling(result.getEvents(), OP.GET);
             return result;
         } else {
@@ -424,11 +445,16 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     }
 
     public void cleanUntil(Position position, Long seqId) throws CanalStoreException {
+        ack(null, position, seqId);
+    }
+
+    public void ack(ClientIdentity clientIdentity, Position position, Long seqId) throws CanalStoreException {
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            long sequence = ackSequence.get();
-            long maxSequence = getSequence.get();
+            ClientCursor cursor = getCursor(clientIdentity);
+            long sequence = cursor.ackSequence.get();
+            long maxSequence = cursor.getSequence.get();
 
             boolean hasMatch = false;
             long memsize = 0;
@@ -450,21 +476,30 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
                     hasMatch = true;
 
                     if (batchMode.isMemSize()) {
-                        ackMemSize.addAndGet(memsize);
-                        // 尝试清空buffer中的内存，将ack之前的内存全部释放掉
-                        for (long index = sequence + 1; index < next; index++) {
-                            entries[getIndex(index)] = null;// 设置为null
-                        }
+                        cursor.ackMemSize.addAndGet(memsize);
+                    }
 
-                        // 考虑getFirstPosition/getLastPosition会获取最后一次ack的position信息
-                        // ack清理的时候只处理entry=null，释放内存
-                        Event lastEvent = entries[getIndex(next)];
-                        lastEvent.setEntry(null);
-                        lastEvent.setRawEntry(null);
+                    if (cursor != defaultCursor) {
+                        // 多client模式下只推进当前client, 所有client都ack之后再回收
+                        cursor.ackSequence.set(next);
+                        releaseClients();
+                        return;
+                    }
+
+                    // 尝试清空buffer中的内存，将ack之前的内存全部释放掉
+                    for (long index = sequence + 1; index < next; index++) {
+                        entries[getIndex(index)] = null;// 设置为null
                     }
 
+                    // 考虑getFirstPosition/getLastPosition会获取最后一次ack的position信息
+                    // ack清理的时候只处理entry=null，释放内存
+                    Event lastEvent = entries[getIndex(next)];
+                    lastEvent.setEntry(null);
+                    lastEvent.setRawEntry(null);
+
                     if (ackSequence.compareAndSet(sequence, next)) {// 避免并发ack
-                        notFull.signal();
+                        retainedMemSize.addAndGet(-memsize);
+                        notFull.signalAll();
                         ackTableRows.addAndGet(deltaRows);
                         if (localExecTime > 0) {
                             ackExecTime.lazySet(localExecTime);
@@ -482,18 +517,75 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     }
 
     public void rollback() throws CanalStoreException {
+        rollback(null);
+    }
+
+    public void rollback(ClientIdentity clientIdentity) throws CanalStoreException {
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            getSequence.set(ackSequence.get());
-            getMemSize.set(ackMemSize.get());
+            ClientCursor cursor = getCursor(clientIdentity);
+            cursor.getSequence.set(cursor.ackSequence.get());
+            cursor.getMemSize.set(cursor.ackMemSize.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void subscribe(ClientIdentity clientIdentity, Position position) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (clientCursors.containsKey(clientIdentity)) {
+                return;
+            }
+
+            // 从client的ack位置开始, 在store中找不到时(比如已经被回收)从store当前的ack位置开始
+            long sequence = ackSequence.get();
+            long memsize = 0;
+            if (position instanceof LogPosition) {
+                long maxSequence = putSequence.get();
+                // 没有ack过数据时, getFirstPosition返回的是第一条未消费的数据, 不能当作已ack
+                long minSequence = sequence == INIT_SEQUENCE ? sequence + 1 : sequence;
+                for (long next = maxSequence; next > minSequence; next--) {
+                    if (CanalEventUtils.checkPosition(entries[getIndex(next)], (LogPosition) position)) {
+                        for (long i = sequence + 1; i <= next; i++) {
+                            memsize += calculateSize(entries[getIndex(i)]);
+                        }
+                        sequence = next;
+                        break;
+                    }
+                }
+            }
+
+            long ackMem = ackMemSize.get() + memsize;
+            clientCursors.put(clientIdentity, new ClientCursor(new PaddedAtomicLong(sequence),
+                new PaddedAtomicLong(sequence),
+                new AtomicLong(ackMem),
+                new AtomicLong(ackMem)));
+            releaseClients();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(ClientIdentity clientIdentity) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (clientCursors.remove(clientIdentity) != null) {
+                // 移除最慢的client之后可能可以回收更多的数据
+                releaseClients();
+            }
         } finally {
             lock.unlock();
         }
     }
 
     public void cleanAll() throws CanalStoreException {
+        final ReentrantLock putLock = this.putLock;
         final ReentrantLock lock = this.lock;
+        putLock.lock();
         lock.lock();
         try {
             putSequence.set(INIT_SEQUENCE);
@@ -503,17 +595,23 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             putMemSize.set(0);
             getMemSize.set(0);
             ackMemSize.set(0);
+            retainedMemSize.set(0);
+            clientCursors.clear();
             entries = null;
             // for (int i = 0; i < entries.length; i++) {
             // entries[i] = null;
             // }
         } finally {
             lock.unlock();
+            putLock.unlock();
         }
     }
 
     // =================== helper method =================
 
+    /**
+     * producer可以覆盖的位置, 多client模式下默认下标跟随最慢的client
+     */
     private long getMinimumGetOrAck() {
         long get = getSequence.get();
         long ack = ackSequence.get();
@@ -521,13 +619,110 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     }
 
     /**
-     * 查询是否有空位
+     * 获取client对应的下标, 未通过subscribe注册的client从store当前的ack位置开始(与getFirstPosition一致)
+     */
+    private ClientCursor getCursor(ClientIdentity clientIdentity) {
+        if (clientIdentity == null) {
+            return defaultCursor;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            ClientCursor cursor = clientCursors.get(clientIdentity);
+            if (cursor == null) {
+                cursor = new ClientCursor(new PaddedAtomicLong(ackSequence.get()),
+                    new PaddedAtomicLong(ackSequence.get()),
+                    new AtomicLong(ackMemSize.get()),
+                    new AtomicLong(ackMemSize.get()));
+                clientCursors.put(clientIdentity, cursor);
+            }
+            return cursor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private WaitStrategy.Barrier freeSlotBarrier(final int size, final long memsize) {
+        return new WaitStrategy.Barrier() {
+
+            public boolean isAvailable() {
+                return checkFreeSlotAt(putSequence.get() + size, memsize);
+            }
+        };
+    }
+
+    private WaitStrategy.Barrier unGetSlotBarrier(final ClientCursor cursor, final LogPosition startPosition,
+                                                  final int batchSize) {
+        return new WaitStrategy.Barrier() {
+
+            public boolean isAvailable() {
+                return checkUnGetSlotAt(cursor, startPosition, batchSize);
+            }
+        };
+    }
+
+    /**
+     * 将store的ack下标推进到最慢的client, 并回收所有client都已经ack的数据
+     */
+    private void releaseClients() {
+        ClientCursor slowest = null;
+        for (ClientCursor cursor : clientCursors.values()) {
+            if (slowest == null || cursor.ackSequence.get() < slowest.ackSequence.get()) {
+                slowest = cursor;
+            }
+        }
+
+        long sequence = ackSequence.get();
+        if (slowest == null || slowest.ackSequence.get() <= sequence) {
+            return;
+        }
+
+        long maxSequence = slowest.ackSequence.get();
+        long localExecTime = 0L;
+        int deltaRows = 0;
+        long memsize = 0;
+        for (long next = sequence + 1; next <= maxSequence; next++) {
+            Event event = entries[getIndex(next)];
+            if (localExecTime == 0 && event.getExecuteTime() > 0) {
+                localExecTime = event.getExecuteTime();
+            }
+            deltaRows += event.getRowsCount();
+            memsize += calculateSize(event);
+            if (next < maxSequence) {
+                entries[getIndex(next)] = null;
+            } else {
+                // 保留最后一条ack的位点信息
+                event.setEntry(null);
+                event.setRawEntry(null);
+            }
+        }
+
+        ackMemSize.set(slowest.ackMemSize.get());
+        ackSequence.set(maxSequence);
+        retainedMemSize.addAndGet(-memsize);
+        // 默认下标跟随最慢的client, 所有client取消订阅之后可以继续使用
+        if (getSequence.get() < maxSequence) {
+            getSequence.set(maxSequence);
+            getMemSize.set(ackMemSize.get());
+        }
+        notFull.signalAll();
+        ackTableRows.addAndGet(deltaRows);
+        if (localExecTime > 0) {
+            ackExecTime.lazySet(localExecTime);
+        }
+    }
+
+    /**
+     * 查询是否有空位, 以及是否还能容纳putSize字节的数据
      */
-    private boolean checkFreeSlotAt(final long sequence) {
+    private boolean checkFreeSlotAt(final long sequence, final long putSize) {
         final long wrapPoint = sequence - bufferSize;
         final long minPoint = getMinimumGetOrAck();
         if (wrapPoint > minPoint) { // 刚好追上一轮
             return false;
+        } else if (bufferMemLimit > 0 && !checkFreeMemSize(putSize)) {
+            return false;
         } else {
             // 在bufferSize模式上，再增加memSize控制
             if (batchMode.isMemSize()) {
@@ -546,9 +741,9 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     /**
      * 检查是否存在需要get的数据,并且数量>=batchSize
      */
-    private boolean checkUnGetSlotAt(LogPosition startPosition, int batchSize) {
+    private boolean checkUnGetSlotAt(ClientCursor cursor, LogPosition startPosition, int batchSize) {
         if (batchMode.isItemSize()) {
-            long current = getSequence.get();
+            long current = cursor.getSequence.get();
             long maxAbleSequence = putSequence.get();
             long next = current;
             if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
@@ -562,7 +757,7 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             }
         } else {
             // 处理内存大小判断
-            long currentSize = getMemSize.get();
+            long currentSize = cursor.getMemSize.get();
             long maxAbleSize = putMemSize.get();
 
             if (maxAbleSize - currentSize >= batchSize * bufferMemUnit) {
@@ -573,11 +768,27 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         }
     }
 
+    /**
+     * 检查字节上限, store中没有数据时总是可以写入
+     */
+    private boolean checkFreeMemSize(long memsize) {
+        final long retained = retainedMemSize.get();
+        return retained <= 0 || retained + memsize <= bufferMemLimit;
+    }
+
     private long calculateSize(Event event) {
         // 直接返回binlog中的事件大小
         return event.getRawLength();
     }
 
+    private long calculateSize(List<Event> events) {
+        long size = 0;
+        for (Event event : events) {
+            size += calculateSize(event);
+        }
+        return size;
+    }
+
     private int getIndex(long sequcnce) {
         return (int) sequcnce & indexMask;
     }
@@ -627,6 +838,24 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         PUT, GET, ACK
     }
 
+    /**
+     * 一个消费者的get/ack下标
+     */
+    private static class ClientCursor {
+
+        private final AtomicLong getSequence;
+        private final AtomicLong ackSequence;
+        private final AtomicLong getMemSize;
+        private final AtomicLong ackMemSize;
+
+        ClientCursor(AtomicLong getSequence, AtomicLong ackSequence, AtomicLong getMemSize, AtomicLong ackMemSize) {
+            this.getSequence = getSequence;
+            this.ackSequence = ackSequence;
+            this.getMemSize = getMemSize;
+            this.ackMemSize = ackMemSize;
+        }
+    }
+
     // ================ setter / getter ==================
     public int getBufferSize() {
         return this.bufferSize;
@@ -640,6 +869,14 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         this.bufferMemUnit = bufferMemUnit;
     }
 
+    public void setBufferMemLimit(long bufferMemLimit) {
+        this.bufferMemLimit = bufferMemLimit;
+    }
+
+    public long getBufferMemLimit() {
+        return bufferMemLimit;
+    }
+
     public void setBatchMode(BatchMode batchMode) {
         this.batchMode = batchMode;
     }
@@ -648,6 +885,10 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         this.ddlIsolation = ddlIsolation;
     }
 
+    public void setWaitMode(WaitMode waitMode) {
+        this.waitMode = waitMode;
+    }
+
     public boolean isRaw() {
         return raw;
     }
@@ -672,6 +913,14 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         return ackMemSize;
     }
 
+    public AtomicLong getRetainedMemSize() {
+        return retainedMemSize;
+    }
+
+    public AtomicLong getPeakRetainedMemSize() {
+        return peakRetainedMemSize;
+    }
+
     public BatchMode getBatchMode() {
         return batchMode;
     }
@@ -0,0 +1,26 @@
+package com.alibaba.otter.canal.store.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 填充了缓存行的AtomicLong, 避免put/get/ack几个下标之间的伪共享
+ *
+ * @since 1.1.5
+ */
+class PaddedAtomicLong extends AtomicLong {
+
+    private static final long serialVersionUID = -3415778863941386253L;
+
+    volatile long             p1, p2, p3, p4, p5, p6 = 7L;
+
+    PaddedAtomicLong(long initialValue){
+        super(initialValue);
+    }
+
+    /**
+     * 避免填充字段被优化掉
+     */
+    long sumPaddingToPreventOptimisation() {
+        return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+}
@@ -0,0 +1,183 @@
+package com.alibaba.otter.canal.store.memory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alibaba.otter.canal.store.model.WaitMode;
+
+/**
+ * put/get等待条件满足的策略, 参考disruptor的WaitStrategy
+ *
+ * @since 1.1.5
+ */
+abstract class WaitStrategy {
+
+    /**
+     * 等待的条件, 实现需要是无锁的
+     */
+    interface Barrier {
+
+        boolean isAvailable();
+    }
+
+    static WaitStrategy create(WaitMode mode) {
+        switch (mode) {
+            case SLEEPING:
+                return new SleepingWaitStrategy();
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            default:
+                return new BlockingWaitStrategy();
+        }
+    }
+
+    /**
+     * 一直等待直到barrier可用
+     */
+    abstract void waitFor(Barrier barrier) throws InterruptedException;
+
+    /**
+     * 等待barrier可用或者超时, 返回barrier是否可用
+     */
+    abstract boolean waitFor(Barrier barrier, long nanos) throws InterruptedException;
+
+    /**
+     * barrier状态发生变化之后通知等待的线程
+     */
+    abstract void signalAll();
+
+    /**
+     * 基于lock/condition, 没有等待线程时signalAll不会加锁
+     */
+    static class BlockingWaitStrategy extends WaitStrategy {
+
+        private final ReentrantLock lock    = new ReentrantLock();
+        private final Condition     changed = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger(0);
+
+        void waitFor(Barrier barrier) throws InterruptedException {
+            if (barrier.isAvailable()) {
+                return;
+            }
+
+            waiters.incrementAndGet();
+            try {
+                lock.lockInterruptibly();
+                try {
+                    while (!barrier.isAvailable()) {
+                        changed.await();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+
+        boolean waitFor(Barrier barrier, long nanos) throws InterruptedException {
+            if (barrier.isAvailable()) {
+                return true;
+            }
+
+            waiters.incrementAndGet();
+            try {
+                lock.lockInterruptibly();
+                try {
+                    while (!barrier.isAvailable()) {
+                        if (nanos <= 0) {
+                            return false;
+                        }
+                        nanos = changed.awaitNanos(nanos);
+                    }
+                    return true;
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+
+        void signalAll() {
+            // 先更新下标再检查waiters, 与等待线程先增加waiters再检查barrier配合, 不会丢失通知
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 基于自旋的等待, 不需要通知
+     */
+    abstract static class SpinWaitStrategy extends WaitStrategy {
+
+        static final int SPIN_TRIES = 100;
+        static final int MAX_TRIES  = 1024;
+
+        void waitFor(Barrier barrier) throws InterruptedException {
+            int counter = 0;
+            while (!barrier.isAvailable()) {
+                idle(counter);
+                counter = counter < MAX_TRIES ? counter + 1 : counter;
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        boolean waitFor(Barrier barrier, long nanos) throws InterruptedException {
+            long deadline = System.nanoTime() + nanos;
+            int counter = 0;
+            while (!barrier.isAvailable()) {
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                idle(counter);
+                counter = counter < MAX_TRIES ? counter + 1 : counter;
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        }
+
+        void signalAll() {
+            // do nothing
+        }
+
+        abstract void idle(int counter);
+    }
+
+    static class YieldingWaitStrategy extends SpinWaitStrategy {
+
+        void idle(int counter) {
+            if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    }
+
+    static class SleepingWaitStrategy extends SpinWaitStrategy {
+
+        private static final int  YIELD_TRIES = 100;
+        private static final long SLEEP_NANOS = 100 * 1000L;
+
+        void idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                return;
+            } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+    }
+}
@@ -15,27 +15,33 @@ import com.google.protobuf.ByteString;
 /**
  * store存储数据对象
  *
+ * <pre>
+ * 每个instance的ringbuffer会常驻大量的Event, 尽量压缩单个对象的大小:
+ * 1. journalName/gtid通过instance的字典复用同一个String对象, 同一个binlog文件/事务内的Event不再各自持有一份
+ * 2. entryType/eventType使用protobuf number保存为byte, serverId/rawLength保存为int
+ * 3. rawEntry与entry只会存在一个, 共用payload字段
+ * </pre>
+ *
  * @author jianghang 2012-7-13 下午03:03:03
  */
 public class Event implements Serializable {
 
     private static final long serialVersionUID = 1333330351758762739L;
+    // 与parser中延迟构造RowChange的header标记保持一致
+    private static final String LAZY_ROW_CHANGE = "lazyRowChange";
+    private static final byte NONE_TYPE = -1;
 
     private LogIdentity logIdentity;                            // 记录数据产生的来源
-    private ByteString rawEntry;
-
-    private long executeTime;
-    private EntryType entryType;
+    private Object payload;                                     // ByteString(raw模式)或者CanalEntry.Entry
     private String journalName;
-    private long position;
-    private long serverId;
-    private EventType eventType;
     private String gtid;
-    private long rawLength;
+    private long executeTime;
+    private long position;
+    private int serverId;                                       // mysql的server_id为unsigned int
+    private int rawLength;
     private int rowsCount;
-
-    // ==== https://github.com/alibaba/canal/issues/1019
-    private CanalEntry.Entry entry;
+    private byte entryType = NONE_TYPE;
+    private byte eventType = NONE_TYPE;
 
     public Event() {
     }
@@ -45,34 +51,58 @@ public class Event implements Serializable {
     }
 
     public Event(LogIdentity logIdentity, CanalEntry.Entry entry, boolean raw) {
+        this(logIdentity, entry, raw, null);
+    }
+
+    /**
+     * @param dictionary journalName/gtid的字典, 为null时不做复用
+     * @since 1.1.5
+     */
+    public Event(LogIdentity logIdentity, CanalEntry.Entry entry, boolean raw, Dictionary dictionary) {
         this.logIdentity = logIdentity;
-        this.entryType = entry.getEntryType();
-        this.executeTime = entry.getHeader().getExecuteTime();
-        this.journalName = entry.getHeader().getLogfileName();
-        this.position = entry.getHeader().getLogfileOffset();
-        this.serverId = entry.getHeader().getServerId();
-        this.gtid = entry.getHeader().getGtid();
-        this.eventType = entry.getHeader().getEventType();
-        if (entryType == EntryType.ROWDATA) {
-            List<CanalEntry.Pair> props = entry.getHeader().getPropsList();
+        setEntryType(entry.getEntryType());
+        CanalEntry.Header header = entry.getHeader();
+        this.executeTime = header.getExecuteTime();
+        if (dictionary != null) {
+            this.journalName = dictionary.journalName(header.getLogfileName());
+            this.gtid = dictionary.gtid(header.getGtid());
+        } else {
+            this.journalName = header.getLogfileName();
+            this.gtid = header.getGtid();
+        }
+        this.position = header.getLogfileOffset();
+        setServerId(header.getServerId());
+        setEventType(header.getEventType());
+        boolean lazy = false;
+        if (entry.getEntryType() == EntryType.ROWDATA) {
+            List<CanalEntry.Pair> props = header.getPropsList();
             if (props != null) {
                 for (CanalEntry.Pair p : props) {
                     if ("rowsCount".equals(p.getKey())) {
                         rowsCount = Integer.parseInt(p.getValue());
                         break;
+                    } else if (LAZY_ROW_CHANGE.equals(p.getKey())) {
+                        // 延迟构造的RowChange在解析前无法得知行数
+                        lazy = true;
+                        break;
                     }
                 }
             }
         }
 
-        if (raw) {
+        if (lazy) {
+            // 保留原始对象, 由消费端按需构造RowChange
+            this.payload = entry;
+            setRawLength(entry.getSerializedSize());
+        } else if (raw) {
             // build raw
-            this.rawEntry = entry.toByteString();
-            this.rawLength = rawEntry.size();
+            ByteString rawEntry = entry.toByteString();
+            this.payload = rawEntry;
+            setRawLength(rawEntry.size());
         } else {
-            this.entry = entry;
-            // 按照6倍的event length预估
-            this.rawLength = entry.getHeader().getEventLength() * 6;
+            this.payload = entry;
+            // 使用protobuf计算的序列化大小(会被entry缓存), 按event length预估对于大字段的偏差太大
+            setRawLength(entry.getSerializedSize());
         }
     }
 
@@ -85,11 +115,13 @@ public class Event implements Serializable {
     }
 
     public ByteString getRawEntry() {
-        return rawEntry;
+        return payload instanceof ByteString ? (ByteString) payload : null;
     }
 
     public void setRawEntry(ByteString rawEntry) {
-        this.rawEntry = rawEntry;
+        if (rawEntry != null || payload instanceof ByteString) {
+            this.payload = rawEntry;
+        }
     }
 
     public long getExecuteTime() {
@@ -101,11 +133,11 @@ public class Event implements Serializable {
     }
 
     public EntryType getEntryType() {
-        return entryType;
+        return entryType != NONE_TYPE ? EntryType.valueOf(entryType) : null;
     }
 
     public void setEntryType(EntryType entryType) {
-        this.entryType = entryType;
+        this.entryType = entryType != null ? (byte) entryType.getNumber() : NONE_TYPE;
     }
 
     public String getJournalName() {
@@ -125,11 +157,11 @@ public class Event implements Serializable {
     }
 
     public long getServerId() {
-        return serverId;
+        return serverId & 0xFFFFFFFFL;
     }
 
     public void setServerId(long serverId) {
-        this.serverId = serverId;
+        this.serverId = (int) serverId;
     }
 
     public String getGtid() {
@@ -145,15 +177,16 @@ public class Event implements Serializable {
     }
 
     public void setRawLength(long rawLength) {
-        this.rawLength = rawLength;
+        // 单个binlog event不会超过max_allowed_packet(1GB)
+        this.rawLength = (int) Math.min(rawLength, Integer.MAX_VALUE);
     }
 
     public EventType getEventType() {
-        return eventType;
+        return eventType != NONE_TYPE ? EventType.valueOf(eventType) : null;
     }
 
     public void setEventType(EventType eventType) {
-        this.eventType = eventType;
+        this.eventType = eventType != null ? (byte) eventType.getNumber() : NONE_TYPE;
     }
 
     public int getRowsCount() {
@@ -165,15 +198,65 @@ public class Event implements Serializable {
     }
 
     public CanalEntry.Entry getEntry() {
-        return entry;
+        return payload instanceof CanalEntry.Entry ? (CanalEntry.Entry) payload : null;
     }
 
     public void setEntry(CanalEntry.Entry entry) {
-        this.entry = entry;
+        if (entry != null || payload instanceof CanalEntry.Entry) {
+            this.payload = entry;
+        }
     }
 
     public String toString() {
-        return ToStringBuilder.reflectionToString(this, CanalToStringStyle.DEFAULT_STYLE);
+        return new ToStringBuilder(this, CanalToStringStyle.DEFAULT_STYLE).append("logIdentity", logIdentity)
+            .append("journalName", journalName)
+            .append("position", position)
+            .append("serverId", getServerId())
+            .append("executeTime", executeTime)
+            .append("gtid", gtid)
+            .append("entryType", getEntryType())
+            .append("eventType", getEventType())
+            .append("rawLength", rawLength)
+            .append("rowsCount", rowsCount)
+            .append("payload", payload)
+            .toString();
     }
 
+    /**
+     * journalName/gtid的字典, 由每个instance的sink持有. 连续的Event基本都来自同一个binlog文件/事务,
+     * 只复用上一次的对象, 不做全局的intern. 多个parser并发使用时只会降低复用率, 不影响正确性
+     *
+     * @since 1.1.5
+     */
+    public static class Dictionary {
+
+        private String lastJournalName;
+        private String lastGtid;
+
+        public String journalName(String value) {
+            if (value == null) {
+                return null;
+            }
+            String last = lastJournalName;
+            if (value.equals(last)) {
+                return last;
+            }
+
+            lastJournalName = value;
+            return value;
+        }
+
+        public String gtid(String value) {
+            if (value == null || value.isEmpty()) {
+                return value;
+            }
+            String last = lastGtid;
+            if (value.equals(last)) {
+                return last;
+            }
+
+            lastGtid = value;
+            return value;
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.alibaba.otter.canal.store.model;
+
+/**
+ * store中put/get阻塞等待的策略
+ *
+ * @since 1.1.5
+ */
+public enum WaitMode {
+
+    /**
+     * 基于lock/condition阻塞等待, cpu占用最低
+     */
+    BLOCKING,
+
+    /**
+     * 自旋后yield, 最后park一小段时间, 在延迟和cpu占用之间折中
+     */
+    SLEEPING,
+
+    /**
+     * 自旋后yield, 延迟最低, 但是等待时会占满一个cpu
+     */
+    YIELDING
+}
@@ -0,0 +1,119 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventSegmentTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private File                 dir;
+
+    @Before
+    public void setUp() {
+        dir = new File(System.getProperty("java.io.tmpdir"), "canal_segment_" + System.nanoTime());
+        dir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        EventSegment segment = EventSegment.create(dir, 100, 64 * 1024, 4);
+        for (int i = 0; i < 50; i++) {
+            byte[] data = ("event-" + i).getBytes(UTF_8);
+            Assert.assertTrue(segment.hasRemaining(data.length));
+            segment.append(data, data.length);
+        }
+
+        Assert.assertEquals(50, segment.getCount());
+        Assert.assertEquals(149, segment.lastSequence());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals("event-" + i, read(segment, segment.offsetOf(100 + i)));
+        }
+
+        // 顺序读取
+        int offset = segment.offsetOf(110);
+        for (int i = 10; i < 50; i++) {
+            Assert.assertEquals("event-" + i, read(segment, offset));
+            offset = segment.nextOffset(offset);
+        }
+        Assert.assertEquals(segment.getWritePosition(), offset);
+        segment.close();
+    }
+
+    @Test
+    public void testLoadAndTruncate() throws Exception {
+        EventSegment segment = EventSegment.create(dir, 0, 64 * 1024, 4);
+        for (int i = 0; i < 30; i++) {
+            byte[] data = ("event-" + i).getBytes(UTF_8);
+            segment.append(data, data.length);
+        }
+        segment.force();
+        segment.close();
+
+        segment = EventSegment.load(dir, 0, 4);
+        Assert.assertEquals(30, segment.getCount());
+        Assert.assertEquals("event-29", read(segment, segment.offsetOf(29)));
+
+        segment.truncate(17);
+        Assert.assertEquals(18, segment.getCount());
+        byte[] data = "event-new".getBytes(UTF_8);
+        segment.append(data, data.length);
+        Assert.assertEquals("event-new", read(segment, segment.offsetOf(18)));
+        segment.close();
+
+        segment = EventSegment.load(dir, 0, 4);
+        Assert.assertEquals(19, segment.getCount());
+        Assert.assertEquals("event-17", read(segment, segment.offsetOf(17)));
+        Assert.assertEquals("event-new", read(segment, segment.offsetOf(18)));
+        segment.close();
+    }
+
+    @Test
+    public void testLoadWithTornRecord() throws Exception {
+        EventSegment segment = EventSegment.create(dir, 0, 64 * 1024, 4);
+        for (int i = 0; i < 10; i++) {
+            byte[] data = ("event-" + i).getBytes(UTF_8);
+            segment.append(data, data.length);
+        }
+        int lastOffset = segment.offsetOf(9);
+        segment.force();
+        segment.close();
+
+        // 模拟最后一条记录只写了一半
+        RandomAccessFile raf = new RandomAccessFile(new File(dir, EventSegment.fileName(0) + EventSegment.LOG_SUFFIX),
+            "rw");
+        raf.seek(lastOffset + EventSegment.HEADER_SIZE);
+        raf.write(0);
+        raf.close();
+
+        segment = EventSegment.load(dir, 0, 4);
+        Assert.assertEquals(9, segment.getCount());
+        Assert.assertEquals(lastOffset, segment.getWritePosition());
+        Assert.assertEquals("event-8", read(segment, segment.offsetOf(8)));
+        segment.delete();
+    }
+
+    private String read(EventSegment segment, int offset) {
+        ByteBuffer buffer = segment.read(offset);
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return new String(data, UTF_8);
+    }
+}
@@ -0,0 +1,172 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.position.LogIdentity;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试下file store的put/get/ack以及重启恢复
+ */
+public class FileEventStoreTest {
+
+    private static final String MYSQL_ADDRESS = "127.0.0.1";
+    private File                dataDir;
+
+    @Before
+    public void setUp() {
+        dataDir = new File(System.getProperty("java.io.tmpdir"), "canal_file_store_" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() {
+        delete(dataDir);
+    }
+
+    @Test
+    public void testPutGetAck() {
+        FileEventStore eventStore = buildStore();
+        eventStore.start();
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, EntryType.ROWDATA)));
+        }
+
+        LogPosition first = eventStore.getFirstPosition();
+        Assert.assertEquals(first, CanalEventUtils.createPosition(buildEvent("1", 0, EntryType.ROWDATA)));
+
+        Events<Event> events = eventStore.tryGet(first, 40);
+        Assert.assertEquals(40, events.getEvents().size());
+        Assert.assertEquals(39L, events.getEvents().get(39).getPosition());
+        Assert.assertNotNull(events.getEvents().get(0).getRawEntry());
+        Assert.assertEquals(MYSQL_ADDRESS, events.getEvents()
+            .get(0)
+            .getLogIdentity()
+            .getSourceAddress()
+            .getAddress()
+            .getHostAddress());
+
+        // rollback后重新获取
+        eventStore.rollback();
+        events = eventStore.tryGet(first, 40);
+        Assert.assertEquals(40, events.getEvents().size());
+
+        eventStore.ack(events.getPositionRange().getEnd());
+        Assert.assertEquals(39L, eventStore.getAckSequence().get());
+        events = eventStore.tryGet(events.getPositionRange().getEnd(), 100);
+        Assert.assertEquals(60, events.getEvents().size());
+        Assert.assertEquals(40L, events.getEvents().get(0).getPosition());
+        eventStore.stop();
+    }
+
+    @Test
+    public void testSegmentRollAndRetain() {
+        FileEventStore eventStore = buildStore();
+        eventStore.setSegmentSize(1024);
+        eventStore.setMaxSegments(4);
+        eventStore.start();
+
+        List<Event> batch = new ArrayList<Event>();
+        int count = 0;
+        while (eventStore.tryPut(buildEvent("1", count, EntryType.ROWDATA))) {
+            count++;
+        }
+        Assert.assertTrue(count > 0);
+        Assert.assertEquals(count - 1, eventStore.getPutSequence().get());
+
+        // ack一部分之后可以继续写入
+        Events<Event> events = eventStore.tryGet(null, count);
+        Assert.assertEquals(count, events.getEvents().size());
+        eventStore.ack(events.getPositionRange().getEnd());
+        batch.add(buildEvent("1", count, EntryType.ROWDATA));
+        Assert.assertTrue(eventStore.tryPut(batch));
+        Assert.assertEquals(count, eventStore.getPutSequence().get());
+
+        LogPosition first = eventStore.getFirstPosition();
+        Assert.assertEquals(first, CanalEventUtils.createPosition(buildEvent("1", count - 1, EntryType.ROWDATA)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testRecover() {
+        FileEventStore eventStore = buildStore();
+        eventStore.setSegmentSize(4096);
+        eventStore.start();
+
+        for (int i = 0; i < 50; i++) {
+            eventStore.tryPut(buildEvent("1", i, i % 10 == 9 ? EntryType.TRANSACTIONEND : EntryType.ROWDATA));
+        }
+        // 最后一个事务不完整
+        for (int i = 50; i < 55; i++) {
+            eventStore.tryPut(buildEvent("1", i, EntryType.ROWDATA));
+        }
+
+        Events<Event> events = eventStore.tryGet(null, 20);
+        eventStore.ack(events.getPositionRange().getEnd());
+        eventStore.stop();
+
+        eventStore = buildStore();
+        eventStore.setSegmentSize(4096);
+        eventStore.start();
+        // 截断到最后一个事务尾, ack位点保留
+        Assert.assertEquals(49L, eventStore.getPutSequence().get());
+        Assert.assertEquals(19L, eventStore.getAckSequence().get());
+        Assert.assertEquals(eventStore.getLatestPosition(),
+            CanalEventUtils.createPosition(buildEvent("1", 49, EntryType.TRANSACTIONEND), true));
+        Assert.assertEquals(eventStore.getFirstPosition(),
+            CanalEventUtils.createPosition(buildEvent("1", 19, EntryType.TRANSACTIONEND)));
+
+        events = eventStore.tryGet(eventStore.getFirstPosition(), 100);
+        Assert.assertEquals(30, events.getEvents().size());
+        Assert.assertEquals(20L, events.getEvents().get(0).getPosition());
+        Assert.assertEquals(49L, events.getEvents().get(29).getPosition());
+        eventStore.stop();
+    }
+
+    private FileEventStore buildStore() {
+        FileEventStore eventStore = new FileEventStore();
+        eventStore.setDestination("example");
+        eventStore.setDataDir(dataDir.getPath());
+        eventStore.setBatchMode(BatchMode.ITEMSIZE);
+        return eventStore;
+    }
+
+    private Event buildEvent(String binlogFile, long offset, EntryType entryType) {
+        Header.Builder headerBuilder = Header.newBuilder();
+        headerBuilder.setLogfileName(binlogFile);
+        headerBuilder.setLogfileOffset(offset);
+        headerBuilder.setExecuteTime(offset + 1);
+        headerBuilder.setEventLength(1024);
+        Entry.Builder entryBuilder = Entry.newBuilder();
+        entryBuilder.setHeader(headerBuilder.build());
+        entryBuilder.setEntryType(entryType);
+        Entry entry = entryBuilder.build();
+
+        return new Event(new LogIdentity(new InetSocketAddress(MYSQL_ADDRESS, 3306), 1234L), entry);
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,61 @@
+package com.alibaba.otter.canal.store.memory.buffer;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试bufferMemLimit字节上限
+ */
+public class MemoryEventStoreMemLimitTest extends MemoryEventStoreBase {
+
+    @Test
+    public void testPutExceedMemLimit() {
+        long eventSize = buildEvent("1", 1L, 1L).getRawLength();
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(16);
+        eventStore.setBufferMemLimit(eventSize * 3);
+        eventStore.start();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        // 槽位足够, 但超过了字节上限
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 4L)));
+        Assert.assertEquals(eventSize * 3, eventStore.getRetainedMemSize().get());
+
+        Events<Event> result = eventStore.tryGet(null, 2);
+        Assert.assertEquals(2, result.getEvents().size());
+        eventStore.ack(result.getPositionRange().getEnd(), result.getPositionRange().getEndSeq());
+        Assert.assertEquals(eventSize, eventStore.getRetainedMemSize().get());
+
+        Assert.assertTrue(eventStore.tryPut(Arrays.asList(buildEvent("1", 1L, 4L), buildEvent("1", 1L, 5L))));
+        Assert.assertEquals(eventSize * 3, eventStore.getRetainedMemSize().get());
+        Assert.assertEquals(eventSize * 3, eventStore.getPeakRetainedMemSize().get());
+        eventStore.stop();
+    }
+
+    @Test
+    public void testOnePutExceedMemLimit() {
+        Event event = buildEvent("1", 1L, 1L);
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(16);
+        eventStore.setBufferMemLimit(event.getRawLength() - 1);
+        eventStore.start();
+
+        // store为空时, 超过上限的单条记录也允许放入
+        Assert.assertTrue(eventStore.tryPut(event));
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 2L)));
+
+        Events<Event> result = eventStore.tryGet(null, 1);
+        eventStore.ack(result.getPositionRange().getEnd());
+        Assert.assertEquals(0, eventStore.getRetainedMemSize().get());
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 2L)));
+        eventStore.stop();
+    }
+}
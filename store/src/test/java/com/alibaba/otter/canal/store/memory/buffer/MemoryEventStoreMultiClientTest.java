@@ -0,0 +1,180 @@
+package com.alibaba.otter.canal.store.memory.buffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试下多个client独立消费
+ */
+public class MemoryEventStoreMultiClientTest extends MemoryEventStoreBase {
+
+    private ClientIdentity clientA = new ClientIdentity("example", (short) 1001);
+    private ClientIdentity clientB = new ClientIdentity("example", (short) 1002);
+
+    @Test
+    public void testIndependentCursor() {
+        int bufferSize = 16;
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> eventsA = eventStore.tryGet(clientA, first, bufferSize);
+        Events<Event> eventsB = eventStore.tryGet(clientB, first, bufferSize / 2);
+        Assert.assertEquals(bufferSize, eventsA.getEvents().size());
+        Assert.assertEquals(bufferSize / 2, eventsB.getEvents().size());
+        Assert.assertEquals(eventsA.getPositionRange().getStart(), eventsB.getPositionRange().getStart());
+
+        // a全部ack, 但b未ack, 不能回收
+        eventStore.ack(clientA, eventsA.getPositionRange().getEnd(), eventsA.getPositionRange().getEndSeq());
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+        Assert.assertEquals(-1L, eventStore.getAckSequence().get());
+
+        // b ack一半, 回收一半
+        eventStore.ack(clientB, eventsB.getPositionRange().getEnd(), eventsB.getPositionRange().getEndSeq());
+        Assert.assertEquals(bufferSize / 2 - 1, eventStore.getAckSequence().get());
+        for (int i = bufferSize; i < bufferSize + bufferSize / 2; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize * 2)));
+
+        eventsA = eventStore.tryGet(clientA, eventsA.getPositionRange().getEnd(), bufferSize);
+        eventsB = eventStore.tryGet(clientB, eventsB.getPositionRange().getEnd(), bufferSize);
+        Assert.assertEquals(bufferSize / 2, eventsA.getEvents().size());
+        Assert.assertEquals(bufferSize, eventsB.getEvents().size());
+        Assert.assertEquals(eventsA.getPositionRange().getEnd(), eventsB.getPositionRange().getEnd());
+        Assert.assertEquals(eventsA.getPositionRange().getEnd(),
+            CanalEventUtils.createPosition(buildEvent("1", 1L, bufferSize + bufferSize / 2)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testRollbackAndUnsubscribe() {
+        int bufferSize = 16;
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> eventsA = eventStore.tryGet(clientA, first, bufferSize);
+        Events<Event> eventsB = eventStore.tryGet(clientB, first, 4);
+        Assert.assertEquals(4, eventsB.getEvents().size());
+
+        // b回滚不影响a
+        eventStore.rollback(clientB);
+        eventsB = eventStore.tryGet(clientB, first, bufferSize);
+        Assert.assertEquals(bufferSize, eventsB.getEvents().size());
+        Assert.assertEquals(0, eventStore.tryGet(clientA, eventsA.getPositionRange().getEnd(), bufferSize)
+            .getEvents()
+            .size());
+
+        eventStore.ack(clientA, eventsA.getPositionRange().getEnd(), eventsA.getPositionRange().getEndSeq());
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+
+        // b取消订阅之后, 按a的ack位置回收
+        eventStore.unsubscribe(clientB);
+        Assert.assertEquals(bufferSize - 1, eventStore.getAckSequence().get());
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testSubscribe() {
+        int bufferSize = 16;
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+
+        // a订阅之后还未get, b的ack不能回收a未消费的数据
+        Position first = eventStore.getFirstPosition();
+        eventStore.subscribe(clientA, first);
+        Events<Event> eventsB = eventStore.tryGet(clientB, first, bufferSize);
+        eventStore.ack(clientB, eventsB.getPositionRange().getEnd(), eventsB.getPositionRange().getEndSeq());
+        Assert.assertEquals(-1L, eventStore.getAckSequence().get());
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+
+        // 重复订阅保留已有的下标
+        Events<Event> eventsA = eventStore.tryGet(clientA, first, 4);
+        eventStore.subscribe(clientA, eventsA.getPositionRange().getEnd());
+        Assert.assertEquals(CanalEventUtils.createPosition(buildEvent("1", 1L, 5L)),
+            eventStore.tryGet(clientA, eventsA.getPositionRange().getEnd(), 4).getPositionRange().getStart());
+        eventStore.unsubscribe(clientA);
+        Assert.assertEquals(bufferSize - 1, eventStore.getAckSequence().get());
+
+        // 从client的ack位置开始消费
+        eventStore.unsubscribe(clientB);
+        for (int i = bufferSize; i < bufferSize + 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        eventStore.subscribe(clientA, CanalEventUtils.createPosition(buildEvent("1", 1L, 1L + bufferSize + 1)));
+        eventStore.subscribe(clientB, null);
+        eventsA = eventStore.tryGet(clientA, null, bufferSize);
+        eventsB = eventStore.tryGet(clientB, null, bufferSize);
+        Assert.assertEquals(2, eventsA.getEvents().size());
+        Assert.assertEquals(4, eventsB.getEvents().size());
+        Assert.assertEquals(eventsA.getPositionRange().getStart(),
+            CanalEventUtils.createPosition(buildEvent("1", 1L, 1L + bufferSize + 2)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testWaitFor() throws InterruptedException {
+        int bufferSize = 16;
+        final MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        Assert.assertFalse(eventStore.waitFor(clientA, null, 4, 10, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        Assert.assertTrue(eventStore.waitFor(clientA, null, 4, 10, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(eventStore.waitFor(clientA, null, 8, 10, TimeUnit.MILLISECONDS));
+
+        // 等待不会移动get下标
+        Position first = eventStore.getFirstPosition();
+        Events<Event> eventsA = eventStore.tryGet(clientA, first, bufferSize);
+        Assert.assertEquals(4, eventsA.getEvents().size());
+
+        // put之后唤醒阻塞的等待
+        Thread putThread = new Thread(new Runnable() {
+
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                eventStore.tryPut(buildEvent("1", 1L, 5L));
+            }
+        });
+        putThread.start();
+        eventStore.waitFor(clientA, eventsA.getPositionRange().getEnd(), 1);
+        Assert.assertEquals(1, eventStore.tryGet(clientA, eventsA.getPositionRange().getEnd(), bufferSize)
+            .getEvents()
+            .size());
+        putThread.join();
+        eventStore.stop();
+    }
+}
@@ -0,0 +1,99 @@
+package com.alibaba.otter.canal.store.memory.buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+import com.alibaba.otter.canal.store.model.WaitMode;
+
+/**
+ * 一个producer, 1/2/4个consumer(独立的client下标)下的put/get/ack吞吐
+ */
+public class MemoryEventStorePerformanceTest extends MemoryEventStoreBase {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int BATCH_SIZE  = 1000;
+
+    public static void main(String args[]) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5 * 1000 * 1000;
+        MemoryEventStorePerformanceTest test = new MemoryEventStorePerformanceTest();
+        for (WaitMode waitMode : WaitMode.values()) {
+            for (int consumers : new int[] { 1, 2, 4 }) {
+                test.run(waitMode, consumers, count);
+            }
+        }
+    }
+
+    private void run(WaitMode waitMode, int consumers, final int count) throws Exception {
+        final MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(BUFFER_SIZE);
+        eventStore.setWaitMode(waitMode);
+        eventStore.start();
+
+        // 预先构造数据, 不计入耗时
+        final List<Event> events = new ArrayList<Event>(BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            events.add(buildEvent("mysql-bin.000001", i, i));
+        }
+
+        final CountDownLatch latch = new CountDownLatch(consumers);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < consumers; i++) {
+            final ClientIdentity clientIdentity = new ClientIdentity("example", (short) (1001 + i));
+            threads.add(new Thread(new Runnable() {
+
+                public void run() {
+                    try {
+                        long received = 0;
+                        Position position = null;
+                        while (received < count) {
+                            Events<Event> result = eventStore.get(clientIdentity,
+                                position,
+                                BATCH_SIZE,
+                                100,
+                                TimeUnit.MILLISECONDS);
+                            if (result.getEvents().isEmpty()) {
+                                continue;
+                            }
+
+                            position = result.getPositionRange().getEnd();
+                            eventStore.ack(clientIdentity, position, result.getPositionRange().getEndSeq());
+                            received += result.getEvents().size();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }, "consumer-" + i));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        List<Event> batch = new ArrayList<Event>(100);
+        for (int i = 0; i < count; i++) {
+            // ringbuffer中的位置循环复用同一批event
+            batch.add(events.get(i & (BUFFER_SIZE - 1)));
+            if (batch.size() == 100 || i == count - 1) {
+                eventStore.put(batch);
+                batch = new ArrayList<Event>(100);
+            }
+        }
+        latch.await();
+        long cost = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+        eventStore.stop();
+
+        System.out.println(waitMode + " consumers : " + consumers + " , total : " + count + " , cost : " + cost
+                           + " , tps : " + (count * 1000L / cost));
+    }
+}
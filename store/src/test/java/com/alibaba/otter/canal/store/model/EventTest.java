@@ -0,0 +1,65 @@
+package com.alibaba.otter.canal.store.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+
+public class EventTest {
+
+    @Test
+    public void testPackedFields() {
+        Event event = new Event(null, buildEntry(new String("mysql-bin.000001"), 4L, 0xFFFFFFF0L), true);
+        Assert.assertEquals("mysql-bin.000001", event.getJournalName());
+        Assert.assertEquals(4L, event.getPosition());
+        Assert.assertEquals(0xFFFFFFF0L, event.getServerId());
+        Assert.assertEquals(EntryType.ROWDATA, event.getEntryType());
+        Assert.assertEquals(EventType.INSERT, event.getEventType());
+        Assert.assertNotNull(event.getRawEntry());
+        Assert.assertNull(event.getEntry());
+        Assert.assertEquals(event.getRawEntry().size(), event.getRawLength());
+
+        event.setEventType(null);
+        Assert.assertNull(event.getEventType());
+        // 清理payload之后位点信息仍然保留
+        event.setEntry(null);
+        Assert.assertNotNull(event.getRawEntry());
+        event.setRawEntry(null);
+        Assert.assertNull(event.getRawEntry());
+        Assert.assertEquals(4L, event.getPosition());
+    }
+
+    @Test
+    public void testShareJournalName() {
+        Event.Dictionary dictionary = new Event.Dictionary();
+        Event first = new Event(null, buildEntry(new String("mysql-bin.000002"), 4L, 1L), false, dictionary);
+        Event second = new Event(null, buildEntry(new String("mysql-bin.000002"), 8L, 1L), false, dictionary);
+        Assert.assertSame(first.getJournalName(), second.getJournalName());
+        Assert.assertNotNull(second.getEntry());
+        Assert.assertNull(second.getRawEntry());
+
+        // 不同instance的字典互不影响
+        Event other = new Event(null,
+            buildEntry(new String("mysql-bin.000002"), 4L, 1L),
+            false,
+            new Event.Dictionary());
+        Assert.assertEquals(first.getJournalName(), other.getJournalName());
+        Assert.assertNotSame(first.getJournalName(), other.getJournalName());
+    }
+
+    private static Entry buildEntry(String binlogFile, long offset, long serverId) {
+        Header.Builder headerBuilder = Header.newBuilder();
+        headerBuilder.setLogfileName(binlogFile);
+        headerBuilder.setLogfileOffset(offset);
+        headerBuilder.setServerId(serverId);
+        headerBuilder.setExecuteTime(1L);
+        headerBuilder.setEventType(EventType.INSERT);
+        Entry.Builder entryBuilder = Entry.newBuilder();
+        entryBuilder.setHeader(headerBuilder.build());
+        entryBuilder.setEntryType(EntryType.ROWDATA);
+        return entryBuilder.build();
+    }
+}